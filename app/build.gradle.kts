@@ -38,6 +38,12 @@ android {
     kotlinOptions {
         jvmTarget = "1.8"
     }
+    testOptions {
+        // android.util.Log is called by the classes under test
+        unitTests.isReturnDefaultValues = true
+        // ./gradlew test -Dbenchmark=true prints the timings of the benchmark tests
+        unitTests.all { it.systemProperty("benchmark", System.getProperty("benchmark") ?: "false") }
+    }
 }
 
 dependencies {
@@ -29,6 +29,7 @@ import android.util.Log;
 
 import org.xbmc.android.util.ClientFactory;
 import org.xbmc.android.util.Crc32;
+import org.xbmc.android.util.PendingRequest;
 import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient;
@@ -44,7 +45,9 @@ import org.xbmc.api.type.ThumbSize;
 import org.xbmc.httpapi.WifiStateException;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import retrofit2.Response;
 
@@ -80,6 +83,11 @@ public abstract class AbstractManager implements INotifiableManager {
 
     protected List<Runnable> failedRequests = new ArrayList<Runnable>();
 
+    /**
+     * Commands running on the request pool, cancelled when the activity is left
+     */
+    private final ArrayList<Future<?>> mPending = new ArrayList<Future<?>>();
+
     /**
      * Synchronously downloads a cover and stores on on disk cache.
      *
@@ -110,6 +118,48 @@ public abstract class AbstractManager implements INotifiableManager {
 
     public void postActivity() {
         AbstractThread.quitThreads();
+        cancelPending();
+    }
+
+    /**
+     * Runs a command on the shared request pool instead of this manager's
+     * thread, so a slow library request doesn't hold up the commands posted
+     * after it. The command is cancelled by {@link #postActivity()}.
+     *
+     * @param command Command to run
+     */
+    protected void submit(Command<?> command) {
+        track(PendingRequest.submit(command));
+    }
+
+    /**
+     * Keeps a request started on the request pool, so it's cancelled by
+     * {@link #postActivity()}.
+     *
+     * @param pending Handle of the request
+     */
+    void track(Future<?> pending) {
+        synchronized (mPending) {
+            for (Iterator<Future<?>> i = mPending.iterator(); i.hasNext(); ) {
+                if (i.next().isDone()) {
+                    i.remove();
+                }
+            }
+            mPending.add(pending);
+        }
+    }
+
+    /**
+     * Cancels all commands of this manager running on the request pool,
+     * including the HTTP exchanges in flight.
+     */
+    public void cancelPending() {
+        synchronized (mPending) {
+            for (Future<?> pending : mPending) {
+                pending.cancel(true);
+            }
+            mPending.clear();
+        }
     }
 
     /**
@@ -160,12 +210,27 @@ public abstract class AbstractManager implements INotifiableManager {
         return ClientFactory.getTvShowClient(this, context);
     }
 
+    /**
+     * Returns the manager reference to pass to the clients for list results.
+     * If the response wants partial results, clients will post them while
+     * the list is still being parsed.
+     *
+     * @param response Response object
+     * @return Manager reference
+     */
+    protected <E> INotifiableManager chunked(DataResponse<ArrayList<E>> response) {
+        return response.getChunkSize() > 0 ? new ChunkedManager<E>(this, response) : this;
+    }
+
     /**
      * Calls the UI thread's callback code.
      *
      * @param response Response object
      */
     public void onFinish(DataResponse<?> response) {
+        if (PendingRequest.isCurrentCancelled()) {
+            return;
+        }
         if (mController != null) {
             //Log.i(TAG, "*** posting onFinish through controller");
             mController.runOnUI(response);
@@ -331,6 +396,9 @@ public abstract class AbstractManager implements INotifiableManager {
 
 
     public void onError(Exception response) {
+        if (PendingRequest.isCurrentCancelled()) {
+            return;
+        }
         if (mController != null) {
             // Directly pass the exception to the controller
             mController.onError(response);
@@ -0,0 +1,61 @@
+/*
+ *      Copyright (C) 2005-2009 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+
+package org.xbmc.android.remote2.business;
+
+import org.xbmc.api.business.DataResponse;
+
+import java.util.concurrent.Future;
+
+/**
+ * Command which only starts a non-blocking client request. The client
+ * posts the result through the manager once the request is done, the
+ * command keeps the handle so leaving the activity cancels it.
+ *
+ * @author Team XBMC
+ */
+abstract class AsyncCommand<T> extends Command<T> {
+
+    private final AbstractManager mOwner;
+
+    AsyncCommand(DataResponse<T> response, AbstractManager manager) {
+        super(response, manager);
+        mOwner = manager;
+    }
+
+    @Override
+    public void doRun() throws Exception {
+        mOwner.track(start());
+    }
+
+    /**
+     * Starts the request.
+     *
+     * @return Handle of the request
+     */
+    protected abstract Future<T> start() throws Exception;
+
+    @Override
+    boolean postsResult() {
+        return false;
+    }
+}
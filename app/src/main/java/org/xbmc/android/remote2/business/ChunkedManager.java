@@ -0,0 +1,86 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.android.remote2.business;
+
+import org.xbmc.api.business.DataResponse;
+import org.xbmc.api.business.IChunkedManager;
+
+import java.util.ArrayList;
+
+/**
+ * Passed to the clients instead of the manager itself when the response
+ * wants partial results. Every part is posted to the UI thread through
+ * {@link DataResponse#runChunk(Object, int)}; everything else is delegated to
+ * the manager.
+ *
+ * @param <E> Type of the list's items
+ * @author Team XBMC
+ */
+class ChunkedManager<E> implements IChunkedManager {
+
+    private final AbstractManager mManager;
+    private final DataResponse<ArrayList<E>> mResponse;
+
+    ChunkedManager(AbstractManager manager, DataResponse<ArrayList<E>> response) {
+        mManager = manager;
+        mResponse = response;
+    }
+
+    public int getChunkSize() {
+        return mResponse.getChunkSize();
+    }
+
+    @SuppressWarnings("unchecked")
+    public void onChunk(final ArrayList<?> rows, final int offset) {
+        if (mManager.mController != null) {
+            mManager.mController.runOnUI(new Runnable() {
+                public void run() {
+                    mResponse.runChunk((ArrayList<E>) rows, offset);
+                }
+            });
+        }
+    }
+
+    public void onFinish(DataResponse<?> response) {
+        mManager.onFinish(response);
+    }
+
+    public void onWrongConnectionState(int state, Command<?> cmd) {
+        mManager.onWrongConnectionState(state, cmd);
+    }
+
+    public void onError(Exception e) {
+        mManager.onError(e);
+    }
+
+    public void onMessage(String message) {
+        mManager.onMessage(message);
+    }
+
+    public void onMessage(int code, String message) {
+        mManager.onMessage(code, message);
+    }
+
+    public void retryAll() {
+        mManager.retryAll();
+    }
+}
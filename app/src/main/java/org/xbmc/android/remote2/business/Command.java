@@ -2,6 +2,7 @@ package org.xbmc.android.remote2.business;
 
 import android.util.Log;
 
+import org.xbmc.android.util.RequestMetrics;
 import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.httpapi.WifiStateException;
@@ -20,8 +21,6 @@ public abstract class Command<T> implements Runnable {
     private static final int ERROR_CODE = 500;
     public final INotifiableManager mManager;
     public final DataResponse<T> mResponse;
-    // TODO Disable this when not needed anymore
-    public final StackTraceElement mCaller;
     public int mRetryCount = 0;
     public long mStarted = 0;
 
@@ -29,7 +28,6 @@ public abstract class Command<T> implements Runnable {
         mManager = manager;
         mResponse = response;
         mStarted = System.currentTimeMillis();
-        mCaller = new Throwable().fillInStackTrace().getStackTrace()[2];
     }
 
     public void run() {
@@ -37,10 +35,15 @@ public abstract class Command<T> implements Runnable {
             mRetryCount++;
             Log.d("Command", "Running command counter: " + mRetryCount);
             if (mRetryCount > MAX_RETRY) return;
+            RequestMetrics.takeLastMethod(); // drops what an earlier command left
             doRun();
-            Log.i(mCaller.getClassName(), "*** " + mCaller.getMethodName() + ": " + (System.currentTimeMillis() - mStarted) + "ms");
+            // per-method latencies are kept by RequestMetrics, this is only the overall time.
+            final String method = RequestMetrics.takeLastMethod();
+            Log.i("Command", "*** " + (method != null ? method : "no call") + ": " + (System.currentTimeMillis() - mStarted) + "ms");
 
-            mManager.onFinish(mResponse);
+            if (postsResult()) {
+                mManager.onFinish(mResponse);
+            }
         } catch (WifiStateException e) {
             mManager.onWrongConnectionState(e.getState(), this);
         } catch (Exception e) {
@@ -62,4 +65,12 @@ public abstract class Command<T> implements Runnable {
 
     public abstract void doRun() throws Exception;
 
+    /**
+     * Returns false if {@link #doRun()} only starts the request and the
+     * result is posted once it's done.
+     */
+    boolean postsResult() {
+        return true;
+    }
+
 }
@@ -30,6 +30,8 @@ import org.xbmc.api.data.IControlClient;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
 import org.xbmc.api.type.SeekType;
 
+import java.util.concurrent.Future;
+
 /**
  * Asynchronously wraps the {@link org.xbmc.httpapi.client.InfoClient} class.
  *
@@ -220,10 +222,10 @@ public class ControlManager extends AbstractManager implements IControlManager,
      * @param response
      */
     public void getCurrentlyPlaying(final DataResponse<ICurrentlyPlaying> response, final Context context) {
-        mHandler.post(new Command<ICurrentlyPlaying>(response, this) {
+        mHandler.post(new AsyncCommand<ICurrentlyPlaying>(response, this) {
             @Override
-            public void doRun() throws Exception {
-                response.value = control(context).getCurrentlyPlaying(ControlManager.this);
+            protected Future<ICurrentlyPlaying> start() throws Exception {
+                return control(context).getCurrentlyPlayingAsync(ControlManager.this, response);
             }
         });
     }
@@ -65,6 +65,14 @@ public class EventClientManager implements INotifiableManager, IEventClientManag
         ClientFactory.getEventClient(this).sendButton(mapName, buttonName, repeat, down, queue, amount, axis);
     }
 
+    public void pressButton(String mapName, String buttonName, int repeatInterval) {
+        ClientFactory.getEventClient(this).pressButton(mapName, buttonName, repeatInterval);
+    }
+
+    public void releaseButton() {
+        ClientFactory.getEventClient(this).releaseButton();
+    }
+
     public void sendLog(byte loglevel, String logmessage) throws IOException {
         ClientFactory.getEventClient(this).sendLog(loglevel, logmessage);
     }
@@ -22,6 +22,7 @@
 package org.xbmc.android.remote2.business;
 
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
 
 import org.xbmc.api.presentation.INotifiableController;
@@ -101,7 +102,10 @@ public class ManagerThread extends Thread {
         Looper.prepare();
         mHandler = new Handler();
         mInfoManager.setHandler(mHandler);
-        mControlManager.setHandler(mHandler);
+        // transport commands get their own thread so they never wait behind library requests
+        final HandlerThread control = new HandlerThread("ManagerThread-Control");
+        control.start();
+        mControlManager.setHandler(new Handler(control.getLooper()));
         mMusicManager.setHandler(mHandler);
         mVideoManager.setHandler(mHandler);
         mTvShowManager.setHandler(mHandler);
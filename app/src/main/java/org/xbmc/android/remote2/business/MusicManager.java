@@ -34,12 +34,14 @@ import org.xbmc.api.info.PlayStatus;
 import org.xbmc.api.object.Album;
 import org.xbmc.api.object.Artist;
 import org.xbmc.api.object.Genre;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Song;
 import org.xbmc.api.type.SortType;
 import org.xbmc.httpapi.WifiStateException;
 import org.xbmc.jsonrpc.client.MusicClient;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 /**
  * Asynchronously wraps the {@link org.xbmc.httpapi.client.InfoClient} class.
@@ -49,17 +51,15 @@ import java.util.ArrayList;
 public class MusicManager extends AbstractManager implements IMusicManager, ISortableManager, INotifiableManager {
 
     /**
-     * Gets all albums from database
+     * Gets all compilation albums from database
      *
      * @param response Response object
      */
     public void getCompilations(final DataResponse<ArrayList<Album>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Album>>(response, this) {
+        submit(new Command<ArrayList<Album>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                final IMusicClient mc = music(context);
-                ArrayList<Integer> compilationArtistIDs = mc.getCompilationArtistIDs(MusicManager.this);
-                response.value = mc.getAlbums(MusicManager.this, compilationArtistIDs);
+                response.value = music(context).getCompilations(MusicManager.this, getSortBy(SortType.ALBUM), getSortOrder());
             }
         });
     }
@@ -70,10 +70,26 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
      * @param response Response object
      */
     public void getAlbums(final DataResponse<ArrayList<Album>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Album>>(response, this) {
+        submit(new Command<ArrayList<Album>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = music(context).getAlbums(MusicManager.this, getSortBy(SortType.ALBUM), getSortOrder());
+                response.value = music(context).getAlbums(chunked(response), getSortBy(SortType.ALBUM), getSortOrder());
+            }
+        });
+    }
+
+    /**
+     * Gets a window of all albums from database
+     *
+     * @param response Response object
+     * @param start    Position of the first album to return
+     * @param end      Position after the last album to return
+     */
+    public void getAlbums(final DataResponse<PagedList<Album>> response, final int start, final int end, final Context context) {
+        mHandler.post(new AsyncCommand<PagedList<Album>>(response, this) {
+            @Override
+            protected Future<PagedList<Album>> start() throws Exception {
+                return music(context).getAlbumsAsync(MusicManager.this, response, getSortBy(SortType.ALBUM), getSortOrder(), start, end);
             }
         });
     }
@@ -105,10 +121,10 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				onFinish(response);
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Album>>(response, this) {
+        submit(new Command<ArrayList<Album>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = music(context).getAlbums(MusicManager.this, artist, getSortBy(SortType.ALBUM), getSortOrder());
+                response.value = music(context).getAlbums(chunked(response), artist, getSortBy(SortType.ALBUM), getSortOrder());
             }
         });
     }
@@ -126,9 +142,9 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				onFinish(response);
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Album>>(response, this) {
+        submit(new Command<ArrayList<Album>>(response, this) {
             public void doRun() throws Exception {
-                response.value = music(context).getAlbums(MusicManager.this, genre, getSortBy(SortType.ALBUM), getSortOrder());
+                response.value = music(context).getAlbums(chunked(response), genre, getSortBy(SortType.ALBUM), getSortOrder());
             }
         });
     }
@@ -146,9 +162,9 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				onFinish(response);
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Song>>(response, this) {
+        submit(new Command<ArrayList<Song>>(response, this) {
             public void doRun() throws Exception {
-                response.value = music(context).getSongs(MusicManager.this, album, getSortBy(SortType.TRACK), getSortOrder());
+                response.value = music(context).getSongs(chunked(response), album, getSortBy(SortType.TRACK), getSortOrder());
             }
         });
     }
@@ -166,9 +182,9 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				onFinish(response);
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Song>>(response, this) {
+        submit(new Command<ArrayList<Song>>(response, this) {
             public void doRun() throws Exception {
-                response.value = music(context).getSongs(MusicManager.this, artist, getSortBy(SortType.ARTIST), getSortOrder());
+                response.value = music(context).getSongs(chunked(response), artist, getSortBy(SortType.ARTIST), getSortOrder());
             }
         });
     }
@@ -186,9 +202,25 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				onFinish(response);
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Song>>(response, this) {
+        submit(new Command<ArrayList<Song>>(response, this) {
             public void doRun() throws Exception {
-                response.value = music(context).getSongs(MusicManager.this, genre, getSortBy(SortType.ARTIST), getSortOrder());
+                response.value = music(context).getSongs(chunked(response), genre, getSortBy(SortType.ARTIST), getSortOrder());
+            }
+        });
+    }
+
+    /**
+     * Gets a window of all songs of a genre from database
+     *
+     * @param response Response object
+     * @param genre    Genre
+     * @param start    Position of the first song to return
+     * @param end      Position after the last song to return
+     */
+    public void getSongs(final DataResponse<PagedList<Song>> response, final Genre genre, final int start, final int end, final Context context) {
+        mHandler.post(new AsyncCommand<PagedList<Song>>(response, this) {
+            protected Future<PagedList<Song>> start() throws Exception {
+                return music(context).getSongsAsync(MusicManager.this, response, genre, getSortBy(SortType.ARTIST), getSortOrder(), start, end);
             }
         });
     }
@@ -211,7 +243,7 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				}
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Artist>>(response, this) {
+        submit(new Command<ArrayList<Artist>>(response, this) {
             public void doRun() throws Exception {
                 final boolean albumArtistsOnly = !info(context).getGuiSettingBool(MusicManager.this, GuiSettings.MusicLibrary.SHOW_COMPLATION_ARTISTS);
                 response.value = music(context).getArtists(MusicManager.this, albumArtistsOnly);
@@ -238,7 +270,7 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				}
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Artist>>(response, this) {
+        submit(new Command<ArrayList<Artist>>(response, this) {
             public void doRun() throws Exception {
                 final boolean albumArtistsOnly = !info(context).getGuiSettingBool(MusicManager.this, GuiSettings.MusicLibrary.SHOW_COMPLATION_ARTISTS);
                 response.value = music(context).getArtists(MusicManager.this, genre, albumArtistsOnly);
@@ -258,7 +290,7 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
 //				onFinish(response);
 //			}
 //		});
-        mHandler.post(new Command<ArrayList<Genre>>(response, this) {
+        submit(new Command<ArrayList<Genre>>(response, this) {
             public void doRun() throws Exception {
                 response.value = music(context).getGenres(MusicManager.this);
             }
@@ -623,7 +655,7 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
      * @param album    Album to update
      */
     public void updateAlbumInfo(final DataResponse<Album> response, final Album album, final Context context) {
-        mHandler.post(new Command<Album>(response, this) {
+        submit(new Command<Album>(response, this) {
             public void doRun() throws Exception {
                 response.value = music(context).updateAlbumInfo(MusicManager.this, album);
             }
@@ -637,7 +669,7 @@ public class MusicManager extends AbstractManager implements IMusicManager, ISor
      * @param artist   Artist to update
      */
     public void updateArtistInfo(final DataResponse<Artist> response, final Artist artist, final Context context) {
-        mHandler.post(new Command<Artist>(response, this) {
+        submit(new Command<Artist>(response, this) {
             public void doRun() throws Exception {
                 response.value = music(context).updateArtistInfo(MusicManager.this, artist);
             }
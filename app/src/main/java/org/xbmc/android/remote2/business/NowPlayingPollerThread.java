@@ -29,6 +29,7 @@ import android.os.Handler;
 import android.os.Message;
 import android.util.Log;
 
+import org.codehaus.jackson.JsonNode;
 import org.xbmc.android.util.ClientFactory;
 import org.xbmc.android.util.HostFactory;
 import org.xbmc.api.business.DataResponse;
@@ -38,7 +39,10 @@ import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
 import org.xbmc.api.data.IInfoClient;
 import org.xbmc.api.info.PlayStatus;
 import org.xbmc.api.object.Host;
+import org.xbmc.httpapi.BroadcastListener;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.NotificationClient;
+import org.xbmc.jsonrpc.client.ControlClient;
 
 import java.io.IOException;
 import java.net.MalformedURLException;
@@ -50,6 +54,13 @@ import java.util.HashSet;
  * real-time "Now playing" information. The thread will send relevant messages
  * to all subscribers. If there are no subscriptions, nothing is polled.
  * <p>
+ * With JSON-RPC, XBMC pushes player and playlist changes over its TCP
+ * notification channel. While that channel is up, XBMC is only queried when
+ * something changed and the progress in between is extrapolated locally.
+ * With the HTTP API, XBMC's UDP broadcasts are used the same way as long as
+ * they reach us. Without either, the state is polled every second. Library
+ * change notifications drop the cached library responses.
+ * <p>
  * Please remember to unsubscribe (e.g. onPause()) in order to avoid unnecessary
  * polling.
  *
@@ -66,7 +77,17 @@ public class NowPlayingPollerThread extends Thread {
     public static final int MESSAGE_PLAYLIST_ITEM_CHANGED = 667;
     public static final int MESSAGE_COVER_CHANGED = 668;
     public static final int MESSAGE_PLAYSTATE_CHANGED = 669;
+    /**
+     * Volume changed, new volume is in <code>arg1</code>. Only sent with
+     * pushed notifications.
+     */
+    public static final int MESSAGE_VOLUME_CHANGED = 670;
     private static final String TAG = "NowPlayingPollerThread";
+    private static final int POLL_INTERVAL = 1000;
+    /**
+     * Maximal time extrapolated progress is sent before XBMC is asked again
+     */
+    private static final int RESYNC_INTERVAL = 30000;
     private final HashSet<Handler> mSubscribers;
     /**
      * Since this one is kinda of its own, we use a stub as manager.
@@ -80,6 +101,35 @@ public class NowPlayingPollerThread extends Thread {
     private Bitmap mCover;
     private int mPlayList = -1;
     private int mPosition = -1;
+    /**
+     * Set by the notification channel when the player state changed
+     */
+    private final Object mChangeLock = new Object();
+    private boolean mStateChanged = false;
+    /**
+     * Last state read from XBMC and when it was read
+     */
+    private ICurrentlyPlaying mLastPlaying = null;
+    private long mLastPolled = 0;
+    /**
+     * Flags a state change on broadcasts. Progress ticks are counted locally
+     * by the listener and test packets only keep it alive, so they don't need
+     * a resync.
+     */
+    private final BroadcastListener.Listener mBroadcastListener = new BroadcastListener.Listener() {
+        public void onEvent(BroadcastListener.Event event) {
+            switch (event.id) {
+                case BroadcastListener.EVENT_ON_PROGRESS_CHANGED:
+                case BroadcastListener.EVENT_ON_ACTION:
+                case BroadcastListener.EVENT_UNKNOWN:
+                case BroadcastListener.EVENT_AVAILABLE:
+                    break;
+                default:
+                    onStateChanged();
+                    break;
+            }
+        }
+    };
 
     public NowPlayingPollerThread(final Context context) {
         mManagerStub = new INotifiableManager() {
@@ -211,75 +261,188 @@ public class NowPlayingPollerThread extends Thread {
         int currentMediaType = 0;
         IControlClient control = mControl; // use local reference for faster access
         HashSet<Handler> subscribers;
-        while (!isInterrupted()) {
-            synchronized (mSubscribers) {
-                subscribers = new HashSet<Handler>(mSubscribers);
-            }
-            if (subscribers.size() > 0) {
-				/*				if (!control.isConnected()) {
-					sendEmptyMessage(MESSAGE_CONNECTION_ERROR);
-				} else {*/
-                ICurrentlyPlaying currPlaying;
-                try {
-                    currPlaying = control.getCurrentlyPlaying(mManagerStub);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    sendEmptyMessage(MESSAGE_CONNECTION_ERROR);
-                    return;
+        final NotificationClient notifications = startNotifications();
+        final BroadcastListener broadcasts = startBroadcasts();
+        try {
+            while (!isInterrupted()) {
+                synchronized (mSubscribers) {
+                    subscribers = new HashSet<Handler>(mSubscribers);
                 }
-                currentPlayStatus = currPlaying.getPlayStatus();
-                String currentPos = currPlaying.getTitle() + currPlaying.getDuration();
-
-                // send changed status
-                if (currentPlayStatus == PlayStatus.PLAYING) {
-                    sendMessage(MESSAGE_PROGRESS_CHANGED, currPlaying);
-                    boolean coverChanged = updateNowPlayingCover();
-                    if (coverChanged) {
-                        sendMessage(MESSAGE_COVER_CHANGED, currPlaying);
+                if (subscribers.size() > 0) {
+                    final boolean changed = takeStateChanged();
+                    final long elapsed = System.currentTimeMillis() - mLastPolled;
+                    final boolean pushed = (notifications != null && notifications.isConnected()) || (broadcasts != null && broadcasts.isAvailable());
+                    if (pushed && !changed && mLastPlaying != null && elapsed < RESYNC_INTERVAL) {
+                        // nothing happened since the last poll, only the clock moved on.
+                        if (mLastPlaying.getPlayStatus() == PlayStatus.PLAYING) {
+                            sendMessage(MESSAGE_PROGRESS_CHANGED, new ExtrapolatedPlaying(mLastPlaying, elapsed));
+                        }
+                    } else {
+                        ICurrentlyPlaying currPlaying;
+                        try {
+                            currPlaying = control.getCurrentlyPlaying(mManagerStub);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                            sendEmptyMessage(MESSAGE_CONNECTION_ERROR);
+                            return;
+                        }
+                        mLastPlaying = currPlaying;
+                        mLastPolled = System.currentTimeMillis();
+                        currentPlayStatus = currPlaying.getPlayStatus();
+                        String currentPos = currPlaying.getTitle() + currPlaying.getDuration();
+
+                        // send changed status
+                        if (currentPlayStatus == PlayStatus.PLAYING) {
+                            sendMessage(MESSAGE_PROGRESS_CHANGED, currPlaying);
+                            boolean coverChanged = updateNowPlayingCover();
+                            if (coverChanged) {
+                                sendMessage(MESSAGE_COVER_CHANGED, currPlaying);
+                            }
+                        }
+
+                        // play state changed?
+                        if ((currentPlayStatus != lastPlayStatus) || (currentMediaType != currPlaying.getMediaType())) {
+                            currentMediaType = currPlaying.getMediaType();
+
+                            if (currentPlayStatus == PlayStatus.PLAYING) {
+                                mPlayList = control.getPlaylistId(mManagerStub);
+                                sendMessage(MESSAGE_PLAYSTATE_CHANGED, currPlaying);
+                            } else {
+                                sendMessage(MESSAGE_PLAYSTATE_CHANGED, currPlaying);
+                                sendMessage(MESSAGE_PROGRESS_CHANGED, currPlaying);
+                            }
+                            boolean coverChanged = updateNowPlayingCover();
+                            if (coverChanged) {
+                                sendMessage(MESSAGE_COVER_CHANGED, currPlaying);
+                            }
+                        }
+
+                        // play position changed?
+                        if (!lastPos.equals(currentPos)) {
+                            lastPos = currentPos;
+
+                            if (currPlaying.getPlaylistPosition() >= 0) {
+                                mPosition = currPlaying.getPlaylistPosition();
+                            }
+                            sendMessage(MESSAGE_PLAYLIST_ITEM_CHANGED, currPlaying);
+
+                            boolean coverChanged = updateNowPlayingCover();
+                            if (coverChanged) {
+                                sendMessage(MESSAGE_COVER_CHANGED, currPlaying);
+                            }
+                        }
+                        lastPlayStatus = currentPlayStatus;
                     }
+                } else {
+                    this.interrupt();
                 }
+                try {
+                    waitForChange(POLL_INTERVAL);
+                } catch (InterruptedException e) {
+                    sendEmptyMessage(MESSAGE_RECONFIGURE);
+                    return;
+                }
+            }
+        } finally {
+            if (notifications != null) {
+                notifications.stop();
+            }
+            if (broadcasts != null) {
+                broadcasts.removeListener(mBroadcastListener);
+            }
+        }
+    }
 
-                // play state changed?
-                if ((currentPlayStatus != lastPlayStatus) || (currentMediaType != currPlaying.getMediaType())) {
-                    currentMediaType = currPlaying.getMediaType();
+    /**
+     * Subscribes to XBMC's broadcasts if the HTTP API is used.
+     *
+     * @return Listener, null if broadcasts aren't available
+     */
+    private BroadcastListener startBroadcasts() {
+        if (!(mControl instanceof org.xbmc.httpapi.client.ControlClient)) {
+            return null;
+        }
+        final BroadcastListener broadcasts = ClientFactory.getBroadcastListener(mManagerStub);
+        if (broadcasts != null) {
+            broadcasts.addListener(mBroadcastListener);
+        }
+        return broadcasts;
+    }
 
-                    if (currentPlayStatus == PlayStatus.PLAYING) {
-                        mPlayList = control.getPlaylistId(mManagerStub);
-                        sendMessage(MESSAGE_PLAYSTATE_CHANGED, currPlaying);
-                    } else {
-                        sendMessage(MESSAGE_PLAYSTATE_CHANGED, currPlaying);
-                        sendMessage(MESSAGE_PROGRESS_CHANGED, currPlaying);
-                    }
-                    boolean coverChanged = updateNowPlayingCover();
-                    if (coverChanged) {
-                        sendMessage(MESSAGE_COVER_CHANGED, currPlaying);
+    /**
+     * Opens XBMC's notification channel if JSON-RPC is used.
+     *
+     * @return Started client, null if notifications aren't available
+     */
+    private NotificationClient startNotifications() {
+        final Host host = HostFactory.host;
+        if (host == null || !(mControl instanceof ControlClient)) {
+            return null;
+        }
+        final NotificationClient notifications = new NotificationClient(host.addr, NotificationClient.DEFAULT_PORT, new NotificationClient.Listener() {
+            public void onNotification(String method, JsonNode data) {
+                if (method.startsWith("VideoLibrary.") || method.startsWith("AudioLibrary.")) {
+                    Connection.getInstance(host.addr, host.port).getResponseCache().invalidate();
+                } else if (method.equals(NotificationClient.APPLICATION_ON_VOLUME_CHANGED)) {
+                    if (data != null && data.get("volume") != null) {
+                        sendVolume(data.get("volume").getIntValue());
                     }
+                } else {
+                    onStateChanged();
                 }
+            }
 
-                // play position changed?
-                if (!lastPos.equals(currentPos)) {
-                    lastPos = currentPos;
+            public void onConnected() {
+                onStateChanged();
+            }
 
-                    if (currPlaying.getPlaylistPosition() >= 0) {
-                        mPosition = currPlaying.getPlaylistPosition();
-                    }
-                    sendMessage(MESSAGE_PLAYLIST_ITEM_CHANGED, currPlaying);
+            public void onDisconnected() {
+                onStateChanged();
+            }
+        }, NotificationClient.PLAYER_ON_PLAY, NotificationClient.PLAYER_ON_PAUSE, NotificationClient.PLAYER_ON_STOP,
+                NotificationClient.PLAYER_ON_SEEK, NotificationClient.PLAYER_ON_SPEED_CHANGED, NotificationClient.PLAYLIST_ON_ADD,
+                NotificationClient.PLAYLIST_ON_REMOVE, NotificationClient.APPLICATION_ON_VOLUME_CHANGED,
+                NotificationClient.VIDEO_LIBRARY_ON_UPDATE, NotificationClient.VIDEO_LIBRARY_ON_REMOVE,
+                NotificationClient.VIDEO_LIBRARY_ON_SCAN_FINISHED, NotificationClient.VIDEO_LIBRARY_ON_CLEAN_FINISHED,
+                NotificationClient.AUDIO_LIBRARY_ON_UPDATE, NotificationClient.AUDIO_LIBRARY_ON_REMOVE,
+                NotificationClient.AUDIO_LIBRARY_ON_SCAN_FINISHED, NotificationClient.AUDIO_LIBRARY_ON_CLEAN_FINISHED);
+        notifications.start();
+        return notifications;
+    }
 
-                    boolean coverChanged = updateNowPlayingCover();
-                    if (coverChanged) {
-                        sendMessage(MESSAGE_COVER_CHANGED, currPlaying);
-                    }
-                }
-            } else {
-                this.interrupt();
+    private void onStateChanged() {
+        synchronized (mChangeLock) {
+            mStateChanged = true;
+            mChangeLock.notifyAll();
+        }
+    }
+
+    private boolean takeStateChanged() {
+        synchronized (mChangeLock) {
+            final boolean changed = mStateChanged;
+            mStateChanged = false;
+            return changed;
+        }
+    }
+
+    /**
+     * Waits until the next poll is due or the state changed.
+     *
+     * @param timeout Maximal time to wait in milliseconds
+     */
+    private void waitForChange(long timeout) throws InterruptedException {
+        synchronized (mChangeLock) {
+            if (!mStateChanged) {
+                mChangeLock.wait(timeout);
             }
-            try {
-                sleep(1000);
-            } catch (InterruptedException e) {
-                sendEmptyMessage(MESSAGE_RECONFIGURE);
-                return;
+        }
+    }
+
+    private void sendVolume(int volume) {
+        synchronized (mSubscribers) {
+            for (Handler handler : mSubscribers) {
+                handler.sendMessage(handler.obtainMessage(MESSAGE_VOLUME_CHANGED, volume, 0));
             }
-            lastPlayStatus = currentPlayStatus;
         }
     }
 
@@ -295,4 +458,73 @@ public class NowPlayingPollerThread extends Thread {
 
         return connection.download(pathToDownload);
     }
+
+    /**
+     * State of the last poll with the time moved on, for sending progress
+     * without asking XBMC.
+     */
+    private static class ExtrapolatedPlaying implements ICurrentlyPlaying {
+        private static final long serialVersionUID = 5324478265914613725L;
+        private final ICurrentlyPlaying mPlaying;
+        private final int mTime;
+
+        ExtrapolatedPlaying(ICurrentlyPlaying playing, long elapsed) {
+            mPlaying = playing;
+            final int time = playing.getTime() + (int) (elapsed / 1000);
+            mTime = playing.getDuration() > 0 ? Math.min(time, playing.getDuration()) : time;
+        }
+
+        public int getPlayStatus() {
+            return mPlaying.getPlayStatus();
+        }
+
+        public int getMediaType() {
+            return mPlaying.getMediaType();
+        }
+
+        public boolean isPlaying() {
+            return mPlaying.isPlaying();
+        }
+
+        public int getPlaylistPosition() {
+            return mPlaying.getPlaylistPosition();
+        }
+
+        public String getFilename() {
+            return mPlaying.getFilename();
+        }
+
+        public String getTitle() {
+            return mPlaying.getTitle();
+        }
+
+        public int getTime() {
+            return mTime;
+        }
+
+        public int getDuration() {
+            return mPlaying.getDuration();
+        }
+
+        public float getPercentage() {
+            final int duration = mPlaying.getDuration();
+            return duration > 0 ? 100f * mTime / duration : mPlaying.getPercentage();
+        }
+
+        public String getArtist() {
+            return mPlaying.getArtist();
+        }
+
+        public String getAlbum() {
+            return mPlaying.getAlbum();
+        }
+
+        public int getWidth() {
+            return mPlaying.getWidth();
+        }
+
+        public int getHeight() {
+            return mPlaying.getHeight();
+        }
+    }
 }
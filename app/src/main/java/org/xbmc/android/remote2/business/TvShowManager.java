@@ -9,12 +9,14 @@ import org.xbmc.api.business.ITvShowManager;
 import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.Episode;
 import org.xbmc.api.object.Genre;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Season;
 import org.xbmc.api.object.TvShow;
 import org.xbmc.api.type.SortType;
 import org.xbmc.httpapi.WifiStateException;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 public class TvShowManager extends AbstractManager implements ITvShowManager,
         ISortableManager, INotifiableManager {
@@ -27,7 +29,7 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param response Response object
      */
     public void getTvShowActors(final DataResponse<ArrayList<Actor>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Actor>>(response, this) {
+        submit(new Command<ArrayList<Actor>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = shows(context).getTvShowActors(TvShowManager.this);
@@ -41,7 +43,7 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param response Response object
      */
     public void getTvShowGenres(final DataResponse<ArrayList<Genre>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Genre>>(response, this) {
+        submit(new Command<ArrayList<Genre>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = shows(context).getTvShowGenres(TvShowManager.this);
@@ -55,10 +57,26 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param response Response object
      */
     public void getTvShows(final DataResponse<ArrayList<TvShow>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<TvShow>>(response, this) {
+        submit(new Command<ArrayList<TvShow>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = shows(context).getTvShows(TvShowManager.this, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+                response.value = shows(context).getTvShows(chunked(response), getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+            }
+        });
+    }
+
+    /**
+     * Gets a window of all tv shows from database
+     *
+     * @param response Response object
+     * @param start    Position of the first show to return
+     * @param end      Position after the last show to return
+     */
+    public void getTvShows(final DataResponse<PagedList<TvShow>> response, final int start, final int end, final Context context) {
+        mHandler.post(new AsyncCommand<PagedList<TvShow>>(response, this) {
+            @Override
+            protected Future<PagedList<TvShow>> start() throws Exception {
+                return shows(context).getTvShowsAsync(TvShowManager.this, response, getSortBy(SortType.TITLE), getSortOrder(), start, end, getHideWatched(context));
             }
         });
     }
@@ -123,10 +141,10 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param genre    Genre of the tv shows
      */
     public void getTvShows(final DataResponse<ArrayList<TvShow>> response, final Genre genre, final Context context) {
-        mHandler.post(new Command<ArrayList<TvShow>>(response, this) {
+        submit(new Command<ArrayList<TvShow>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = shows(context).getTvShows(TvShowManager.this, genre, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+                response.value = shows(context).getTvShows(chunked(response), genre, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -138,10 +156,10 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param actor    Actor of the tv shows
      */
     public void getTvShows(DataResponse<ArrayList<TvShow>> response, final Actor actor, final Context context) {
-        mHandler.post(new Command<ArrayList<TvShow>>(response, this) {
+        submit(new Command<ArrayList<TvShow>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                mResponse.value = shows(context).getTvShows(TvShowManager.this, actor, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+                mResponse.value = shows(context).getTvShows(chunked(mResponse), actor, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -154,10 +172,10 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      */
     public void getEpisodes(DataResponse<ArrayList<Episode>> response,
                             final TvShow show, final Context context) {
-        mHandler.post(new Command<ArrayList<Episode>>(response, this) {
+        submit(new Command<ArrayList<Episode>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                mResponse.value = shows(context).getEpisodes(TvShowManager.this, show, getSortBy(SortType.EPISODE_NUM), getSortOrder(), getHideWatched(context));
+                mResponse.value = shows(context).getEpisodes(chunked(mResponse), show, getSortBy(SortType.EPISODE_NUM), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -170,7 +188,7 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      */
     public void getSeasons(DataResponse<ArrayList<Season>> response,
                            final TvShow show, final Context context) {
-        mHandler.post(new Command<ArrayList<Season>>(response, this) {
+        submit(new Command<ArrayList<Season>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 mResponse.value = shows(context).getSeasons(TvShowManager.this, show, getHideWatched(context));
@@ -187,10 +205,10 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      */
     public void getEpisodes(DataResponse<ArrayList<Episode>> response,
                             final TvShow show, final Season season, final Context context) {
-        mHandler.post(new Command<ArrayList<Episode>>(response, this) {
+        submit(new Command<ArrayList<Episode>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                mResponse.value = shows(context).getEpisodes(TvShowManager.this, show, season, getSortBy(SortType.EPISODE_NUM), getSortOrder(), getHideWatched(context));
+                mResponse.value = shows(context).getEpisodes(chunked(mResponse), show, season, getSortBy(SortType.EPISODE_NUM), getSortOrder(), getHideWatched(context));
             }
         });
 
@@ -204,10 +222,10 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      */
     public void getEpisodes(DataResponse<ArrayList<Episode>> response,
                             final Season season, final Context context) {
-        mHandler.post(new Command<ArrayList<Episode>>(response, this) {
+        submit(new Command<ArrayList<Episode>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                mResponse.value = shows(context).getEpisodes(TvShowManager.this, season, getSortBy(SortType.EPISODE_NUM), getSortOrder(), getHideWatched(context));
+                mResponse.value = shows(context).getEpisodes(chunked(mResponse), season, getSortBy(SortType.EPISODE_NUM), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -219,7 +237,7 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param episode  Episode to update
      */
     public void updateEpisodeDetails(DataResponse<Episode> response, final Episode episode, final Context context) {
-        mHandler.post(new Command<Episode>(response, this) {
+        submit(new Command<Episode>(response, this) {
             @Override
             public void doRun() throws Exception {
                 mResponse.value = shows(context).updateEpisodeDetails(TvShowManager.this, episode);
@@ -234,7 +252,7 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
      * @param show     TvShow to update
      */
     public void updateTvShowDetails(DataResponse<TvShow> response, final TvShow show, final Context context) {
-        mHandler.post(new Command<TvShow>(response, this) {
+        submit(new Command<TvShow>(response, this) {
             @Override
             public void doRun() throws Exception {
                 mResponse.value = shows(context).updateTvShowDetails(TvShowManager.this, show);
@@ -242,9 +260,39 @@ public class TvShowManager extends AbstractManager implements ITvShowManager,
         });
     }
 
+    /**
+     * Fetches the properties the list left out for several episodes
+     *
+     * @param response Response object
+     * @param episodes Episodes to update
+     */
+    public void prefetchEpisodeDetails(DataResponse<ArrayList<Episode>> response, final ArrayList<Episode> episodes, final Context context) {
+        submit(new Command<ArrayList<Episode>>(response, this) {
+            @Override
+            public void doRun() throws Exception {
+                mResponse.value = shows(context).updateEpisodeDetails(TvShowManager.this, episodes);
+            }
+        });
+    }
+
+    /**
+     * Fetches the properties the list left out for several shows
+     *
+     * @param response Response object
+     * @param shows    TvShows to update
+     */
+    public void prefetchTvShowDetails(DataResponse<ArrayList<TvShow>> response, final ArrayList<TvShow> shows, final Context context) {
+        submit(new Command<ArrayList<TvShow>>(response, this) {
+            @Override
+            public void doRun() throws Exception {
+                mResponse.value = shows(context).updateTvShowDetails(TvShowManager.this, shows);
+            }
+        });
+    }
+
     public void getRecentlyAddedEpisodes(
             DataResponse<ArrayList<Episode>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Episode>>(response, this) {
+        submit(new Command<ArrayList<Episode>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 mResponse.value = shows(context).getRecentlyAddedEpisodes(TvShowManager.this, getHideWatched(context));
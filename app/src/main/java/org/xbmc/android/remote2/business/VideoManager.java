@@ -30,10 +30,12 @@ import org.xbmc.api.business.IVideoManager;
 import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Movie;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.type.SortType;
 import org.xbmc.httpapi.WifiStateException;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 /**
  * Asynchronously wraps the {@link org.xbmc.httpapi.client.VideoClient} class.
@@ -49,7 +51,7 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param movie    Movie
      */
     public void updateMovieDetails(final DataResponse<Movie> response, final Movie movie, final Context context) {
-        mHandler.post(new Command<Movie>(response, this) {
+        submit(new Command<Movie>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = video(context).updateMovieDetails(VideoManager.this, movie);
@@ -57,16 +59,31 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
         });
     }
 
+    /**
+     * Fetches the properties the list left out for several movies
+     *
+     * @param response Response object
+     * @param movies   Movies to update
+     */
+    public void prefetchMovieDetails(final DataResponse<ArrayList<Movie>> response, final ArrayList<Movie> movies, final Context context) {
+        submit(new Command<ArrayList<Movie>>(response, this) {
+            @Override
+            public void doRun() throws Exception {
+                response.value = video(context).updateMovieDetails(VideoManager.this, movies);
+            }
+        });
+    }
+
     /**
      * Gets all movies from database
      *
      * @param response Response object
      */
     public void getMovies(final DataResponse<ArrayList<Movie>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Movie>>(response, this) {
+        submit(new Command<ArrayList<Movie>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = video(context).getMovies(VideoManager.this, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+                response.value = video(context).getMovies(chunked(response), getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -86,13 +103,29 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
     }
 
     /**
-     * SYNCHRONOUSLY gets movies from database with offset
+     * Gets a window of all movies from database
+     *
+     * @param response Response object
+     * @param start    Position of the first movie to return
+     * @param end      Position after the last movie to return
+     */
+    public void getMovies(final DataResponse<PagedList<Movie>> response, final int start, final int end, final Context context) {
+        mHandler.post(new AsyncCommand<PagedList<Movie>>(response, this) {
+            @Override
+            protected Future<PagedList<Movie>> start() throws Exception {
+                return video(context).getMoviesAsync(VideoManager.this, response, getSortBy(SortType.TITLE), getSortOrder(), start, end, getHideWatched(context));
+            }
+        });
+    }
+
+    /**
+     * SYNCHRONOUSLY gets a window of all movies from database
      *
-     * @return Movies in database with offset
+     * @return Movies in database of the window
      */
-    public ArrayList<Movie> getMovies(final Context context, int offset) {
+    public PagedList<Movie> getMovies(final Context context, int start, int end) {
         try {
-            return video(context).getMovies(VideoManager.this, getSortBy(SortType.TITLE), getSortOrder(), offset, getHideWatched(context));
+            return video(context).getMovies(VideoManager.this, getSortBy(SortType.TITLE), getSortOrder(), start, end, getHideWatched(context));
         } catch (WifiStateException e) {
             e.printStackTrace();
         }
@@ -106,10 +139,10 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param actor    Actor
      */
     public void getMovies(final DataResponse<ArrayList<Movie>> response, final Actor actor, final Context context) {
-        mHandler.post(new Command<ArrayList<Movie>>(response, this) {
+        submit(new Command<ArrayList<Movie>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = video(context).getMovies(VideoManager.this, actor, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+                response.value = video(context).getMovies(chunked(response), actor, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -121,10 +154,10 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param genre    Genre
      */
     public void getMovies(final DataResponse<ArrayList<Movie>> response, final Genre genre, final Context context) {
-        mHandler.post(new Command<ArrayList<Movie>>(response, this) {
+        submit(new Command<ArrayList<Movie>>(response, this) {
             @Override
             public void doRun() throws Exception {
-                response.value = video(context).getMovies(VideoManager.this, genre, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
+                response.value = video(context).getMovies(chunked(response), genre, getSortBy(SortType.TITLE), getSortOrder(), getHideWatched(context));
             }
         });
     }
@@ -136,7 +169,7 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param response Response object
      */
     public void getActors(final DataResponse<ArrayList<Actor>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Actor>>(response, this) {
+        submit(new Command<ArrayList<Actor>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = video(context).getActors(VideoManager.this);
@@ -165,7 +198,7 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param response Response object
      */
     public void getMovieActors(final DataResponse<ArrayList<Actor>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Actor>>(response, this) {
+        submit(new Command<ArrayList<Actor>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = video(context).getMovieActors(VideoManager.this);
@@ -179,7 +212,7 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param response Response object
      */
     public void getTvShowActors(final DataResponse<ArrayList<Actor>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Actor>>(response, this) {
+        submit(new Command<ArrayList<Actor>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = video(context).getTvShowActors(VideoManager.this);
@@ -193,7 +226,7 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
      * @param response Response object
      */
     public void getMovieGenres(final DataResponse<ArrayList<Genre>> response, final Context context) {
-        mHandler.post(new Command<ArrayList<Genre>>(response, this) {
+        submit(new Command<ArrayList<Genre>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 response.value = video(context).getMovieGenres(VideoManager.this);
@@ -208,7 +241,7 @@ public class VideoManager extends AbstractManager implements IVideoManager, ISor
 
     public void getTvShowGenres(DataResponse<ArrayList<Genre>> response,
                                 final Context context) {
-        mHandler.post(new Command<ArrayList<Genre>>(response, this) {
+        submit(new Command<ArrayList<Genre>>(response, this) {
             @Override
             public void doRun() throws Exception {
                 mResponse.value = video(context).getTvShowGenres(VideoManager.this);
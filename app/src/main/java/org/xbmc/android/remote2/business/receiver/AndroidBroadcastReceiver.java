@@ -27,18 +27,14 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.content.res.Resources.NotFoundException;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
-import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.preference.PreferenceManager;
-import android.provider.Contacts;
 
-import org.xbmc.android.remote2.R;
 import org.xbmc.android.remote2.business.Command;
 import org.xbmc.android.remote2.business.ManagerFactory;
 import org.xbmc.android.remote2.presentation.notification.NowPlayingNotificationManager;
+import org.xbmc.android.util.NotificationIconCache;
 import org.xbmc.android.util.SmsMmsMessage;
 import org.xbmc.android.util.SmsPopupUtils;
 import org.xbmc.api.business.DataResponse;
@@ -50,7 +46,6 @@ import org.xbmc.api.presentation.INotifiableController;
 import org.xbmc.eventclient.ButtonCodes;
 import org.xbmc.eventclient.Packet;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 @SuppressWarnings("deprecation")
@@ -79,33 +74,38 @@ public class AndroidBroadcastReceiver extends BroadcastReceiver {
         final SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(context);
         // currently no new connection to the event server is opened
         if (eventClient != null) {
+            // contact lookups are cached, forget them when contacts change
+            SmsPopupUtils.observeContacts(context);
             try {
                 if (action.equals(android.telephony.TelephonyManager.ACTION_PHONE_STATE_CHANGED) && prefs.getBoolean("setting_show_call", false)) {
 
                     String extra = intent.getStringExtra(android.telephony.TelephonyManager.EXTRA_STATE);
                     if (extra.equals(android.telephony.TelephonyManager.EXTRA_STATE_RINGING)) {
                         // someone is calling, we get all infos and pause the
-                        // playback
-                        String number = null;
-                        String id = null;
-                        String callername = null;
-                        number = intent.getStringExtra(android.telephony.TelephonyManager.EXTRA_INCOMING_NUMBER);
-                        if (number != null) {
-                            id = SmsPopupUtils.getPersonIdFromPhoneNumber(context, number);
-                            callername = SmsPopupUtils.getPersonName(context, id, number);
-                        } else
-                            callername = "Unknown Number";
-                        // Bitmap isn't supported by the event server, so we
-                        // have to compress it
-                        Bitmap pic;
-                        if (id != null)
-                            pic = Contacts.People.loadContactPhoto(context, Uri.withAppendedPath(Contacts.People.CONTENT_URI, id), R.drawable.icon, null);
-                        else
-                            pic = BitmapFactory.decodeResource(context.getResources(), R.drawable.icon);
-                        ByteArrayOutputStream os = new ByteArrayOutputStream();
-                        if (pic != null) {
-                            pic.compress(Bitmap.CompressFormat.PNG, 0, os);
-                        }
+                        // playback. Looking up the caller and encoding the
+                        // icon is done off the main thread.
+                        final String number = intent.getStringExtra(android.telephony.TelephonyManager.EXTRA_INCOMING_NUMBER);
+                        final Context appContext = context.getApplicationContext();
+                        runAsync(new Runnable() {
+                            public void run() {
+                                String id = null;
+                                String callername;
+                                if (number != null) {
+                                    id = SmsPopupUtils.getPersonIdFromPhoneNumber(appContext, number);
+                                    callername = SmsPopupUtils.getPersonName(appContext, id, number);
+                                } else
+                                    callername = "Unknown Number";
+                                byte[] icon = NotificationIconCache.getContactIcon(appContext, id, NotificationIconCache.DEFAULT_SIZE);
+                                if (icon == null) {
+                                    icon = NotificationIconCache.getAppIcon(appContext, NotificationIconCache.DEFAULT_SIZE);
+                                }
+                                try {
+                                    eventClient.sendNotification(callername, "calling", Packet.ICON_PNG, icon);
+                                } catch (IOException e) {
+                                    e.printStackTrace();
+                                }
+                            }
+                        });
 
                         // if xbmc is playing something, we pause it. without
                         // the check paused playback would resume
@@ -119,7 +119,6 @@ public class AndroidBroadcastReceiver extends BroadcastReceiver {
                                 }
                             }
                         }, null);
-                        eventClient.sendNotification(callername, "calling", Packet.ICON_PNG, pic == null ? null : os.toByteArray());
 
                     } else if (extra.equals(android.telephony.TelephonyManager.EXTRA_STATE_IDLE)) {
 
@@ -135,16 +134,23 @@ public class AndroidBroadcastReceiver extends BroadcastReceiver {
                     if (eventClient != null) {
                         // sms received. extract msg, contact and pic and show
                         // it on the tv
-                        Bundle bundle = intent.getExtras();
+                        final Bundle bundle = intent.getExtras();
                         if (bundle != null) {
-                            SmsMmsMessage msg = SmsMmsMessage.getSmsfromPDUs(context, (Object[]) bundle.get("pdus"));
-                            Bitmap pic = msg.getContactPhoto();
-                            if (pic != null) {
-                                ByteArrayOutputStream os = new ByteArrayOutputStream();
-                                pic.compress(Bitmap.CompressFormat.PNG, 0, os);
-                                eventClient.sendNotification("SMS Received from " + msg.getContactName(), msg.getMessageBody(), Packet.ICON_PNG, os.toByteArray());
-                            } else
-                                eventClient.sendNotification("SMS Received from " + msg.getContactName(), msg.getMessageBody());
+                            final Context appContext = context.getApplicationContext();
+                            runAsync(new Runnable() {
+                                public void run() {
+                                    SmsMmsMessage msg = SmsMmsMessage.getSmsfromPDUs(appContext, (Object[]) bundle.get("pdus"));
+                                    byte[] icon = NotificationIconCache.getContactIcon(appContext, msg.getContactId(), NotificationIconCache.DEFAULT_SIZE);
+                                    try {
+                                        if (icon != null)
+                                            eventClient.sendNotification("SMS Received from " + msg.getContactName(), msg.getMessageBody(), Packet.ICON_PNG, icon);
+                                        else
+                                            eventClient.sendNotification("SMS Received from " + msg.getContactName(), msg.getMessageBody());
+                                    } catch (IOException e) {
+                                        e.printStackTrace();
+                                    }
+                                }
+                            });
                         }
                     }
                 } else if (action.equals(Intent.ACTION_SCREEN_OFF) && prefs.getBoolean("setting_show_notification", false)) {
@@ -162,6 +168,23 @@ public class AndroidBroadcastReceiver extends BroadcastReceiver {
         }
     }
 
+    /**
+     * Runs lookups and encoding in the background so onReceive() returns
+     * right away, keeping the broadcast alive until the work is done.
+     */
+    private void runAsync(final Runnable work) {
+        final PendingResult result = goAsync();
+        new Thread(new Runnable() {
+            public void run() {
+                try {
+                    work.run();
+                } finally {
+                    result.finish();
+                }
+            }
+        }, "AndroidBroadcastReceiver").start();
+    }
+
     public class NullNotifiableController implements INotifiableController {
 
 
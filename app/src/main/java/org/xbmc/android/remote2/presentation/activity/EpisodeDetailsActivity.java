@@ -129,6 +129,8 @@ public class EpisodeDetailsActivity extends Activity {
         mEpisodeDetailsController.setupQueueButton((Button) findViewById(R.id.tvepisodedetails_queuebutton));
         mEpisodeDetailsController.loadCover(new Handler(), (ImageView) findViewById(R.id.tvepisodedetails_thumb));
         mEpisodeDetailsController.updateEpisodeDetails(
+                (TextView) findViewById(R.id.tvepisodedetails_director),
+                (TextView) findViewById(R.id.tvepisodedetails_writer),
                 (TextView) findViewById(R.id.tvepisodedetails_plot),
                 (LinearLayout) findViewById(R.id.tvepisodedetails_datalayout));
 
@@ -239,10 +241,15 @@ public class EpisodeDetailsActivity extends Activity {
             }, mEpisode, ThumbSize.BIG, null, mActivity.getApplicationContext(), false);
         }
 
-        public void updateEpisodeDetails(final TextView plotView, final LinearLayout dataLayout) {
+        public void updateEpisodeDetails(final TextView directorView, final TextView writerView, final TextView plotView, final LinearLayout dataLayout) {
             mShowManager.updateEpisodeDetails(new DataResponse<Episode>() {
                 public void run() {
                     final Episode episode = value;
+                    if (episode == null) {
+                        return;
+                    }
+                    directorView.setText(episode.director);
+                    writerView.setText(episode.writer);
                     plotView.setText(episode.plot.equals("") ? NO_DATA : episode.plot);
 
                     if (episode.actors != null) {
@@ -129,6 +129,7 @@ public class MovieDetailsActivity extends Activity {
         mMovieDetailsController.setupPlayButton((Button) findViewById(R.id.moviedetails_playbutton));
         mMovieDetailsController.loadCover((JewelView) findViewById(R.id.moviedetails_jewelcase));
         mMovieDetailsController.updateMovieDetails(new Handler(),
+                (TextView) findViewById(R.id.moviedetails_director),
                 (TextView) findViewById(R.id.moviedetails_rating_numvotes),
                 (TextView) findViewById(R.id.moviedetails_studio),
                 (TextView) findViewById(R.id.moviedetails_plot),
@@ -220,7 +221,7 @@ public class MovieDetailsActivity extends Activity {
             }, mMovie, ThumbSize.BIG, null, mActivity.getApplicationContext(), false);
         }
 
-        public void updateMovieDetails(final Handler handler, final TextView numVotesView, final TextView studioView, final TextView plotView, final TextView parentalView, final Button trailerButton, final LinearLayout dataLayout) {
+        public void updateMovieDetails(final Handler handler, final TextView directorView, final TextView numVotesView, final TextView studioView, final TextView plotView, final TextView parentalView, final Button trailerButton, final LinearLayout dataLayout) {
             mVideoManager.updateMovieDetails(new DataResponse<Movie>() {
                 public void run() {
                     final Movie movie = value;
@@ -228,6 +229,7 @@ public class MovieDetailsActivity extends Activity {
                         Log.w(TAG, "updateMovieDetails: value is null.");
                         return;
                     }
+                    directorView.setText(movie.director);
                     numVotesView.setText(movie.numVotes > 0 ? " (" + movie.numVotes + " votes)" : "");
                     studioView.setText(movie.studio.equals("") ? NO_DATA : movie.studio);
                     plotView.setText(movie.plot.equals("") ? NO_DATA : movie.plot);
@@ -23,6 +23,7 @@ package org.xbmc.android.remote2.presentation.activity;
 
 import android.os.Bundle;
 import android.os.Handler;
+import android.preference.Preference;
 import android.preference.PreferenceActivity;
 import android.preference.PreferenceScreen;
 import android.view.Display;
@@ -50,6 +51,7 @@ public class SettingsActivity extends PreferenceActivity {
     public final static String SUMMARY_VALUE_PLACEHOLDER = "%value%";
     public final static String JUMP_TO = "jump_to";
     public final static int JUMP_TO_INSTANCES = 1;
+    public final static String KEY_REQUEST_METRICS = "setting_request_metrics";
 
     private ConfigurationManager mConfigurationManager;
     private SettingsController mSettingsController;
@@ -66,6 +68,12 @@ public class SettingsActivity extends PreferenceActivity {
         mSettingsController = new SettingsController(this, new Handler());
         mSettingsController.registerOnSharedPreferenceChangeListener(this);
         mConfigurationManager = ConfigurationManager.getInstance(this);
+        getPreferenceScreen().findPreference(KEY_REQUEST_METRICS).setOnPreferenceClickListener(new Preference.OnPreferenceClickListener() {
+            public boolean onPreferenceClick(Preference preference) {
+                mSettingsController.showRequestMetrics();
+                return true;
+            }
+        });
         final int jumpTo = getIntent().getIntExtra(JUMP_TO, 0);
         switch (jumpTo) {
             case JUMP_TO_INSTANCES:
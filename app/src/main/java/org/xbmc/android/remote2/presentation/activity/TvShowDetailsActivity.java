@@ -213,6 +213,9 @@ public class TvShowDetailsActivity extends Activity {
             mShowManager.updateTvShowDetails(new DataResponse<TvShow>() {
                 public void run() {
                     final TvShow show = value;
+                    if (show == null) {
+                        return;
+                    }
                     episodesVew.setText(show.numEpisodes + " (" + show.watchedEpisodes + " Watched - " + (show.numEpisodes - show.watchedEpisodes) + " Unwatched)");
                     studioView.setText(show.network);
                     parentalView.setText(show.contentRating.equals("") ? NO_DATA : show.contentRating);
@@ -156,10 +156,12 @@ public class AlbumListController extends ListController implements IController {
         }
     }
 
-    private void setAdapter(ArrayList<Album> value) {
+    private ArrayAdapter<Album> setAdapter(ArrayList<Album> value) {
+        ArrayAdapter<Album> adapter = null;
         switch (mCurrentView) {
             case VIEW_LIST:
-                ((AdapterView<ListAdapter>) mList).setAdapter(new AlbumAdapter(mActivity, value));
+                adapter = new AlbumAdapter(mActivity, value);
+                ((AdapterView<ListAdapter>) mList).setAdapter(adapter);
                 mList.setVisibility(View.VISIBLE);
                 if (mGrid != null) {
                     mGrid.setVisibility(View.GONE);
@@ -167,15 +169,18 @@ public class AlbumListController extends ListController implements IController {
                 break;
             case VIEW_GRID:
                 if (mGrid != null) {
-                    mGrid.setAdapter(new AlbumGridAdapter(mActivity, value));
+                    adapter = new AlbumGridAdapter(mActivity, value);
+                    mGrid.setAdapter(adapter);
                     mGrid.setVisibility(View.VISIBLE);
                     mList.setVisibility(View.GONE);
                 } else {
                     mList.setVisibility(View.VISIBLE);
-                    ((AdapterView<ListAdapter>) mList).setAdapter(new AlbumAdapter(mActivity, value));
+                    adapter = new AlbumAdapter(mActivity, value);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(adapter);
                 }
                 break;
         }
+        return adapter;
     }
 
     public void updateLibrary() {
@@ -210,10 +215,34 @@ public class AlbumListController extends ListController implements IController {
     private void fetch() {
         final String title = mArtist != null ? mArtist.name + " - " : mGenre != null ? mGenre.name + " - " : "" + (mCompilationsOnly ? "Compilations" : "Albums");
         DataResponse<ArrayList<Album>> response = new DataResponse<ArrayList<Album>>() {
+            private ArrayAdapter<Album> mAdapter = null;
+
+            public int getChunkSize() {
+                return CHUNK_SIZE;
+            }
+
+            public void runChunk(ArrayList<Album> rows, int offset) {
+                // a retry starts over
+                if (mAdapter == null || offset == 0) {
+                    mAdapter = setAdapter(rows);
+                } else {
+                    mAdapter.addAll(rows);
+                }
+                if (mAdapter != null) {
+                    setTitle(title + " (" + mAdapter.getCount() + "...)");
+                }
+            }
+
             public void run() {
                 if (value.size() > 0) {
                     setTitle(title + " (" + value.size() + ")");
-                    setAdapter(value);
+                    if (mAdapter != null && mAdapter.getCount() <= value.size()) {
+                        // first rows are already shown, unless they're left
+                        // over from a failed attempt with more rows.
+                        mAdapter.addAll(value.subList(mAdapter.getCount(), value.size()));
+                    } else {
+                        setAdapter(value);
+                    }
                 } else {
                     setTitle(title);
                     setNoDataMessage("No albums found.", R.drawable.default_album);
@@ -223,14 +252,27 @@ public class AlbumListController extends ListController implements IController {
 
         showOnLoading();
         setTitle(title + "...");
+        mPager = null;
         if (mArtist != null) {                        // albums of an artist
             mMusicManager.getAlbums(response, mArtist, mActivity.getApplicationContext());
         } else if (mGenre != null) {                // albums of a genre
             mMusicManager.getAlbums(response, mGenre, mActivity.getApplicationContext());
         } else if (mCompilationsOnly) {                // compilations
             mMusicManager.getCompilations(response, mActivity.getApplicationContext());
-        } else {
-            mMusicManager.getAlbums(response, mActivity.getApplicationContext());
+        } else {                                    // all albums, window by window
+            new Pager<Album>(title) {
+                protected void loadPage(int start, int end) {
+                    mMusicManager.getAlbums(this, start, end, mActivity.getApplicationContext());
+                }
+
+                protected ArrayAdapter<Album> setAdapter(ArrayList<Album> items) {
+                    return AlbumListController.this.setAdapter(items);
+                }
+
+                protected void onEmpty() {
+                    setNoDataMessage("No albums found.", R.drawable.default_album);
+                }
+            }.start(mCurrentView == VIEW_GRID && mGrid != null ? mGrid : mList);
         }
     }
 
@@ -135,10 +135,35 @@ public class EpisodeListController extends ListController implements IController
 
         final String title = mSeason != null ? mSeason.getName() + " - " : "" + "Episodes";
         DataResponse<ArrayList<Episode>> response = new DataResponse<ArrayList<Episode>>() {
+            private ArrayAdapter<Episode> mAdapter = null;
+
+            public int getChunkSize() {
+                return CHUNK_SIZE;
+            }
+
+            public void runChunk(ArrayList<Episode> rows, int offset) {
+                // a retry starts over
+                if (mAdapter == null || offset == 0) {
+                    mAdapter = new EpisodeAdapter(mActivity, rows);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(mAdapter);
+                    postPrefetch();
+                } else {
+                    mAdapter.addAll(rows);
+                }
+                setTitle(title + " (" + mAdapter.getCount() + "...)");
+            }
+
             public void run() {
                 if (value.size() > 0) {
                     setTitle(title + " (" + value.size() + ")");
-                    ((AdapterView<ListAdapter>) mList).setAdapter(new EpisodeAdapter(mActivity, value));
+                    if (mAdapter != null && mAdapter.getCount() <= value.size()) {
+                        // first rows are already shown, unless they're left
+                        // over from a failed attempt with more rows.
+                        mAdapter.addAll(value.subList(mAdapter.getCount(), value.size()));
+                    } else {
+                        ((AdapterView<ListAdapter>) mList).setAdapter(new EpisodeAdapter(mActivity, value));
+                        postPrefetch();
+                    }
                 } else {
                     setNoDataMessage("No episodes found.", R.drawable.icon_movie_dark);
                 }
@@ -189,6 +214,24 @@ public class EpisodeListController extends ListController implements IController
         builder.create().show();
     }
 
+    /**
+     * Fetches plot, writer, director and cast of the visible episodes.
+     */
+    @Override
+    protected void prefetchDetails(int first, int last) {
+        final ArrayList<Episode> episodes = new ArrayList<Episode>();
+        for (int i = first; i <= last; i++) {
+            // skips placeholder rows, e.g. of the loading adapter
+            final Object item = mList.getItemAtPosition(i);
+            if (item instanceof Episode && ((Episode) item).actors == null) {
+                episodes.add((Episode) item);
+            }
+        }
+        if (!episodes.isEmpty()) {
+            mTvManager.prefetchEpisodeDetails(new DataResponse<ArrayList<Episode>>(), episodes, mActivity.getApplicationContext());
+        }
+    }
+
     @Override
     public void onCreateContextMenu(ContextMenu menu, View v, ContextMenuInfo menuInfo) {
         final FiveLabelsItemView view = (FiveLabelsItemView) ((AdapterContextMenuInfo) menuInfo).targetView;
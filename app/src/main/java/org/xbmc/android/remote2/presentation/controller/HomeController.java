@@ -92,10 +92,8 @@ import org.xbmc.httpapi.BroadcastListener;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Observable;
-import java.util.Observer;
 
-public class HomeController extends AbstractController implements INotifiableController, IController, Observer, OnSharedPreferenceChangeListener {
+public class HomeController extends AbstractController implements INotifiableController, IController, BroadcastListener.Listener, OnSharedPreferenceChangeListener {
 
     private static final int HOME_ACTION_REMOTE = 0;
     private static final int HOME_ACTION_MUSIC = 1;
@@ -123,7 +121,7 @@ public class HomeController extends AbstractController implements INotifiableCon
         mMenuGrid = menuGrid;
         setupMenuItems(menuGrid);
 //		BroadcastListener bcl = BroadcastListener.getInstance(ConnectionManager.getHttpClient(this));
-//		bcl.addObserver(this);
+//		bcl.addListener(this);
     }
 
     public View.OnClickListener getOnHostChangeListener() {
@@ -321,17 +319,14 @@ public class HomeController extends AbstractController implements INotifiableCon
         };
     }
 
-    public void update(Observable observable, Object data) {
-        if (data instanceof BroadcastListener.Event) {
-            BroadcastListener.Event event = (BroadcastListener.Event) data;
-            switch (event.id) {
-                case BroadcastListener.EVENT_ON_PROGRESS_CHANGED:
-                    Log.i("broadcast", "EVENT_ON_PROGRESS_CHANGED: " + event.getInt(0));
-                    break;
-                default:
-                    Log.i("broadcast", "EVENT: " + event.id + ", int = " + event.getInt(0));
-                    break;
-            }
+    public void onEvent(BroadcastListener.Event event) {
+        switch (event.id) {
+            case BroadcastListener.EVENT_ON_PROGRESS_CHANGED:
+                Log.i("broadcast", "EVENT_ON_PROGRESS_CHANGED: " + event.getInt(0));
+                break;
+            default:
+                Log.i("broadcast", "EVENT: " + event.id + ", int = " + event.getInt(0));
+                break;
         }
     }
 
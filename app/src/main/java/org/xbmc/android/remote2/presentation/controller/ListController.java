@@ -35,6 +35,7 @@ import android.view.MenuItem;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AbsListView;
+import android.widget.AbsListView.OnScrollListener;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.ListAdapter;
@@ -47,10 +48,12 @@ import org.xbmc.android.widget.FastScrollView;
 import org.xbmc.android.widget.IdleListDetector;
 import org.xbmc.android.widget.IdleListener;
 import org.xbmc.api.business.DataResponse;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.presentation.INotifiableController;
 import org.xbmc.api.type.ThumbSize;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 
 public abstract class ListController extends AbstractController implements Serializable, INotifiableController {
 
@@ -70,8 +73,20 @@ public abstract class ListController extends AbstractController implements Seria
     private static final int MENU_SHOWHIDE_WATCHED = 51;
     private static final String PREF_HIDE_WATCHED = "HideWatched";
     private static final long serialVersionUID = 2903701184005613570L;
+    /**
+     * Number of items requested per window by paged lists
+     */
+    protected static final int PAGE_SIZE = 200;
+    /**
+     * Next window is requested when scrolled this close to the end
+     */
+    private static final int PAGE_PRELOAD = 50;
     protected static Bitmap mFallbackBitmap;
     protected AbsListView mList;
+    /**
+     * Currently active paged list, if any
+     */
+    protected transient Pager<?> mPager = null;
     protected IdleListDetector mPostScrollLoader;
     private TextView mTitleView;
     private ViewGroup mMessageGroup;
@@ -102,13 +117,57 @@ public abstract class ListController extends AbstractController implements Seria
      * Hook up the mechanism to load images only when the list "slows" down.
      */
     protected IdleListener setupIdleListener(int thumbSize) {
-        IdleListener idleListener = new IdleListener(mList, thumbSize);
+        IdleListener idleListener = new IdleListener(mList, thumbSize) {
+            public void onListIdle() {
+                super.onListIdle();
+                prefetchVisible();
+            }
+        };
         mPostScrollLoader = new IdleListDetector(idleListener);
         FastScrollView fastScroller = (FastScrollView) mList.getParent();
         fastScroller.setOnIdleListDetector(mPostScrollLoader);
         return idleListener;
     }
 
+    /**
+     * Hands the positions of the visible items to {@link #prefetchDetails(int, int)}.
+     * Nothing to fetch while the list only shows the loading placeholder.
+     */
+    protected void prefetchVisible() {
+        final ListAdapter adapter = mList.getAdapter();
+        if (adapter == null || adapter.isEmpty() || isLoading()) {
+            return;
+        }
+        final int first = mList.getFirstVisiblePosition();
+        final int last = Math.min(mList.getLastVisiblePosition(), adapter.getCount() - 1);
+        if (first >= 0 && last >= first) {
+            prefetchDetails(first, last);
+        }
+    }
+
+    /**
+     * Prefetches visible items once the list has been laid out, for instance
+     * after the first rows have been set.
+     */
+    protected void postPrefetch() {
+        mList.post(new Runnable() {
+            public void run() {
+                prefetchVisible();
+            }
+        });
+    }
+
+    /**
+     * Lists only fetch what their rows display. Controllers whose items have
+     * more to show override this to fetch the remaining properties of the
+     * visible items in the background, so they are complete when opened.
+     *
+     * @param first Position of the first visible item
+     * @param last  Position of the last visible item
+     */
+    protected void prefetchDetails(int first, int last) {
+    }
+
     public abstract void onContextItemSelected(MenuItem item);
 
     public abstract void onCreateContextMenu(ContextMenu menu, View v, ContextMenuInfo menuInfo);
@@ -178,6 +237,133 @@ public abstract class ListController extends AbstractController implements Seria
         }
     }
 
+    /**
+     * Loads a list from the server window by window. The first window is
+     * shown as soon as it arrives and the next one is requested when the
+     * user scrolls close to the end of what has been loaded, so neither
+     * latency nor memory depend on the size of the library.
+     * <p>
+     * The same response object is re-used for every window; a new window is
+     * only requested once the previous one has arrived.
+     *
+     * @param <E> Type of the list's items
+     */
+    protected abstract class Pager<E> extends DataResponse<PagedList<E>> implements OnScrollListener {
+        private final String mTitle;
+        private ArrayAdapter<E> mAdapter = null;
+        private int mNext = 0;
+        private boolean mMore = false;
+        private boolean mLoading = false;
+        private boolean mPaused = false;
+
+        /**
+         * Constructor
+         *
+         * @param title Title of the list, the count will be added
+         */
+        protected Pager(String title) {
+            mTitle = title;
+        }
+
+        /**
+         * Requests the first window and starts listening to scroll events.
+         *
+         * @param list View which displays the items
+         */
+        public void start(AbsListView list) {
+            mPager = this;
+            if (list.getParent() instanceof FastScrollView) {
+                ((FastScrollView) list.getParent()).setOnScrollListener(this);
+            } else {
+                list.setOnScrollListener(this);
+            }
+            load();
+        }
+
+        private void load() {
+            mLoading = true;
+            loadPage(mNext, mNext + PAGE_SIZE);
+        }
+
+        void pause() {
+            mPaused = true;
+        }
+
+        /**
+         * Requests the pending window again if it was cancelled or dropped
+         * while the activity was paused.
+         */
+        void resume() {
+            if (mPaused && mLoading) {
+                load();
+            }
+            mPaused = false;
+        }
+
+        public void run() {
+            mLoading = false;
+            if (mPager != this || value == null) {
+                return;
+            }
+            mNext = value.end;
+            mMore = value.hasMore();
+            if (mAdapter == null) {
+                if (value.isEmpty()) {
+                    if (mMore) {
+                        // everything filtered, try the next window
+                        load();
+                    } else {
+                        setTitle(mTitle);
+                        onEmpty();
+                    }
+                    return;
+                }
+                mAdapter = setAdapter(value);
+                postPrefetch();
+            } else {
+                mAdapter.addAll(value);
+            }
+            if (mAdapter == null) {
+                return;
+            }
+            setTitle(mTitle + " (" + mAdapter.getCount() + (mMore ? "/" + value.total : "") + ")");
+            if (mMore && mAdapter.getCount() < PAGE_SIZE / 2) {
+                // not even a screen full because of filtering
+                load();
+            }
+        }
+
+        public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+            if (mPager == this && mMore && !mLoading && firstVisibleItem + visibleItemCount >= totalItemCount - PAGE_PRELOAD) {
+                load();
+            }
+        }
+
+        public void onScrollStateChanged(AbsListView view, int scrollState) {
+        }
+
+        /**
+         * Requests a window from the manager, with this as response.
+         *
+         * @param start Position of the first item
+         * @param end   Position after the last item
+         */
+        protected abstract void loadPage(int start, int end);
+
+        /**
+         * Creates and sets the adapter for the first window.
+         *
+         * @param items Items of the first window
+         * @return Adapter to which the next windows are added
+         */
+        protected abstract ArrayAdapter<E> setAdapter(ArrayList<E> items);
+
+        /**
+         * Called if the list is empty.
+         */
+        protected abstract void onEmpty();
+    }
+
     protected void hideMessage() {
         if (mMessageGroup != null) {
             mMessageGroup.setVisibility(View.GONE);
@@ -197,9 +383,20 @@ public abstract class ListController extends AbstractController implements Seria
         return mList.getAdapter() instanceof LoadingAdapter;
     }
 
+    @Override
+    public void onActivityPause() {
+        if (mPager != null) {
+            mPager.pause();
+        }
+        super.onActivityPause();
+    }
+
     @Override
     public void onActivityResume(Activity activity) {
         super.onActivityResume(activity);
+        if (mPager != null) {
+            mPager.resume();
+        }
         if (isCreated()) {
             SharedPreferences sp = mActivity.getSharedPreferences("global", Context.MODE_PRIVATE);
             boolean hideWatched = sp.getBoolean(PREF_HIDE_WATCHED, false);
@@ -134,10 +134,35 @@ public class MovieListController extends ListController implements IController {
     private void fetch() {
         final String title = mActor != null ? mActor.name + " - " : mGenre != null ? mGenre.name + " - " : "" + "Movies";
         DataResponse<ArrayList<Movie>> response = new DataResponse<ArrayList<Movie>>() {
+            private ArrayAdapter<Movie> mAdapter = null;
+
+            public int getChunkSize() {
+                return CHUNK_SIZE;
+            }
+
+            public void runChunk(ArrayList<Movie> rows, int offset) {
+                // a retry starts over
+                if (mAdapter == null || offset == 0) {
+                    mAdapter = new MovieAdapter(mActivity, rows);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(mAdapter);
+                    postPrefetch();
+                } else {
+                    mAdapter.addAll(rows);
+                }
+                setTitle(title + " (" + mAdapter.getCount() + "...)");
+            }
+
             public void run() {
                 if (value.size() > 0) {
                     setTitle(title + " (" + value.size() + ")");
-                    ((AdapterView<ListAdapter>) mList).setAdapter(new MovieAdapter(mActivity, value));
+                    if (mAdapter != null && mAdapter.getCount() <= value.size()) {
+                        // first rows are already shown, unless they're left
+                        // over from a failed attempt with more rows.
+                        mAdapter.addAll(value.subList(mAdapter.getCount(), value.size()));
+                    } else {
+                        ((AdapterView<ListAdapter>) mList).setAdapter(new MovieAdapter(mActivity, value));
+                        postPrefetch();
+                    }
                 } else {
                     setTitle(title);
                     setNoDataMessage("No movies found.", R.drawable.icon_movie_dark);
@@ -147,12 +172,27 @@ public class MovieListController extends ListController implements IController {
 
         showOnLoading();
         setTitle(title + "...");
+        mPager = null;
         if (mActor != null) {                        // movies with a certain actor
             mVideoManager.getMovies(response, mActor, mActivity.getApplicationContext());
         } else if (mGenre != null) {                    // movies of a genre
             mVideoManager.getMovies(response, mGenre, mActivity.getApplicationContext());
-        } else {                                    // all movies
-            mVideoManager.getMovies(response, mActivity.getApplicationContext());
+        } else {                                    // all movies, window by window
+            new Pager<Movie>(title) {
+                protected void loadPage(int start, int end) {
+                    mVideoManager.getMovies(this, start, end, mActivity.getApplicationContext());
+                }
+
+                protected ArrayAdapter<Movie> setAdapter(ArrayList<Movie> items) {
+                    final ArrayAdapter<Movie> adapter = new MovieAdapter(mActivity, items);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(adapter);
+                    return adapter;
+                }
+
+                protected void onEmpty() {
+                    setNoDataMessage("No movies found.", R.drawable.icon_movie_dark);
+                }
+            }.start(mList);
         }
     }
 
@@ -189,6 +229,24 @@ public class MovieListController extends ListController implements IController {
         builder.create().show();
     }
 
+    /**
+     * Fetches director, plot and cast of the visible movies.
+     */
+    @Override
+    protected void prefetchDetails(int first, int last) {
+        final ArrayList<Movie> movies = new ArrayList<Movie>();
+        for (int i = first; i <= last; i++) {
+            // skips placeholder rows, e.g. of the loading adapter
+            final Object item = mList.getItemAtPosition(i);
+            if (item instanceof Movie && ((Movie) item).actors == null) {
+                movies.add((Movie) item);
+            }
+        }
+        if (!movies.isEmpty()) {
+            mVideoManager.prefetchMovieDetails(new DataResponse<ArrayList<Movie>>(), movies, mActivity.getApplicationContext());
+        }
+    }
+
     @Override
     public void onCreateContextMenu(ContextMenu menu, View v, ContextMenuInfo menuInfo) {
         final FiveLabelsItemView view = (FiveLabelsItemView) ((AdapterContextMenuInfo) menuInfo).targetView;
@@ -50,12 +50,11 @@ import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.IControlManager;
 import org.xbmc.api.business.IEventClientManager;
 import org.xbmc.api.business.IInfoManager;
+import org.xbmc.api.data.IEventClient;
 import org.xbmc.api.info.GuiSettings;
 import org.xbmc.api.presentation.INotifiableController;
 import org.xbmc.eventclient.ButtonCodes;
 
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class RemoteController extends AbstractController implements INotifiableController, IController {
 
@@ -74,9 +73,6 @@ public class RemoteController extends AbstractController implements INotifiableC
     private static final float MOTION_EVENT_MIN_DELTA_POSITION = 0.15f;
 
     private static final long VIBRATION_LENGTH = 45;
-    private static Timer tmrKeyPress = new Timer();
-    private static String currKeyAction = "";
-    private static KeyPressTask currKeyTask = null;
     final SharedPreferences prefs;
     private final Vibrator mVibrator;
     private final boolean mDoVibrate;
@@ -110,14 +106,8 @@ public class RemoteController extends AbstractController implements INotifiableC
 //			}
         }, GuiSettings.Services.EVENT_SERVER_INITIAL_DELAY, context);
 
-        if (currKeyTask != null) {
-            currKeyTask.cancel();
-            currKeyTask = null;
-        }
-        if (currKeyAction != null) {
-            mEventClientManager.sendButton("R1", currKeyAction, false, false, true, (short) 0, (byte) 0);
-            currKeyAction = "";
-        }
+        // a button may still be held from a previous screen
+        mEventClientManager.releaseButton();
     }
 
     public IGestureListener startGestureThread(final Context context) {
@@ -478,6 +468,25 @@ public class RemoteController extends AbstractController implements INotifiableC
         }
     }
 
+    /**
+     * Returns how a held button is repeated according to the settings: by
+     * XBMC unless explicit repeats are enabled, in which case the client
+     * sends a single press or repeats at the configured rate.
+     */
+    private int getRepeatInterval() {
+        if (!prefs.getBoolean("setting_send_repeats", false)) {
+            return IEventClient.REPEAT_SERVER;
+        }
+        if (prefs.getBoolean("setting_send_single_click", false)) {
+            return IEventClient.REPEAT_NONE;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(prefs.getString("setting_repeat_rate", "250")));
+        } catch (NumberFormatException e) {
+            return 250;
+        }
+    }
+
     /**
      * Handles the push- release button code. Switches image of the pressed
      * button, vibrates and executes command.
@@ -496,53 +505,17 @@ public class RemoteController extends AbstractController implements INotifiableC
                     mVibrator.vibrate(VIBRATION_LENGTH);
                 }
 
-                if (currKeyTask != null) {
-                    currKeyTask.cancel();
-                }
-                if (currKeyAction != "") {
-                    mEventClientManager.sendButton("R1", mAction, false, false, true, (short) 0, (byte) 0);
-                }
-                mEventClientManager.sendButton("R1", mAction, !prefs.getBoolean("setting_send_repeats", false), true, true, (short) 0, (byte) 0);
-                currKeyAction = mAction;
-
-                if (prefs.getBoolean("setting_send_repeats", false) && !prefs.getBoolean("setting_send_single_click", false)) {
-                    int RepeatDelay = Integer.parseInt(prefs.getString("setting_repeat_rate", "250"));
-
-                    currKeyTask = new KeyPressTask(mAction);
-                    tmrKeyPress.schedule(currKeyTask, RepeatDelay, RepeatDelay);
-                }
-
-
+                mEventClientManager.pressButton("R1", mAction, getRepeatInterval());
             } else if (event.getAction() == MotionEvent.ACTION_UP) {
                 Log.d(TAG, "onTouch - ACTION_UP");
                 v.playSoundEffect(AudioManager.FX_KEY_CLICK);
-
-                if (currKeyTask != null) {
-                    currKeyTask.cancel();
-                    currKeyTask = null;
-                }
-
-                mEventClientManager.sendButton("R1", mAction, false, false, true, (short) 0, (byte) 0);
-                currKeyAction = "";
+                mEventClientManager.releaseButton();
+            } else if (event.getAction() == MotionEvent.ACTION_CANCEL) {
+                // XBMC keeps repeating until the button is released
+                mEventClientManager.releaseButton();
             }
             return false;
         }
     }
 
-    private class KeyPressTask extends TimerTask {
-
-        private String mKeyPressAction = "";
-
-        public KeyPressTask(String mAction) {
-            mKeyPressAction = mAction;
-        }
-
-        public void run() {
-            if (mKeyPressAction.length() > 0) {
-                mEventClientManager.sendButton("R1", mKeyPressAction, false, true, true, (short) 0, (byte) 0);
-
-            }
-        }
-    }
-
-}
\ No newline at end of file
+}
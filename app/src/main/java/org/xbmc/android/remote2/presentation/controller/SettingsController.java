@@ -27,6 +27,7 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import android.graphics.Typeface;
 import android.net.Uri;
 import android.os.Handler;
 import android.preference.Preference;
@@ -35,15 +36,21 @@ import android.preference.PreferenceScreen;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.widget.HorizontalScrollView;
+import android.widget.ScrollView;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import org.xbmc.android.remote2.R;
 import org.xbmc.android.remote2.presentation.activity.HostSettingsActivity;
 import org.xbmc.android.remote2.presentation.activity.SettingsActivity;
 import org.xbmc.android.util.HostFactory;
+import org.xbmc.android.util.RequestMetrics;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.presentation.INotifiableController;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Hashtable;
 
@@ -244,6 +251,54 @@ public class SettingsController extends AbstractController implements INotifiabl
         }
     }
 
+    /**
+     * Shows the latencies and payload sizes of all calls sent to XBMC so
+     * far. The table can be saved to a file in order to attach it to a bug
+     * report.
+     */
+    public void showRequestMetrics() {
+        final TextView text = new TextView(mPreferenceActivity);
+        text.setTypeface(Typeface.MONOSPACE);
+        text.setTextSize(10);
+        text.setPadding(8, 8, 8, 8);
+        text.setText(RequestMetrics.dump());
+        final HorizontalScrollView hsv = new HorizontalScrollView(mPreferenceActivity);
+        hsv.addView(text);
+        final ScrollView sv = new ScrollView(mPreferenceActivity);
+        sv.addView(hsv);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(mPreferenceActivity);
+        builder.setTitle("Request Metrics");
+        builder.setView(sv);
+        builder.setPositiveButton("Save", new DialogInterface.OnClickListener() {
+            public void onClick(DialogInterface dialog, int which) {
+                File dir = mPreferenceActivity.getExternalFilesDir(null);
+                if (dir == null) {
+                    dir = mPreferenceActivity.getFilesDir();
+                }
+                final File file = new File(dir, "request-metrics.txt");
+                try {
+                    RequestMetrics.dump(file);
+                    Toast.makeText(mPreferenceActivity, "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+                } catch (IOException e) {
+                    Log.e(TAG, "Could not save request metrics", e);
+                    Toast.makeText(mPreferenceActivity, "Could not save request metrics: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+        builder.setNeutralButton("Reset", new DialogInterface.OnClickListener() {
+            public void onClick(DialogInterface dialog, int which) {
+                RequestMetrics.reset();
+            }
+        });
+        builder.setNegativeButton("Close", new DialogInterface.OnClickListener() {
+            public void onClick(DialogInterface dialog, int which) {
+                dialog.dismiss();
+            }
+        });
+        builder.create().show();
+    }
+
     private void showBarcodeUnsupportedDialog() {
         AlertDialog.Builder builder = new AlertDialog.Builder(mPreferenceActivity);
         builder.setMessage(mPreferenceActivity.getString(R.string.barcode_scanner_required));
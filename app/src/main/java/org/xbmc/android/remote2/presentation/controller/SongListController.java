@@ -158,10 +158,33 @@ public class SongListController extends ListController implements IController {
     private void fetch() {
         final String title = mAlbum != null ? mAlbum.name + " - " : mArtist != null ? mArtist.name + " - " : mGenre != null ? mGenre.name + " - " : "" + "Songs";
         DataResponse<ArrayList<Song>> response = new DataResponse<ArrayList<Song>>() {
+            private ArrayAdapter<Song> mAdapter = null;
+
+            public int getChunkSize() {
+                return CHUNK_SIZE;
+            }
+
+            public void runChunk(ArrayList<Song> rows, int offset) {
+                // a retry starts over
+                if (mAdapter == null || offset == 0) {
+                    mAdapter = new SongAdapter(mActivity, rows);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(mAdapter);
+                } else {
+                    mAdapter.addAll(rows);
+                }
+                setTitle(title + " (" + mAdapter.getCount() + "...)");
+            }
+
             public void run() {
                 if (value.size() > 0) {
                     setTitle(title + " (" + value.size() + ")");
-                    ((AdapterView<ListAdapter>) mList).setAdapter(new SongAdapter(mActivity, value));
+                    if (mAdapter != null && mAdapter.getCount() <= value.size()) {
+                        // first rows are already shown, unless they're left
+                        // over from a failed attempt with more rows.
+                        mAdapter.addAll(value.subList(mAdapter.getCount(), value.size()));
+                    } else {
+                        ((AdapterView<ListAdapter>) mList).setAdapter(new SongAdapter(mActivity, value));
+                    }
                 } else {
                     setTitle(title);
                     setNoDataMessage("No songs found", R.drawable.icon_song_dark);
@@ -171,12 +194,27 @@ public class SongListController extends ListController implements IController {
 
         showOnLoading();
         setTitle(title + "...");
+        mPager = null;
         if (mAlbum != null) {
             mMusicManager.getSongs(response, mAlbum, mActivity.getApplicationContext());
         } else if (mArtist != null) {
             mMusicManager.getSongs(response, mArtist, mActivity.getApplicationContext());
-        } else if (mGenre != null) {
-            mMusicManager.getSongs(response, mGenre, mActivity.getApplicationContext());
+        } else if (mGenre != null) {                // genres can be huge, window by window
+            new Pager<Song>(title) {
+                protected void loadPage(int start, int end) {
+                    mMusicManager.getSongs(this, mGenre, start, end, mActivity.getApplicationContext());
+                }
+
+                protected ArrayAdapter<Song> setAdapter(ArrayList<Song> items) {
+                    final ArrayAdapter<Song> adapter = new SongAdapter(mActivity, items);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(adapter);
+                    return adapter;
+                }
+
+                protected void onEmpty() {
+                    setNoDataMessage("No songs found", R.drawable.icon_song_dark);
+                }
+            }.start(mList);
         }
     }
 
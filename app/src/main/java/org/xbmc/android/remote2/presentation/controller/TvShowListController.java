@@ -137,10 +137,35 @@ public class TvShowListController extends ListController implements IController
 
         final String title = mActor != null ? mActor.name + " - " : mGenre != null ? mGenre.name + " - " : "" + "TV Shows";
         DataResponse<ArrayList<TvShow>> response = new DataResponse<ArrayList<TvShow>>() {
+            private ArrayAdapter<TvShow> mAdapter = null;
+
+            public int getChunkSize() {
+                return CHUNK_SIZE;
+            }
+
+            public void runChunk(ArrayList<TvShow> rows, int offset) {
+                // a retry starts over
+                if (mAdapter == null || offset == 0) {
+                    mAdapter = new TvShowAdapter(mActivity, rows);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(mAdapter);
+                    postPrefetch();
+                } else {
+                    mAdapter.addAll(rows);
+                }
+                setTitle(title + " (" + mAdapter.getCount() + "...)");
+            }
+
             public void run() {
                 if (value.size() > 0) {
                     setTitle(title + " (" + value.size() + ")");
-                    ((AdapterView<ListAdapter>) mList).setAdapter(new TvShowAdapter(mActivity, value));
+                    if (mAdapter != null && mAdapter.getCount() <= value.size()) {
+                        // first rows are already shown, unless they're left
+                        // over from a failed attempt with more rows.
+                        mAdapter.addAll(value.subList(mAdapter.getCount(), value.size()));
+                    } else {
+                        ((AdapterView<ListAdapter>) mList).setAdapter(new TvShowAdapter(mActivity, value));
+                        postPrefetch();
+                    }
                 } else {
                     setTitle(title);
                     setNoDataMessage("No TV shows found.", R.drawable.icon_movie_dark);
@@ -150,12 +175,27 @@ public class TvShowListController extends ListController implements IController
 
         showOnLoading();
         setTitle(title + "...");
+        mPager = null;
         if (mActor != null) {                        // TV Shows with a certain actor
             mTvManager.getTvShows(response, mActor, mActivity.getApplicationContext());
         } else if (mGenre != null) {                    // TV Shows of a genre
             mTvManager.getTvShows(response, mGenre, mActivity.getApplicationContext());
-        } else {                                    // all TV Shows
-            mTvManager.getTvShows(response, mActivity.getApplicationContext());
+        } else {                                    // all TV Shows, window by window
+            new Pager<TvShow>(title) {
+                protected void loadPage(int start, int end) {
+                    mTvManager.getTvShows(this, start, end, mActivity.getApplicationContext());
+                }
+
+                protected ArrayAdapter<TvShow> setAdapter(ArrayList<TvShow> items) {
+                    final ArrayAdapter<TvShow> adapter = new TvShowAdapter(mActivity, items);
+                    ((AdapterView<ListAdapter>) mList).setAdapter(adapter);
+                    return adapter;
+                }
+
+                protected void onEmpty() {
+                    setNoDataMessage("No TV shows found.", R.drawable.icon_movie_dark);
+                }
+            }.start(mList);
         }
     }
 
@@ -192,6 +232,24 @@ public class TvShowListController extends ListController implements IController
         builder.create().show();
     }
 
+    /**
+     * Fetches summary, studio and cast of the visible shows.
+     */
+    @Override
+    protected void prefetchDetails(int first, int last) {
+        final ArrayList<TvShow> shows = new ArrayList<TvShow>();
+        for (int i = first; i <= last; i++) {
+            // skips placeholder rows, e.g. of the loading adapter
+            final Object item = mList.getItemAtPosition(i);
+            if (item instanceof TvShow && ((TvShow) item).actors == null) {
+                shows.add((TvShow) item);
+            }
+        }
+        if (!shows.isEmpty()) {
+            mTvManager.prefetchTvShowDetails(new DataResponse<ArrayList<TvShow>>(), shows, mActivity.getApplicationContext());
+        }
+    }
+
     @Override
     public void onCreateContextMenu(ContextMenu menu, View v, ContextMenuInfo menuInfo) {
         final FiveLabelsItemView view = (FiveLabelsItemView) ((AdapterContextMenuInfo) menuInfo).targetView;
@@ -34,6 +34,7 @@ import org.xbmc.api.data.IVideoClient;
 import org.xbmc.api.info.SystemInfo;
 import org.xbmc.api.object.Host;
 import org.xbmc.eventclient.EventClient;
+import org.xbmc.httpapi.BroadcastListener;
 import org.xbmc.httpapi.HttpApi;
 import org.xbmc.httpapi.WifiStateException;
 import org.xbmc.jsonrpc.JsonRpc;
@@ -138,6 +139,20 @@ public abstract class ClientFactory {
         return createEventClient(manager);
     }
 
+    /**
+     * Returns the listener for XBMC's broadcasts, which are only sent when
+     * the HTTP API is used.
+     *
+     * @param manager Upper layer reference
+     * @return Broadcast listener, null if JSON-RPC is used
+     */
+    public static BroadcastListener getBroadcastListener(INotifiableManager manager) {
+        if (sApiType == API_TYPE_JSONRPC) {
+            return null;
+        }
+        return BroadcastListener.getInstance(createHttpClient(manager));
+    }
+
     /**
      * Resets the client so it has to re-read the settings and recreate the instance.
      *
@@ -153,6 +168,8 @@ public abstract class ClientFactory {
             Log.w(TAG, "Not updating http client's host because no instance is set yet.");
         }
         Log.i(TAG, "Resetting client to " + (host == null ? "<nullhost>" : host.addr));
+        // the listener is bound to the old host's broadcast settings
+        BroadcastListener.reset();
         if (sEventClient != null) {
             try {
                 if (host != null) {
@@ -0,0 +1,231 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.android.util;
+
+import android.util.Log;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Response body that is transparently decompressed while it's read. Requests
+ * announce {@link #ACCEPT_ENCODING}; the host is free to answer with gzip,
+ * deflate or not compressed at all, as indicated by the
+ * <code>Content-Encoding</code> header of the response.
+ * <p>
+ * Compressed (wire) and decoded bytes are counted. When the stream is
+ * closed, both are logged under the label of the request, usually the name
+ * of the method, and added to the totals since start.
+ *
+ * @author Team XBMC
+ */
+public class DecodingInputStream extends FilterInputStream {
+
+    /**
+     * Value of the <code>Accept-Encoding</code> request header
+     */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final String TAG = "DecodingInputStream";
+
+    private static final AtomicLong sWireBytes = new AtomicLong();
+    private static final AtomicLong sDecodedBytes = new AtomicLong();
+
+    private final WireInputStream mWire;
+    private final Inflater mInflater;
+    private final String mEncoding;
+    private final String mLabel;
+    private long mDecoded = 0;
+    private boolean mClosed = false;
+
+    private DecodingInputStream(InputStream decoded, WireInputStream wire, Inflater inflater, String encoding, String label) {
+        super(decoded);
+        mWire = wire;
+        mInflater = inflater;
+        mEncoding = encoding;
+        mLabel = label;
+    }
+
+    /**
+     * Wraps a response body.
+     *
+     * @param in       Body as received
+     * @param encoding Value of the <code>Content-Encoding</code> response header, can be null
+     * @param label    Logged along with the byte counts
+     * @return Decoded body
+     * @throws IOException If the compression header can't be read
+     */
+    public static DecodingInputStream wrap(InputStream in, String encoding, String label) throws IOException {
+        final WireInputStream wire = new WireInputStream(in);
+        if (encoding == null || encoding.length() == 0 || encoding.equalsIgnoreCase("identity")) {
+            return new DecodingInputStream(wire, wire, null, null, label);
+        }
+        if (encoding.equalsIgnoreCase("gzip") || encoding.equalsIgnoreCase("x-gzip")) {
+            return new DecodingInputStream(new GZIPInputStream(wire, IOUtilities.IO_BUFFER_SIZE), wire, null, encoding, label);
+        }
+        if (encoding.equalsIgnoreCase("deflate")) {
+            // deflate should come with a zlib header, but some servers send raw data.
+            final PushbackInputStream pb = new PushbackInputStream(wire, 2);
+            final int b0 = pb.read();
+            final int b1 = b0 < 0 ? -1 : pb.read();
+            if (b1 >= 0) {
+                pb.unread(b1);
+            }
+            if (b0 >= 0) {
+                pb.unread(b0);
+            }
+            final boolean zlib = b1 >= 0 && (b0 & 0x0f) == 8 && ((b0 << 8) | b1) % 31 == 0;
+            final Inflater inflater = new Inflater(!zlib);
+            return new DecodingInputStream(new InflaterInputStream(pb, inflater, IOUtilities.IO_BUFFER_SIZE), wire, inflater, encoding, label);
+        }
+        throw new IOException("Unsupported content encoding " + encoding);
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = in.read();
+        if (b >= 0) {
+            mDecoded++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final int n = in.read(b, off, len);
+        if (n > 0) {
+            mDecoded += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long skipped = in.skip(n);
+        mDecoded += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (mClosed) {
+            return;
+        }
+        mClosed = true;
+        try {
+            in.close();
+        } finally {
+            if (mInflater != null) {
+                mInflater.end();
+            }
+            sWireBytes.addAndGet(mWire.mCount);
+            sDecodedBytes.addAndGet(mDecoded);
+            if (mEncoding != null) {
+                Log.d(TAG, mLabel + ": " + mEncoding + " " + mWire.mCount + " bytes on the wire, " + mDecoded + " decoded, saved " + (mDecoded > 0 ? 100 - 100 * mWire.mCount / mDecoded : 0) + "%");
+            } else {
+                Log.d(TAG, mLabel + ": " + mDecoded + " bytes, not compressed");
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes read from the wire so far.
+     */
+    public long getWireBytes() {
+        return mWire.mCount;
+    }
+
+    /**
+     * Returns the number of decoded bytes read so far.
+     */
+    public long getDecodedBytes() {
+        return mDecoded;
+    }
+
+    /**
+     * Returns the number of bytes of all closed responses received from the
+     * wire since start.
+     */
+    public static long getTotalWireBytes() {
+        return sWireBytes.get();
+    }
+
+    /**
+     * Returns the number of decoded bytes of all closed responses since
+     * start.
+     */
+    public static long getTotalDecodedBytes() {
+        return sDecodedBytes.get();
+    }
+
+    /**
+     * Counts bytes as they come from the wire.
+     */
+    private static class WireInputStream extends FilterInputStream {
+        private long mCount = 0;
+
+        WireInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b >= 0) {
+                mCount++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int n = in.read(b, off, len);
+            if (n > 0) {
+                mCount += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = in.skip(n);
+            mCount += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
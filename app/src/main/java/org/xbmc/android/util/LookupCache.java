@@ -0,0 +1,106 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.android.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small in-memory cache for the results of slow lookups, such as content
+ * provider queries. Results, including <code>null</code>, are kept for a
+ * given time, and the least recently used ones are dropped when the cache
+ * is full.
+ *
+ * @author Team XBMC
+ */
+public class LookupCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> mEntries;
+    private final long mTtl;
+
+    /**
+     * @param maxEntries Maximal number of results kept
+     * @param ttl        Time after which a result is looked up again in
+     *                   milliseconds
+     */
+    public LookupCache(final int maxEntries, long ttl) {
+        mTtl = ttl;
+        mEntries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = -3140546211462813187L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached result or looks it up if there is none or it is
+     * outdated. The lookup runs outside the lock, so concurrent misses of the
+     * same key may look it up twice.
+     *
+     * @param key    Key of the result
+     * @param loader Does the actual lookup
+     * @return Result, can be null
+     */
+    public V get(K key, Loader<K, V> loader) {
+        synchronized (this) {
+            final Entry<V> entry = mEntries.get(key);
+            if (entry != null) {
+                if (System.currentTimeMillis() < entry.expires) {
+                    return entry.value;
+                }
+                mEntries.remove(key);
+            }
+        }
+        final V value = loader.load(key);
+        synchronized (this) {
+            mEntries.put(key, new Entry<V>(value, System.currentTimeMillis() + mTtl));
+        }
+        return value;
+    }
+
+    /**
+     * Drops all results.
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+    }
+
+    /**
+     * Looks up a result missing in the cache.
+     */
+    public interface Loader<K, V> {
+        V load(K key);
+    }
+
+    private static class Entry<V> {
+        final V value;
+        final long expires;
+
+        Entry(V value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.android.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import org.xbmc.android.remote2.R;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Icons for the notifications sent to XBMC on calls and messages, ready to
+ * be sent as PNG payload. Encoding a contact photo means a provider query,
+ * decoding and PNG compression, so the result is kept per contact and size
+ * and repeated notifications of the same person go out right away.
+ * <p>
+ * Icons are scaled down to the requested size, which also keeps the
+ * notification within a few UDP packets.
+ *
+ * @author Team XBMC
+ */
+public class NotificationIconCache {
+
+    /**
+     * Size of the longer side of the icon in pixels
+     */
+    public static final int DEFAULT_SIZE = 128;
+
+    private static final int MAX_ENTRIES = 32;
+    private static final long TTL = 30 * 60 * 1000;
+    private static final String KEY_APP_ICON = "app";
+
+    private static final LookupCache<String, byte[]> sIcons = new LookupCache<String, byte[]>(MAX_ENTRIES, TTL);
+
+    /**
+     * Returns the contact's photo as PNG.
+     *
+     * @param context Context for the contact lookup
+     * @param id      Contact id, may be null
+     * @param size    Maximal width and height in pixels
+     * @return PNG data, null if the contact has no photo
+     */
+    public static byte[] getContactIcon(final Context context, final String id, final int size) {
+        if (id == null || "0".equals(id)) {
+            return null;
+        }
+        return sIcons.get(id + "/" + size, new LookupCache.Loader<String, byte[]>() {
+            public byte[] load(String key) {
+                final byte[] photo = SmsPopupUtils.getPersonPhoto(context, id);
+                if (photo == null) {
+                    return null;
+                }
+                return encode(BitmapFactory.decodeByteArray(photo, 0, photo.length), size);
+            }
+        });
+    }
+
+    /**
+     * Returns the app's icon as PNG.
+     *
+     * @param context Context for the resources
+     * @param size    Maximal width and height in pixels
+     * @return PNG data, null if the icon couldn't be decoded
+     */
+    public static byte[] getAppIcon(final Context context, final int size) {
+        return sIcons.get(KEY_APP_ICON + "/" + size, new LookupCache.Loader<String, byte[]>() {
+            public byte[] load(String key) {
+                return encode(BitmapFactory.decodeResource(context.getResources(), R.drawable.icon), size);
+            }
+        });
+    }
+
+    /**
+     * Drops all icons, e.g. when contacts changed.
+     */
+    public static void clear() {
+        sIcons.clear();
+    }
+
+    private static byte[] encode(Bitmap bitmap, int size) {
+        if (bitmap == null) {
+            return null;
+        }
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        if (width > size || height > size) {
+            final float scale = (float) size / Math.max(width, height);
+            final Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)), true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+                bitmap = scaled;
+            }
+        }
+        final ByteArrayOutputStream os = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 0, os);
+        bitmap.recycle();
+        return os.toByteArray();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.android.util;
+
+import android.util.Log;
+
+import org.xbmc.api.business.DataResponse;
+import org.xbmc.api.business.INotifiableManager;
+import org.xbmc.jsonrpc.HttpTransport;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Request running on a small shared pool of worker threads instead of the
+ * thread that issued it. The pool is bounded, so no more requests than
+ * sockets to the host are in flight at the same time; further requests
+ * wait in line.
+ * <p>
+ * Cancelling a request removes it from the line or, if it's already
+ * running, aborts the network exchanges it has registered through
+ * {@link #onCancel(Runnable)}. Code running as part of a request can check
+ * {@link #isCurrentCancelled()} in order to drop results and errors that
+ * nobody waits for anymore.
+ *
+ * @author Team XBMC
+ */
+public class PendingRequest<T> extends FutureTask<T> {
+
+    private static final String TAG = "PendingRequest";
+
+    /**
+     * Maximal number of requests running at the same time
+     */
+    public static final int POOL_SIZE = HttpTransport.MAX_CONNECTIONS_PER_HOST;
+    private static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static final ThreadPoolExecutor sPool;
+
+    static {
+        sPool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "PendingRequest #" + mCount.incrementAndGet());
+            }
+        });
+        sPool.allowCoreThreadTimeOut(true);
+    }
+
+    private static final Runnable NO_HOOK = new Runnable() {
+        public void run() {
+        }
+    };
+
+    private static final ThreadLocal<PendingRequest<?>> sCurrent = new ThreadLocal<PendingRequest<?>>();
+
+    /**
+     * Hooks aborting what is currently in flight for this request
+     */
+    private final ArrayList<Runnable> mCancelHooks = new ArrayList<Runnable>();
+
+    private PendingRequest(Callable<T> callable) {
+        super(callable);
+    }
+
+    private PendingRequest(Runnable runnable) {
+        super(runnable, null);
+    }
+
+    /**
+     * Queues a request on the pool.
+     *
+     * @param request Request to run
+     * @return Handle of the request
+     */
+    public static <T> PendingRequest<T> submit(Callable<T> request) {
+        final PendingRequest<T> pending = new PendingRequest<T>(request);
+        sPool.execute(pending);
+        return pending;
+    }
+
+    /**
+     * Queues a request without result on the pool.
+     *
+     * @param request Request to run
+     * @return Handle of the request
+     */
+    public static PendingRequest<Void> submit(Runnable request) {
+        final PendingRequest<Void> pending = new PendingRequest<Void>(request);
+        sPool.execute(pending);
+        return pending;
+    }
+
+    /**
+     * Queues a request of a client whose result goes back to a manager.
+     * Unless the request has been cancelled meanwhile, the result is set on
+     * the response which is then posted through
+     * {@link INotifiableManager#onFinish(DataResponse)}. Exceptions go to
+     * {@link INotifiableManager#onError(Exception)}.
+     *
+     * @param manager  Upper layer reference for result and error posting
+     * @param request  Request to run
+     * @param response Response object receiving the result
+     * @return Handle of the request
+     */
+    public static <T> PendingRequest<T> submit(final INotifiableManager manager, final Request<T> request, final DataResponse<T> response) {
+        return submit(new Callable<T>() {
+            public T call() throws Exception {
+                try {
+                    final T value = request.run(manager);
+                    if (!isCurrentCancelled()) {
+                        response.value = value;
+                        manager.onFinish(response);
+                    }
+                    return value;
+                } catch (Exception e) {
+                    if (!isCurrentCancelled()) {
+                        manager.onError(e);
+                    }
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocking client call run by
+     * {@link PendingRequest#submit(INotifiableManager, Request, DataResponse)}.
+     */
+    public interface Request<T> {
+        public T run(INotifiableManager manager) throws Exception;
+    }
+
+    /**
+     * Registers a hook aborting an exchange of the request running on the
+     * calling thread. Does nothing if the calling thread isn't running a
+     * request; runs the hook right away if the request has been cancelled.
+     * The exchange removes the hook through the returned handle once it's
+     * done, so hooks don't pile up for requests doing several exchanges.
+     *
+     * @param hook Aborts the exchange, e.g. by closing its socket
+     * @return Removes the hook again
+     */
+    public static Runnable onCancel(final Runnable hook) {
+        final PendingRequest<?> current = sCurrent.get();
+        if (current != null) {
+            synchronized (current.mCancelHooks) {
+                if (!current.isCancelled()) {
+                    current.mCancelHooks.add(hook);
+                    return new Runnable() {
+                        public void run() {
+                            synchronized (current.mCancelHooks) {
+                                current.mCancelHooks.remove(hook);
+                            }
+                        }
+                    };
+                }
+            }
+            hook.run();
+        }
+        return NO_HOOK;
+    }
+
+    /**
+     * Returns true if the calling thread runs a request that has been
+     * cancelled.
+     */
+    public static boolean isCurrentCancelled() {
+        final PendingRequest<?> current = sCurrent.get();
+        return current != null && current.isCancelled();
+    }
+
+    @Override
+    public void run() {
+        sCurrent.set(this);
+        try {
+            super.run();
+        } finally {
+            sCurrent.remove();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            sPool.remove(this);
+            synchronized (mCancelHooks) {
+                for (Runnable hook : mCancelHooks) {
+                    try {
+                        hook.run();
+                    } catch (RuntimeException e) {
+                        Log.w(TAG, "Cancel hook failed: " + e.getMessage());
+                    }
+                }
+                mCancelHooks.clear();
+            }
+        }
+        return cancelled;
+    }
+}
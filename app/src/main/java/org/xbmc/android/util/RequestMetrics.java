@@ -0,0 +1,347 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.android.util;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Registry of per-method statistics for the calls sent to XBMC through
+ * either API. Every method counts its calls, failures, request and response
+ * bytes and keeps a latency histogram from which percentiles are read.
+ * <p>
+ * A call is measured through a {@link Sample}, obtained from
+ * {@link #start(String, String)} when the request is sent and finished once
+ * the response has been read.
+ *
+ * @author Team XBMC
+ */
+public class RequestMetrics {
+
+    public static final String JSONRPC = "jsonrpc";
+    public static final String HTTPAPI = "httpapi";
+
+    /**
+     * Latencies below that many milliseconds get a bucket each; above, every
+     * power of two is split into {@link #SUB_BUCKETS} buckets.
+     */
+    private static final int LINEAR_BUCKETS = 8;
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = LINEAR_BUCKETS + (31 - 3) * SUB_BUCKETS;
+
+    private static final HashMap<String, Method> sMethods = new HashMap<String, Method>();
+    private static final ThreadLocal<String> sLastMethod = new ThreadLocal<String>();
+
+    /**
+     * Starts measuring a call.
+     *
+     * @param api    API the call is sent through, {@link #JSONRPC} or {@link #HTTPAPI}
+     * @param method Name of the method or command
+     * @return Sample to finish when done
+     */
+    public static Sample start(String api, String method) {
+        sLastMethod.set(method);
+        return new Sample(api, method);
+    }
+
+    /**
+     * Returns the method of the last call started on the current thread and
+     * forgets it, so the next caller only sees its own calls.
+     *
+     * @return Method name, null if no call was started since the last time
+     */
+    public static String takeLastMethod() {
+        final String method = sLastMethod.get();
+        sLastMethod.remove();
+        return method;
+    }
+
+    /**
+     * Returns a copy of the statistics of all methods called so far, the
+     * ones with most time spent first.
+     */
+    public static ArrayList<Method> getMethods() {
+        final ArrayList<Method> methods = new ArrayList<Method>();
+        synchronized (sMethods) {
+            for (Method method : sMethods.values()) {
+                methods.add(method.copy());
+            }
+        }
+        Collections.sort(methods, new Comparator<Method>() {
+            public int compare(Method lhs, Method rhs) {
+                return lhs.mTotalMillis == rhs.mTotalMillis ? lhs.getName().compareTo(rhs.getName()) : (lhs.mTotalMillis > rhs.mTotalMillis ? -1 : 1);
+            }
+        });
+        return methods;
+    }
+
+    /**
+     * Drops all statistics.
+     */
+    public static void reset() {
+        synchronized (sMethods) {
+            sMethods.clear();
+        }
+    }
+
+    /**
+     * Writes a table of all methods.
+     *
+     * @param writer Destination
+     */
+    public static void dump(Writer writer) {
+        final PrintWriter pw = new PrintWriter(writer);
+        pw.println("method                                     calls errors    p50    p95    p99    max  req kB  resp kB");
+        for (Method method : getMethods()) {
+            pw.println(method.toString());
+        }
+        pw.flush();
+    }
+
+    /**
+     * Writes a table of all methods to a file, for instance in order to
+     * attach it to a bug report.
+     *
+     * @param file Destination, is overwritten
+     * @throws IOException If the file can't be written
+     */
+    public static void dump(File file) throws IOException {
+        final FileWriter writer = new FileWriter(file);
+        try {
+            writer.write("Request metrics of " + new Date() + "\n\n");
+            dump(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Returns the table of all methods as text.
+     */
+    public static String dump() {
+        final StringWriter writer = new StringWriter();
+        dump(writer);
+        return writer.toString();
+    }
+
+    private static void record(Sample sample, long millis) {
+        final String key = sample.mApi + ":" + sample.mMethod;
+        synchronized (sMethods) {
+            Method method = sMethods.get(key);
+            if (method == null) {
+                method = new Method(sample.mApi, sample.mMethod);
+                sMethods.put(key, method);
+            }
+            method.add(sample, millis);
+        }
+    }
+
+    private static int bucket(long millis) {
+        if (millis < LINEAR_BUCKETS) {
+            return (int) Math.max(0, millis);
+        }
+        final int exp = Math.min(30, 63 - Long.numberOfLeadingZeros(millis));
+        final int sub = (int) (millis >> (exp - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, LINEAR_BUCKETS + (exp - 3) * SUB_BUCKETS + sub);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        final int exp = 3 + (bucket - LINEAR_BUCKETS) / SUB_BUCKETS;
+        final int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (exp - 2)) - 1;
+    }
+
+    /**
+     * One call being measured. Not thread-safe; a sample belongs to the
+     * thread sending the call.
+     */
+    public static class Sample {
+        private final String mApi;
+        private final String mMethod;
+        private final long mStarted = System.currentTimeMillis();
+        private long mRequestBytes = 0;
+        private long mResponseBytes = 0;
+        private boolean mError = false;
+        private boolean mFinished = false;
+
+        private Sample(String api, String method) {
+            mApi = api;
+            mMethod = method;
+        }
+
+        public String getMethod() {
+            return mMethod;
+        }
+
+        public void setRequestBytes(long bytes) {
+            mRequestBytes = bytes;
+        }
+
+        public void setResponseBytes(long bytes) {
+            mResponseBytes = bytes;
+        }
+
+        /**
+         * Marks the call as failed, be it on transport or by an error
+         * returned from XBMC.
+         */
+        public void setError() {
+            mError = true;
+        }
+
+        /**
+         * Records the sample. Further calls are ignored.
+         */
+        public void finish() {
+            if (!mFinished) {
+                mFinished = true;
+                record(this, System.currentTimeMillis() - mStarted);
+            }
+        }
+
+        /**
+         * Drops the sample without recording it, for calls answered without
+         * asking XBMC, like cached responses. Further calls are ignored.
+         */
+        public void discard() {
+            mFinished = true;
+        }
+    }
+
+    /**
+     * Statistics of one method.
+     */
+    public static class Method {
+        private final String mApi;
+        private final String mName;
+        private final int[] mHistogram;
+        private int mCount = 0;
+        private int mErrors = 0;
+        private long mTotalMillis = 0;
+        private long mMaxMillis = 0;
+        private long mRequestBytes = 0;
+        private long mResponseBytes = 0;
+
+        private Method(String api, String name) {
+            this(api, name, new int[BUCKETS]);
+        }
+
+        private Method(String api, String name, int[] histogram) {
+            mApi = api;
+            mName = name;
+            mHistogram = histogram;
+        }
+
+        private void add(Sample sample, long millis) {
+            mCount++;
+            if (sample.mError) {
+                mErrors++;
+            }
+            mTotalMillis += millis;
+            mMaxMillis = Math.max(mMaxMillis, millis);
+            mRequestBytes += sample.mRequestBytes;
+            mResponseBytes += sample.mResponseBytes;
+            mHistogram[bucket(millis)]++;
+        }
+
+        private Method copy() {
+            final Method copy = new Method(mApi, mName, mHistogram.clone());
+            copy.mCount = mCount;
+            copy.mErrors = mErrors;
+            copy.mTotalMillis = mTotalMillis;
+            copy.mMaxMillis = mMaxMillis;
+            copy.mRequestBytes = mRequestBytes;
+            copy.mResponseBytes = mResponseBytes;
+            return copy;
+        }
+
+        public String getApi() {
+            return mApi;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public int getErrorCount() {
+            return mErrors;
+        }
+
+        public long getTotalMillis() {
+            return mTotalMillis;
+        }
+
+        public long getMaxMillis() {
+            return mMaxMillis;
+        }
+
+        public long getRequestBytes() {
+            return mRequestBytes;
+        }
+
+        public long getResponseBytes() {
+            return mResponseBytes;
+        }
+
+        /**
+         * Returns the latency below which the given share of calls
+         * completed. The value is the upper bound of the histogram bucket,
+         * so it's accurate to about 25%.
+         *
+         * @param percentile Share between 0 and 100, e.g. 95
+         * @return Latency in milliseconds
+         */
+        public long getPercentile(double percentile) {
+            final long rank = Math.max(1, (long) Math.ceil(mCount * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += mHistogram[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), mMaxMillis);
+                }
+            }
+            return mMaxMillis;
+        }
+
+        public String toString() {
+            return String.format(Locale.US, "%-42s %5d %6d %6d %6d %6d %6d %7d %8d", mApi + ":" + mName, mCount, mErrors,
+                    getPercentile(50), getPercentile(95), getPercentile(99), mMaxMillis, mRequestBytes / 1024, mResponseBytes / 1024);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.media.AudioManager;
 import android.net.Uri;
@@ -17,6 +18,7 @@ import android.preference.PreferenceManager;
 import android.provider.Contacts;
 import android.provider.Contacts.PeopleColumns;
 import android.provider.Contacts.PhotosColumns;
+import android.provider.ContactsContract;
 import android.telephony.PhoneNumberUtils;
 import android.telephony.TelephonyManager;
 import android.telephony.gsm.SmsMessage;
@@ -57,20 +59,65 @@ public class SmsPopupUtils {
     public static final Pattern QUOTED_STRING_PATTERN = Pattern.compile("\\s*\"([^\"]*)\"\\s*");
     private static final String AUTHOR_CONTACT_INFO = "Adam K <adam@everythingandroid.net>";
 
+    /**
+     * Contact lookups are cached for a while, so a series of calls or
+     * messages from the same person doesn't query the contacts every time.
+     */
+    private static final int LOOKUP_CACHE_SIZE = 64;
+    private static final long LOOKUP_CACHE_TTL = 10 * 60 * 1000;
+    private static final LookupCache<String, String> sPersonIds = new LookupCache<String, String>(LOOKUP_CACHE_SIZE, LOOKUP_CACHE_TTL);
+    private static final LookupCache<String, String> sPersonNames = new LookupCache<String, String>(LOOKUP_CACHE_SIZE, LOOKUP_CACHE_TTL);
+    private static ContentObserver sContactsObserver;
+
+    /**
+     * Drops all cached contact lookups.
+     */
+    public static void clearLookupCache() {
+        sPersonIds.clear();
+        sPersonNames.clear();
+    }
+
+    /**
+     * Drops the cached lookups and notification icons whenever the contacts
+     * change. Registers only once per process.
+     */
+    public static synchronized void observeContacts(Context context) {
+        if (sContactsObserver != null) {
+            return;
+        }
+        sContactsObserver = new ContentObserver(null) {
+            @Override
+            public void onChange(boolean selfChange) {
+                clearLookupCache();
+                NotificationIconCache.clear();
+            }
+        };
+        context.getApplicationContext().getContentResolver().registerContentObserver(ContactsContract.AUTHORITY_URI, true, sContactsObserver);
+    }
+
     /**
      * Looks up a contacts display name by contact id - if not found, the
      * address (phone number) will be formatted and returned instead.
      */
-    public static String getPersonName(Context context, String id, String address) {
-        if (id == null) {
-            if (address != null) {
-                // Log.v("Contact not found, formatting number");
-                return PhoneNumberUtils.formatNumber(address);
-            } else {
-                return null;
+    public static String getPersonName(final Context context, String id, String address) {
+        if (id != null) {
+            final String name = sPersonNames.get(id, new LookupCache.Loader<String, String>() {
+                public String load(String id) {
+                    return queryPersonName(context, id);
+                }
+            });
+            if (name != null) {
+                return name;
             }
         }
+        if (address != null) {
+            // Log.v("Contact not found, formatting number");
+            return PhoneNumberUtils.formatNumber(address);
+        }
+        return null;
+    }
 
+    private static String queryPersonName(Context context, String id) {
         Cursor cursor = context.getContentResolver().query(Uri.withAppendedPath(Contacts.People.CONTENT_URI, id),
                 new String[]{PeopleColumns.DISPLAY_NAME}, null, null, null);
         if (cursor != null) {
@@ -85,11 +132,6 @@ public class SmsPopupUtils {
                 cursor.close();
             }
         }
-
-        if (address != null) {
-            // Log.v("Contact not found, formatting number");
-            return PhoneNumberUtils.formatNumber(address);
-        }
         return null;
     }
 
@@ -97,10 +139,17 @@ public class SmsPopupUtils {
      * Looks up a contacts id, given their address (phone number in this case).
      * Returns null if not found
      */
-    public static String getPersonIdFromPhoneNumber(Context context, String address) {
+    public static String getPersonIdFromPhoneNumber(final Context context, String address) {
         if (address == null)
             return null;
+        return sPersonIds.get(address, new LookupCache.Loader<String, String>() {
+            public String load(String address) {
+                return queryPersonIdFromPhoneNumber(context, address);
+            }
+        });
+    }
 
+    private static String queryPersonIdFromPhoneNumber(Context context, String address) {
         Cursor cursor = context.getContentResolver().query(
                 Uri.withAppendedPath(Contacts.Phones.CONTENT_FILTER_URL, address),
                 new String[]{Contacts.Phones.PERSON_ID}, null, null, null);
@@ -74,6 +74,7 @@ public class FastScrollView extends FrameLayout implements OnScrollListener, OnT
     private Handler mHandler = new Handler();
     private BaseAdapter mListAdapter;
     private IdleListDetector mIdleListDetector;
+    private OnScrollListener mOnScrollListener;
     private boolean mChangedBounds;
 
     public FastScrollView(Context context) {
@@ -136,6 +137,16 @@ public class FastScrollView extends FrameLayout implements OnScrollListener, OnT
             mList.setOnTouchListener(this);
     }
 
+    /**
+     * The fast scroller takes the list's scroll listener, so others can
+     * listen through here.
+     *
+     * @param l Listener or null to remove
+     */
+    public void setOnScrollListener(OnScrollListener l) {
+        mOnScrollListener = l;
+    }
+
     private void reportFastScrollState(int scrollState) {
         if (mIdleListDetector != null)
             mIdleListDetector.onFastScrollStateChanged(mList, scrollState);
@@ -208,9 +219,13 @@ public class FastScrollView extends FrameLayout implements OnScrollListener, OnT
     public void onScrollStateChanged(AbsListView view, int scrollState) {
         if (mIdleListDetector != null)
             mIdleListDetector.onScrollStateChanged(view, scrollState);
+        if (mOnScrollListener != null)
+            mOnScrollListener.onScrollStateChanged(view, scrollState);
     }
 
     public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (mOnScrollListener != null)
+            mOnScrollListener.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
 
         if (totalItemCount - visibleItemCount > 0 && !mDragging) {
             mThumbY = ((getHeight() - mThumbH) * firstVisibleItem) / (totalItemCount - visibleItemCount);
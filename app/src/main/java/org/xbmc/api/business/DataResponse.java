@@ -33,6 +33,12 @@ package org.xbmc.api.business;
  * @author Team XBMC
  */
 public class DataResponse<T> implements Runnable, Cloneable {
+
+    /**
+     * Number of rows after which lists usually post a partial result.
+     */
+    public static final int CHUNK_SIZE = 200;
+
     public T value;
     public int cacheType;
 
@@ -49,4 +55,31 @@ public class DataResponse<T> implements Runnable, Cloneable {
     public boolean postCache() {
         return true;
     }
+
+    /**
+     * Overload and return a value larger than 0 in order to receive large
+     * lists in parts while they are still being parsed, see
+     * {@link #runChunk(Object, int)}.
+     *
+     * @return Number of rows per part, 0 for the complete list only.
+     */
+    public int getChunkSize() {
+        return 0;
+    }
+
+    /**
+     * Executed in the UI thread with the next rows of a list while it is
+     * still being parsed. When the list is complete, {@link #run()} is
+     * executed as usual with the whole list as value, including the rows
+     * already delivered.
+     * <p>
+     * If the command is retried, parts start again at offset 0 and replace
+     * whatever was delivered before.
+     *
+     * @param rows   Rows since the last part
+     * @param offset Position of the first row in the list
+     */
+    public void runChunk(T rows, int offset) {
+        // do nothing if not overloaded
+    }
 }
\ No newline at end of file
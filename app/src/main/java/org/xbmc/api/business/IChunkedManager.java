@@ -0,0 +1,43 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.api.business;
+
+import java.util.ArrayList;
+
+/**
+ * A manager that wants list results in parts while they are still being
+ * read. Clients check for this interface and hand over what they have
+ * parsed every {@link #getChunkSize()} rows.
+ *
+ * @author Team XBMC
+ */
+public interface IChunkedManager extends INotifiableManager {
+
+    public int getChunkSize();
+
+    /**
+     * @param rows   Rows since the last part
+     * @param offset Position of the first row in the list, 0 if the list is
+     *               read from the start, which may also be a retry.
+     */
+    public void onChunk(ArrayList<?> rows, int offset);
+}
@@ -77,6 +77,25 @@ public interface IEventClientManager extends IManager {
     public void sendButton(String map_name, String button_name, boolean repeat,
                            boolean down, boolean queue, short amount, byte axis);
 
+    /**
+     * Holds a button down until {@link #releaseButton()} is called or
+     * another button is pressed.
+     *
+     * @param map_name        Keymap of the button, e.g. "R1"
+     * @param button_name     A button name defined in the map
+     * @param repeat_interval {@link org.xbmc.api.data.IEventClient#REPEAT_SERVER} lets XBMC repeat the
+     *                        button, {@link org.xbmc.api.data.IEventClient#REPEAT_NONE} sends a single
+     *                        press, any other value resends the press from
+     *                        the client every that many milliseconds.
+     */
+    public void pressButton(String map_name, String button_name, int repeat_interval);
+
+    /**
+     * Releases the button held by {@link #pressButton(String, String, int)},
+     * if any.
+     */
+    public void releaseButton();
+
     /**
      * Sets the mouse position in XBMC
      *
@@ -26,6 +26,7 @@ import android.content.Context;
 import org.xbmc.api.object.Album;
 import org.xbmc.api.object.Artist;
 import org.xbmc.api.object.Genre;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Song;
 
 import java.util.ArrayList;
@@ -52,6 +53,15 @@ public interface IMusicManager extends IManager {
      */
     public void getAlbums(final DataResponse<ArrayList<Album>> response, final Context context);
 
+    /**
+     * Gets a window of all albums from database
+     *
+     * @param response Response object
+     * @param start    Position of the first album to return
+     * @param end      Position after the last album to return
+     */
+    public void getAlbums(final DataResponse<PagedList<Album>> response, final int start, final int end, final Context context);
+
     /**
      * SYNCHRONOUSLY gets all albums from database
      *
@@ -99,6 +109,16 @@ public interface IMusicManager extends IManager {
      */
     public void getSongs(final DataResponse<ArrayList<Song>> response, final Genre genre, final Context context);
 
+    /**
+     * Gets a window of all songs of a genre from database
+     *
+     * @param response Response object
+     * @param genre    Genre
+     * @param start    Position of the first song to return
+     * @param end      Position after the last song to return
+     */
+    public void getSongs(final DataResponse<PagedList<Song>> response, final Genre genre, final int start, final int end, final Context context);
+
     /**
      * Gets all artists from database
      *
@@ -5,6 +5,7 @@ import android.content.Context;
 import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.Episode;
 import org.xbmc.api.object.Genre;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Season;
 import org.xbmc.api.object.TvShow;
 
@@ -14,6 +15,14 @@ public interface ITvShowManager extends IManager {
 
     public void getTvShows(DataResponse<ArrayList<TvShow>> response, Context context);
 
+    /**
+     * Gets a window of all tv shows
+     *
+     * @param start Position of the first show to return
+     * @param end   Position after the last show to return
+     */
+    public void getTvShows(DataResponse<PagedList<TvShow>> response, int start, int end, Context context);
+
     public void getTvShowActors(DataResponse<ArrayList<Actor>> response, Context context);
 
     public void getTvShowGenres(DataResponse<ArrayList<Genre>> response, Context context);
@@ -84,6 +93,16 @@ public interface ITvShowManager extends IManager {
      */
     public void updateEpisodeDetails(DataResponse<Episode> response, Episode episode, Context context);
 
+    /**
+     * Fetches the properties the list left out for several episodes, for
+     * instance the visible ones.
+     *
+     * @param response
+     * @param episodes
+     * @param context
+     */
+    public void prefetchEpisodeDetails(DataResponse<ArrayList<Episode>> response, ArrayList<Episode> episodes, Context context);
+
     /**
      * Updates the give TvShow
      *
@@ -92,6 +111,16 @@ public interface ITvShowManager extends IManager {
      */
     public void updateTvShowDetails(DataResponse<TvShow> response, TvShow show, Context context);
 
+    /**
+     * Fetches the properties the list left out for several shows, for
+     * instance the visible ones.
+     *
+     * @param response
+     * @param shows
+     * @param context
+     */
+    public void prefetchTvShowDetails(DataResponse<ArrayList<TvShow>> response, ArrayList<TvShow> shows, Context context);
+
     /**
      * Put in here everything that has to be cleaned up after leaving an activity.
      */
@@ -26,6 +26,7 @@ import android.content.Context;
 import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Movie;
+import org.xbmc.api.object.PagedList;
 
 import java.util.ArrayList;
 
@@ -44,6 +45,15 @@ public interface IVideoManager extends IManager {
      */
     public void updateMovieDetails(final DataResponse<Movie> response, final Movie movie, final Context context);
 
+    /**
+     * Fetches the properties the list left out for several movies, for
+     * instance the visible ones.
+     *
+     * @param response Response object
+     * @param movies   Movies to update
+     */
+    public void prefetchMovieDetails(final DataResponse<ArrayList<Movie>> response, final ArrayList<Movie> movies, final Context context);
+
     /**
      * Gets all movies from database
      *
@@ -59,11 +69,22 @@ public interface IVideoManager extends IManager {
     public ArrayList<Movie> getMovies(final Context context);
 
     /**
-     * SYNCHRONOUSLY gets all movies from database
+     * Gets a window of all movies from database
+     *
+     * @param response Response object
+     * @param start    Position of the first movie to return
+     * @param end      Position after the last movie to return
+     */
+    public void getMovies(final DataResponse<PagedList<Movie>> response, final int start, final int end, final Context context);
+
+    /**
+     * SYNCHRONOUSLY gets a window of all movies from database
      *
-     * @return Movies in database with offset
+     * @param start Position of the first movie to return
+     * @param end   Position after the last movie to return
+     * @return Movies in database of the window
      */
-    public ArrayList<Movie> getMovies(final Context context, int offset);
+    public PagedList<Movie> getMovies(final Context context, int start, int end);
 
     /**
      * Gets all movies with an actor from database
@@ -21,10 +21,12 @@
 
 package org.xbmc.api.data;
 
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.type.SeekType;
 
 import java.io.Serializable;
+import java.util.concurrent.Future;
 
 
 /**
@@ -307,6 +309,15 @@ public interface IControlClient extends IClient {
      */
     public ICurrentlyPlaying getCurrentlyPlaying(INotifiableManager manager);
 
+    /**
+     * Non-blocking variant of {@link #getCurrentlyPlaying(INotifiableManager)}. Runs on the
+     * request pool and posts the state through the manager.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<ICurrentlyPlaying> getCurrentlyPlayingAsync(INotifiableManager manager, DataResponse<ICurrentlyPlaying> response);
+
     /**
      * Sets the gui setting of XBMC to value
      *
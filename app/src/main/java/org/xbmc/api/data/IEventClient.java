@@ -14,6 +14,15 @@ import java.io.IOException;
  */
 public interface IEventClient {
 
+    /**
+     * Repeat interval letting XBMC repeat a held button
+     */
+    public static final int REPEAT_SERVER = 0;
+    /**
+     * Repeat interval sending a single press
+     */
+    public static final int REPEAT_NONE = -1;
+
 
     /**
      * Sets the icon using a path name to a image file (png, jpg or gif).
@@ -101,6 +110,25 @@ public interface IEventClient {
     public void sendButton(String map_name, String button_name, boolean repeat,
                            boolean down, boolean queue, short amount, byte axis);
 
+    /**
+     * Holds a button down until {@link #releaseButton()} is called or
+     * another button is pressed.
+     *
+     * @param map_name        Keymap of the button, e.g. "R1"
+     * @param button_name     A button name defined in the map
+     * @param repeat_interval {@link IEventClient#REPEAT_SERVER} lets XBMC repeat the
+     *                        button, {@link IEventClient#REPEAT_NONE} sends a single
+     *                        press, any other value resends the press from
+     *                        the client every that many milliseconds.
+     */
+    public void pressButton(String map_name, String button_name, int repeat_interval);
+
+    /**
+     * Releases the button held by {@link #pressButton(String, String, int)},
+     * if any.
+     */
+    public void releaseButton();
+
     /**
      * Sets the mouse position in XBMC
      *
@@ -23,14 +23,17 @@ package org.xbmc.api.data;
 
 import android.graphics.Bitmap;
 
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.object.Album;
 import org.xbmc.api.object.Artist;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Song;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 /**
  * This is the interface between the business layer and the presentation layer.
@@ -226,6 +229,15 @@ public interface IMusicClient extends IClient {
      */
     public ArrayList<Album> getAlbums(INotifiableManager manager, ArrayList<Integer> artistIDs);
 
+    /**
+     * Gets all compilation albums, filtered by the server.
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @return All compilation albums
+     */
+    public ArrayList<Album> getCompilations(INotifiableManager manager, int sortBy, String sortOrder);
+
     /**
      * Gets all albums from database
      *
@@ -235,6 +247,26 @@ public interface IMusicClient extends IClient {
      */
     public ArrayList<Album> getAlbums(INotifiableManager manager, int sortBy, String sortOrder);
 
+    /**
+     * Gets a window of all albums from database
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first album to return
+     * @param end       Position after the last album to return
+     * @return Albums of the window
+     */
+    public PagedList<Album> getAlbums(INotifiableManager manager, int sortBy, String sortOrder, int start, int end);
+
+    /**
+     * Non-blocking variant of {@link #getAlbums(INotifiableManager, int, String, int, int)}. Runs on the
+     * request pool and posts the window through the manager.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Album>> getAlbumsAsync(INotifiableManager manager, DataResponse<PagedList<Album>> response, int sortBy, String sortOrder, int start, int end);
+
     /**
      * Gets all albums of an artist from database
      *
@@ -325,6 +357,27 @@ public interface IMusicClient extends IClient {
      */
     public ArrayList<Song> getSongs(INotifiableManager manager, Genre genre, int sortBy, String sortOrder);
 
+    /**
+     * Returns a window of all tracks of a genre.
+     *
+     * @param genre     Genre
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first track to return
+     * @param end       Position after the last track to return
+     * @return Tracks of the window
+     */
+    public PagedList<Song> getSongs(INotifiableManager manager, Genre genre, int sortBy, String sortOrder, int start, int end);
+
+    /**
+     * Non-blocking variant of {@link #getSongs(INotifiableManager, Genre, int, String, int, int)}. Runs on the
+     * request pool and posts the window through the manager.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Song>> getSongsAsync(INotifiableManager manager, DataResponse<PagedList<Song>> response, Genre genre, int sortBy, String sortOrder, int start, int end);
+
     /**
      * Returns a list containing all tracks of a genre AND and artist. The list is sorted by
      * artist, album name, filename.
@@ -2,20 +2,42 @@ package org.xbmc.api.data;
 
 import android.graphics.Bitmap;
 
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.Episode;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Season;
 import org.xbmc.api.object.TvShow;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 public interface ITvShowClient extends IClient {
 
     public ArrayList<TvShow> getTvShows(INotifiableManager manager, int sortBy, String sortOrder, boolean hideWatched);
 
+    /**
+     * Gets a window of all tv shows
+     *
+     * @param manager
+     * @param start   Position of the first show to return
+     * @param end     Position after the last show to return
+     * @return
+     */
+    public PagedList<TvShow> getTvShows(INotifiableManager manager, int sortBy, String sortOrder, int start, int end, boolean hideWatched);
+
+    /**
+     * Non-blocking variant of {@link #getTvShows(INotifiableManager, int, String, int, int, boolean)}. Runs on the
+     * request pool and posts the window through the manager.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<TvShow>> getTvShowsAsync(INotifiableManager manager, DataResponse<PagedList<TvShow>> response, int sortBy, String sortOrder, int start, int end, boolean hideWatched);
+
     public ArrayList<Actor> getTvShowActors(INotifiableManager manager);
 
     public ArrayList<Genre> getTvShowGenres(INotifiableManager manager);
@@ -116,6 +138,16 @@ public interface ITvShowClient extends IClient {
      */
     public Episode updateEpisodeDetails(INotifiableManager manager, Episode episode);
 
+    /**
+     * Updates several episodes with the properties their list left out, in
+     * one go if possible.
+     *
+     * @param manager
+     * @param episodes
+     * @return
+     */
+    public ArrayList<Episode> updateEpisodeDetails(INotifiableManager manager, ArrayList<Episode> episodes);
+
     /**
      * Updates the show with summary
      *
@@ -125,4 +157,14 @@ public interface ITvShowClient extends IClient {
      */
     public TvShow updateTvShowDetails(INotifiableManager manager, TvShow show);
 
+    /**
+     * Updates several shows with the properties their list left out, in one
+     * go if possible.
+     *
+     * @param manager
+     * @param shows
+     * @return
+     */
+    public ArrayList<TvShow> updateTvShowDetails(INotifiableManager manager, ArrayList<TvShow> shows);
+
 }
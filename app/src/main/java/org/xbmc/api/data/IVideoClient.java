@@ -23,13 +23,16 @@ package org.xbmc.api.data;
 
 import android.graphics.Bitmap;
 
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.ICoverArt;
 import org.xbmc.api.object.Movie;
+import org.xbmc.api.object.PagedList;
 
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
 
 /**
@@ -50,14 +53,24 @@ public interface IVideoClient extends IClient {
     public ArrayList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, boolean hideWatched);
 
     /**
-     * Gets all movies from database
+     * Gets a window of all movies from database
      *
      * @param sortBy    Sort field, see SortType.*
      * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
-     * @param offset    Offset
-     * @return All movies
+     * @param start     Position of the first movie to return
+     * @param end       Position after the last movie to return
+     * @return Movies of the window
+     */
+    public PagedList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, int start, int end, boolean hideWatched);
+
+    /**
+     * Non-blocking variant of {@link #getMovies(INotifiableManager, int, String, int, int, boolean)}. Runs on the
+     * request pool and posts the window through the manager.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
      */
-    public ArrayList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, int offset, boolean hideWatched);
+    public Future<PagedList<Movie>> getMoviesAsync(INotifiableManager manager, DataResponse<PagedList<Movie>> response, int sortBy, String sortOrder, int start, int end, boolean hideWatched);
 
     /**
      * Gets all movies with an actor from database
@@ -88,6 +101,15 @@ public interface IVideoClient extends IClient {
      */
     public Movie updateMovieDetails(INotifiableManager manager, Movie movie);
 
+    /**
+     * Updates several movies with the properties their list left out, in one
+     * go if possible.
+     *
+     * @param movies Movies to update
+     * @return Updated movies
+     */
+    public ArrayList<Movie> updateMovieDetails(INotifiableManager manager, ArrayList<Movie> movies);
+
     /**
      * Gets all actors from database. Use {@link getMovieActors()} and
      * {@link getTvActors()} for filtered actors.
@@ -44,9 +44,10 @@ public class Movie implements ICoverArt, Serializable, INamedResource {
      */
     public final String title;
     /**
-     * Director(s), can be several separated by " / "
+     * Director(s), can be several separated by " / ". Lists don't fetch it,
+     * it's set with the details.
      */
-    public final String director;
+    public String director;
     /**
      * Runtime, can be several also, separated by " | "
      */
@@ -0,0 +1,72 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.api.object;
+
+import java.util.ArrayList;
+
+
+/**
+ * One window of a larger list that lives on the server. Besides the items,
+ * it knows where the window starts, where the next one starts and how many
+ * items there are in total.
+ *
+ * @param <E> Type of the items
+ * @author Team XBMC
+ */
+public class PagedList<E> extends ArrayList<E> {
+
+    private static final long serialVersionUID = -2314960184716934562L;
+
+    /**
+     * Position of the first item of this window in the whole list
+     */
+    public final int start;
+    /**
+     * Position in the whole list where the next window starts. Might be
+     * larger than start + size() if items were filtered out. Sources may
+     * choose their own window size, so don't assume it's the requested one.
+     */
+    public int end;
+    /**
+     * Number of items of the whole list, -1 if unknown.
+     */
+    public int total = -1;
+
+    /**
+     * Constructor
+     *
+     * @param start Position of the first item in the whole list
+     */
+    public PagedList(int start) {
+        this.start = start;
+        this.end = start;
+    }
+
+    /**
+     * Returns true if there are items after this window.
+     *
+     * @return
+     */
+    public boolean hasMore() {
+        return total > end;
+    }
+}
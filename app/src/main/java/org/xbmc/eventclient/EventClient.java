@@ -24,6 +24,19 @@ public class EventClient implements IEventClient {
 
     private static final String TAG = "EventClient";
     private final String mDeviceName;
+    /**
+     * Sends all packets of this client, including pings.
+     */
+    private final PacketSender mSender = new PacketSender();
+    /**
+     * Thins out mouse and analog button packets, all other packets pass
+     * through it in order.
+     */
+    private final EventCoalescer mCoalescer = new EventCoalescer(mSender, EventCoalescer.DEFAULT_RATE);
+    /**
+     * Holds the button pressed through pressButton()
+     */
+    private final KeyRepeater mRepeater = new KeyRepeater(mCoalescer);
     private boolean mHasIcon = false;
     private PingThread mPingThread;
     private byte mIconType = Packet.ICON_NONE;
@@ -173,9 +186,9 @@ public class EventClient implements IEventClient {
         else
             p = new PacketHELO(mDeviceName);
 
-        p.send(hostAddress, hostPort);
+        mCoalescer.send(p, hostAddress, hostPort);
         // Start Thread (for Ping packets...)
-        mPingThread = new PingThread(hostAddress, hostPort, 20000);
+        mPingThread = new PingThread(mSender, hostAddress, hostPort, 20000);
         mPingThread.start();
 
     }
@@ -188,12 +201,14 @@ public class EventClient implements IEventClient {
     public void stopClient() throws IOException {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
+            mRepeater.release();
             // Stop Ping-Thread...
             mPingThread.giveup();
             mPingThread.interrupt();
 
             PacketBYE p = new PacketBYE();
-            p.send(mHostAddress, mHostPort);
+            mCoalescer.send(p, mHostAddress, mHostPort);
+            Log.i(TAG, "Coalescer: " + mCoalescer + ", sender: " + mSender + ", keys: " + mRepeater);
         }
     }
 
@@ -212,7 +227,7 @@ public class EventClient implements IEventClient {
                 p = new PacketNOTIFICATION(title, message, mIconType, mIconData);
             else
                 p = new PacketNOTIFICATION(title, message);
-            p.send(addr, mHostPort);
+            mCoalescer.send(p, addr, mHostPort);
         }
     }
 
@@ -220,7 +235,7 @@ public class EventClient implements IEventClient {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
             PacketNOTIFICATION p = new PacketNOTIFICATION(title, message, icontype, icondata);
-            p.send(addr, mHostPort);
+            mCoalescer.send(p, addr, mHostPort);
         }
     }
 
@@ -244,7 +259,7 @@ public class EventClient implements IEventClient {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
             PacketBUTTON p = new PacketBUTTON(code, repeat, down, queue, amount, axis);
-            p.send(addr, mHostPort);
+            sendButton(p, "#" + code + "/" + axis, down, amount, addr);
         }
     }
 
@@ -285,12 +300,49 @@ public class EventClient implements IEventClient {
         if (addr != null) {
             Log.i(TAG, "sendButton(" + map_name + ", \"" + button_name + "\", " + (repeat ? "rep, " : "nonrep, ") + (down ? "down)" : "up)"));
             PacketBUTTON p = new PacketBUTTON(map_name, button_name, repeat, down, queue, amount, axis);
-            p.send(addr, mHostPort);
+            sendButton(p, map_name + "/" + button_name + "/" + axis, down, amount, addr);
         } else {
             Log.e(TAG, "sendButton failed due to unset host address!");
         }
     }
 
+    public void pressButton(String map_name, String button_name, int repeat_interval) {
+        final InetAddress addr = mHostAddress;
+        if (addr != null) {
+            mRepeater.press(map_name, button_name, repeat_interval, addr, mHostPort);
+        } else {
+            Log.e(TAG, "pressButton failed due to unset host address!");
+        }
+    }
+
+    public void releaseButton() {
+        mRepeater.release();
+    }
+
+    /**
+     * Sends analog presses through the coalescer, so only the latest amount
+     * per button and axis goes out. The release drops a pending press.
+     */
+    private void sendButton(PacketBUTTON p, String key, boolean down, short amount, InetAddress addr) {
+        if (down && amount > 0) {
+            mCoalescer.coalesce(key, p, addr, mHostPort);
+        } else if (!down) {
+            mCoalescer.release(key, p, addr, mHostPort);
+        } else {
+            mCoalescer.send(p, addr, mHostPort);
+        }
+    }
+
+    /**
+     * Sets how often mouse and analog button packets are sent at most. Only
+     * the latest state is sent, older ones are dropped.
+     *
+     * @param rate Packets per second, 0 to send every packet
+     */
+    public void setEventRate(int rate) {
+        mCoalescer.setRate(rate);
+    }
+
     /**
      * Sets the mouse position in XBMC
      *
@@ -301,7 +353,7 @@ public class EventClient implements IEventClient {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
             PacketMOUSE p = new PacketMOUSE(x, y);
-            p.send(addr, mHostPort);
+            mCoalescer.coalesce(EventCoalescer.KEY_MOUSE, p, addr, mHostPort);
         }
     }
 
@@ -314,7 +366,7 @@ public class EventClient implements IEventClient {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
             PacketPING p = new PacketPING();
-            p.send(addr, mHostPort);
+            mCoalescer.send(p, addr, mHostPort);
         }
     }
 
@@ -336,7 +388,7 @@ public class EventClient implements IEventClient {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
             PacketLOG p = new PacketLOG(loglevel, logmessage);
-            p.send(addr, mHostPort);
+            mCoalescer.send(p, addr, mHostPort);
         }
     }
 
@@ -350,7 +402,7 @@ public class EventClient implements IEventClient {
         final InetAddress addr = mHostAddress;
         if (addr != null) {
             PacketACTION p = new PacketACTION(actionmessage);
-            p.send(addr, mHostPort);
+            mCoalescer.send(p, addr, mHostPort);
         }
     }
 
@@ -361,13 +413,15 @@ public class EventClient implements IEventClient {
      * @author Stefan Agner
      */
     private static class PingThread extends Thread {
+        private final PacketSender mSender;
         private InetAddress mHostAddress;
         private int mHostPort;
         private int mSleepTime;
         private boolean mGiveup = false;
 
-        public PingThread(InetAddress hostAddress, int hostPort, int sleepTime) {
+        public PingThread(PacketSender sender, InetAddress hostAddress, int hostPort, int sleepTime) {
             super("XBMC EventClient Ping-Thread");
+            mSender = sender;
             mHostAddress = hostAddress;
             mHostPort = hostPort;
             mSleepTime = sleepTime;
@@ -385,7 +439,7 @@ public class EventClient implements IEventClient {
         public void run() {
             while (!mGiveup) {
                 PacketPING p = new PacketPING();
-                p.send(mHostAddress, mHostPort);
+                mSender.send(p, mHostAddress, mHostPort);
 
                 try {
                     Thread.sleep(mSleepTime);
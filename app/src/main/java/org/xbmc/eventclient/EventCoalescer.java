@@ -0,0 +1,173 @@
+package org.xbmc.eventclient;
+
+import java.net.InetAddress;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XBMC Event Client Class
+ * <p>
+ * Thins out continuous input before it reaches the {@link PacketSender}.
+ * Mouse positions and analog button amounts only matter in their latest
+ * state, so per key (the mouse or one analog button and axis) only the
+ * newest packet is kept and all pending packets are flushed at most
+ * <code>rate</code> times per second. A packet coming in after a quiet
+ * period goes out right away.
+ * </p>
+ * <p>
+ * Every other packet flushes what's pending before it is sent, so XBMC
+ * sees the input in the order it happened.
+ * </p>
+ *
+ * @author Team XBMC
+ */
+class EventCoalescer {
+
+    public static final int DEFAULT_RATE = 60;
+    static final String KEY_MOUSE = "mouse";
+    private static final String THREAD_NAME = "XBMC EventClient Coalescer";
+
+    private static final ScheduledThreadPoolExecutor sFlusher = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final PacketSender mSender;
+    private final LinkedHashMap<String, Packet> mPending = new LinkedHashMap<String, Packet>();
+    private final Runnable mFlush = new Runnable() {
+        public void run() {
+            synchronized (EventCoalescer.this) {
+                mScheduled = false;
+                flush();
+            }
+        }
+    };
+    private long mInterval;
+    private long mLastFlush = 0;
+    private boolean mScheduled = false;
+    private InetAddress mAdr;
+    private int mPort;
+
+    private long mReceived = 0;
+    private long mSent = 0;
+    private long mDropped = 0;
+
+    EventCoalescer(PacketSender sender, int rate) {
+        mSender = sender;
+        setRate(rate);
+    }
+
+    /**
+     * Sets how often pending packets are sent at most.
+     *
+     * @param rate Flushes per second, 0 to send every packet right away
+     */
+    public synchronized void setRate(int rate) {
+        mInterval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) / rate : 0;
+        if (mInterval == 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Queues a packet replacing the pending one of the same key.
+     *
+     * @param key    Mouse or analog button and axis
+     * @param packet Packet with the latest state
+     * @param adr    Address of the EventServer
+     * @param port   Port of the EventServer
+     */
+    public synchronized void coalesce(String key, Packet packet, InetAddress adr, int port) {
+        mReceived++;
+        if (mInterval == 0) {
+            mSent++;
+            send(packet, adr, port);
+            return;
+        }
+        if (mPending.put(key, packet) != null) {
+            mDropped++;
+        }
+        mAdr = adr;
+        mPort = port;
+        if (!mScheduled) {
+            final long wait = mLastFlush + mInterval - System.nanoTime();
+            if (wait <= 0) {
+                flush();
+            } else {
+                mScheduled = true;
+                sFlusher.schedule(mFlush, wait, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Drops the pending state of a key, flushes the rest and sends the
+     * packet, e.g. the release of an analog button.
+     *
+     * @param key    Mouse or analog button and axis
+     * @param packet Packet to send
+     * @param adr    Address of the EventServer
+     * @param port   Port of the EventServer
+     */
+    public synchronized void release(String key, Packet packet, InetAddress adr, int port) {
+        if (mPending.remove(key) != null) {
+            mDropped++;
+        }
+        send(packet, adr, port);
+    }
+
+    /**
+     * Flushes pending packets and sends the packet.
+     *
+     * @param packet Packet to send
+     * @param adr    Address of the EventServer
+     * @param port   Port of the EventServer
+     */
+    public synchronized void send(Packet packet, InetAddress adr, int port) {
+        flush();
+        mSender.send(packet, adr, port);
+    }
+
+    /**
+     * Returns the number of coalescable packets handed in so far.
+     */
+    public synchronized long getReceivedCount() {
+        return mReceived;
+    }
+
+    /**
+     * Returns the number of coalescable packets that were sent.
+     */
+    public synchronized long getSentCount() {
+        return mSent;
+    }
+
+    /**
+     * Returns the number of coalescable packets replaced by a newer state.
+     */
+    public synchronized long getDroppedCount() {
+        return mDropped;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "received " + mReceived + ", sent " + mSent + ", dropped " + mDropped;
+    }
+
+    private void flush() {
+        if (mPending.isEmpty()) {
+            return;
+        }
+        for (Packet packet : mPending.values()) {
+            mSender.send(packet, mAdr, mPort);
+            mSent++;
+        }
+        mPending.clear();
+        mLastFlush = System.nanoTime();
+    }
+}
@@ -0,0 +1,127 @@
+package org.xbmc.eventclient;
+
+import android.util.Log;
+
+import org.xbmc.api.data.IEventClient;
+
+import java.net.InetAddress;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XBMC Event Client Class
+ * <p>
+ * Keeps track of the button currently held down. By default the EventServer
+ * repeats the button itself: one non-queued press with the repeat flag is
+ * sent and one release when the button is let go.
+ * </p>
+ * <p>
+ * For servers not repeating reliably, the press can be resent by the client
+ * at a fixed rate instead. Resends are scheduled on absolute times so the
+ * cadence doesn't drift with scheduler delays, and the same packet is sent
+ * every time.
+ * </p>
+ *
+ * @author Team XBMC
+ */
+class KeyRepeater {
+
+    private static final String TAG = "KeyRepeater";
+    private static final String THREAD_NAME = "XBMC EventClient Key Repeat";
+
+    private static final ScheduledThreadPoolExecutor sRepeater = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            return thread;
+        }
+    });
+
+    private final EventCoalescer mCoalescer;
+    private String mMapName = null;
+    private String mButtonName = null;
+    private boolean mQueue = false;
+    private ScheduledFuture<?> mRepeats = null;
+    /**
+     * Tells a repeat already running that its button was released meanwhile
+     */
+    private int mGeneration = 0;
+    private InetAddress mAdr;
+    private int mPort;
+
+    private long mPresses = 0;
+    private long mPackets = 0;
+
+    KeyRepeater(EventCoalescer coalescer) {
+        mCoalescer = coalescer;
+    }
+
+    /**
+     * Presses a button, releasing the one held before.
+     *
+     * @param mapName        Keymap of the button
+     * @param buttonName     Name of the button in the keymap
+     * @param repeatInterval {@link IEventClient#REPEAT_SERVER},
+     *                       {@link IEventClient#REPEAT_NONE} or the interval of
+     *                       client side repeats in milliseconds
+     * @param adr            Address of the EventServer
+     * @param port           Port of the EventServer
+     */
+    public synchronized void press(String mapName, String buttonName, int repeatInterval, InetAddress adr, int port) {
+        release();
+        mMapName = mapName;
+        mButtonName = buttonName;
+        mAdr = adr;
+        mPort = port;
+        mPresses++;
+        mQueue = repeatInterval != IEventClient.REPEAT_SERVER;
+        if (!mQueue) {
+            send(new PacketBUTTON(mapName, buttonName, true, true, false, (short) 0, (byte) 0));
+            return;
+        }
+        final PacketBUTTON press = new PacketBUTTON(mapName, buttonName, false, true, true, (short) 0, (byte) 0);
+        send(press);
+        if (repeatInterval > 0) {
+            final int generation = mGeneration;
+            mRepeats = sRepeater.scheduleAtFixedRate(new Runnable() {
+                public void run() {
+                    synchronized (KeyRepeater.this) {
+                        if (generation == mGeneration) {
+                            send(press);
+                        }
+                    }
+                }
+            }, repeatInterval, repeatInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Releases the held button, if any.
+     */
+    public synchronized void release() {
+        mGeneration++;
+        if (mRepeats != null) {
+            mRepeats.cancel(false);
+            mRepeats = null;
+        }
+        if (mButtonName != null) {
+            send(new PacketBUTTON(mMapName, mButtonName, false, false, mQueue, (short) 0, (byte) 0));
+            Log.d(TAG, "Released " + mMapName + "/" + mButtonName + ", " + toString());
+            mMapName = null;
+            mButtonName = null;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return mPresses + " presses in " + mPackets + " packets";
+    }
+
+    private void send(PacketBUTTON packet) {
+        mPackets++;
+        mCoalescer.send(packet, mAdr, mPort);
+    }
+}
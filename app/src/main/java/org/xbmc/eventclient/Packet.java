@@ -1,12 +1,6 @@
 package org.xbmc.eventclient;
 
-import android.util.Log;
-
-import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
-import java.net.SocketException;
+import java.nio.ByteBuffer;
 
 /**
  * XBMC Event Client Class
@@ -75,57 +69,73 @@ public abstract class Packet {
     protected final static byte PT_LOG = 0x09;
     protected final static byte PT_ACTION = 0x0A;
     protected final static byte PT_DEBUG = (byte) 0xFF;
-    private final static String TAG = Packet.class.getSimpleName();
-    private final static short MAX_PACKET_SIZE = 1024;
+    static final short MAX_PACKET_SIZE = 1024;
     private final static short HEADER_SIZE = 32;
     private final static short MAX_PAYLOAD_SIZE = MAX_PACKET_SIZE - HEADER_SIZE;
+    private final static int SIGNATURE = ('X' << 24) | ('B' << 16) | ('M' << 8) | 'C';
+    private final static byte MAJOR_VERSION = 2;
+    private final static byte MINOR_VERSION = 0;
+    private final static int DEFAULT_CAPACITY = 16;
     private static int uid = (int) (Math.random() * Integer.MAX_VALUE);
-    private byte[] sig;
-    private byte[] payload = new byte[0];
-    private byte minver;
-    private byte majver;
-    private short packettype;
+    private final short packettype;
+    private byte[] payload;
+    private int payloadsize = 0;
 
     /**
      * This is an Abstract class and cannot be instanced. Please use one of the Packet implementation Classes
      * (PacketXXX).
      * <p>
      * Implements an XBMC Event Client Packet. Type is to be specified at creation time, Payload can be added
-     * with the various appendPayload methods. Packet can be sent through UDP-Socket with method "send".
+     * with the various appendPayload methods. Packets are sent through the {@link PacketSender} of the
+     * {@link EventClient}.
      *
      * @param packettype Type of Packet (PT_XXX)
      */
     protected Packet(short packettype) {
-        sig = new byte[]{'X', 'B', 'M', 'C'};
-        minver = 0;
-        majver = 2;
+        this(packettype, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a packet whose payload fits the given number of bytes without
+     * growing.
+     *
+     * @param packettype Type of Packet (PT_XXX)
+     * @param capacity   Expected payload size in bytes
+     */
+    protected Packet(short packettype, int capacity) {
         this.packettype = packettype;
+        this.payload = new byte[capacity];
     }
 
     /**
-     * Helper Method to convert an integer to a Byte array
+     * Returns the number of bytes a String takes in the payload, terminator
+     * included.
      *
-     * @param value
-     * @return Byte-Array
+     * @param payload Payload as String
+     * @return Size in bytes
      */
-    private static final byte[] intToByteArray(int value) {
-        return new byte[]{
-                (byte) (value >>> 24),
-                (byte) (value >>> 16),
-                (byte) (value >>> 8),
-                (byte) value};
+    protected static int sizeOf(String payload) {
+        final int length = payload.length();
+        for (int i = 0; i < length; i++) {
+            if (payload.charAt(i) >= 0x80) {
+                return payload.getBytes().length + 1;
+            }
+        }
+        return length + 1;
     }
 
     /**
-     * Helper Method to convert an short to a Byte array
+     * Makes room for the given number of bytes at the end of the payload,
+     * growing the array by at least half its size.
      *
-     * @param value
-     * @return Byte-Array
+     * @param size Number of bytes to append
      */
-    private static final byte[] shortToByteArray(short value) {
-        return new byte[]{
-                (byte) (value >>> 8),
-                (byte) value};
+    private void ensureCapacity(int size) {
+        if (payloadsize + size > payload.length) {
+            final byte[] grown = new byte[Math.max(payloadsize + size, payload.length + (payload.length >> 1))];
+            System.arraycopy(payload, 0, grown, 0, payloadsize);
+            payload = grown;
+        }
     }
 
     /**
@@ -134,12 +144,20 @@ public abstract class Packet {
      * @param payload Payload as String
      */
     protected void appendPayload(String payload) {
-        byte[] payloadarr = payload.getBytes();
-        int oldpayloadsize = this.payload.length;
-        byte[] oldpayload = this.payload;
-        this.payload = new byte[oldpayloadsize + payloadarr.length + 1]; // Create new Array with more place (+1 for string terminator)
-        System.arraycopy(oldpayload, 0, this.payload, 0, oldpayloadsize);
-        System.arraycopy(payloadarr, 0, this.payload, oldpayloadsize, payloadarr.length);
+        final int length = payload.length();
+        ensureCapacity(length + 1);
+        for (int i = 0; i < length; i++) {
+            final char c = payload.charAt(i);
+            if (c >= 0x80) {
+                // not plain ASCII, let the platform encode it
+                payloadsize -= i;
+                appendPayload(payload.getBytes());
+                appendPayload((byte) 0);
+                return;
+            }
+            this.payload[payloadsize++] = (byte) c;
+        }
+        this.payload[payloadsize++] = 0;
     }
 
     /**
@@ -148,7 +166,8 @@ public abstract class Packet {
      * @param payload Payload
      */
     protected void appendPayload(byte payload) {
-        appendPayload(new byte[]{payload});
+        ensureCapacity(1);
+        this.payload[payloadsize++] = payload;
     }
 
     /**
@@ -157,11 +176,9 @@ public abstract class Packet {
      * @param payloadarr Payload
      */
     protected void appendPayload(byte[] payloadarr) {
-        int oldpayloadsize = this.payload.length;
-        byte[] oldpayload = this.payload;
-        this.payload = new byte[oldpayloadsize + payloadarr.length];
-        System.arraycopy(oldpayload, 0, this.payload, 0, oldpayloadsize);
-        System.arraycopy(payloadarr, 0, this.payload, oldpayloadsize, payloadarr.length);
+        ensureCapacity(payloadarr.length);
+        System.arraycopy(payloadarr, 0, this.payload, payloadsize, payloadarr.length);
+        payloadsize += payloadarr.length;
     }
 
     /**
@@ -170,7 +187,11 @@ public abstract class Packet {
      * @param i Payload
      */
     protected void appendPayload(int i) {
-        appendPayload(intToByteArray(i));
+        ensureCapacity(4);
+        payload[payloadsize++] = (byte) (i >>> 24);
+        payload[payloadsize++] = (byte) (i >>> 16);
+        payload[payloadsize++] = (byte) (i >>> 8);
+        payload[payloadsize++] = (byte) i;
     }
 
     /**
@@ -179,7 +200,9 @@ public abstract class Packet {
      * @param s Payload
      */
     protected void appendPayload(short s) {
-        appendPayload(shortToByteArray(s));
+        ensureCapacity(2);
+        payload[payloadsize++] = (byte) (s >>> 8);
+        payload[payloadsize++] = (byte) s;
     }
 
     /**
@@ -188,106 +211,48 @@ public abstract class Packet {
      * @return Number of Packets
      */
     public int getNumPackets() {
-        return (int) ((payload.length + (MAX_PAYLOAD_SIZE - 1)) / MAX_PAYLOAD_SIZE);
+        // packets without payload (PING, BYE) still need their header sent
+        return Math.max(1, (payloadsize + (MAX_PAYLOAD_SIZE - 1)) / MAX_PAYLOAD_SIZE);
     }
 
     /**
-     * Get Header for a specific Packet in this sequence...
+     * Writes the whole UDP-Message with Header and Payload of a specific
+     * Packet in sequence into the buffer, from its start. The buffer must
+     * hold at least {@link #MAX_PACKET_SIZE} bytes and is flipped for
+     * reading afterwards.
      *
-     * @param seq            Current sequence number
-     * @param maxseq         Maximal sequence number
-     * @param actpayloadsize Payloadsize of this packet
-     * @return Byte-Array with Header information (currently 32-Byte long, see HEADER_SIZE)
-     */
-    private byte[] getHeader(int seq, int maxseq, short actpayloadsize) {
-        byte[] header = new byte[HEADER_SIZE];
-        System.arraycopy(sig, 0, header, 0, 4);
-        header[4] = majver;
-        header[5] = minver;
-        byte[] packettypearr = shortToByteArray(this.packettype);
-        System.arraycopy(packettypearr, 0, header, 6, 2);
-        byte[] seqarr = intToByteArray(seq);
-        System.arraycopy(seqarr, 0, header, 8, 4);
-        byte[] maxseqarr = intToByteArray(maxseq);
-        System.arraycopy(maxseqarr, 0, header, 12, 4);
-        byte[] payloadsize = shortToByteArray(actpayloadsize);
-        System.arraycopy(payloadsize, 0, header, 16, 2);
-        byte[] uid = intToByteArray(Packet.uid);
-        System.arraycopy(uid, 0, header, 18, 4);
-        byte[] reserved = new byte[10];
-        System.arraycopy(reserved, 0, header, 22, 10);
-
-        return header;
-    }
-
-    /**
-     * Generates the whole UDP-Message with Header and Payload of a specific Packet in sequence
+     * <pre>
+     *   | -H1 Signature ("XBMC")    | - 4  x CHAR                4B
+     *   | -H2 Version (eg. 2.0)     | - 2  x UNSIGNED CHAR       2B
+     *   | -H3 PacketType            | - 1  x UNSIGNED SHORT      2B
+     *   | -H4 Sequence number       | - 1  x UNSIGNED LONG       4B
+     *   | -H5 No. of packets in msg | - 1  x UNSIGNED LONG       4B
+     *   | -H6 Payloadsize of packet | - 1  x UNSIGNED SHORT      2B
+     *   | -H7 Client's unique token | - 1  x UNSIGNED LONG       4B
+     *   | -H8 Reserved              | - 10 x UNSIGNED CHAR      10B
+     * </pre>
      *
-     * @param seq Current sequence number
-     * @return Byte-Array with UDP-Message
+     * @param seq    Current sequence number, starting at 1
+     * @param buffer Buffer receiving the message
      */
-    private byte[] getUDPMessage(int seq) {
-        int maxseq = (int) ((payload.length + (MAX_PAYLOAD_SIZE - 1)) / MAX_PAYLOAD_SIZE);
-        if (seq > maxseq)
-            return null;
+    void encode(int seq, ByteBuffer buffer) {
+        final int maxseq = getNumPackets();
+        final int offset = (seq - 1) * MAX_PAYLOAD_SIZE;
+        final int actpayloadsize = seq == maxseq ? payloadsize - offset : MAX_PAYLOAD_SIZE;
 
-        short actpayloadsize;
-
-        if (seq == maxseq)
-            actpayloadsize = (short) (payload.length % MAX_PAYLOAD_SIZE);
-
-        else
-            actpayloadsize = (short) MAX_PAYLOAD_SIZE;
-
-        byte[] pack = new byte[HEADER_SIZE + actpayloadsize];
-
-        System.arraycopy(getHeader(seq, maxseq, actpayloadsize), 0, pack, 0, HEADER_SIZE);
-        System.arraycopy(payload, (seq - 1) * MAX_PAYLOAD_SIZE, pack, HEADER_SIZE, actpayloadsize);
-
-        return pack;
-    }
-
-    /**
-     * Sends this packet to the EventServer
-     *
-     * @param adr  Address of the EventServer
-     * @param port Port of the EventServer
-     * @throws IOException
-     */
-    public void send(final InetAddress adr, final int port) {
-        new Thread() {
-            @Override
-            public void run() {
-                super.run();
-                int maxseq = getNumPackets();
-                DatagramSocket s;
-                try {
-                    s = new DatagramSocket();
-                } catch (SocketException e) {
-                    Log.e(TAG, "Error opening data socket: " + e.getMessage(), e);
-                    return;
-                }
-
-                try {
-                    // For each Packet in Sequence...
-                    for (int seq = 1; seq <= maxseq; seq++) {
-                        // Get Message and send them...
-                        byte[] pack = getUDPMessage(seq);
-                        DatagramPacket p = new DatagramPacket(pack, pack.length);
-                        p.setAddress(adr);
-                        p.setPort(port);
-                        try {
-                            s.send(p);
-                        } catch (IOException e) {
-                            Log.e(TAG, "Error sending UDP packet: " + e.getMessage(), e);
-                        }
-                    }
-                } finally {
-                    s.close();
-                }
-            }
-        }.start();
+        buffer.clear();
+        buffer.putInt(SIGNATURE);
+        buffer.put(MAJOR_VERSION);
+        buffer.put(MINOR_VERSION);
+        buffer.putShort(packettype);
+        buffer.putInt(seq);
+        buffer.putInt(maxseq);
+        buffer.putShort((short) actpayloadsize);
+        buffer.putInt(uid);
+        // reserved
+        buffer.putShort((short) 0);
+        buffer.putLong(0L);
+        buffer.put(payload, offset, actpayloadsize);
+        buffer.flip();
     }
-
-
 }
@@ -20,7 +20,7 @@ public class PacketACTION extends Packet {
      * @param actionmessage Actionmessage (as in scripting/skinning)
      */
     public PacketACTION(String actionmessage) {
-        super(PT_ACTION);
+        super(PT_ACTION, 1 + sizeOf(actionmessage));
         byte actiontype = ACTION_EXECBUILTIN;
         appendPayload(actionmessage, actiontype);
     }
@@ -32,7 +32,7 @@ public class PacketACTION extends Packet {
      * @param actiontype    Actiontype (ACTION_EXECBUILTIN or ACTION_BUTTON)
      */
     public PacketACTION(String actionmessage, byte actiontype) {
-        super(PT_ACTION);
+        super(PT_ACTION, 1 + sizeOf(actionmessage));
         appendPayload(actionmessage, actiontype);
     }
 
@@ -36,7 +36,7 @@ public class PacketBUTTON extends Packet {
      * @param axis
      */
     public PacketBUTTON(short code, boolean repeat, boolean down, boolean queue, short amount, byte axis) {
-        super(PT_BUTTON);
+        super(PT_BUTTON, 8);
         String map_name = "";
         String button_name = "";
         short flags = 0;
@@ -72,7 +72,7 @@ public class PacketBUTTON extends Packet {
      * @param axis
      */
     public PacketBUTTON(String map_name, String button_name, boolean repeat, boolean down, boolean queue, short amount, byte axis) {
-        super(PT_BUTTON);
+        super(PT_BUTTON, 6 + sizeOf(map_name) + sizeOf(button_name));
         short code = 0;
         short flags = BT_USE_NAME;
         appendPayload(code, map_name, button_name, repeat, down, queue, amount, axis, flags);
@@ -13,6 +13,6 @@ public class PacketBYE extends Packet {
      * A BYE packet terminates the connection to XBMC.
      */
     public PacketBYE() {
-        super(PT_BYE);
+        super(PT_BYE, 0);
     }
 }
@@ -17,7 +17,7 @@ public class PacketHELO extends Packet {
      * @param devicename Name of the device which connects to XBMC
      */
     public PacketHELO(String devicename) {
-        super(PT_HELO);
+        super(PT_HELO, sizeOf(devicename) + 11);
         this.appendPayload(devicename);
         this.appendPayload(ICON_NONE);
         this.appendPayload((short) 0); // port no
@@ -33,7 +33,7 @@ public class PacketHELO extends Packet {
      * @param iconData   The icon as a Byte-Array
      */
     public PacketHELO(String devicename, byte iconType, byte[] iconData) {
-        super(PT_HELO);
+        super(PT_HELO, sizeOf(devicename) + 11 + iconData.length);
         this.appendPayload(devicename);
         this.appendPayload(iconType);
         this.appendPayload((short) 0); // port no
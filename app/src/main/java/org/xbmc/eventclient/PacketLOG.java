@@ -24,7 +24,7 @@ public class PacketLOG extends Packet {
      * @param logmessage the message to log
      */
     public PacketLOG(byte loglevel, String logmessage) {
-        super(PT_LOG);
+        super(PT_LOG, 1 + sizeOf(logmessage));
         appendPayload(loglevel);
         appendPayload(logmessage);
     }
@@ -18,7 +18,7 @@ public class PacketMOUSE extends Packet {
      * @param y vertical position ranging from 0 to 65535
      */
     public PacketMOUSE(int x, int y) {
-        super(PT_MOUSE);
+        super(PT_MOUSE, 5);
         byte flags = 0;
         flags |= MS_ABSOLUTE;
         appendPayload(flags);
@@ -19,7 +19,7 @@ public class PacketNOTIFICATION extends Packet {
      * @param iconData The icon as a Byte-Array
      */
     public PacketNOTIFICATION(String title, String message, byte iconType, byte[] iconData) {
-        super(PT_NOTIFICATION);
+        super(PT_NOTIFICATION, sizeOf(title) + sizeOf(message) + 5 + (iconData != null ? iconData.length : 0));
         appendPayload(title, message, iconType, iconData);
     }
 
@@ -30,7 +30,7 @@ public class PacketNOTIFICATION extends Packet {
      * @param message The actual message
      */
     public PacketNOTIFICATION(String title, String message) {
-        super(PT_NOTIFICATION);
+        super(PT_NOTIFICATION, sizeOf(title) + sizeOf(message) + 5);
         appendPayload(title, message, Packet.ICON_NONE, null);
     }
 
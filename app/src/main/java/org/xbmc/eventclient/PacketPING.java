@@ -14,6 +14,6 @@ public class PacketPING extends Packet {
      * A PING packet tells XBMC that the client is still alive.
      */
     public PacketPING() {
-        super(PT_PING);
+        super(PT_PING, 0);
     }
 }
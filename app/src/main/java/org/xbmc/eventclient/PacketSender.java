@@ -0,0 +1,199 @@
+package org.xbmc.eventclient;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XBMC Event Client Class
+ * <p>
+ * Sends the packets of an {@link EventClient} through one bound UDP socket
+ * from a single thread. Packets are queued in the order they were handed
+ * over and all packets of a multi-packet sequence go out back to back, so
+ * XBMC receives them in order. Every packet is encoded into the same buffer
+ * right before it goes out, so sending doesn't allocate.
+ * </p>
+ * <p>
+ * The thread is started with the first packet and quits after being idle
+ * for a while, closing the socket. The queue is bounded; if XBMC can't be
+ * reached fast enough, further packets are dropped instead of blocking the
+ * UI.
+ * </p>
+ *
+ * @author Team XBMC
+ */
+class PacketSender {
+
+    private static final String TAG = "PacketSender";
+    private static final String THREAD_NAME = "XBMC EventClient Sender";
+    private static final int QUEUE_SIZE = 128;
+    private static final int IDLE_TIMEOUT = 60000;
+
+    private final ArrayBlockingQueue<Entry> mQueue = new ArrayBlockingQueue<Entry>(QUEUE_SIZE);
+    private Thread mThread = null;
+    /**
+     * Only used by the sender thread
+     */
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(Packet.MAX_PACKET_SIZE);
+    private final DatagramPacket mDatagram = new DatagramPacket(mBuffer.array(), Packet.MAX_PACKET_SIZE);
+
+    private long mSent = 0;
+    private long mDropped = 0;
+    private long mTotalLatency = 0;
+    private long mMaxLatency = 0;
+
+    /**
+     * Queues a packet for sending.
+     *
+     * @param packet Packet to send
+     * @param adr    Address of the EventServer
+     * @param port   Port of the EventServer
+     * @return False if the queue is full and the packet was dropped
+     */
+    public synchronized boolean send(Packet packet, InetAddress adr, int port) {
+        if (adr == null) {
+            return false;
+        }
+        if (!mQueue.offer(new Entry(packet, adr, port))) {
+            mDropped++;
+            Log.w(TAG, "Send queue full, dropping " + packet.getClass().getSimpleName());
+            return false;
+        }
+        if (mThread == null) {
+            mThread = new Thread(new Runnable() {
+                public void run() {
+                    loop();
+                }
+            }, THREAD_NAME);
+            mThread.setDaemon(true);
+            mThread.start();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of packets sent so far.
+     */
+    public synchronized long getSentCount() {
+        return mSent;
+    }
+
+    /**
+     * Returns the number of packets dropped because the queue was full.
+     */
+    public synchronized long getDroppedCount() {
+        return mDropped;
+    }
+
+    /**
+     * Returns the average time between queueing a packet and handing it to
+     * the socket.
+     *
+     * @return Latency in microseconds
+     */
+    public synchronized long getAverageLatency() {
+        return mSent > 0 ? mTotalLatency / mSent / 1000 : 0;
+    }
+
+    /**
+     * Returns the longest time between queueing a packet and handing it to
+     * the socket.
+     *
+     * @return Latency in microseconds
+     */
+    public synchronized long getMaxLatency() {
+        return mMaxLatency / 1000;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "sent " + mSent + ", dropped " + mDropped + ", latency avg " + getAverageLatency() + "us, max " + getMaxLatency() + "us";
+    }
+
+    private void loop() {
+        DatagramSocket socket = null;
+        try {
+            while (true) {
+                final Entry entry;
+                try {
+                    entry = mQueue.poll(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    synchronized (this) {
+                        mThread = null;
+                    }
+                    return;
+                }
+                if (entry == null) {
+                    synchronized (this) {
+                        // nothing came in meanwhile, otherwise keep going.
+                        if (mQueue.isEmpty()) {
+                            Log.i(TAG, "Idle, stopping: " + toString());
+                            mThread = null;
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                try {
+                    if (socket == null) {
+                        socket = new DatagramSocket();
+                    }
+                    record(System.nanoTime() - entry.queued);
+                    send(socket, entry);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error sending UDP packet: " + e.getMessage(), e);
+                    // open a fresh socket for the next packet
+                    if (socket != null) {
+                        socket.close();
+                        socket = null;
+                    }
+                }
+            }
+        } finally {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+    }
+
+    /**
+     * Sends all packets of the sequence in order.
+     */
+    private void send(DatagramSocket socket, Entry entry) throws IOException {
+        final int maxseq = entry.packet.getNumPackets();
+        mDatagram.setAddress(entry.adr);
+        mDatagram.setPort(entry.port);
+        for (int seq = 1; seq <= maxseq; seq++) {
+            entry.packet.encode(seq, mBuffer);
+            mDatagram.setData(mBuffer.array(), 0, mBuffer.limit());
+            socket.send(mDatagram);
+        }
+    }
+
+    private synchronized void record(long latency) {
+        mSent++;
+        mTotalLatency += latency;
+        if (latency > mMaxLatency) {
+            mMaxLatency = latency;
+        }
+    }
+
+    private static class Entry {
+        final Packet packet;
+        final InetAddress adr;
+        final int port;
+        final long queued = System.nanoTime();
+
+        Entry(Packet packet, InetAddress adr, int port) {
+            this.packet = packet;
+            this.adr = adr;
+            this.port = port;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package org.xbmc.httpapi;
 import android.util.Log;
 
 import org.xbmc.android.remote2.business.Command;
+import org.xbmc.android.util.PendingRequest;
 import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
@@ -33,18 +34,20 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
-import java.util.Observable;
+import java.util.HashMap;
 import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of XBMC's broadcast feature.
  *
- * <p>Classical observer pattern, any class implementing the observer interface
- * can subscribe. On any event, the {@link Observable#update(Observable o, Object arg) update()}
- * method is executed on the subscriber, with the event code in the
- * {@link BroadcastListener.Event} object.</p>
+ * <p>Any {@link BroadcastListener.Listener} can subscribe. On any event, its
+ * {@link Listener#onEvent(Event) onEvent()} method is executed with the event
+ * code in the {@link BroadcastListener.Event} object.</p>
  *
  * <p>We will set the broadcast port to something random in order to distinguish
  * between several potential XBMC instances running concurrently. If broadcasting
@@ -57,11 +60,22 @@ import java.util.TimerTask;
  * received after a timeout or an error happened, the <code>EVENT_TIMEOUT</code>
  * or the <code>EVENT_ERROR</code> event are propagated respectively.</p>
  *
+ * <p>The receive thread only parses packets. Reading the position XBMC is at
+ * when playback starts or resumes runs on the request pool, and the
+ * <code>EVENT_ON_PROGRESS_CHANGED</code> ticks counted from there run on a
+ * shared scheduler until playback pauses, stops or ends.</p>
+ *
+ * <p>XBMC only broadcasts when something happens, so while nothing else came
+ * in the test packet is sent again every <code>KEEPALIVE_INTERVAL</code>. If
+ * nothing was received for <code>STALE_TIMEOUT</code>, broadcasts are no longer
+ * considered available. The listener is bound to one host; {@link #reset()}
+ * drops it when the host changes.</p>
+ *
  * @author Team XBMC
  * @see <a href="http://xbmc.org/wiki/?title=Web_Server_HTTP_API#Broadcast">XBMC Wiki</a>
  * @see <a href="http://xbmc.org/trac/ticket/7687">Trac about missing messages</a>
  */
-public class BroadcastListener extends Observable implements Runnable {
+public class BroadcastListener implements Runnable {
 
     public static final int EVENT_ERROR = -1;
     public static final int EVENT_UNKNOWN = 0;
@@ -82,7 +96,7 @@ public class BroadcastListener extends Observable implements Runnable {
     public static final int EVENT_TIMEOUT = 101;
     private static final String TAG = "broadcast";
     private static final String THREAD_NAME = "BroadcastListener";
-    private static final String TIMER_NAME = "BroadcastTimer";
+    private static final String TICKER_NAME = "BroadcastTicker";
     private static final String BCAST_PING = "OnXbmcRemoteTest";
 
     private static final int TIMEOUT = 10;
@@ -91,15 +105,60 @@ public class BroadcastListener extends Observable implements Runnable {
     private static final int BCAST_LEVEL = 2;
     private static final String BCAST_ADDR = "255.255.255.255";
 
-    private static final Timer sTimer = new Timer(TIMER_NAME);
+    private static final int TICK_INTERVAL = 1000;
+    private static final int KEEPALIVE_INTERVAL = 30000;
+    private static final int STALE_TIMEOUT = 2 * KEEPALIVE_INTERVAL + 5000;
+
+    /**
+     * Event codes by the name XBMC prefixes the packet with
+     */
+    private static final HashMap<String, Integer> EVENTS = new HashMap<String, Integer>();
+
+    static {
+        EVENTS.put("StartUp", EVENT_STARTUP);
+        EVENTS.put("ShutDown", EVENT_SHUTDOWN);
+        EVENTS.put("OnAction", EVENT_ON_ACTION);
+        EVENTS.put("OnPlayBackStarted", EVENT_ON_PLAYBACK_STARTED);
+        EVENTS.put("OnPlayBackEnded", EVENT_ON_PLAYBACK_ENDED);
+        EVENTS.put("OnPlayBackStopped", EVENT_ON_PLAYBACK_STOPPED);
+        EVENTS.put("OnPlayBackPaused", EVENT_ON_PLAYBACK_PAUSED);
+        EVENTS.put("OnPlayBackResumed", EVENT_ON_PLAYBACK_RESUMED);
+        EVENTS.put("OnPlayBackSeek", EVENT_ON_PLAYBACK_SEEK);
+        EVENTS.put("OnPlayBackSpeedChanged", EVENT_ON_PLAYBACK_SPEEDCHANGE);
+        EVENTS.put("OnQueueNextItem", EVENT_ON_QUEUE_NEXT_ITEM);
+        EVENTS.put("MediaChanged", EVENT_ON_MEDIA_CHANGED);
+        EVENTS.put(BCAST_PING, EVENT_AVAILABLE);
+    }
+
+    /**
+     * Runs the progress ticks. Unlike a {@link java.util.Timer}, cancelling a
+     * tick doesn't take the scheduler down with it.
+     */
+    private static final ScheduledThreadPoolExecutor sTicker = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, TICKER_NAME);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
     private static BroadcastListener sInstance;
-    private static Thread sThread;
 
+    private final CopyOnWriteArrayList<Listener> mListeners = new CopyOnWriteArrayList<Listener>();
     private final HttpApi mHttpClient;
     private final INotifiableManager mManagerStub;
-    private boolean mIsListening = false;
-    private boolean mIsAvailable = false;
+    private volatile boolean mIsListening = false;
+    private volatile boolean mIsAvailable = false;
+    private volatile boolean mIsStopped = false;
+    private volatile long mLastReceived = 0;
     private int mPort = 0;
+    private DatagramSocket mSocket;
+    private ScheduledFuture<?> mKeepAlive;
+    /**
+     * Current progress ticks, and a counter telling fetches still on their way
+     * whether playback was paused or stopped meanwhile.
+     */
+    private ScheduledFuture<?> mTicks;
+    private int mTicksGeneration = 0;
 
     /**
      * It's a singleton class, so the class constructor is private. Use getInstance().
@@ -108,7 +167,6 @@ public class BroadcastListener extends Observable implements Runnable {
      */
     private BroadcastListener(HttpApi httpClient) {
         mHttpClient = httpClient;
-        init();
         mManagerStub = new INotifiableManager() {
             public void onMessage(int code, String message) {
             }
@@ -128,6 +186,7 @@ public class BroadcastListener extends Observable implements Runnable {
             public void retryAll() {
             }
         };
+        init();
     }
 
     /**
@@ -137,15 +196,26 @@ public class BroadcastListener extends Observable implements Runnable {
      * @param httpClient Used for HTTP control API.
      * @return Current instance
      */
-    public static BroadcastListener getInstance(HttpApi httpClient) {
+    public static synchronized BroadcastListener getInstance(HttpApi httpClient) {
         if (sInstance == null) {
             Log.i(TAG, "creating instance..");
             sInstance = new BroadcastListener(httpClient);
-            sThread = new Thread(sInstance, THREAD_NAME);
         }
         return sInstance;
     }
 
+    /**
+     * Stops the current instance, if any, so the next call to getInstance()
+     * sets up broadcasts for the new host.
+     */
+    public static synchronized void reset() {
+        if (sInstance != null) {
+            Log.i(TAG, "resetting instance..");
+            sInstance.stop();
+            sInstance = null;
+        }
+    }
+
     /**
      * Runs a thread that:
      * 1. Checks if XBMC's broadcast port needs to be reset
@@ -164,7 +234,7 @@ public class BroadcastListener extends Observable implements Runnable {
                 Log.i(TAG, "current port = " + port);
                 if (port == 0 || port == DEFAULT_PORT) {
                     final Random rnd = new Random();
-                    final int rndPort = (rnd.nextInt() % 22768) + 10000;
+                    final int rndPort = 10000 + rnd.nextInt(22768);
                     Log.i(TAG, "new port = " + rndPort);
                     if (!mHttpClient.control.setBroadcast(mManagerStub, rndPort, BCAST_LEVEL)) {
                         Log.i(TAG, "SETTING BROADCAST SETTINGS FAILED!");
@@ -178,10 +248,13 @@ public class BroadcastListener extends Observable implements Runnable {
                     mPort = port;
                     Log.i(TAG, "keeping port " + port);
                 }
+                if (mIsStopped) {
+                    return;
+                }
                 // now we have a port, launch the listener thread
-                sThread.start();
+                new Thread(BroadcastListener.this, THREAD_NAME).start();
                 int n = 0;
-                while (!mIsAvailable || !mIsListening) {
+                while (!mIsStopped && (!mIsAvailable || !mIsListening)) {
                     Log.i(TAG, "broadcast PING (" + BCAST_PING + ")...");
                     mHttpClient.control.broadcast(mManagerStub, BCAST_PING);
                     try {
@@ -208,9 +281,15 @@ public class BroadcastListener extends Observable implements Runnable {
 
             byte[] b = new byte[BUFFER_LENGTH];
             DatagramPacket packet = new DatagramPacket(b, b.length);
-            DatagramSocket socket = new DatagramSocket(mPort, InetAddress.getByName(BCAST_ADDR));
-
-            mIsListening = true;
+            final DatagramSocket socket = new DatagramSocket(mPort, InetAddress.getByName(BCAST_ADDR));
+            synchronized (this) {
+                if (mIsStopped) {
+                    socket.close();
+                    return;
+                }
+                mSocket = socket;
+                mIsListening = true;
+            }
             while (mIsListening) {
                 // blocks until a datagram is received
                 socket.receive(packet);
@@ -221,11 +300,18 @@ public class BroadcastListener extends Observable implements Runnable {
             }
             Log.i(TAG, "EXITED listener loop!");
         } catch (SocketException e) {
+            if (mIsStopped) {
+                // socket closed by stop()
+                Log.i(TAG, "EXITED listener loop!");
+                return;
+            }
             e.printStackTrace();
+            mIsAvailable = false;
             String[] params = {e.getMessage()};
             dispatch(EVENT_ERROR, params);
         } catch (IOException e) {
             e.printStackTrace();
+            mIsAvailable = false;
             String[] params = {e.getMessage()};
             dispatch(EVENT_ERROR, params);
         }
@@ -235,22 +321,66 @@ public class BroadcastListener extends Observable implements Runnable {
      * Stops the broadcast listener
      */
     public void stop() {
-        mIsListening = false;
+        synchronized (this) {
+            mIsStopped = true;
+            mIsListening = false;
+            mIsAvailable = false;
+            cancelTicks();
+            if (mKeepAlive != null) {
+                mKeepAlive.cancel(false);
+                mKeepAlive = null;
+            }
+            if (mSocket != null) {
+                // unblocks the receive() of the listener thread
+                mSocket.close();
+                mSocket = null;
+            }
+        }
     }
 
     /**
-     * Notifies the observers
+     * Returns true if XBMC's broadcasts reach us, i.e. the test packet came
+     * through, the socket is still open and something was received lately.
+     *
+     * @return True if broadcasts are flowing
+     */
+    public boolean isAvailable() {
+        return mIsAvailable && mIsListening && System.currentTimeMillis() - mLastReceived < STALE_TIMEOUT;
+    }
+
+    /**
+     * Subscribes to the events.
+     *
+     * @param listener Listener to add
+     */
+    public void addListener(Listener listener) {
+        mListeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Unsubscribes from the events.
+     *
+     * @param listener Listener to remove
+     */
+    public void removeListener(Listener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners
      *
      * @param event
      * @param params
      */
     private void dispatch(int event, String[] params) {
-        setChanged();
-        notifyObservers(new Event(event, params));
+        final Event e = new Event(event, params);
+        for (Listener listener : mListeners) {
+            listener.onEvent(e);
+        }
     }
 
     /**
-     * Notifies the observers
+     * Notifies the listeners
      *
      * @param event
      */
@@ -261,58 +391,137 @@ public class BroadcastListener extends Observable implements Runnable {
 
     /**
      * Parses the received packet and sets the event id accordingly. Also the
-     * timer thread providing virtual clock events is managed in here.
+     * ticks providing virtual clock events are managed in here.
      *
      * @param response Stripped response string
      */
     private void handle(String response) {
         Log.i(TAG, "RECEIVED: " + response);
-        String param = "";
-        String[] params = null;
-        int event = EVENT_UNKNOWN;
-        if (response.contains(":")) {
-            param = response.substring(response.indexOf(":") + 1, response.lastIndexOf(";"));
+        mLastReceived = System.currentTimeMillis();
+        int end = response.length();
+        final int colon = response.indexOf(':');
+        final int semicolon = response.indexOf(';');
+        if (colon >= 0) {
+            end = colon;
         }
-        if (response.startsWith("StartUp")) {
-            event = EVENT_STARTUP;
-        } else if (response.startsWith("ShutDown")) {
-            event = EVENT_SHUTDOWN;
-        } else if (response.startsWith("OnAction")) {
-            event = EVENT_ON_ACTION;
-            params = new String[1];
-            params[0] = param;
-        } else if (response.startsWith("OnPlayBackStarted")) {
-            event = EVENT_ON_PLAYBACK_STARTED;
-            ICurrentlyPlaying currPlaying = mHttpClient.control.getCurrentlyPlaying(mManagerStub);
-            sTimer.schedule(new BroadcastListener.Counter(currPlaying.getTime(), currPlaying.getDuration()), 0L, 1000L);
-        } else if (response.startsWith("OnPlayBackStopped")) {
-            event = EVENT_ON_PLAYBACK_STOPPED;
-            sTimer.cancel();
-        } else if (response.startsWith("OnPlayBackEnded")) {
-            event = EVENT_ON_PLAYBACK_ENDED;
-            sTimer.cancel();
-        } else if (response.startsWith("OnPlayBackPaused")) {
-            event = EVENT_ON_PLAYBACK_PAUSED;
-            sTimer.cancel();
-        } else if (response.startsWith("OnPlayBackResumed")) {
-            event = EVENT_ON_PLAYBACK_RESUMED;
-            ICurrentlyPlaying currPlaying = mHttpClient.control.getCurrentlyPlaying(mManagerStub);
-            sTimer.schedule(new BroadcastListener.Counter(currPlaying.getTime(), currPlaying.getDuration()), 0L, 1000L);
-        } else if (response.startsWith("OnQueueNextItem")) {
-            event = EVENT_ON_QUEUE_NEXT_ITEM;
-        } else if (response.startsWith("MediaChanged")) {
-            event = EVENT_ON_MEDIA_CHANGED;
-            params = param.split("<li>");
-        } else if (response.startsWith(BCAST_PING)) {
-            event = EVENT_AVAILABLE;
-            mIsAvailable = true;
+        if (semicolon >= 0 && semicolon < end) {
+            end = semicolon;
         }
-        if (params == null) {
-            params = new String[0];
+        final Integer code = EVENTS.get(response.substring(0, end));
+        final int event = code != null ? code : EVENT_UNKNOWN;
+        String[] params = new String[0];
+        switch (event) {
+            case EVENT_ON_ACTION:
+                params = new String[]{param(response, colon)};
+                break;
+            case EVENT_ON_MEDIA_CHANGED:
+                params = param(response, colon).split("<li>");
+                break;
+            case EVENT_ON_PLAYBACK_STARTED:
+            case EVENT_ON_PLAYBACK_RESUMED:
+            case EVENT_ON_PLAYBACK_SEEK:
+                startTicks();
+                break;
+            case EVENT_ON_PLAYBACK_STOPPED:
+            case EVENT_ON_PLAYBACK_ENDED:
+            case EVENT_ON_PLAYBACK_PAUSED:
+            case EVENT_SHUTDOWN:
+                stopTicks();
+                break;
+            case EVENT_AVAILABLE:
+                mIsAvailable = true;
+                startKeepAlive();
+                break;
         }
         dispatch(event, params);
     }
 
+    /**
+     * Returns what's between the colon and the last semicolon of a packet.
+     */
+    private static String param(String response, int colon) {
+        if (colon < 0) {
+            return "";
+        }
+        final int end = response.lastIndexOf(';');
+        return end > colon ? response.substring(colon + 1, end) : response.substring(colon + 1);
+    }
+
+    /**
+     * Asks XBMC for the current position on the request pool and starts
+     * counting from there, replacing any ticks already running.
+     */
+    private void startTicks() {
+        final int generation;
+        synchronized (this) {
+            cancelTicks();
+            generation = mTicksGeneration;
+        }
+        PendingRequest.submit(new Runnable() {
+            public void run() {
+                final ICurrentlyPlaying currPlaying = mHttpClient.control.getCurrentlyPlaying(mManagerStub);
+                if (currPlaying == null || !currPlaying.isPlaying()) {
+                    return;
+                }
+                synchronized (BroadcastListener.this) {
+                    // paused or stopped while we were asking
+                    if (generation == mTicksGeneration) {
+                        mTicks = sTicker.scheduleAtFixedRate(new Counter(currPlaying.getTime(), currPlaying.getDuration()), 0L, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Re-sends the test packet whenever nothing was received for a while, so
+     * a quiet XBMC isn't taken for a gone one.
+     */
+    private synchronized void startKeepAlive() {
+        if (mKeepAlive != null || mIsStopped) {
+            return;
+        }
+        mKeepAlive = sTicker.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                if (System.currentTimeMillis() - mLastReceived < KEEPALIVE_INTERVAL) {
+                    return;
+                }
+                PendingRequest.submit(new Runnable() {
+                    public void run() {
+                        if (!mIsStopped) {
+                            mHttpClient.control.broadcast(mManagerStub, BCAST_PING);
+                        }
+                    }
+                });
+            }
+        }, KEEPALIVE_INTERVAL, KEEPALIVE_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void stopTicks() {
+        cancelTicks();
+    }
+
+    private void cancelTicks() {
+        mTicksGeneration++;
+        if (mTicks != null) {
+            mTicks.cancel(false);
+            mTicks = null;
+        }
+    }
+
+    /**
+     * Receives the events. Called on the listener thread, or on the ticker
+     * for progress events.
+     */
+    public interface Listener {
+        /**
+         * Called for each event.
+         *
+         * @param event Event code and parameters
+         */
+        void onEvent(Event event);
+    }
+
     /**
      * The object that is returned upon
      *
@@ -336,7 +545,7 @@ public class BroadcastListener extends Observable implements Runnable {
         }
     }
 
-    private class Counter extends TimerTask {
+    private class Counter implements Runnable {
         private int mStart, mEnd;
 
         Counter(int start, int end) {
@@ -344,13 +553,12 @@ public class BroadcastListener extends Observable implements Runnable {
             mEnd = end;
         }
 
-        @Override
         public void run() {
             String[] params = {String.valueOf(mStart++)};
             dispatch(EVENT_ON_PROGRESS_CHANGED, params);
             if (mStart > mEnd) {
-                cancel();
+                stopTicks();
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -25,6 +25,8 @@ import android.util.Log;
 
 import org.xbmc.android.util.Base64;
 import org.xbmc.android.util.ClientFactory;
+import org.xbmc.android.util.DecodingInputStream;
+import org.xbmc.android.util.RequestMetrics;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.object.Host;
 
@@ -33,6 +35,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
@@ -274,7 +277,7 @@ public class Connection {
             URL url = new URL(getUrl(command, parameters));
             uc = getUrlConnection(url);
             Log.i(TAG, "Preparing input stream from " + url);
-            return uc.getInputStream();
+            return open(uc, command);
         } catch (MalformedURLException e) {
             manager.onError(e);
         } catch (IOException e) {
@@ -307,7 +310,7 @@ public class Connection {
             }
             Log.i(TAG, "Preparing input stream from " + url + " for microhttpd..");
             uc = getUrlConnection(url);
-            return uc.getInputStream();
+            return open(uc, "thumb");
         } catch (FileNotFoundException e) {
             throw e;
         } catch (MalformedURLException e) {
@@ -329,7 +332,88 @@ public class Connection {
      * @return HTTP response string.
      */
     public String query(String command, String parameters, INotifiableManager manager) {
+        final String response = execute(command, parameters, manager, new ResponseReader<String>() {
+            public String read(InputStream body) throws IOException {
+                final BufferedReader in = new BufferedReader(new InputStreamReader(body), 8192);
+                final StringBuilder response = new StringBuilder();
+                String line;
+                try {
+                    while ((line = in.readLine()) != null) {
+                        response.append(line);
+                    }
+                } finally {
+                    in.close();
+                }
+                return sanitizeResponse(response.toString());
+            }
+        });
+        return response != null ? response : "";
+    }
+
+    /**
+     * Executes a database query and parses the response while it is read
+     * from the socket, without building the response as string first.
+     *
+     * @param command    Name of the command to execute
+     * @param parameters Parameters, separated by ";".
+     * @param manager    Reference back to business layer
+     * @param parser     Builds the result from the records of the response
+     * @return Parsed result, built from an empty response on error.
+     */
+    public <T> T query(String command, String parameters, INotifiableManager manager, FieldReader.Parser<T> parser) {
+        final T result = tryQuery(command, parameters, manager, parser);
+        return result != null ? result : parser.parse(new FieldReader(new StringReader("")));
+    }
+
+    /**
+     * Like {@link #query(String, String, INotifiableManager, FieldReader.Parser)},
+     * but returns null if the query failed, so callers can tell an error
+     * from an empty response. The error is posted to the manager.
+     *
+     * @param command    Name of the command to execute
+     * @param parameters Parameters, separated by ";".
+     * @param manager    Reference back to business layer
+     * @param parser     Builds the result from the records of the response
+     * @return Parsed result, null on error.
+     */
+    public <T> T tryQuery(String command, String parameters, INotifiableManager manager, final FieldReader.Parser<T> parser) {
+        return execute(command, parameters, manager, new ResponseReader<T>() {
+            public T read(InputStream body) throws IOException {
+                final FieldReader reader = new FieldReader(new InputStreamReader(body));
+                final T result;
+                try {
+                    result = parser.parse(reader);
+                } finally {
+                    reader.close();
+                }
+                if (reader.getError() != null) {
+                    throw reader.getError();
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Reads the body of a response into a result.
+     */
+    private interface ResponseReader<T> {
+        T read(InputStream body) throws IOException;
+    }
+
+    /**
+     * Sends a query and reads its response, recording it in
+     * {@link RequestMetrics}. Errors are posted to the manager.
+     *
+     * @param command    Name of the command to execute
+     * @param parameters Parameters, separated by ";".
+     * @param manager    Reference back to business layer
+     * @param reader     Reads the decoded response body
+     * @return Result of the reader, null on error.
+     */
+    private <T> T execute(String command, String parameters, INotifiableManager manager, ResponseReader<T> reader) {
         URLConnection uc = null;
+        final RequestMetrics.Sample sample = RequestMetrics.start(RequestMetrics.HTTPAPI, command);
 
         try {
             if (mUrlSuffix == null) {
@@ -339,31 +423,34 @@ public class Connection {
             URL url = new URL(getUrl(command, parameters));
             uc = getUrlConnection(url);
 
-            final String debugUrl = URLDecoder.decode(url.toString());
+            final String debugUrl = URLDecoder.decode(url.toString(), "UTF-8");
             Log.i(TAG, debugUrl);
 
-            final BufferedReader in = new BufferedReader(new InputStreamReader(uc.getInputStream()), 8192);
-            final StringBuilder response = new StringBuilder();
-            String line;
-
-            while ((line = in.readLine()) != null) {
-                response.append(line);
+            sample.setRequestBytes(url.getFile().length());
+            final DecodingInputStream body = open(uc, command);
+            try {
+                return reader.read(body);
+            } finally {
+                sample.setResponseBytes(body.getDecodedBytes());
             }
-            in.close();
-            return sanitizeResponse(response.toString());
         } catch (MalformedURLException e) {
+            sample.setError();
             manager.onError(e);
         } catch (IOException e) {
+            sample.setError();
             try {
                 handleIOException(e, uc, manager);
             } catch (IOException ex) {
                 manager.onError(ex);
             }
         } catch (NoSettingsException e) {
+            sample.setError();
             manager.onError(e);
+        } finally {
+            sample.finish();
         }
 
-        return "";
+        return null;
     }
 
     public static class ResponseErrorException extends Exception {
@@ -566,6 +653,9 @@ public class Connection {
         uc.setConnectTimeout(SOCKET_CONNECTION_TIMEOUT);
         uc.setReadTimeout(mSocketReadTimeout);
         uc.setRequestProperty("Connection", "close");
+        // setting the header ourselves disables transparent decoding, which
+        // keeps the compressed byte count visible.
+        uc.setRequestProperty("Accept-Encoding", DecodingInputStream.ACCEPT_ENCODING);
 
         if (authEncoded != null) {
             uc.setRequestProperty("Authorization", "Basic " + authEncoded);
@@ -574,12 +664,24 @@ public class Connection {
         return uc;
     }
 
+    /**
+     * Returns the decoded response body of an open connection.
+     *
+     * @param uc    Connection
+     * @param label Logged along with the number of wire and decoded bytes
+     * @return Decoded response body
+     * @throws IOException
+     */
+    private static DecodingInputStream open(URLConnection uc, String label) throws IOException {
+        return DecodingInputStream.wrap(uc.getInputStream(), uc.getContentEncoding(), label);
+    }
+
     public byte[] download(String pathToDownload) throws IOException, URISyntaxException {
         try {
             final URL url = new URL(pathToDownload);
             final URLConnection uc = getUrlConnection(url);
 
-            final InputStream is = uc.getInputStream();
+            final InputStream is = open(uc, "download " + url.getPath());
             final InputStreamReader isr = new InputStreamReader(is);
             final BufferedReader rd = new BufferedReader(isr, 8192);
 
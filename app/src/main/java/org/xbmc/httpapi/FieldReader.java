@@ -0,0 +1,265 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.httpapi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Single pass tokenizer for HTTP API database responses, which look like
+ * <pre>
+ * &lt;html&gt;
+ * &lt;record&gt;&lt;field&gt;1&lt;/field&gt;&lt;field&gt;Title&lt;/field&gt;&lt;/record&gt;
+ * ...
+ * &lt;/html&gt;
+ * </pre>
+ * The response is read straight from the socket; only the values of the
+ * current row are kept. Everything outside of <code>&lt;field&gt;</code>
+ * tags is skipped, so rows are made of a fixed number of consecutive fields
+ * just like the columns of the query.
+ * <p>
+ * Read errors don't throw, they end the response. Check {@link #getError()}
+ * once done.
+ *
+ * @author Team XBMC
+ */
+public class FieldReader implements Closeable {
+
+    /**
+     * Builds a result from a response.
+     */
+    public interface Parser<T> {
+        /**
+         * Reads all rows needed. Called with an empty reader if the query
+         * failed, so return an empty result then.
+         *
+         * @param reader Response
+         * @return Result
+         */
+        T parse(FieldReader reader);
+    }
+
+    private static final String FIELD_OPEN = "<field>";
+    private static final String FIELD_CLOSE = "</field>";
+
+    private final Reader mIn;
+    private final char[] mBuffer = new char[8192];
+    private int mPos = 0;
+    private int mLength = 0;
+    private final StringBuilder mValue = new StringBuilder(64);
+    private String[] mRow = new String[0];
+    private IOException mError = null;
+
+    /**
+     * @param in Response, not buffered
+     */
+    public FieldReader(Reader in) {
+        mIn = in;
+    }
+
+    /**
+     * Reads the next row.
+     *
+     * @param columns Number of fields per row
+     * @return True if a complete row was read, false at the end of the response.
+     */
+    public boolean nextRow(int columns) {
+        if (mRow.length != columns) {
+            mRow = new String[columns];
+        }
+        for (int i = 0; i < columns; i++) {
+            mRow[i] = nextField();
+            if (mRow[i] == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a column of the current row as text.
+     */
+    public String getString(int column) {
+        return mRow[column];
+    }
+
+    /**
+     * Returns a column of the current row as integer, -1 if empty or not a
+     * number. Thousands separators are ignored.
+     */
+    public int getInt(int column) {
+        final String value = mRow[column];
+        if (value.length() > 0) {
+            try {
+                return Integer.parseInt(value.indexOf(',') < 0 ? value : value.replace(",", ""));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a column of the current row as double, -1.0 if empty or not a
+     * number.
+     */
+    public double getDouble(int column) {
+        final String value = mRow[column];
+        if (value.length() > 0) {
+            try {
+                return Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                return -1.0;
+            }
+        }
+        return -1.0;
+    }
+
+    /**
+     * Returns a column of the current row as boolean, which is true for
+     * values starting with "1" or "true".
+     */
+    public boolean getBoolean(int column) {
+        final String value = mRow[column];
+        return value.startsWith("1") || value.regionMatches(true, 0, "true", 0, 4);
+    }
+
+    /**
+     * Returns the error that ended the response, if any.
+     */
+    public IOException getError() {
+        return mError;
+    }
+
+    public void close() throws IOException {
+        mIn.close();
+    }
+
+    /**
+     * Skips to the next <code>&lt;field&gt;</code> tag and returns its
+     * value.
+     *
+     * @return Value of the field, null at the end of the response.
+     */
+    private String nextField() {
+        // skip to the opening tag
+        while (true) {
+            if (!scanTo('<', null)) {
+                return null;
+            }
+            if (!ensure(FIELD_OPEN.length())) {
+                return null;
+            }
+            if (matches(FIELD_OPEN)) {
+                mPos += FIELD_OPEN.length();
+                break;
+            }
+            mPos++;
+        }
+        // copy the value up to the closing tag
+        final StringBuilder value = mValue;
+        value.setLength(0);
+        while (true) {
+            if (!scanTo('<', value)) {
+                // truncated response
+                return null;
+            }
+            if (!ensure(FIELD_CLOSE.length())) {
+                return null;
+            }
+            if (matches(FIELD_CLOSE)) {
+                mPos += FIELD_CLOSE.length();
+                return value.toString();
+            }
+            value.append('<');
+            mPos++;
+        }
+    }
+
+    /**
+     * Advances to the next occurrence of a character.
+     *
+     * @param c    Character to look for
+     * @param copy Receives the skipped characters, can be null
+     * @return False if the response ended before.
+     */
+    private boolean scanTo(char c, StringBuilder copy) {
+        while (true) {
+            final char[] buffer = mBuffer;
+            final int length = mLength;
+            int i = mPos;
+            while (i < length && buffer[i] != c) {
+                i++;
+            }
+            if (copy != null) {
+                copy.append(buffer, mPos, i - mPos);
+            }
+            mPos = i;
+            if (i < length) {
+                return true;
+            }
+            if (!ensure(1)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean matches(String tag) {
+        for (int i = 0, n = tag.length(); i < n; i++) {
+            if (mBuffer[mPos + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure there are at least <code>n</code> characters buffered.
+     *
+     * @return False if the response ends before.
+     */
+    private boolean ensure(int n) {
+        while (mLength - mPos < n) {
+            if (mError != null) {
+                return false;
+            }
+            if (mPos > 0) {
+                System.arraycopy(mBuffer, mPos, mBuffer, 0, mLength - mPos);
+                mLength -= mPos;
+                mPos = 0;
+            }
+            final int read;
+            try {
+                read = mIn.read(mBuffer, mLength, mBuffer.length - mLength);
+            } catch (IOException e) {
+                mError = e;
+                return false;
+            }
+            if (read < 0) {
+                return false;
+            }
+            mLength += read;
+        }
+        return true;
+    }
+}
@@ -233,12 +233,20 @@ abstract class Client {
      */
     private BitmapFactory.Options prefetch(INotifiableManager manager, String url, int size) {
         BitmapFactory.Options opts = new BitmapFactory.Options();
+        InputStream is = null;
         try {
-            InputStream is = new BufferedInputStream(mConnection.getThumbInputStreamForMicroHTTPd(url, manager), 8192);
+            is = new BufferedInputStream(mConnection.getThumbInputStreamForMicroHTTPd(url, manager), 8192);
             opts.inJustDecodeBounds = true;
             BitmapFactory.decodeStream(is, null, opts);
         } catch (FileNotFoundException e) {
             return opts;
+        } finally {
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (IOException e) {
+            }
         }
         return opts;
     }
@@ -21,6 +21,8 @@
 
 package org.xbmc.httpapi.client;
 
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient;
 import org.xbmc.api.info.GuiActions;
@@ -33,6 +35,7 @@ import org.xbmc.httpapi.Connection;
 import org.xbmc.httpapi.WrongDataFormatException;
 
 import java.util.HashMap;
+import java.util.concurrent.Future;
 
 /**
  * The ControlClient class takes care of everything related to controlling
@@ -551,4 +554,18 @@ public class ControlClient implements IControlClient {
             }
         }
     }
+
+    /**
+     * Non-blocking variant of {@link #getCurrentlyPlaying(INotifiableManager)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<ICurrentlyPlaying> getCurrentlyPlayingAsync(INotifiableManager manager, DataResponse<ICurrentlyPlaying> response) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<ICurrentlyPlaying>() {
+            public ICurrentlyPlaying run(INotifiableManager manager) {
+                return getCurrentlyPlaying(manager);
+            }
+        }, response);
+    }
 }
@@ -23,6 +23,8 @@ package org.xbmc.httpapi.client;
 
 import android.graphics.Bitmap;
 
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
@@ -33,13 +35,16 @@ import org.xbmc.api.object.Artist;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Song;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
 import org.xbmc.httpapi.Connection;
+import org.xbmc.httpapi.FieldReader;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Future;
 
 /**
  * Takes care of every music related stuff, notably the music database.
@@ -58,6 +63,9 @@ public class MusicClient extends Client implements IMusicClient {
 
     public static final int PLAYLIST_LIMIT = 100;
 
+    private final PagedQuery<Album> mAlbumPages = new PagedQuery<Album>("QueryMusicDatabase", ALBUMS);
+    private final PagedQuery<Song> mSongPages = new PagedQuery<Song>("QueryMusicDatabase", SONGS);
+
     /**
      * Class constructor needs reference to HTTP client connection
      *
@@ -424,12 +432,38 @@ public class MusicClient extends Client implements IMusicClient {
         for (Integer id : artistIDs) {
             sb.append(id);
             n++;
-            if (artistIDs.size() < n) {
+            if (n < artistIDs.size()) {
                 sb.append(", ");
             }
         }
         sb.append(") GROUP BY albumview.idAlbum");
-        return parseAlbums(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, ALBUMS);
+    }
+
+    /**
+     * Gets all albums of the compilation artists in one query; the artists
+     * are looked up by a sub-select.
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @return All compilation albums
+     */
+    public ArrayList<Album> getCompilations(INotifiableManager manager, int sortBy, String sortOrder) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("SELECT albumview.idAlbum, strAlbum, group_concat(DISTINCT strArtist) AS strArtists, iYear, art.url");
+        sb.append(" FROM albumview");
+        sb.append(" LEFT OUTER JOIN album_artist ON album_artist.idAlbum=albumview.idAlbum");
+        sb.append(" LEFT OUTER JOIN artist ON album_artist.idArtist=artist.idArtist");
+        sb.append(" LEFT OUTER JOIN art ON art.media_id=albumview.idAlbum AND art.media_type='album' AND art.type='thumb'");
+        sb.append(" WHERE albumview.strAlbum <> ''");
+        sb.append(" AND album_artist.idArtist IN (");
+        sb.append("SELECT idArtist FROM artist");
+        sb.append(" WHERE lower(strArtist) LIKE 'various artists%%'");
+        sb.append(" OR lower(strArtist) LIKE 'v.a.%%'");
+        sb.append(" OR lower(strArtist) = 'va'");
+        sb.append(") GROUP BY albumview.idAlbum");
+        sb.append(albumsOrderBy(sortBy, sortOrder));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, ALBUMS);
     }
 
     /**
@@ -440,6 +474,17 @@ public class MusicClient extends Client implements IMusicClient {
      * @return All albums
      */
     public ArrayList<Album> getAlbums(INotifiableManager manager, int sortBy, String sortOrder) {
+        return mConnection.query("QueryMusicDatabase", albumsQuery(sortBy, sortOrder), manager, ALBUMS);
+    }
+
+    /**
+     * Returns the query for all albums.
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @return SQL query
+     */
+    private String albumsQuery(int sortBy, String sortOrder) {
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT albumview.idAlbum, strAlbum, group_concat(DISTINCT strArtist) AS strArtists, iYear, art.url");
         sb.append(" FROM albumview");
@@ -448,7 +493,34 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append(" LEFT OUTER JOIN art ON art.media_id=albumview.idAlbum AND art.media_type='album' AND art.type='thumb'");
         sb.append(" WHERE albumview.strAlbum <> '' GROUP BY albumview.idAlbum");
         sb.append(albumsOrderBy(sortBy, sortOrder));
-        return parseAlbums(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return sb.toString();
+    }
+
+    /**
+     * Gets a page of all albums from database, see {@link PagedQuery}.
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first album to return
+     * @param end       Position after the last album to return
+     * @return Albums of the window
+     */
+    public PagedList<Album> getAlbums(INotifiableManager manager, int sortBy, String sortOrder, int start, int end) {
+        return mAlbumPages.query(mConnection, manager, albumsQuery(sortBy, sortOrder), start, end);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAlbums(INotifiableManager, int, String, int, int)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Album>> getAlbumsAsync(INotifiableManager manager, DataResponse<PagedList<Album>> response, final int sortBy, final String sortOrder, final int start, final int end) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<Album>>() {
+            public PagedList<Album> run(INotifiableManager manager) {
+                return getAlbums(manager, sortBy, sortOrder, start, end);
+            }
+        }, response);
     }
 
     /**
@@ -469,7 +541,7 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append(" WHERE albumview.strAlbum <> ''");
         sb.append(" AND album_artist.idArtist = " + artist.id + " GROUP BY albumview.idAlbum");
         sb.append(albumsOrderBy(sortBy, sortOrder));
-        return parseAlbums(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, ALBUMS);
     }
 
     /**
@@ -494,7 +566,7 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append("        WHERE song_genre.idGenre =  " + genre.id);
         sb.append("  )) GROUP BY albumview.idAlbum");
         sb.append(albumsOrderBy(sortBy, sortOrder));
-        return parseAlbums(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, ALBUMS);
     }
 
     /**
@@ -525,7 +597,7 @@ public class MusicClient extends Client implements IMusicClient {
             sb.append("  LEFT JOIN art ON art.media_id=idArtist AND art.media_type='artist' AND art.type='thumb'");
         }
         sb.append(" ORDER BY upper(strArtist), strArtist");
-        return parseArtists(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, ARTISTS);
     }
 
     /**
@@ -560,7 +632,7 @@ public class MusicClient extends Client implements IMusicClient {
             sb.append("  ) AND artist.strArtist != ''");
         }
         sb.append(" ORDER BY upper(strArtist), strArtist");
-        return parseArtists(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, ARTISTS);
     }
 
     /**
@@ -569,7 +641,7 @@ public class MusicClient extends Client implements IMusicClient {
      * @return All genres
      */
     public ArrayList<Genre> getGenres(INotifiableManager manager) {
-        return parseGenres(mConnection.query("QueryMusicDatabase", "SELECT idGenre, strGenre FROM genre ORDER BY upper(strGenre), strGenre", manager));
+        return mConnection.query("QueryMusicDatabase", "SELECT idGenre, strGenre FROM genre ORDER BY upper(strGenre), strGenre", manager, GENRES);
     }
 
     /**
@@ -586,7 +658,11 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append("  LEFT JOIN albuminfo AS ai ON ai.idAlbum = a.idAlbum");
         sb.append("  WHERE a.idGenre = g.idGenre");
         sb.append("  AND a.idAlbum = " + album.id);
-        return parseAlbumInfo(album, mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, new FieldReader.Parser<Album>() {
+            public Album parse(FieldReader reader) {
+                return parseAlbumInfo(album, reader);
+            }
+        });
     }
 
     /**
@@ -600,7 +676,11 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append("SELECT strBorn, strFormed, strGenres, strMoods, strStyles, strBiography");
         sb.append("  FROM artistinfo");
         sb.append("  WHERE idArtist = " + artist.id);
-        return parseArtistInfo(artist, mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, new FieldReader.Parser<Artist>() {
+            public Artist parse(FieldReader reader) {
+                return parseArtistInfo(artist, reader);
+            }
+        });
     }
 
     /**
@@ -624,6 +704,16 @@ public class MusicClient extends Client implements IMusicClient {
      * @return Found tracks
      */
     private ArrayList<Song> getSongs(INotifiableManager manager, StringBuilder sqlCondition, int sortBy, String sortOrder) {
+        return mConnection.query("QueryMusicDatabase", songsQuery(sqlCondition, sortBy, sortOrder), manager, SONGS);
+    }
+
+    /**
+     * Returns the query for tracks of a certain condition.
+     *
+     * @param sqlCondition SQL condition which tracks to return
+     * @return SQL query
+     */
+    private String songsQuery(StringBuilder sqlCondition, int sortBy, String sortOrder) {
         StringBuilder sb = new StringBuilder();
         sb.append("SELECT songview.idSong, strTitle, group_concat(DISTINCT strArtist) AS strArtists, strAlbum, iTrack, iDuration, strPath, strFileName, art.url");
         sb.append(" FROM songview");
@@ -634,8 +724,7 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append(sqlCondition);
         sb.append(" GROUP BY idSong");
         sb.append(songsOrderBy(sortBy, sortOrder));
-
-        return parseSongs(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return sb.toString();
     }
 
     /**
@@ -793,6 +882,34 @@ public class MusicClient extends Client implements IMusicClient {
         return getSongs(manager, getSongsCondition(genre), sortBy, sortOrder);
     }
 
+    /**
+     * Returns a page of all tracks of a genre, see {@link PagedQuery}.
+     *
+     * @param genre     Genre
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first track to return
+     * @param end       Position after the last track to return
+     * @return Tracks of the window
+     */
+    public PagedList<Song> getSongs(INotifiableManager manager, Genre genre, int sortBy, String sortOrder, int start, int end) {
+        return mSongPages.query(mConnection, manager, songsQuery(getSongsCondition(genre), sortBy, sortOrder), start, end);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getSongs(INotifiableManager, Genre, int, String, int, int)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Song>> getSongsAsync(INotifiableManager manager, DataResponse<PagedList<Song>> response, final Genre genre, final int sortBy, final String sortOrder, final int start, final int end) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<Song>>() {
+            public PagedList<Song> run(INotifiableManager manager) {
+                return getSongs(manager, genre, sortBy, sortOrder, start, end);
+            }
+        }, response);
+    }
+
     /**
      * Returns a list containing all tracks of a genre AND and artist. The list is sorted by
      * artist, album name, filename.
@@ -838,7 +955,7 @@ public class MusicClient extends Client implements IMusicClient {
         sb.append("  WHERE lower(strArtist) LIKE 'various artists%%'");
         sb.append("  OR lower(strArtist) LIKE 'v.a.%%'");
         sb.append("  OR lower(strArtist) = 'va'");
-        return parseIntArray(mConnection.query("QueryMusicDatabase", sb.toString(), manager));
+        return mConnection.query("QueryMusicDatabase", sb.toString(), manager, INTS);
 
     }
 
@@ -899,29 +1016,22 @@ public class MusicClient extends Client implements IMusicClient {
      * 	<li><code>strThumb</code></li>
      * </ol>
      *
-     * @param response
-     * @return List of albums
      */
-    private ArrayList<Album> parseAlbums(String response) {
-        ArrayList<Album> albums = new ArrayList<Album>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 5) {
+    private static final FieldReader.Parser<ArrayList<Album>> ALBUMS = new FieldReader.Parser<ArrayList<Album>>() {
+        public ArrayList<Album> parse(FieldReader reader) {
+            ArrayList<Album> albums = new ArrayList<Album>();
+            while (reader.nextRow(5)) {
                 albums.add(new Album(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2]),
-                        Connection.trimInt(fields[row + 3]),
-                        Connection.trim(fields[row + 4])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2),
+                        reader.getInt(3),
+                        reader.getString(4)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return albums;
         }
-        return albums;
-    }
+    };
 
     /**
      * Updates an album with info from HTTP API query response. One row is
@@ -934,25 +1044,20 @@ public class MusicClient extends Client implements IMusicClient {
      * </ol>
      *
      * @param album
-     * @param response
+     * @param reader
      * @return Updated album
      */
-    private Album parseAlbumInfo(Album album, String response) {
-        String[] fields = response.split("<field>");
-        try {
-            if (Connection.trim(fields[1]).length() > 0) {
-                album.genres = Connection.trim(fields[1]);
+    private static Album parseAlbumInfo(Album album, FieldReader reader) {
+        if (reader.nextRow(4)) {
+            if (reader.getString(0).length() > 0) {
+                album.genres = reader.getString(0);
             }
-            if (Connection.trim(fields[2]).length() > 0) {
-                album.label = Connection.trim(fields[2]);
+            if (reader.getString(1).length() > 0) {
+                album.label = reader.getString(1);
             }
-            if (Connection.trim(fields[3]).length() > 0) {
-                album.rating = Connection.trimInt(fields[3]);
+            if (reader.getString(2).length() > 0) {
+                album.rating = reader.getInt(2);
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
         }
         return album;
     }
@@ -970,34 +1075,29 @@ public class MusicClient extends Client implements IMusicClient {
      * </ol>
      *
      * @param artist
-     * @param response
+     * @param reader
      * @return Updated artist
      */
-    private Artist parseArtistInfo(Artist artist, String response) {
-        String[] fields = response.split("<field>");
-        try {
-            if (Connection.trim(fields[1]).length() > 0) {
-                artist.born = Connection.trim(fields[1]);
+    private static Artist parseArtistInfo(Artist artist, FieldReader reader) {
+        if (reader.nextRow(6)) {
+            if (reader.getString(0).length() > 0) {
+                artist.born = reader.getString(0);
             }
-            if (Connection.trim(fields[2]).length() > 0) {
-                artist.formed = Connection.trim(fields[2]);
+            if (reader.getString(1).length() > 0) {
+                artist.formed = reader.getString(1);
             }
-            if (Connection.trim(fields[3]).length() > 0) {
-                artist.genres = Connection.trim(fields[3]);
+            if (reader.getString(2).length() > 0) {
+                artist.genres = reader.getString(2);
             }
-            if (Connection.trim(fields[4]).length() > 0) {
-                artist.moods = Connection.trim(fields[4]);
+            if (reader.getString(3).length() > 0) {
+                artist.moods = reader.getString(3);
             }
-            if (Connection.trim(fields[5]).length() > 0) {
-                artist.styles = Connection.trim(fields[5]);
+            if (reader.getString(4).length() > 0) {
+                artist.styles = reader.getString(4);
             }
-            if (Connection.trim(fields[6]).length() > 0) {
-                artist.biography = Connection.trim(fields[6]);
+            if (reader.getString(5).length() > 0) {
+                artist.biography = reader.getString(5);
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
         }
         return artist;
     }
@@ -1060,55 +1160,40 @@ public class MusicClient extends Client implements IMusicClient {
      * 	<li><code>strFileName</code></li>
      * 	<li><code>strThumb</code></li>
      * </ol>
-     *
-     * @param response
-     * @return List of Songs
      */
-    private ArrayList<Song> parseSongs(String response) {
-        ArrayList<Song> songs = new ArrayList<Song>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 9) {
+    private static final FieldReader.Parser<ArrayList<Song>> SONGS = new FieldReader.Parser<ArrayList<Song>>() {
+        public ArrayList<Song> parse(FieldReader reader) {
+            ArrayList<Song> songs = new ArrayList<Song>();
+            while (reader.nextRow(9)) {
                 songs.add(new Song( // int id, String title, String artist, String album, int track, int duration, String path, String filename, String thumbPath
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2]),
-                        Connection.trim(fields[row + 3]),
-                        Connection.trimInt(fields[row + 4]),
-                        Connection.trimInt(fields[row + 5]),
-                        Connection.trim(fields[row + 6]),
-                        Connection.trim(fields[row + 7]),
-                        Connection.trim(fields[row + 8])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2),
+                        reader.getString(3),
+                        reader.getInt(4),
+                        reader.getInt(5),
+                        reader.getString(6),
+                        reader.getString(7),
+                        reader.getString(8)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return songs;
         }
-        return songs;
-    }
+    };
 
     /**
-     * Converts query response from HTTP API to a list of integer values.
-     *
-     * @param response
-     * @return
+     * Converts query response from HTTP API to a list of integer values, one
+     * column per row.
      */
-    private ArrayList<Integer> parseIntArray(String response) {
-        ArrayList<Integer> array = new ArrayList<Integer>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 9) {
-                array.add(Connection.trimInt(fields[row]));
+    private static final FieldReader.Parser<ArrayList<Integer>> INTS = new FieldReader.Parser<ArrayList<Integer>>() {
+        public ArrayList<Integer> parse(FieldReader reader) {
+            ArrayList<Integer> array = new ArrayList<Integer>();
+            while (reader.nextRow(1)) {
+                array.add(reader.getInt(0));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return array;
         }
-        return array;
-    }
+    };
 
     /**
      * Converts query response from HTTP API to a list of Artist objects. Each
@@ -1117,28 +1202,20 @@ public class MusicClient extends Client implements IMusicClient {
      * 	<li><code>idArtist</code></li>
      * 	<li><code>strArtist</code></li>
      * </ol>
-     *
-     * @param response
-     * @return List of Artists
      */
-    private ArrayList<Artist> parseArtists(String response) {
-        ArrayList<Artist> artists = new ArrayList<Artist>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 3) {
+    private static final FieldReader.Parser<ArrayList<Artist>> ARTISTS = new FieldReader.Parser<ArrayList<Artist>>() {
+        public ArrayList<Artist> parse(FieldReader reader) {
+            ArrayList<Artist> artists = new ArrayList<Artist>();
+            while (reader.nextRow(3)) {
                 artists.add(new Artist(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return artists;
         }
-        return artists;
-    }
+    };
 
     /**
      * Converts query response from HTTP API to a list of Genre objects. Each
@@ -1147,25 +1224,17 @@ public class MusicClient extends Client implements IMusicClient {
      * 	<li><code>idGenre</code></li>
      * 	<li><code>strGenre</code></li>
      * </ol>
-     *
-     * @param response
-     * @return List of Genres
      */
-    private ArrayList<Genre> parseGenres(String response) {
-        ArrayList<Genre> genres = new ArrayList<Genre>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 2) {
+    private static final FieldReader.Parser<ArrayList<Genre>> GENRES = new FieldReader.Parser<ArrayList<Genre>>() {
+        public ArrayList<Genre> parse(FieldReader reader) {
+            ArrayList<Genre> genres = new ArrayList<Genre>();
+            while (reader.nextRow(2)) {
                 genres.add(new Genre(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1])
+                        reader.getInt(0),
+                        reader.getString(1)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return genres;
         }
-        return genres;
-    }
+    };
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.httpapi.client;
+
+import org.xbmc.api.business.INotifiableManager;
+import org.xbmc.api.object.PagedList;
+import org.xbmc.httpapi.Connection;
+import org.xbmc.httpapi.FieldReader;
+
+import java.util.ArrayList;
+
+/**
+ * Reads a database query page by page with LIMIT/OFFSET, so XBMC only has
+ * to render one page per request instead of the whole table.
+ * <p>
+ * The page size adapts to the time the previous pages took, aiming at
+ * {@link #TARGET_MILLIS} per page: fast hosts get larger pages, slow ones
+ * smaller pages that show up sooner. The total is counted once per query
+ * when the first page is read.
+ *
+ * @param <E> Type of the rows
+ * @author Team XBMC
+ */
+class PagedQuery<E> {
+
+    static final int MIN_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 2000;
+    /**
+     * Time a page should take to load
+     */
+    static final int TARGET_MILLIS = 500;
+
+    private static final FieldReader.Parser<Integer> COUNT = new FieldReader.Parser<Integer>() {
+        public Integer parse(FieldReader reader) {
+            return reader.nextRow(1) ? reader.getInt(0) : -1;
+        }
+    };
+
+    private final String mCommand;
+    private final FieldReader.Parser<ArrayList<E>> mParser;
+    private int mPageSize = 0;
+    private String mSql = null;
+    private int mTotal = -1;
+
+    /**
+     * @param command HTTP API command, e.g. QueryMusicDatabase
+     * @param parser  Parses the rows of a page
+     */
+    PagedQuery(String command, FieldReader.Parser<ArrayList<E>> parser) {
+        mCommand = command;
+        mParser = parser;
+    }
+
+    /**
+     * Reads the page starting at a given position. The requested end is
+     * only used as page size for the very first page, after that the page
+     * size is adapted; the returned page tells where the next one starts.
+     * <p>
+     * If the page can't be read, null is returned and nothing is adapted,
+     * so a failed page isn't taken for the end of the list. If only the
+     * count fails, the page is returned without a known total and the next
+     * page counts again.
+     *
+     * @param connection Connection to query
+     * @param manager    Reference back to business layer
+     * @param sql        Query, sorted, without LIMIT clause
+     * @param start      Position of the first row to return
+     * @param end        Position after the last row requested
+     * @return Page of rows, null on error.
+     */
+    PagedList<E> query(Connection connection, INotifiableManager manager, String sql, int start, int end) {
+        int limit;
+        int total;
+        synchronized (this) {
+            limit = mPageSize > 0 ? mPageSize : Math.min(MAX_PAGE_SIZE, Math.max(MIN_PAGE_SIZE, end - start));
+            total = sql.equals(mSql) ? mTotal : -1;
+        }
+        if (start == 0 || total < 0) {
+            final Integer count = connection.tryQuery(mCommand, "SELECT COUNT(*) FROM (" + sql + ") AS q", manager, COUNT);
+            total = count != null ? count : -1;
+        }
+        final boolean counted = total >= 0;
+
+        final long started = System.currentTimeMillis();
+        final ArrayList<E> rows = connection.tryQuery(mCommand, sql + " LIMIT " + limit + " OFFSET " + start, manager, mParser);
+        final long elapsed = System.currentTimeMillis() - started;
+        if (rows == null) {
+            return null;
+        }
+
+        final PagedList<E> page = new PagedList<E>(start);
+        page.addAll(rows);
+        page.end = start + rows.size();
+        if (rows.size() < limit) {
+            // last page, or the library has shrunk since counting
+            total = page.end;
+        } else if (total <= page.end) {
+            total = page.end + 1;
+        }
+        page.total = total;
+
+        synchronized (this) {
+            mSql = sql;
+            // a guessed total isn't kept, the next page counts again
+            mTotal = counted || rows.size() < limit ? total : -1;
+            if (rows.size() == limit) {
+                final long size = limit * TARGET_MILLIS / Math.max(1, elapsed);
+                mPageSize = (int) Math.max(MIN_PAGE_SIZE, Math.min(MAX_PAGE_SIZE, Math.max(limit / 2, Math.min(limit * 2, size))));
+            }
+        }
+        return page;
+    }
+}
@@ -24,6 +24,8 @@ package org.xbmc.httpapi.client;
 import android.graphics.Bitmap;
 import android.util.Log;
 
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
 import org.xbmc.api.data.ITvShowClient;
@@ -33,14 +35,17 @@ import org.xbmc.api.object.Episode;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Season;
 import org.xbmc.api.object.TvShow;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
 import org.xbmc.httpapi.Connection;
+import org.xbmc.httpapi.FieldReader;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Future;
 
 /**
  * TV show client for HTTP API.
@@ -89,6 +94,8 @@ public class TvShowClient extends Client implements ITvShowClient {
 
     private static final String TAG = "TvShowClient";
 
+    private final PagedQuery<TvShow> mShowPages = new PagedQuery<TvShow>("QueryVideoDatabase", SHOWS);
+
     public TvShowClient(Connection connection) {
         super(connection);
     }
@@ -171,7 +178,36 @@ public class TvShowClient extends Client implements ITvShowClient {
         };
     }
 
+    /**
+     * Gets a page of all tv shows, see {@link PagedQuery}.
+     *
+     * @param start Position of the first show to return
+     * @param end   Position after the last show to return
+     * @return Shows of the window
+     */
+    public PagedList<TvShow> getTvShows(INotifiableManager manager, int sortBy, String sortOrder, int start, int end, boolean hideWatched) {
+        return mShowPages.query(mConnection, manager, showsQuery(sortBy, sortOrder, hideWatched), start, end);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getTvShows(INotifiableManager, int, String, int, int, boolean)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<TvShow>> getTvShowsAsync(INotifiableManager manager, DataResponse<PagedList<TvShow>> response, final int sortBy, final String sortOrder, final int start, final int end, final boolean hideWatched) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<TvShow>>() {
+            public PagedList<TvShow> run(INotifiableManager manager) {
+                return getTvShows(manager, sortBy, sortOrder, start, end, hideWatched);
+            }
+        }, response);
+    }
+
     public ArrayList<TvShow> getTvShows(INotifiableManager manager, int sortBy, String sortOrder, boolean hideWatched) {
+        return mConnection.query("QueryVideoDatabase", showsQuery(sortBy, sortOrder, hideWatched), manager, SHOWS);
+    }
+
+    private String showsQuery(int sortBy, String sortOrder, boolean hideWatched) {
         StringBuilder sb = new StringBuilder();
 
         // don't fetch summary for list view
@@ -212,7 +248,7 @@ public class TvShowClient extends Client implements ITvShowClient {
 /*		sb.append("SELECT tvshow.idShow, c00, c01, c04, c05, c08, c13, c14, strPath FROM tvshow, path, tvshowlinkpath");
 		sb.append(" WHERE tvshow.idShow = tvshowlinkpath.idShow");
 		sb.append(" AND path.idPath = tvshowlinkpath.idPath");*/
-        return parseShows(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return sb.toString();
     }
 
     /**
@@ -225,7 +261,7 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append("SELECT DISTINCT actors.idActor, strActor FROM actors, actorlinktvshow");
         sb.append(" WHERE actorlinktvshow.idActor = actors.idActor");
         sb.append(" ORDER BY upper(strActor), strActor");
-        return VideoClient.parseActors(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, VideoClient.ACTORS);
     }
 
     /**
@@ -238,7 +274,7 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append("SELECT idGenre, strGenre FROM genre");
         sb.append(" WHERE idGenre IN (SELECT idGenre FROM genrelinktvshow)");
         sb.append(" ORDER BY upper(strGenre)");
-        return VideoClient.parseGenres(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, VideoClient.GENRES);
     }
 
     /**
@@ -290,7 +326,7 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append(showsOrderBy(sortBy, sortOrder));
 
         Log.i(TAG, sb.toString());
-        return parseShows(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, SHOWS);
     }
 
     /**
@@ -338,7 +374,7 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append(showsOrderBy(sortBy, sortOrder));
 
         Log.i(TAG, sb.toString());
-        return parseShows(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, SHOWS);
     }
 
     /**
@@ -370,7 +406,11 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append(" where not q.c12 is null ");
         sb.append("ORDER BY q.c12+0");
 
-        return parseSeasons(mConnection.query("QueryVideoDatabase", sb.toString(), manager), show);
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, new FieldReader.Parser<ArrayList<Season>>() {
+            public ArrayList<Season> parse(FieldReader reader) {
+                return parseSeasons(reader, show);
+            }
+        });
     }
 
     /**
@@ -402,7 +442,11 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append("GROUP BY episode.c12, tvshow.c00 ");
         sb.append("ORDER BY tvshow.idShow, episode.c12+0");
 
-        return parseSeasons(mConnection.query("QueryVideoDatabase", sb.toString(), manager), showMap);
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, new FieldReader.Parser<ArrayList<Season>>() {
+            public ArrayList<Season> parse(FieldReader reader) {
+                return parseSeasons(reader, showMap);
+            }
+        });
     }
 
     /**
@@ -441,7 +485,7 @@ public class TvShowClient extends Client implements ITvShowClient {
             sb.append(" WHERE (playCount IS NULL OR playCount = 0) ");
         }
         sb.append(showsOrderBy(sortBy, sortOrder));
-        return parseEpisodes(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, EPISODES);
     }
 
     /**
@@ -470,7 +514,23 @@ public class TvShowClient extends Client implements ITvShowClient {
             sb.append(")))");
         }
         sb.append(showsOrderBy(sortBy, sortOrder));
-        return parseEpisodes(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, EPISODES);
+    }
+
+    /**
+     * The lists of the HTTP API already contain everything but summary and
+     * cast, which are only fetched when a show is opened.
+     */
+    public ArrayList<TvShow> updateTvShowDetails(INotifiableManager manager, ArrayList<TvShow> shows) {
+        return shows;
+    }
+
+    /**
+     * The lists of the HTTP API already contain everything but plot and cast,
+     * which are only fetched when an episode is opened.
+     */
+    public ArrayList<Episode> updateEpisodeDetails(INotifiableManager manager, ArrayList<Episode> episodes) {
+        return episodes;
     }
 
     public TvShow updateTvShowDetails(INotifiableManager manager, TvShow show) {
@@ -479,7 +539,11 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append("  FROM tvshow");
         sb.append("  WHERE tvshow.idShow = ");
         sb.append(show.id);
-        show = parseTvShowDetails(mConnection.query("QueryVideoDatabase", sb.toString(), manager), show);
+        mConnection.query("QueryVideoDatabase", sb.toString(), manager, new FieldReader.Parser<TvShow>() {
+            public TvShow parse(FieldReader reader) {
+                return parseTvShowDetails(reader, show);
+            }
+        });
         //parse actors of the show
         sb = new StringBuilder();
         sb.append("SELECT actors.idActor, strActor, art.url, strRole");
@@ -487,18 +551,13 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append(" WHERE actors.idActor = actorlinktvshow.idActor");
         sb.append(" AND actorlinktvshow.idShow =");
         sb.append(show.getId());
-        show.actors = VideoClient.parseActorRoles(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        show.actors = mConnection.query("QueryVideoDatabase", sb.toString(), manager, VideoClient.ACTOR_ROLES);
         return show;
     }
 
-    private TvShow parseTvShowDetails(String response, TvShow show) {
-        String[] fields = response.split("<field>");
-        try {
-            show.summary = Connection.trim(fields[1]);
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+    private static TvShow parseTvShowDetails(FieldReader reader, TvShow show) {
+        if (reader.nextRow(1)) {
+            show.summary = reader.getString(0);
         }
         return show;
     }
@@ -509,25 +568,24 @@ public class TvShowClient extends Client implements ITvShowClient {
         sb.append(" FROM episodeview ");
         sb.append(" WHERE idEpisode=");
         sb.append(episode.id);
-        episode = parseEpisodeDetails(mConnection.query("QueryVideoDatabase", sb.toString(), manager), episode);
+        mConnection.query("QueryVideoDatabase", sb.toString(), manager, new FieldReader.Parser<Episode>() {
+            public Episode parse(FieldReader reader) {
+                return parseEpisodeDetails(reader, episode);
+            }
+        });
         sb = new StringBuilder();
         sb.append("SELECT actors.idActor, strActor, art.url, strRole");
         sb.append(" FROM actors LEFT OUTER JOIN art ON art.media_id=actors.idActor AND art.media_type='actor' AND art.type='thumb', actorlinkepisode");
         sb.append(" WHERE actors.idActor = actorlinkepisode.idActor");
         sb.append(" AND actorlinkepisode.idEpisode =");
         sb.append(episode.id);
-        episode.actors = VideoClient.parseActorRoles(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        episode.actors = mConnection.query("QueryVideoDatabase", sb.toString(), manager, VideoClient.ACTOR_ROLES);
         return episode;
     }
 
-    private Episode parseEpisodeDetails(String response, Episode episode) {
-        String[] fields = response.split("<field>");
-        try {
-            episode.plot = Connection.trim(fields[1]);
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+    private static Episode parseEpisodeDetails(FieldReader reader, Episode episode) {
+        if (reader.nextRow(1)) {
+            episode.plot = reader.getString(0);
         }
         return episode;
     }
@@ -574,97 +632,72 @@ public class TvShowClient extends Client implements ITvShowClient {
      * c13: Episode Number
      * idFile: Foreign key to the files table
      */
-    protected ArrayList<Episode> parseEpisodes(String response) {
-        ArrayList<Episode> episodes = new ArrayList<Episode>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 15) {
-                episodes.add(new Episode(Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2]),
-                        Connection.trimDouble(fields[row + 3]),
-                        Connection.trim(fields[row + 4]),
-                        Connection.trim(fields[row + 5]),
-                        Connection.trimInt(fields[row + 7]),
-                        Connection.trim(fields[row + 8]),
-                        Connection.trimInt(fields[row + 9]),
-                        Connection.trimInt(fields[row + 10]),
-                        Connection.trim(fields[row + 11]),
-                        Connection.trim(fields[row + 12]),
-                        Connection.trim(fields[row + 13]),
-                        Connection.trim(fields[row + 14])
+    private static final FieldReader.Parser<ArrayList<Episode>> EPISODES = new FieldReader.Parser<ArrayList<Episode>>() {
+        public ArrayList<Episode> parse(FieldReader reader) {
+            ArrayList<Episode> episodes = new ArrayList<Episode>();
+            while (reader.nextRow(15)) {
+                episodes.add(new Episode(reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2),
+                        reader.getDouble(3),
+                        reader.getString(4),
+                        reader.getString(5),
+                        reader.getInt(7),
+                        reader.getString(8),
+                        reader.getInt(9),
+                        reader.getInt(10),
+                        reader.getString(11),
+                        reader.getString(12),
+                        reader.getString(13),
+                        reader.getString(14)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return episodes;
         }
+    };
 
-        return episodes;
-    }
-
-    protected ArrayList<Season> parseSeasons(String response, TvShow show) {
+    protected ArrayList<Season> parseSeasons(FieldReader reader, TvShow show) {
         ArrayList<Season> seasons = new ArrayList<Season>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 2) {
-                seasons.add(new Season(Connection.trimInt(fields[row]), false, show, Connection.trim(fields[row + 1])));
-            }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+        while (reader.nextRow(2)) {
+            seasons.add(new Season(reader.getInt(0), false, show, reader.getString(1)));
         }
         return seasons;
     }
 
-    protected ArrayList<Season> parseSeasons(String response, HashMap<Integer, TvShow> showMap) {
+    protected ArrayList<Season> parseSeasons(FieldReader reader, HashMap<Integer, TvShow> showMap) {
         ArrayList<Season> seasons = new ArrayList<Season>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 3) {
-                final int showId = Connection.trimInt(fields[row]);
-                if (showMap.containsKey(showId)) {
-                    seasons.add(new Season(Connection.trimInt(fields[row + 1]), false, showMap.get(showId), Connection.trim(fields[row + 2])));
-                }
+        while (reader.nextRow(3)) {
+            final int showId = reader.getInt(0);
+            if (showMap.containsKey(showId)) {
+                seasons.add(new Season(reader.getInt(1), false, showMap.get(showId), reader.getString(2)));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
         }
         return seasons;
     }
 
-    protected ArrayList<TvShow> parseShows(String response) {
-        ArrayList<TvShow> shows = new ArrayList<TvShow>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 13) {
+    private static final FieldReader.Parser<ArrayList<TvShow>> SHOWS = new FieldReader.Parser<ArrayList<TvShow>>() {
+        public ArrayList<TvShow> parse(FieldReader reader) {
+            ArrayList<TvShow> shows = new ArrayList<TvShow>();
+            while (reader.nextRow(13)) {
                 shows.add(new TvShow(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2]),
-                        Connection.trimDouble(fields[row + 3]),
-                        Connection.trim(fields[row + 4]),
-                        Connection.trim(fields[row + 5]),
-                        Connection.trim(fields[row + 6]),
-                        Connection.trim(fields[row + 7]),
-                        Connection.trim(fields[row + 8]),
-                        Connection.trimInt(fields[row + 9]),
-                        Connection.trimInt(fields[row + 10]),
-                        Connection.trimBoolean(fields[row + 11]),
-                        Connection.trim(fields[row + 12])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2),
+                        reader.getDouble(3),
+                        reader.getString(4),
+                        reader.getString(5),
+                        reader.getString(6),
+                        reader.getString(7),
+                        reader.getString(8),
+                        reader.getInt(9),
+                        reader.getInt(10),
+                        reader.getBoolean(11),
+                        reader.getString(12)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return shows;
         }
-        return shows;
-    }
+    };
 
     private String showsOrderBy(int sortBy, String sortOrder) {
         switch (sortBy) {
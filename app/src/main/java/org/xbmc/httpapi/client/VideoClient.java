@@ -23,6 +23,8 @@ package org.xbmc.httpapi.client;
 
 import android.graphics.Bitmap;
 
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
 import org.xbmc.api.data.IVideoClient;
@@ -32,12 +34,15 @@ import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.object.ICoverArt;
 import org.xbmc.api.object.Movie;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
 import org.xbmc.httpapi.Connection;
+import org.xbmc.httpapi.FieldReader;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.Future;
 
 /**
  * Takes care of everything related to the video database.
@@ -53,6 +58,8 @@ public class VideoClient extends Client implements IVideoClient {
     private static final String SELECT_MOVIES = "SELECT" + " " + MOVIE_COLUMNS;
     private static final String WHERE_MOVIES = " " + "FROM" + " " + "movie, files, path, art";
 
+    private final PagedQuery<Movie> mMoviePages = new PagedQuery<Movie>("QueryVideoDatabase", MOVIES);
+
     /**
      * Class constructor needs reference to HTTP client connection
      *
@@ -69,28 +76,20 @@ public class VideoClient extends Client implements IVideoClient {
      * 	<li><code>idActor</code></li>
      * 	<li><code>strActor</code></li>
      * </ol>
-     *
-     * @param response
-     * @return List of Actors
      */
-    public static ArrayList<Actor> parseActors(String response) {
-        ArrayList<Actor> actors = new ArrayList<Actor>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 3) {
+    static final FieldReader.Parser<ArrayList<Actor>> ACTORS = new FieldReader.Parser<ArrayList<Actor>>() {
+        public ArrayList<Actor> parse(FieldReader reader) {
+            ArrayList<Actor> actors = new ArrayList<Actor>();
+            while (reader.nextRow(3)) {
                 actors.add(new Actor(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return actors;
         }
-        return actors;
-    }
+    };
 
     /**
      * Converts query response from HTTP API to a list of Actor objects with
@@ -101,29 +100,21 @@ public class VideoClient extends Client implements IVideoClient {
      * 	<li><code>strActor</code></li>
      * 	<li><code>strRole</code></li>
      * </ol>
-     *
-     * @param response
-     * @return List of Actors
      */
-    public static ArrayList<Actor> parseActorRoles(String response) {
-        ArrayList<Actor> actors = new ArrayList<Actor>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 4) {
+    static final FieldReader.Parser<ArrayList<Actor>> ACTOR_ROLES = new FieldReader.Parser<ArrayList<Actor>>() {
+        public ArrayList<Actor> parse(FieldReader reader) {
+            ArrayList<Actor> actors = new ArrayList<Actor>();
+            while (reader.nextRow(4)) {
                 actors.add(new Actor(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trim(fields[row + 2]),
-                        Connection.trim(fields[row + 3])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getString(2),
+                        reader.getString(3)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return actors;
         }
-        return actors;
-    }
+    };
 
     /**
      * Converts query response from HTTP API to a list of Genre objects. Each
@@ -132,27 +123,19 @@ public class VideoClient extends Client implements IVideoClient {
      * 	<li><code>idGenre</code></li>
      * 	<li><code>strGenre</code></li>
      * </ol>
-     *
-     * @param response
-     * @return List of Genres
      */
-    public static ArrayList<Genre> parseGenres(String response) {
-        ArrayList<Genre> genres = new ArrayList<Genre>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 2) {
+    static final FieldReader.Parser<ArrayList<Genre>> GENRES = new FieldReader.Parser<ArrayList<Genre>>() {
+        public ArrayList<Genre> parse(FieldReader reader) {
+            ArrayList<Genre> genres = new ArrayList<Genre>();
+            while (reader.nextRow(2)) {
                 genres.add(new Genre(
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1])
+                        reader.getInt(0),
+                        reader.getString(1)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return genres;
         }
-        return genres;
-    }
+    };
 
     static ICurrentlyPlaying getCurrentlyPlaying(final HashMap<String, String> map) {
 
@@ -254,31 +237,51 @@ public class VideoClient extends Client implements IVideoClient {
      * @return All movies
      */
     public ArrayList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, boolean hideWatched) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(SELECT_MOVIES);
-        sb.append(WHERE_MOVIES);
-        sb.append(" WHERE movie.idFile=files.idFile AND path.idPath=files.idPath AND movie.idMovie=art.media_id AND art.media_type='movie' AND art.type='thumb'");
-        sb.append(watchedFilter(hideWatched));
-        sb.append(moviesOrderBy(sortBy, sortOrder));
-        return parseMovies(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", moviesQuery(sortBy, sortOrder, hideWatched), manager, MOVIES);
     }
 
     /**
-     * Gets movies from database with offset
+     * Returns the query for all movies.
      *
      * @param sortBy    Sort field, see SortType.*
      * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
-     * @return Movies with offset
+     * @return SQL query
      */
-    public ArrayList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, int offset, boolean hideWatched) {
+    private String moviesQuery(int sortBy, String sortOrder, boolean hideWatched) {
         StringBuilder sb = new StringBuilder();
         sb.append(SELECT_MOVIES);
         sb.append(WHERE_MOVIES);
         sb.append(" WHERE movie.idFile=files.idFile AND path.idPath=files.idPath AND movie.idMovie=art.media_id AND art.media_type='movie' AND art.type='thumb'");
         sb.append(watchedFilter(hideWatched));
         sb.append(moviesOrderBy(sortBy, sortOrder));
-        sb.append(" LIMIT -1 OFFSET " + offset);
-        return parseMovies(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return sb.toString();
+    }
+
+    /**
+     * Gets a page of all movies from database, see {@link PagedQuery}.
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first movie to return
+     * @param end       Position after the last movie to return
+     * @return Movies of the window
+     */
+    public PagedList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, int start, int end, boolean hideWatched) {
+        return mMoviePages.query(mConnection, manager, moviesQuery(sortBy, sortOrder, hideWatched), start, end);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getMovies(INotifiableManager, int, String, int, int, boolean)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Movie>> getMoviesAsync(INotifiableManager manager, DataResponse<PagedList<Movie>> response, final int sortBy, final String sortOrder, final int start, final int end, final boolean hideWatched) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<Movie>>() {
+            public PagedList<Movie> run(INotifiableManager manager) {
+                return getMovies(manager, sortBy, sortOrder, start, end, hideWatched);
+            }
+        }, response);
     }
 
     /**
@@ -301,7 +304,7 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append(" )");
         sb.append(watchedFilter(hideWatched));
         sb.append(moviesOrderBy(sortBy, sortOrder));
-        return parseMovies(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, MOVIES);
     }
 
     /**
@@ -324,7 +327,18 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append(" )");
         sb.append(watchedFilter(hideWatched));
         sb.append(moviesOrderBy(sortBy, sortOrder));
-        return parseMovies(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, MOVIES);
+    }
+
+    /**
+     * The movie list of the HTTP API already contains everything but plot
+     * and cast, which are only fetched when a movie is opened.
+     *
+     * @param movies Movies
+     * @return Same movies
+     */
+    public ArrayList<Movie> updateMovieDetails(INotifiableManager manager, ArrayList<Movie> movies) {
+        return movies;
     }
 
     /**
@@ -340,14 +354,18 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append(WHERE_MOVIES);
         sb.append(" WHERE movie.idFile=files.idFile AND path.idPath=files.idPath AND movie.idMovie=art.media_id AND art.media_type='movie' AND art.type='thumb' AND movie.idmovie = ");
         sb.append(movie.getId());
-        parseMovieDetails(mConnection.query("QueryVideoDatabase", sb.toString(), manager), movie);
+        mConnection.query("QueryVideoDatabase", sb.toString(), manager, new FieldReader.Parser<Movie>() {
+            public Movie parse(FieldReader reader) {
+                return parseMovieDetails(reader, movie);
+            }
+        });
         sb = new StringBuilder();
         sb.append("SELECT actors.idActor, strActor, art.url, strRole");
         sb.append(" FROM actors LEFT OUTER JOIN art ON art.media_id=idActor AND art.media_type='actor' and art.type='thumb', actorlinkmovie");
         sb.append(" WHERE actors.idActor = actorlinkmovie.idActor");
         sb.append(" AND actorlinkmovie.idMovie =");
         sb.append(movie.getId());
-        movie.actors = parseActorRoles(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        movie.actors = mConnection.query("QueryVideoDatabase", sb.toString(), manager, ACTOR_ROLES);
         return movie;
     }
 
@@ -362,7 +380,7 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append("SELECT idActor, strActor, art.url");
         sb.append(" FROM actors LEFT OUTER JOIN art ON art.media_id=idActor AND art.media_type='actor' and art.type='thumb'");
         sb.append(" ORDER BY upper(strActor), strActor");
-        return parseActors(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, ACTORS);
     }
 
     /**
@@ -376,7 +394,7 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append(" FROM actors LEFT OUTER JOIN art ON art.media_id=actors.idActor AND art.media_type='actor' and art.type='thumb', actorlinkmovie");
         sb.append(" WHERE actorlinkmovie.idActor = actors.idActor");
         sb.append(" ORDER BY upper(strActor), strActor");
-        return parseActors(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, ACTORS);
     }
 
     /**
@@ -390,7 +408,7 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append(" FROM actors LEFT OUTER JOIN art ON art.media_id=actors.idActor AND art.media_type='actor' and art.type='thumb', actorlinktvshow");
         sb.append(" WHERE actorlinktvshow.idActor = actors.idActor");
         sb.append(" ORDER BY upper(strActor), strActor");
-        return parseActors(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, ACTORS);
     }
 
     /**
@@ -403,7 +421,7 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append("SELECT idGenre, strGenre FROM genre");
         sb.append(" WHERE idGenre IN (SELECT idGenre FROM genrelinkmovie)");
         sb.append(" ORDER BY upper(strGenre)");
-        return parseGenres(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, GENRES);
     }
 
     /**
@@ -416,7 +434,7 @@ public class VideoClient extends Client implements IVideoClient {
         sb.append("SELECT idGenre, strGenre FROM genre");
         sb.append(" WHERE idGenre IN (SELECT idGenre FROM genrelinktvshow)");
         sb.append(" ORDER BY upper(strGenre)");
-        return parseGenres(mConnection.query("QueryVideoDatabase", sb.toString(), manager));
+        return mConnection.query("QueryVideoDatabase", sb.toString(), manager, GENRES);
     }
 
     /**
@@ -450,37 +468,29 @@ public class VideoClient extends Client implements IVideoClient {
      * 	<li><code>c09</code></li> (imdbId)
      * <li><code>c08</code></li> (art url for hashing to get filename)
      * </ol>
-     *
-     * @param response
-     * @return List of movies
      */
-    private ArrayList<Movie> parseMovies(String response) {
-        ArrayList<Movie> movies = new ArrayList<Movie>();
-        String[] fields = response.split("<field>");
-        try {
-            for (int row = 1; row < fields.length; row += 12) { //WHen adding a field, be sure to change this #
+    private static final FieldReader.Parser<ArrayList<Movie>> MOVIES = new FieldReader.Parser<ArrayList<Movie>>() {
+        public ArrayList<Movie> parse(FieldReader reader) {
+            ArrayList<Movie> movies = new ArrayList<Movie>();
+            while (reader.nextRow(12)) { //WHen adding a field, be sure to change this #
                 movies.add(new Movie( // int id, String title, int year, String path, String filename, String director, String runtime, String genres, Double rating, int numWatched, String imdbId
-                        Connection.trimInt(fields[row]),
-                        Connection.trim(fields[row + 1]),
-                        Connection.trimInt(fields[row + 2]),
-                        Connection.trim(fields[row + 3]),
-                        Connection.trim(fields[row + 4]),
-                        Connection.trim(fields[row + 5]),
-                        Connection.trim(fields[row + 6]),
-                        Connection.trim(fields[row + 7]),
-                        Connection.trimDouble(fields[row + 8]),
-                        Connection.trimInt(fields[row + 9]),
-                        Connection.trim(fields[row + 10]),
-                        Connection.trim(fields[row + 11])
+                        reader.getInt(0),
+                        reader.getString(1),
+                        reader.getInt(2),
+                        reader.getString(3),
+                        reader.getString(4),
+                        reader.getString(5),
+                        reader.getString(6),
+                        reader.getString(7),
+                        reader.getDouble(8),
+                        reader.getInt(9),
+                        reader.getString(10),
+                        reader.getString(11)
                 ));
             }
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+            return movies;
         }
-        return movies;
-    }
+    };
 
     /**
      * Updates a movie object with some more details. Fields must be the following (in this order):
@@ -493,23 +503,18 @@ public class VideoClient extends Client implements IVideoClient {
      * 	<li><code>c19</code></li> (trailer)
      * </ol>
      *
-     * @param response
+     * @param reader
      * @param movie
      * @return Updated movie object
      */
-    private Movie parseMovieDetails(String response, Movie movie) {
-        String[] fields = response.split("<field>");
-        try {
-            movie.tagline = Connection.trim(fields[1]);
-            movie.plot = Connection.trim(fields[2]);
-            movie.numVotes = Connection.trimInt(fields[3]);
-            movie.studio = Connection.trim(fields[4]);
-            movie.rated = Connection.trim(fields[5]);
-            movie.trailerUrl = Connection.trim(fields[6]);
-        } catch (Exception e) {
-            System.err.println("ERROR: " + e.getMessage());
-            System.err.println("response = " + response);
-            e.printStackTrace();
+    private static Movie parseMovieDetails(FieldReader reader, Movie movie) {
+        if (reader.nextRow(6)) {
+            movie.tagline = reader.getString(0);
+            movie.plot = reader.getString(1);
+            movie.numVotes = reader.getInt(2);
+            movie.studio = reader.getString(3);
+            movie.rated = reader.getString(4);
+            movie.trailerUrl = reader.getString(5);
         }
         return movie;
     }
@@ -0,0 +1,236 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.jsonrpc;
+
+import android.util.Log;
+
+import org.codehaus.jackson.JsonNode;
+import org.xbmc.api.business.INotifiableManager;
+import org.xbmc.jsonrpc.client.Client;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collects several JSON-RPC method calls and sends them as one JSON-RPC 2.0
+ * batch, i.e. in one single HTTP round trip. Obtain a new instance through
+ * {@link Client#batch()}, add the calls and execute it:
+ * <pre>
+ * final BatchRequest batch = batch();
+ * final BatchRequest.Call albums = batch.add("AudioLibrary.GetAlbums", params);
+ * final BatchRequest.Call genres = batch.add("AudioLibrary.GetGenres", null);
+ * batch.execute(manager);
+ * final JsonNode result = albums.getJson(manager);
+ * </pre>
+ * Note that calls of the same batch must not depend on each other's result.
+ *
+ * @author Team XBMC
+ */
+public class BatchRequest {
+
+    private static final String TAG = "BatchRequest";
+
+    private final Connection mConnection;
+    private final ArrayList<Call> mCalls = new ArrayList<Call>();
+    private long mResponseSize = -1;
+
+    public BatchRequest(Connection connection) {
+        mConnection = connection;
+    }
+
+    /**
+     * Adds a method call to the batch.
+     *
+     * @param method     Name of the method to run
+     * @param parameters Parameters of the method, can be null
+     * @return Call, containing the result after execution
+     */
+    public Call add(String method, JsonNode parameters) {
+        final Call call = new Call(method, parameters, null, null);
+        mCalls.add(call);
+        return call;
+    }
+
+    /**
+     * Adds a precompiled method call to the batch.
+     *
+     * @param template Encoded request
+     * @param values   Values of the template's slots
+     * @return Call, containing the result after execution
+     */
+    public Call add(RequestTemplate template, Object... values) {
+        final Call call = new Call(template.method, null, template, values);
+        mCalls.add(call);
+        return call;
+    }
+
+    /**
+     * Returns all calls in the order they were added.
+     *
+     * @return Calls of this batch
+     */
+    public List<Call> getCalls() {
+        return Collections.unmodifiableList(mCalls);
+    }
+
+    public int size() {
+        return mCalls.size();
+    }
+
+    /**
+     * Sends all calls in one request and distributes the results back to the
+     * calls.
+     *
+     * @param manager Upper layer reference for error posting
+     * @return This batch
+     */
+    public BatchRequest execute(INotifiableManager manager) {
+        mConnection.query(this, manager);
+        return this;
+    }
+
+    /**
+     * Returns the size of the response in bytes, -1 if not executed or failed.
+     */
+    public long getResponseSize() {
+        return mResponseSize;
+    }
+
+    void setResponseSize(long bytes) {
+        mResponseSize = bytes;
+    }
+
+    /**
+     * Takes over copies of the results, the errors and the response size of
+     * an identical batch.
+     *
+     * @param other Executed batch with the same calls
+     */
+    void copyFrom(BatchRequest other) {
+        for (int i = 0; i < mCalls.size(); i++) {
+            final Call call = other.mCalls.get(i);
+            if (call.isSuccess()) {
+                mCalls.get(i).setResult(Connection.copy(call.getResult()));
+            } else {
+                mCalls.get(i).setError(call.getError());
+            }
+        }
+        mResponseSize = other.mResponseSize;
+    }
+
+    /**
+     * Returns a copy of this executed batch which doesn't share any result
+     * with it.
+     */
+    BatchRequest snapshot() {
+        final BatchRequest snapshot = new BatchRequest(mConnection);
+        for (Call call : mCalls) {
+            snapshot.mCalls.add(new Call(call.method, call.params, call.template, call.values));
+        }
+        snapshot.copyFrom(this);
+        return snapshot;
+    }
+
+    /**
+     * Marks all calls as failed.
+     *
+     * @param message Error message
+     */
+    void fail(String message) {
+        for (Call call : mCalls) {
+            call.setError(message);
+        }
+    }
+
+    /**
+     * One method call of a batch.
+     */
+    public static class Call {
+        public final String method;
+        public final JsonNode params;
+        final RequestTemplate template;
+        final Object[] values;
+        private JsonNode mResult = null;
+        private String mError = null;
+
+        Call(String method, JsonNode params, RequestTemplate template, Object[] values) {
+            this.method = method;
+            this.params = params;
+            this.template = template;
+            this.values = values;
+        }
+
+        void setResult(JsonNode result) {
+            mResult = result;
+            mError = null;
+        }
+
+        void setError(String error) {
+            mResult = null;
+            mError = error == null ? "Unknown error." : error;
+        }
+
+        /**
+         * Returns true if the call returned a result.
+         */
+        public boolean isSuccess() {
+            return mResult != null;
+        }
+
+        /**
+         * Returns the result, or null if the call failed or wasn't executed.
+         */
+        public JsonNode getResult() {
+            return mResult;
+        }
+
+        /**
+         * Returns the error message, or null if the call succeeded.
+         */
+        public String getError() {
+            return mError;
+        }
+
+        /**
+         * Returns the result like {@link Connection#getJson(INotifiableManager, String, JsonNode)}
+         * does: errors are posted to the manager and an empty object is
+         * returned instead.
+         *
+         * @param manager Upper layer reference for error posting
+         * @return Result
+         */
+        public JsonNode getJson(INotifiableManager manager) {
+            if (mResult != null) {
+                return mResult;
+            }
+            if (mError == null) {
+                manager.onError(new Exception("Batch containing " + method + " has not been executed."));
+            } else if (mError.equals("Invalid params.")) {
+                Log.d(TAG, "Request " + method + " returned Invalid Params.");
+            } else {
+                manager.onError(new Exception(mError));
+            }
+            return Client.obj();
+        }
+    }
+}
@@ -24,18 +24,20 @@ package org.xbmc.jsonrpc;
 import android.util.Log;
 
 import org.codehaus.jackson.JsonEncoding;
-import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.JsonParser;
-import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.node.ObjectNode;
 import org.xbmc.android.util.Base64;
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.android.util.RequestMetrics;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.object.Host;
 import org.xbmc.httpapi.NoSettingsException;
 import org.xbmc.jsonrpc.client.Client;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -46,7 +48,18 @@ import java.net.MalformedURLException;
 import java.net.PasswordAuthentication;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.net.URLConnection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
 
 
 /**
@@ -58,11 +71,11 @@ public class Connection {
 
     public static final String RESULT_FIELD = "result";
     public static final String ERROR_FIELD = "error";
+    public static final String LIMITS_FIELD = "limits";
     public static final int ERROR_HTTP_CODE = 500;
     private static final String TAG = "Connection-JsonRpc";
     private static final String XBMC_JSONRPC_BOOTSTRAP = "/jsonrpc";
-    private static final int SOCKET_CONNECTION_TIMEOUT = 5000;
-    ;
+    private static final MediaType MEDIA_TYPE_JSON = MediaType.get("application/json");
     /**
      * Singleton class instance
      */
@@ -80,6 +93,24 @@ public class Connection {
      * Holds the base64 encoded user/pass for http authentication
      */
     private String authEncoded = null;
+    /**
+     * Pooled keep-alive transport all requests go through
+     */
+    private final HttpTransport mTransport = new HttpTransport();
+    /**
+     * Source of unique request ids for batches
+     */
+    private final AtomicInteger mRequestId = new AtomicInteger(1);
+    /**
+     * Read requests currently on the wire, by method and parameters
+     */
+    private final HashMap<String, Flight> mInFlight = new HashMap<String, Flight>();
+    private final AtomicLong mCoalesceHits = new AtomicLong();
+    private final AtomicLong mCoalesceMisses = new AtomicLong();
+    /**
+     * Library responses, for serving repeated queries locally
+     */
+    private final ResponseCache mCache = new ResponseCache();
 
     /**
      * Use getInstance() for public class instantiation
@@ -131,6 +162,7 @@ public class Connection {
      * @param port HTTP port
      */
     public void setHost(String host, int port) {
+        final String previous = mUrlSuffix;
         if (host == null || port <= 0) {
             mUrlSuffix = null;
         } else {
@@ -141,6 +173,9 @@ public class Connection {
             sb.append(port);
             mUrlSuffix = sb.toString();
         }
+        if (previous != null && !previous.equals(mUrlSuffix)) {
+            mTransport.evictAll();
+        }
     }
 
     /**
@@ -166,19 +201,28 @@ public class Connection {
     public void setTimeout(int timeout) {
         if (timeout > 0) {
             mSocketReadTimeout = timeout;
+            mTransport.setReadTimeout(timeout);
         }
     }
 
+    /**
+     * Returns the keep-alive transport, e.g. for reading connection re-use
+     * statistics.
+     *
+     * @return HTTP transport
+     */
+    public HttpTransport getTransport() {
+        return mTransport;
+    }
+
     public <ErrorResponse> InputStream getThumbInputStream(String thumb, INotifiableManager manager) throws FileNotFoundException, MalformedURLException {
-        URLConnection uc = null;
         try {
             if (mUrlSuffix == null) {
                 throw new NoSettingsException();
             }
             URL url = new URL(thumb);
             Log.i(TAG, "Preparing input stream from " + thumb + " for microhttpd..");
-            uc = getUrlConnection(url);
-            return uc.getInputStream();
+            return mTransport.open(getRequest(url).build());
         } catch (MalformedURLException | FileNotFoundException e) {
             throw e; // Re-throw the exception to the caller
         } catch (IOException | NoSettingsException e) {
@@ -226,42 +270,36 @@ public class Connection {
     public byte[] download(String pathToDownload) throws IOException, URISyntaxException {
         try {
             final URL url = new URL(pathToDownload);
-            final URLConnection uc = getUrlConnection(url);
+            try (InputStream is = mTransport.open(getRequest(url).build(), "download " + url.getPath())) {
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
 
-            final InputStream is = uc.getInputStream();
-            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                byte[] data = new byte[8192];
+                int nRead;
+                while ((nRead = is.read(data, 0, data.length)) != -1) {
+                    buffer.write(data, 0, nRead);
+                }
 
-            byte[] data = new byte[8192];
-            int nRead;
-            while ((nRead = is.read(data, 0, data.length)) != -1) {
-                buffer.write(data, 0, nRead);
+                return buffer.toByteArray();
             }
 
-            return buffer.toByteArray();
-
         } catch (Exception e) {
             return null;
         }
     }
 
     /**
-     * Create a new URLConnection with the request headers set, including authentication.
+     * Creates a new request builder with the request headers set, including
+     * authentication. The socket is kept alive and re-used by the transport.
      *
      * @param url The request url
-     * @return URLConnection
-     * @throws IOException
+     * @return Request builder
      */
-    private URLConnection getUrlConnection(URL url) throws IOException {
-        final URLConnection uc = url.openConnection();
-        uc.setConnectTimeout(SOCKET_CONNECTION_TIMEOUT);
-        uc.setReadTimeout(mSocketReadTimeout);
-        uc.setRequestProperty("Connection", "close");
-
+    private Request.Builder getRequest(URL url) {
+        final Request.Builder rb = new Request.Builder().url(url);
         if (authEncoded != null) {
-            uc.setRequestProperty("Authorization", "Basic " + authEncoded);
+            rb.header("Authorization", "Basic " + authEncoded);
         }
-
-        return uc;
+        return rb;
     }
 
     /**
@@ -273,62 +311,679 @@ public class Connection {
      * @return Parsed JSON object, empty object on error.
      */
     public JsonNode query(String command, JsonNode parameters, INotifiableManager manager) {
-        URLConnection uc = null;
+        final String key = isRead(command) ? key(flightKey('Q'), command, parameters).toString() : null;
+        final Flight flight = new Flight();
+        final Flight leader = key == null ? null : takeOff(key, flight);
+        if (leader != null) {
+            if (!leader.await()) {
+                return new ObjectNode(null);
+            }
+            if (!leader.cancelled) {
+                postError(leader.error, manager);
+                return leader.response != null ? copy(leader.response) : new ObjectNode(null);
+            }
+        }
         try {
-            final ObjectMapper mapper = Client.MAPPER;
+            flight.response = send(command, parameters);
+            return flight.response;
+        } catch (IOException | NoSettingsException e) {
+            flight.error = e;
+            flight.cancelled = PendingRequest.isCurrentCancelled();
+            postError(e, manager);
+        } finally {
+            if (key != null && leader == null) {
+                land(key, flight);
+            }
+        }
+        return new ObjectNode(null);
+    }
 
-            if (mUrlSuffix == null) {
-                throw new NoSettingsException();
+    private JsonNode send(String command, JsonNode parameters) throws IOException, NoSettingsException {
+        final RequestMetrics.Sample sample = RequestMetrics.start(RequestMetrics.JSONRPC, command);
+        try {
+            final InputStream in = open(command, parameters, sample);
+            try (JsonParser jp = Client.JSON_FACTORY.createJsonParser(in)) {
+                final JsonNode response = jp.readValueAs(JsonNode.class);
+                sample.setResponseBytes(getResponseSize(jp));
+                if (response.get(RESULT_FIELD) != null) {
+                    store(in);
+                } else {
+                    sample.setError();
+                }
+                return response;
             }
+        } catch (IOException | NoSettingsException e) {
+            sample.setError();
+            throw e;
+        } finally {
+            sample.finish();
+        }
+    }
 
-            final URL url = new URL(mUrlSuffix + XBMC_JSONRPC_BOOTSTRAP);
-            uc = url.openConnection();
-            uc.setConnectTimeout(SOCKET_CONNECTION_TIMEOUT);
-            uc.setReadTimeout(mSocketReadTimeout);
-            if (authEncoded != null) {
-                uc.setRequestProperty("Authorization", "Basic " + authEncoded);
+    /**
+     * Executes all calls of a batch in one single HTTP request. Every call
+     * gets a unique id so the results can be matched back no matter in which
+     * order XBMC returns them. Errors are attached to the call they belong
+     * to; only transport errors are posted to the manager.
+     * <p>
+     * A batch of one single call is sent as a plain request. The size of the
+     * response is recorded on the batch.
+     *
+     * @param batch   Calls to execute
+     * @param manager Reference back to business layer
+     */
+    public void query(BatchRequest batch, INotifiableManager manager) {
+        if (batch.getCalls().isEmpty()) {
+            return;
+        }
+        final String key = key(flightKey('B'), batch);
+        final Flight flight = new Flight();
+        final Flight leader = key == null ? null : takeOff(key, flight);
+        if (leader != null) {
+            if (!leader.await()) {
+                batch.fail("Interrupted.");
+                return;
             }
-            uc.setRequestProperty("Content-Type", "application/json");
-            uc.setDoOutput(true);
+            if (!leader.cancelled) {
+                batch.copyFrom(leader.batch);
+                postError(leader.error, manager);
+                return;
+            }
+        }
+        try {
+            flight.batch = batch;
+            flight.error = send(batch);
+            flight.cancelled = flight.error != null && PendingRequest.isCurrentCancelled();
+            postError(flight.error, manager);
+        } finally {
+            if (key != null && leader == null) {
+                land(key, flight);
+            }
+        }
+    }
 
-            final ObjectNode data = Client.obj()
-                    .p("jsonrpc", "2.0")
-                    .p("method", command)
-                    .p("id", "1");
-            if (parameters != null) {
-                data.put("params", parameters);
+    /**
+     * Sends a batch and sets the results on its calls.
+     *
+     * @param batch Calls to execute
+     * @return Transport error, null if XBMC answered.
+     */
+    private Exception send(BatchRequest batch) {
+        final List<BatchRequest.Call> calls = batch.getCalls();
+        final RequestMetrics.Sample sample = RequestMetrics.start(RequestMetrics.JSONRPC, calls.size() == 1 ? calls.get(0).method : "Batch");
+        try {
+            return send(batch, sample);
+        } finally {
+            sample.finish();
+        }
+    }
+
+    private Exception send(BatchRequest batch, RequestMetrics.Sample sample) {
+        final List<BatchRequest.Call> calls = batch.getCalls();
+        final HashMap<String, BatchRequest.Call> byId = new HashMap<String, BatchRequest.Call>();
+        final JsonNode response;
+        try {
+            final Body body = new Body();
+            // a single call doesn't need the batch array
+            if (calls.size() > 1) {
+                body.write('[');
             }
+            for (BatchRequest.Call call : calls) {
+                if (ResponseCache.invalidates(call.method)) {
+                    mCache.invalidate();
+                }
+                final String id = String.valueOf(mRequestId.incrementAndGet());
+                if (!byId.isEmpty()) {
+                    body.write(',');
+                }
+                byId.put(id, call);
+                if (call.template != null) {
+                    call.template.writeTo(body, id, call.values);
+                } else {
+                    write(body, call.method, call.params, id);
+                }
+            }
+            if (calls.size() > 1) {
+                body.write(']');
+            }
+            try (JsonParser jp = Client.JSON_FACTORY.createJsonParser(open(body, sample))) {
+                response = jp.readValueAs(JsonNode.class);
+                batch.setResponseSize(getResponseSize(jp));
+                sample.setResponseBytes(batch.getResponseSize());
+            }
+        } catch (IOException | NoSettingsException e) {
+            sample.setError();
+            batch.fail(e.getMessage());
+            return e;
+        }
 
-            final JsonFactory jsonFactory = new JsonFactory();
-            try (JsonGenerator jg = jsonFactory.createJsonGenerator(uc.getOutputStream(), JsonEncoding.UTF8)) {
-                jg.setCodec(mapper);
+        final Iterator<JsonNode> items;
+        if (response.isArray()) {
+            items = response.getElements();
+        } else if (calls.size() == 1) {
+            items = Collections.singletonList(response).iterator();
+        } else {
+            // whole batch was rejected, e.g. by an XBMC version not supporting batches.
+            final JsonNode error = response.get(ERROR_FIELD);
+            sample.setError();
+            batch.fail(error != null && error.get("message") != null ? error.get("message").getTextValue() : "Weird JSON response, could not parse batch.");
+            return null;
+        }
+        while (items.hasNext()) {
+            final JsonNode item = items.next();
+            final JsonNode id = item.get("id");
+            final BatchRequest.Call call = id == null ? null : byId.remove(id.getValueAsText());
+            if (call == null) {
+                Log.w(TAG, "Ignoring batch response with unknown id " + id);
+                continue;
+            }
+            final JsonNode result = item.get(RESULT_FIELD);
+            final JsonNode error = item.get(ERROR_FIELD);
+            if (result != null) {
+                call.setResult(result);
+            } else if (error != null && error.get("message") != null) {
+                sample.setError();
+                call.setError(error.get("message").getTextValue());
+            } else {
+                sample.setError();
+                call.setError("Weird JSON response, could not parse error.");
+            }
+        }
+        for (BatchRequest.Call call : byId.values()) {
+            sample.setError();
+            call.setError("No response for " + call.method + ".");
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if a method only reads. Only those are coalesced, sending
+     * a command like Player.PlayPause twice is not the same as sending it
+     * once.
+     */
+    private static boolean isRead(String method) {
+        return method.startsWith("Get", method.lastIndexOf('.') + 1);
+    }
 
-                // POST data
-                jg.writeTree(data);
-                jg.flush();
+    /**
+     * Returns the key under which identical batches are coalesced, null if
+     * the batch contains a call that changes something.
+     */
+    private static String key(StringBuilder key, BatchRequest batch) {
+        for (BatchRequest.Call call : batch.getCalls()) {
+            if (!isRead(call.method)) {
+                return null;
             }
+            key.append('\n');
+            if (call.template != null) {
+                key.append('#').append(call.template.id);
+                for (Object value : call.values) {
+                    key.append(' ');
+                    if (value instanceof String) {
+                        key.append('"').append(value).append('"');
+                    } else {
+                        key.append(value);
+                    }
+                }
+            } else {
+                key(key, call.method, call.params);
+            }
+        }
+        return key.toString();
+    }
 
-            try (JsonParser jp = jsonFactory.createJsonParser(uc.getInputStream())) {
-                jp.setCodec(mapper);
-                return jp.readValueAs(JsonNode.class);
+    /**
+     * Starts the key of a request on the wire. Requests to different hosts
+     * are never the same, so the host comes first like in the cache key.
+     */
+    private StringBuilder flightKey(char type) {
+        return new StringBuilder().append(mUrlSuffix).append(' ').append(type);
+    }
+
+    /**
+     * Appends method and parameters with the fields of all objects sorted by
+     * name, so the order in which parameters were added doesn't matter.
+     */
+    private static StringBuilder key(StringBuilder key, String method, JsonNode parameters) {
+        key.append(method);
+        if (parameters != null) {
+            key.append(' ');
+            canonicalize(key, parameters);
+        }
+        return key;
+    }
+
+    private static void canonicalize(StringBuilder key, JsonNode node) {
+        if (node.isObject()) {
+            final TreeSet<String> names = new TreeSet<String>();
+            for (Iterator<String> i = node.getFieldNames(); i.hasNext(); ) {
+                names.add(i.next());
+            }
+            key.append('{');
+            for (String name : names) {
+                key.append('"').append(name).append("\":");
+                canonicalize(key, node.get(name));
+                key.append(',');
             }
+            key.append('}');
+        } else if (node.isArray()) {
+            key.append('[');
+            for (Iterator<JsonNode> i = node.getElements(); i.hasNext(); ) {
+                canonicalize(key, i.next());
+                key.append(',');
+            }
+            key.append(']');
+        } else {
+            key.append(node.toString());
+        }
+    }
 
-        } catch (MalformedURLException | NoSettingsException e) {
-            manager.onError(e); // Pass the exception to the manager
+    /**
+     * Registers a request as being on the wire, unless an identical one
+     * already is.
+     *
+     * @param key    Method and parameters
+     * @param flight New flight of the caller
+     * @return Flight of the identical request to wait for, or null if the
+     * caller has to send the request and land the flight afterwards.
+     */
+    private Flight takeOff(String key, Flight flight) {
+        synchronized (mInFlight) {
+            final Flight leader = mInFlight.get(key);
+            if (leader != null) {
+                mCoalesceHits.incrementAndGet();
+                leader.waiters++;
+                return leader;
+            }
+            mInFlight.put(key, flight);
+        }
+        mCoalesceMisses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Removes a request from the wire and wakes up the identical requests
+     * waiting for it. If there are any, they get a snapshot of the response,
+     * as the caller of the request may change its own once it returns.
+     */
+    private void land(String key, Flight flight) {
+        final int waiters;
+        synchronized (mInFlight) {
+            mInFlight.remove(key);
+            waiters = flight.waiters;
+        }
+        if (waiters > 0) {
+            if (flight.response != null) {
+                flight.response = copy(flight.response);
+            }
+            if (flight.batch != null) {
+                flight.batch = flight.batch.snapshot();
+            }
+        }
+        flight.mDone.countDown();
+    }
+
+    /**
+     * Returns a deep copy of a response. Waiting requests each get their
+     * own, so none of them sees what another one changes.
+     */
+    static JsonNode copy(JsonNode node) {
+        if (node == null || node.isValueNode()) {
+            return node;
+        }
+        try {
+            return Client.MAPPER.readTree(node.traverse());
         } catch (IOException e) {
-            handleIOException(e, uc, manager); // Handle IOException separately
+            // reading a tree in memory doesn't fail
+            throw new IllegalStateException(e);
         }
-        return new ObjectNode(null);
     }
 
-    private void handleIOException(IOException e, URLConnection uc, INotifiableManager manager) {
-        int responseCode = -1;
+    private void postError(Exception e, INotifiableManager manager) {
+        if (e instanceof IOException) {
+            handleIOException((IOException) e, manager);
+        } else if (e != null) {
+            manager.onError(e);
+        }
+    }
+
+    /**
+     * Returns the number of requests that shared the response of an
+     * identical request already on the wire.
+     */
+    public long getCoalesceHits() {
+        return mCoalesceHits.get();
+    }
+
+    /**
+     * Returns the number of requests that could have been coalesced but had
+     * to be sent because no identical request was on the wire.
+     */
+    public long getCoalesceMisses() {
+        return mCoalesceMisses.get();
+    }
+
+    /**
+     * A request on the wire. Identical requests wait for it to land and
+     * get a copy of its response instead of sending their own.
+     */
+    private static class Flight {
+        private final CountDownLatch mDone = new CountDownLatch(1);
+        /**
+         * Number of identical requests waiting, guarded by mInFlight
+         */
+        int waiters;
+        JsonNode response;
+        BatchRequest batch;
+        /**
+         * Raw body of a list response, null if it wasn't recorded
+         */
+        byte[] body;
+        Exception error;
+        /**
+         * Set if the request was cancelled, waiting requests send their own
+         */
+        boolean cancelled;
+
+        /**
+         * Waits for the response.
+         *
+         * @return False if interrupted while waiting
+         */
+        boolean await() {
+            try {
+                mDone.await();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Encodes the JSON-RPC envelope of a method call.
+     *
+     * @param body       Request body to write to
+     * @param command    Name of the command to execute
+     * @param parameters Parameters, can be null
+     * @param id         Request id
+     */
+    private static void write(Body body, String command, JsonNode parameters, String id) throws IOException {
+        final JsonGenerator jg = Client.JSON_FACTORY.createJsonGenerator(body, JsonEncoding.UTF8);
+        jg.writeStartObject();
+        jg.writeStringField("jsonrpc", "2.0");
+        jg.writeStringField("method", command);
+        jg.writeStringField("id", id);
+        if (parameters != null) {
+            jg.writeFieldName("params");
+            jg.writeTree(parameters);
+        }
+        jg.writeEndObject();
+        jg.close();
+    }
+
+    /**
+     * POSTs a single method call, or serves it from the cache if it's a
+     * library query answered before. Responses of library queries are
+     * recorded; pass the stream to {@link #store(InputStream)} once it has
+     * been parsed successfully. Methods changing the library drop the cache.
+     * Cache hits discard the sample, so only calls sent to XBMC are
+     * measured.
+     *
+     * @param method     Name of the method to run
+     * @param parameters Parameters, can be null
+     * @param sample     Measures the call
+     * @return Response body
+     */
+    private InputStream open(String method, JsonNode parameters, RequestMetrics.Sample sample) throws IOException, NoSettingsException {
+        final String key = ResponseCache.isCacheable(method) ? key(new StringBuilder().append(mUrlSuffix).append(' '), method, parameters).toString() : null;
+        if (key != null) {
+            final byte[] cached = mCache.get(key);
+            if (cached != null) {
+                // a few microseconds would skew the latencies of the method
+                sample.discard();
+                return new ByteArrayInputStream(cached);
+            }
+        } else if (ResponseCache.invalidates(method)) {
+            mCache.invalidate();
+        }
+        final Body body = new Body();
+        write(body, method, parameters, "1");
+        final InputStream in = open(body, sample);
+        return key == null ? in : new ResponseCache.Recorder(in, key);
+    }
+
+    /**
+     * Caches a response opened by
+     * {@link #open(String, JsonNode, RequestMetrics.Sample)}, if it has been
+     * recorded.
+     *
+     * @param in Completely parsed response
+     * @return Recorded body, null if not recorded or too large
+     */
+    private byte[] store(InputStream in) {
+        if (in instanceof ResponseCache.Recorder) {
+            final ResponseCache.Recorder recorder = (ResponseCache.Recorder) in;
+            final byte[] body = recorder.toByteArray();
+            if (body != null) {
+                mCache.put(recorder.key, body);
+            }
+            return body;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cache of library responses.
+     */
+    public ResponseCache getResponseCache() {
+        return mCache;
+    }
+
+    /**
+     * POSTs a JSON-RPC request and returns the raw response body. Close it
+     * when done so the socket goes back to the pool.
+     *
+     * @param body   Request
+     * @param sample Measures the call
+     * @return Decoded response body
+     */
+    private InputStream open(Body body, RequestMetrics.Sample sample) throws IOException, NoSettingsException {
+        if (mUrlSuffix == null) {
+            throw new NoSettingsException();
+        }
+
+        final URL url = new URL(mUrlSuffix + XBMC_JSONRPC_BOOTSTRAP);
+        final Request request = getRequest(url).post(body.toRequestBody()).build();
+        sample.setRequestBytes(body.size());
+        return mTransport.open(request, sample.getMethod());
+    }
+
+    /**
+     * Encoded request. Hands its buffer to OkHttp without copying it.
+     */
+    private static class Body extends ByteArrayOutputStream {
+        Body() {
+            super(256);
+        }
+
+        RequestBody toRequestBody() {
+            return RequestBody.create(buf, MEDIA_TYPE_JSON, 0, count);
+        }
+    }
+
+    /**
+     * Executes a JSON-RPC command returning a list and hands every element
+     * of <code>result.&lt;listField&gt;</code> to the handler while the
+     * response is still being read. The body is decoded token by token by
+     * the UTF-8 stream parser, so no tree of the whole list is built.
+     * <p>
+     * An identical library request already on the wire isn't sent again.
+     * The caller waits for it and its rows are decoded from the recorded
+     * body. If that body wasn't recorded, for instance because the list
+     * was too large, the caller sends its own request.
+     * <p>
+     * Errors are treated like in {@link #getJson(INotifiableManager, String, JsonNode)}.
+     *
+     * @param manager    Upper layer reference for error posting
+     * @param method     Name of the method to run
+     * @param parameters Parameters of the method
+     * @param listField  Name of the list field in the result, e.g. "movies"
+     * @param handler    Receives the elements of the list
+     * @return Number of rows handed over, -1 on error.
+     */
+    public int getRows(INotifiableManager manager, String method, JsonNode parameters, String listField, JsonRow.Handler handler) {
+        final String key = ResponseCache.isCacheable(method) ? key(flightKey('R'), method, parameters).toString() : null;
+        final Flight flight = new Flight();
+        final Flight leader = key == null ? null : takeOff(key, flight);
+        if (leader != null) {
+            if (!leader.await()) {
+                return -1;
+            }
+            if (leader.body != null) {
+                return replayRows(manager, method, leader.body, listField, handler);
+            }
+            if (leader.error != null && !leader.cancelled) {
+                postError(leader.error, manager);
+                return -1;
+            }
+        }
         try {
-            if (uc instanceof HttpURLConnection) {
-                responseCode = ((HttpURLConnection) uc).getResponseCode();
+            return fetchRows(manager, method, parameters, listField, handler, flight);
+        } finally {
+            if (key != null && leader == null) {
+                land(key, flight);
             }
-        } catch (IOException ignored) {
-            // Ignore, getResponse code failed so treat as default IOException
+        }
+    }
+
+    /**
+     * Sends a list request and streams the rows into the handler, see
+     * {@link #getRows(INotifiableManager, String, JsonNode, String, JsonRow.Handler)}.
+     * The recorded body and any transport error are left on the flight for
+     * identical requests waiting for this one.
+     */
+    private int fetchRows(INotifiableManager manager, String method, JsonNode parameters, String listField, JsonRow.Handler handler, Flight flight) {
+        int rows = -1;
+        long bytes = -1;
+        final RequestMetrics.Sample sample = RequestMetrics.start(RequestMetrics.JSONRPC, method);
+        try {
+            final InputStream in = open(method, parameters, sample);
+            try (JsonParser jp = Client.JSON_FACTORY.createJsonParser(in)) {
+                rows = streamRows(jp, manager, listField, handler);
+                bytes = getResponseSize(jp);
+            }
+            if (rows >= 0) {
+                flight.body = store(in);
+            }
+        } catch (MalformedURLException | NoSettingsException e) {
+            flight.error = e;
+            manager.onError(e);
+        } catch (IOException e) {
+            flight.error = e;
+            flight.cancelled = PendingRequest.isCurrentCancelled();
+            handleIOException(e, manager);
+        }
+        if (rows < 0) {
+            sample.setError();
+        }
+        sample.setResponseBytes(Math.max(0, bytes));
+        sample.finish();
+        if (rows >= 0) {
+            handler.onComplete(rows, bytes);
+        }
+        return rows;
+    }
+
+    /**
+     * Streams the rows of a response another identical request has received
+     * into the handler.
+     */
+    private int replayRows(INotifiableManager manager, String method, byte[] body, String listField, JsonRow.Handler handler) {
+        int rows = -1;
+        try (JsonParser jp = Client.JSON_FACTORY.createJsonParser(new ByteArrayInputStream(body))) {
+            rows = streamRows(jp, manager, listField, handler);
+        } catch (IOException e) {
+            handleIOException(e, manager);
+        }
+        Log.d(TAG, method + ": shared " + rows + " rows (" + (body.length / 1024) + "kB) of an identical request");
+        if (rows >= 0) {
+            handler.onComplete(rows, body.length);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the number of bytes a parser has consumed so far. The byte
+     * based parser counts bytes as characters.
+     *
+     * @param jp Parser reading from a byte stream
+     * @return Number of bytes read
+     */
+    private static long getResponseSize(JsonParser jp) {
+        return jp.getCurrentLocation().getCharOffset() + 1;
+    }
+
+    private int streamRows(JsonParser jp, INotifiableManager manager, String listField, JsonRow.Handler handler) throws IOException {
+        if (jp.nextToken() != JsonToken.START_OBJECT) {
+            manager.onError(new Exception("Weird JSON response, could not parse error."));
+            return -1;
+        }
+        final JsonRow row = new JsonRow();
+        int rows = 0;
+        boolean hasResult = false;
+        JsonNode error = null;
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = jp.getCurrentName();
+            final JsonToken token = jp.nextToken();
+            if (name.equals(RESULT_FIELD) && token == JsonToken.START_OBJECT) {
+                hasResult = true;
+                while (jp.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = jp.getCurrentName();
+                    final JsonToken value = jp.nextToken();
+                    if (value == JsonToken.START_ARRAY && field.equals(listField)) {
+                        while (jp.nextToken() == JsonToken.START_OBJECT) {
+                            handler.onRow(row.read(jp));
+                            rows++;
+                        }
+                    } else if (value == JsonToken.START_OBJECT && field.equals(LIMITS_FIELD)) {
+                        row.read(jp);
+                        handler.onLimits(row.getInt("start"), row.getInt("end"), row.getInt("total"));
+                    } else {
+                        jp.skipChildren();
+                    }
+                }
+            } else if (name.equals(RESULT_FIELD)) {
+                hasResult = true;
+                jp.skipChildren();
+            } else if (name.equals(ERROR_FIELD)) {
+                error = jp.readValueAsTree();
+            } else {
+                jp.skipChildren();
+            }
+        }
+        if (!hasResult) {
+            return onRowError(error, manager);
+        }
+        return rows;
+    }
+
+    private int onRowError(JsonNode error, INotifiableManager manager) {
+        if (error == null || error.get("message") == null) {
+            manager.onError(new Exception("Weird JSON response, could not parse error."));
+        } else if (!error.get("message").getTextValue().equals("Invalid params.")) {
+            manager.onError(new Exception(error.get("message").getTextValue()));
+        } else {
+            Log.d(TAG, "Request returned Invalid Params.");
+        }
+        return -1;
+    }
+
+    private void handleIOException(IOException e, INotifiableManager manager) {
+        int responseCode = -1;
+        if (e instanceof HttpTransport.HttpStatusException) {
+            responseCode = ((HttpTransport.HttpStatusException) e).getCode();
         }
 
         if (responseCode == HttpURLConnection.HTTP_UNAUTHORIZED) {
@@ -383,6 +1038,22 @@ public class Connection {
         return Client.obj();
     }
 
+    /**
+     * Executes a precompiled JSON-RPC command and returns the result as JSON
+     * object. Errors are treated like in {@link #getJson(INotifiableManager, String, JsonNode)}.
+     *
+     * @param manager  Upper layer reference for error posting
+     * @param template Encoded request
+     * @param values   Values of the template's slots
+     * @return Result
+     */
+    public JsonNode getJson(INotifiableManager manager, RequestTemplate template, Object... values) {
+        final BatchRequest batch = new BatchRequest(this);
+        final BatchRequest.Call call = batch.add(template, values);
+        batch.execute(manager);
+        return call.getJson(manager);
+    }
+
     /**
      * Executes a JSON-RPC command without parameters and returns the result as
      * JSON object.
@@ -0,0 +1,280 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.jsonrpc;
+
+import org.xbmc.android.util.DecodingInputStream;
+import org.xbmc.android.util.PendingRequest;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Keep-alive HTTP transport shared by all requests of a {@link Connection}.
+ * <p>
+ * Sockets are pooled and re-used between requests instead of being opened
+ * and torn down for every call. The number of simultaneous exchanges with
+ * the host is bounded, and idle sockets are evicted after
+ * {@link #KEEP_ALIVE_SECONDS}. The transport also counts how many exchanges
+ * could re-use an already open socket.
+ * <p>
+ * Responses are requested compressed and decoded while they're read, see
+ * {@link DecodingInputStream}.
+ *
+ * @author Team XBMC
+ */
+public class HttpTransport {
+
+    /**
+     * Maximal number of sockets open to the host at the same time
+     */
+    public static final int MAX_CONNECTIONS_PER_HOST = 4;
+    /**
+     * Idle sockets are closed after that many seconds
+     */
+    public static final int KEEP_ALIVE_SECONDS = 30;
+
+    private static final int SOCKET_CONNECTION_TIMEOUT = 5000;
+    /**
+     * Give up waiting for a free socket slot after that many milliseconds
+     */
+    private static final int PERMIT_TIMEOUT = 30000;
+
+    /**
+     * Exchanges (requests) run through this transport
+     */
+    private final AtomicLong mRequestCount = new AtomicLong();
+    /**
+     * New sockets that had to be opened
+     */
+    private final AtomicLong mConnectCount = new AtomicLong();
+
+    private final Semaphore mPermits = new Semaphore(MAX_CONNECTIONS_PER_HOST, true);
+    private final ConnectionPool mPool = new ConnectionPool(MAX_CONNECTIONS_PER_HOST, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    private OkHttpClient mClient;
+
+    public HttpTransport() {
+        mClient = new OkHttpClient.Builder()
+                .connectionPool(mPool)
+                .connectTimeout(SOCKET_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
+                .readTimeout(0, TimeUnit.MILLISECONDS)
+                .eventListener(new EventListener() {
+                    @Override
+                    public void callStart(Call call) {
+                        mRequestCount.incrementAndGet();
+                    }
+
+                    @Override
+                    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+                        mConnectCount.incrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Sets socket read timeout. The pool is shared, so open sockets stay
+     * available.
+     *
+     * @param timeout Read timeout in milliseconds, 0 for none.
+     */
+    public synchronized void setReadTimeout(int timeout) {
+        mClient = mClient.newBuilder().readTimeout(timeout, TimeUnit.MILLISECONDS).build();
+    }
+
+    /**
+     * Closes all idle sockets, for instance after the host has changed.
+     */
+    public void evictAll() {
+        mPool.evictAll();
+    }
+
+    /**
+     * Executes a request and returns the response body as stream. The socket
+     * slot is held until the stream is closed, so make sure to always close
+     * it in a finally block. If no slot frees up within
+     * {@link #PERMIT_TIMEOUT} milliseconds, the request fails instead of
+     * waiting forever.
+     * <p>
+     * If the request runs as a {@link PendingRequest}, cancelling that
+     * aborts the exchange.
+     *
+     * @param request HTTP request
+     * @return Decoded response body
+     * @throws FileNotFoundException If the host returned 404
+     * @throws HttpStatusException   If the host returned any other error code
+     * @throws IOException           On network errors
+     */
+    public InputStream open(Request request) throws IOException {
+        return open(request, request.url().encodedPath());
+    }
+
+    /**
+     * Executes a request and returns the decoded response body as stream,
+     * see {@link #open(Request)}.
+     *
+     * @param request HTTP request
+     * @param label   Logged along with the number of wire and decoded bytes
+     * @return Decoded response body
+     * @throws InterruptedIOException If no socket slot became available
+     * @throws IOException            On network errors or error codes
+     */
+    public InputStream open(Request request, String label) throws IOException {
+        // setting the header ourselves keeps the compressed byte count visible.
+        if (request.header("Accept-Encoding") == null) {
+            request = request.newBuilder().header("Accept-Encoding", DecodingInputStream.ACCEPT_ENCODING).build();
+        }
+        try {
+            if (!mPermits.tryAcquire(PERMIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                throw new InterruptedIOException("Timed out waiting for a free connection.");
+            }
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Interrupted while waiting for a free connection.");
+        }
+        final OkHttpClient client;
+        synchronized (this) {
+            client = mClient;
+        }
+        final Call call = client.newCall(request);
+        final Runnable removeHook = PendingRequest.onCancel(new Runnable() {
+            public void run() {
+                call.cancel();
+            }
+        });
+        final Response response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            release(removeHook);
+            throw e;
+        } catch (RuntimeException e) {
+            release(removeHook);
+            throw e;
+        }
+        final ResponseBody body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            response.close();
+            release(removeHook);
+            if (response.code() == 404) {
+                throw new FileNotFoundException(request.url().toString());
+            }
+            throw new HttpStatusException(response.code(), response.message());
+        }
+        final InputStream decoded;
+        try {
+            decoded = DecodingInputStream.wrap(body.byteStream(), response.header("Content-Encoding"), label);
+        } catch (IOException e) {
+            response.close();
+            release(removeHook);
+            throw e;
+        }
+        return new FilterInputStream(decoded) {
+            private boolean mClosed = false;
+
+            @Override
+            public void close() throws IOException {
+                if (!mClosed) {
+                    mClosed = true;
+                    try {
+                        in.close();
+                    } finally {
+                        response.close();
+                        release(removeHook);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Ends an exchange: gives its socket slot back and drops its cancel hook.
+     */
+    private void release(Runnable removeHook) {
+        mPermits.release();
+        removeHook.run();
+    }
+
+    /**
+     * Returns the number of requests executed since start.
+     */
+    public long getRequestCount() {
+        return mRequestCount.get();
+    }
+
+    /**
+     * Returns the number of sockets opened since start.
+     */
+    public long getConnectCount() {
+        return mConnectCount.get();
+    }
+
+    /**
+     * Returns the number of requests that didn't need to open a new socket
+     * since start, i.e. the number of saved TCP handshakes.
+     */
+    public long getReuseCount() {
+        return Math.max(0, mRequestCount.get() - mConnectCount.get());
+    }
+
+    /**
+     * Returns the number of sockets currently kept open in the pool.
+     */
+    public int getOpenConnectionCount() {
+        return mPool.connectionCount();
+    }
+
+    public String toString() {
+        return "HttpTransport[requests=" + getRequestCount() + ", connects=" + getConnectCount() + ", reused=" + getReuseCount() + ", open=" + getOpenConnectionCount() + "]";
+    }
+
+    /**
+     * Thrown when the host answers with a non-successful HTTP status code.
+     */
+    public static class HttpStatusException extends IOException {
+        private static final long serialVersionUID = 2375619476289475610L;
+        private final int mCode;
+
+        public HttpStatusException(int code, String message) {
+            super("HTTP " + code + ": " + message);
+            mCode = code;
+        }
+
+        public int getCode() {
+            return mCode;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.jsonrpc;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * One flat record of a JSON-RPC list result, e.g. one element of
+ * <code>result.movies[]</code>.
+ * <p>
+ * The row is read directly off the parser token by token, so a long list
+ * never exists as a whole in memory. Only scalar values are kept: arrays of
+ * scalars are joined with ", " and fields of nested objects are stored as
+ * "parent.field". The same instance is re-used for every element of a list,
+ * so don't keep references to it.
+ *
+ * @author Team XBMC
+ */
+public class JsonRow {
+
+    private final HashMap<String, Object> mValues = new HashMap<String, Object>();
+
+    /**
+     * Reads the object the parser is currently pointing at (START_OBJECT)
+     * up to and including its END_OBJECT.
+     *
+     * @param jp Parser positioned at START_OBJECT
+     * @return This row
+     * @throws IOException On parse errors
+     */
+    public JsonRow read(JsonParser jp) throws IOException {
+        mValues.clear();
+        readObject(jp, null);
+        return this;
+    }
+
+    /**
+     * Fills the row from an already parsed node, for results that only exist
+     * as tree (batch responses).
+     *
+     * @param node JSON object
+     * @return This row
+     */
+    public JsonRow read(JsonNode node) {
+        mValues.clear();
+        readNode(node, null);
+        return this;
+    }
+
+    private void readObject(JsonParser jp, String prefix) throws IOException {
+        while (jp.nextToken() == JsonToken.FIELD_NAME) {
+            final String key = prefix == null ? jp.getCurrentName() : prefix + "." + jp.getCurrentName();
+            switch (jp.nextToken()) {
+                case START_OBJECT:
+                    if (prefix == null) {
+                        readObject(jp, key);
+                    } else {
+                        jp.skipChildren();
+                    }
+                    break;
+                case START_ARRAY:
+                    final StringBuilder sb = new StringBuilder();
+                    while (jp.nextToken() != JsonToken.END_ARRAY) {
+                        if (jp.getCurrentToken() == JsonToken.START_OBJECT || jp.getCurrentToken() == JsonToken.START_ARRAY) {
+                            jp.skipChildren();
+                            continue;
+                        }
+                        if (sb.length() > 0) {
+                            sb.append(", ");
+                        }
+                        sb.append(jp.getText());
+                    }
+                    mValues.put(key, sb.toString());
+                    break;
+                case VALUE_NUMBER_INT:
+                    // Integer if it fits, otherwise Long or BigInteger
+                    mValues.put(key, jp.getNumberValue());
+                    break;
+                case VALUE_NUMBER_FLOAT:
+                    mValues.put(key, jp.getDoubleValue());
+                    break;
+                case VALUE_NULL:
+                    break;
+                default:
+                    mValues.put(key, jp.getText());
+                    break;
+            }
+        }
+    }
+
+    private void readNode(JsonNode node, String prefix) {
+        for (Iterator<String> i = node.getFieldNames(); i.hasNext(); ) {
+            final String name = i.next();
+            final String key = prefix == null ? name : prefix + "." + name;
+            final JsonNode value = node.get(name);
+            if (value.isObject()) {
+                if (prefix == null) {
+                    readNode(value, key);
+                }
+            } else if (value.isArray()) {
+                final StringBuilder sb = new StringBuilder();
+                for (Iterator<JsonNode> j = value.getElements(); j.hasNext(); ) {
+                    final JsonNode element = j.next();
+                    if (element.isContainerNode()) {
+                        continue;
+                    }
+                    if (sb.length() > 0) {
+                        sb.append(", ");
+                    }
+                    sb.append(element.getValueAsText());
+                }
+                mValues.put(key, sb.toString());
+            } else if (value.isNumber()) {
+                mValues.put(key, value.getNumberValue());
+            } else if (!value.isNull()) {
+                mValues.put(key, value.getValueAsText());
+            }
+        }
+    }
+
+    /**
+     * Returns true if the field was present and not null.
+     */
+    public boolean has(String key) {
+        return mValues.containsKey(key);
+    }
+
+    /**
+     * Returns a field as string, or the given default if not available.
+     */
+    public String getString(String key, String ifNullResult) {
+        final Object value = mValues.get(key);
+        return value == null ? ifNullResult : value.toString();
+    }
+
+    /**
+     * Returns a field as integer, -1 if not available.
+     */
+    public int getInt(String key) {
+        final Object value = mValues.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.toString());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a field as long, -1 if not available. Use this for values that
+     * may exceed the integer range, such as file sizes.
+     */
+    public long getLong(String key) {
+        final Object value = mValues.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a field as double, -1 if not available.
+     */
+    public double getDouble(String key) {
+        final Object value = mValues.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return -1;
+    }
+
+    /**
+     * Callback receiving the rows of a streamed list.
+     */
+    public interface Handler {
+        /**
+         * Called once per element of the list. The row instance is re-used
+         * after the call returns.
+         *
+         * @param row Current element
+         */
+        void onRow(JsonRow row);
+
+        /**
+         * Called with <code>result.limits</code> if the server returned it,
+         * which is the case for lists that can be paged.
+         *
+         * @param start Position of the first returned element
+         * @param end   Position after the last returned element
+         * @param total Number of elements of the whole list
+         */
+        void onLimits(int start, int end, int total);
+
+        /**
+         * Called after the whole list has been read successfully.
+         *
+         * @param rows  Number of elements read
+         * @param bytes Size of the response in bytes
+         */
+        void onComplete(int rows, long bytes);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.jsonrpc;
+
+import android.util.Log;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.xbmc.jsonrpc.client.Client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Keeps a connection to XBMC's raw JSON-RPC TCP port open and hands the
+ * notifications XBMC pushes over it to a listener. XBMC writes one JSON
+ * object after the other without any framing, so they are read by one
+ * single parser for the whole lifetime of the socket.
+ * <p>
+ * Lost connections are re-established with increasing delays until
+ * {@link #stop()} is called. The delay is only reset once a connection has
+ * lasted longer than the delay, so a host dropping the channel right after
+ * accepting it isn't hammered. The listener is told whenever the channel goes
+ * up or down, so it can fall back to polling meanwhile.
+ *
+ * @author Team XBMC
+ */
+public class NotificationClient implements Runnable {
+
+    /**
+     * XBMC's default port for JSON-RPC over TCP
+     */
+    public static final int DEFAULT_PORT = 9090;
+
+    public static final String PLAYER_ON_PLAY = "Player.OnPlay";
+    public static final String PLAYER_ON_PAUSE = "Player.OnPause";
+    public static final String PLAYER_ON_STOP = "Player.OnStop";
+    public static final String PLAYER_ON_SEEK = "Player.OnSeek";
+    public static final String PLAYER_ON_SPEED_CHANGED = "Player.OnSpeedChanged";
+    public static final String PLAYLIST_ON_ADD = "Playlist.OnAdd";
+    public static final String PLAYLIST_ON_REMOVE = "Playlist.OnRemove";
+    public static final String APPLICATION_ON_VOLUME_CHANGED = "Application.OnVolumeChanged";
+    public static final String VIDEO_LIBRARY_ON_UPDATE = "VideoLibrary.OnUpdate";
+    public static final String VIDEO_LIBRARY_ON_REMOVE = "VideoLibrary.OnRemove";
+    public static final String VIDEO_LIBRARY_ON_SCAN_FINISHED = "VideoLibrary.OnScanFinished";
+    public static final String VIDEO_LIBRARY_ON_CLEAN_FINISHED = "VideoLibrary.OnCleanFinished";
+    public static final String AUDIO_LIBRARY_ON_UPDATE = "AudioLibrary.OnUpdate";
+    public static final String AUDIO_LIBRARY_ON_REMOVE = "AudioLibrary.OnRemove";
+    public static final String AUDIO_LIBRARY_ON_SCAN_FINISHED = "AudioLibrary.OnScanFinished";
+    public static final String AUDIO_LIBRARY_ON_CLEAN_FINISHED = "AudioLibrary.OnCleanFinished";
+
+    private static final String TAG = "NotificationClient";
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int MIN_RETRY_DELAY = 2000;
+    private static final int MAX_RETRY_DELAY = 60000;
+
+    /**
+     * Receives notifications and channel state changes. Called on the
+     * thread of the client.
+     */
+    public interface Listener {
+        /**
+         * Called for each notification of a subscribed method.
+         *
+         * @param method Name of the notification, e.g. "Player.OnPlay"
+         * @param data   Content of <code>params.data</code>, can be null
+         */
+        void onNotification(String method, JsonNode data);
+
+        /**
+         * Called when the channel has been (re-)connected.
+         */
+        void onConnected();
+
+        /**
+         * Called when the channel could not be connected or was lost.
+         */
+        void onDisconnected();
+    }
+
+    private final String mHost;
+    private final int mPort;
+    private final Listener mListener;
+    private final HashSet<String> mMethods;
+    private int mMinRetryDelay = MIN_RETRY_DELAY;
+    private int mMaxRetryDelay = MAX_RETRY_DELAY;
+    private volatile boolean mConnected = false;
+    private volatile boolean mStopped = false;
+    private Thread mThread;
+    private Socket mSocket;
+
+    /**
+     * @param host     XBMC host
+     * @param port     JSON-RPC TCP port, usually {@link #DEFAULT_PORT}
+     * @param listener Receives the notifications
+     * @param methods  Notifications to hand over, all others are dropped
+     */
+    public NotificationClient(String host, int port, Listener listener, String... methods) {
+        mHost = host;
+        mPort = port;
+        mListener = listener;
+        mMethods = new HashSet<String>(Arrays.asList(methods));
+    }
+
+    /**
+     * Sets the delays between connection attempts, for tests. Must be called
+     * before {@link #start()}.
+     *
+     * @param min Delay after the first failed attempt in milliseconds
+     * @param max Maximal delay in milliseconds
+     */
+    void setRetryDelays(int min, int max) {
+        mMinRetryDelay = min;
+        mMaxRetryDelay = max;
+    }
+
+    /**
+     * Starts connecting in the background.
+     */
+    public synchronized void start() {
+        if (mThread == null) {
+            mThread = new Thread(this, TAG);
+            mThread.setDaemon(true);
+            mThread.start();
+        }
+    }
+
+    /**
+     * Closes the channel and stops reconnecting.
+     */
+    public void stop() {
+        mStopped = true;
+        final Thread thread;
+        synchronized (this) {
+            thread = mThread;
+            closeSocket();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Returns true while notifications are being received.
+     */
+    public boolean isConnected() {
+        return mConnected;
+    }
+
+    public void run() {
+        int delay = mMinRetryDelay;
+        boolean down = false;
+        while (!mStopped) {
+            try {
+                final Socket socket = new Socket();
+                synchronized (this) {
+                    if (mStopped) {
+                        return;
+                    }
+                    mSocket = socket;
+                }
+                socket.connect(new InetSocketAddress(mHost, mPort), CONNECT_TIMEOUT);
+                socket.setKeepAlive(true);
+                Log.i(TAG, "Connected to " + mHost + ":" + mPort + ".");
+                mConnected = true;
+                down = false;
+                mListener.onConnected();
+                final long connected = System.currentTimeMillis();
+                try {
+                    read(socket);
+                } finally {
+                    // a channel dropped right away keeps backing off
+                    if (System.currentTimeMillis() - connected > delay) {
+                        delay = mMinRetryDelay;
+                    }
+                }
+            } catch (IOException e) {
+                if (!mStopped) {
+                    Log.i(TAG, "Channel to " + mHost + ":" + mPort + " unavailable: " + e.getMessage());
+                }
+            } finally {
+                synchronized (this) {
+                    closeSocket();
+                }
+            }
+            mConnected = false;
+            if (!down) {
+                down = true;
+                mListener.onDisconnected();
+            }
+            if (mStopped) {
+                break;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            delay = Math.min(delay * 2, mMaxRetryDelay);
+        }
+    }
+
+    /**
+     * Reads notifications until the socket is closed.
+     *
+     * @param socket Connected socket
+     */
+    private void read(Socket socket) throws IOException {
+        final JsonParser jp = Client.JSON_FACTORY.createJsonParser(socket.getInputStream());
+        try {
+            JsonToken token;
+            while (!mStopped && (token = jp.nextToken()) != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    jp.skipChildren();
+                    continue;
+                }
+                final JsonNode message = jp.readValueAsTree();
+                final JsonNode method = message.get("method");
+                if (method == null || !mMethods.contains(method.getTextValue())) {
+                    continue;
+                }
+                final JsonNode params = message.get("params");
+                mListener.onNotification(method.getTextValue(), params == null ? null : params.get("data"));
+            }
+        } finally {
+            jp.close();
+        }
+    }
+
+    private void closeSocket() {
+        if (mSocket != null) {
+            try {
+                mSocket.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+            mSocket = null;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.jsonrpc;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.TextNode;
+import org.xbmc.jsonrpc.client.Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Request of a method that is sent over and over again with the same
+ * parameters, e.g. when polling. The envelope and all constant parameters
+ * are encoded once; parameters that change between calls are marked with
+ * {@link #slot(int)} and written into the encoded bytes when sent:
+ * <pre>
+ * static final RequestTemplate GET_ITEM = new RequestTemplate("Player.GetItem",
+ *         obj().p("playerid", RequestTemplate.slot(0)).p(PARAM_PROPERTIES, arr().add("title")));
+ * ...
+ * mConnection.getJson(manager, GET_ITEM, playerId);
+ * </pre>
+ * Templates are immutable and can be shared between threads.
+ *
+ * @author Team XBMC
+ */
+public class RequestTemplate {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final byte[] NULL = "null".getBytes(UTF8);
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(UTF8);
+    /**
+     * Escapes of the ASCII characters in strings: 0 for none, the character
+     * following the backslash, or -1 for a unicode escape
+     */
+    private static final int[] ESCAPES = new int[0x80];
+
+    static {
+        for (int i = 0; i < 0x20; i++) {
+            ESCAPES[i] = -1;
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\r'] = 'r';
+    }
+    /**
+     * Marks a slot in the parameters. The generator escapes the control
+     * character, which is what {@link #SLOT_PATTERN} looks for.
+     */
+    private static final String SLOT_MARK = "\u0000slot";
+    private static final Pattern SLOT_PATTERN = Pattern.compile("\"\\\\u0000slot(\\d+)\"");
+    /**
+     * Slot of the request id, the values of the caller start after it.
+     */
+    private static final int ID_SLOT = 0;
+
+    private static final AtomicInteger sIds = new AtomicInteger();
+
+    /**
+     * Unique id, identifies the constant parameters
+     */
+    final int id = sIds.incrementAndGet();
+    public final String method;
+    /**
+     * Encoded parts between the slots, one more than slots
+     */
+    private final byte[][] mParts;
+    /**
+     * Slot written after each part except the last one
+     */
+    private final int[] mSlots;
+    /**
+     * Number of values the caller has to provide
+     */
+    private final int mValues;
+
+    /**
+     * Encodes the request.
+     *
+     * @param method     Name of the method to run
+     * @param parameters Parameters of the method, slots included. Can be null.
+     */
+    public RequestTemplate(String method, JsonNode parameters) {
+        this.method = method;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            final JsonGenerator jg = Client.JSON_FACTORY.createJsonGenerator(out, JsonEncoding.UTF8);
+            jg.writeStartObject();
+            jg.writeStringField("jsonrpc", "2.0");
+            jg.writeStringField("method", method);
+            jg.writeStringField("id", SLOT_MARK + ID_SLOT);
+            if (parameters != null) {
+                jg.writeFieldName("params");
+                jg.writeTree(parameters);
+            }
+            jg.writeEndObject();
+            jg.close();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot encode " + method + ": " + e.getMessage());
+        }
+
+        final String json = new String(out.toByteArray(), UTF8);
+        final ArrayList<byte[]> parts = new ArrayList<byte[]>();
+        final ArrayList<Integer> slots = new ArrayList<Integer>();
+        final Matcher m = SLOT_PATTERN.matcher(json);
+        int pos = 0;
+        int values = 0;
+        while (m.find()) {
+            final int slot = Integer.parseInt(m.group(1));
+            parts.add(json.substring(pos, m.start()).getBytes(UTF8));
+            slots.add(slot);
+            values = Math.max(values, slot);
+            pos = m.end();
+        }
+        parts.add(json.substring(pos).getBytes(UTF8));
+        mParts = parts.toArray(new byte[parts.size()][]);
+        mSlots = new int[slots.size()];
+        for (int i = 0; i < mSlots.length; i++) {
+            mSlots[i] = slots.get(i);
+        }
+        mValues = values;
+    }
+
+    /**
+     * Returns a placeholder for a parameter that changes between calls.
+     *
+     * @param index Position of the value when the request is sent, starting with 0
+     * @return Placeholder node
+     */
+    public static JsonNode slot(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Slot index must not be negative.");
+        }
+        return TextNode.valueOf(SLOT_MARK + (index + 1));
+    }
+
+    /**
+     * Writes the request with the given id and values.
+     *
+     * @param out    Request body
+     * @param id     Request id
+     * @param values Values of the slots: numbers, booleans, strings or null
+     */
+    void writeTo(OutputStream out, String id, Object[] values) throws IOException {
+        if (values.length < mValues) {
+            throw new IllegalArgumentException(method + " needs " + mValues + " values, got " + values.length + ".");
+        }
+        for (int i = 0; i < mSlots.length; i++) {
+            out.write(mParts[i]);
+            writeValue(out, mSlots[i] == ID_SLOT ? id : values[mSlots[i] - 1]);
+        }
+        out.write(mParts[mSlots.length]);
+    }
+
+    private static void writeValue(OutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            final String text = value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                out.write(text.charAt(i));
+            }
+        } else {
+            writeString(out, value.toString());
+        }
+    }
+
+    /**
+     * Writes a quoted and escaped string, byte for byte what the generator
+     * would write. A generator per value would cost more than the rest of
+     * the request.
+     */
+    private static void writeString(OutputStream out, String text) throws IOException {
+        out.write('"');
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c < 0x80) {
+                final int escape = ESCAPES[c];
+                if (escape == 0) {
+                    out.write(c);
+                } else if (escape > 0) {
+                    out.write('\\');
+                    out.write(escape);
+                } else {
+                    out.write('\\');
+                    out.write('u');
+                    out.write('0');
+                    out.write('0');
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xf]);
+                }
+            } else if (c < 0x800) {
+                out.write(0xc0 | (c >> 6));
+                out.write(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, text.charAt(++i));
+                out.write(0xf0 | (cp >> 18));
+                out.write(0x80 | ((cp >> 12) & 0x3f));
+                out.write(0x80 | ((cp >> 6) & 0x3f));
+                out.write(0x80 | (cp & 0x3f));
+            } else {
+                out.write(0xe0 | (c >> 12));
+                out.write(0x80 | ((c >> 6) & 0x3f));
+                out.write(0x80 | (c & 0x3f));
+            }
+        }
+        out.write('"');
+    }
+
+    @Override
+    public String toString() {
+        return method + " (" + mValues + " values)";
+    }
+}
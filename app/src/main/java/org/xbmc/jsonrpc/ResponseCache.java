@@ -0,0 +1,230 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.jsonrpc;
+
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps raw JSON-RPC responses of library queries in memory, so going back
+ * to a list, re-sorting it or toggling filters back and forth doesn't need
+ * another round trip. Responses are kept as the bytes received and parsed
+ * again when served, so cached lists are streamed into the handlers just
+ * like fresh ones.
+ * <p>
+ * Entries expire after {@link #TTL}, and the least recently used ones are
+ * dropped when the cache grows over {@link #MAX_BYTES}. Everything is
+ * dropped when the library changes.
+ *
+ * @author Team XBMC
+ */
+public class ResponseCache {
+
+    private static final String TAG = "ResponseCache";
+
+    /**
+     * Time after which a response is fetched again in milliseconds
+     */
+    public static final long TTL = 5 * 60 * 1000;
+    /**
+     * Maximal size of all cached responses together
+     */
+    public static final int MAX_BYTES = 4 * 1024 * 1024;
+    /**
+     * Maximal size of a single cached response
+     */
+    public static final int MAX_ENTRY_BYTES = MAX_BYTES / 4;
+
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private int mBytes = 0;
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    /**
+     * Returns true if responses of a method can be cached, i.e. if it reads
+     * the video or audio library.
+     *
+     * @param method Name of the method
+     */
+    public static boolean isCacheable(String method) {
+        return method.startsWith("VideoLibrary.Get") || method.startsWith("AudioLibrary.Get");
+    }
+
+    /**
+     * Returns true if a method might change the library, in which case all
+     * cached responses are outdated.
+     *
+     * @param method Name of the method
+     */
+    public static boolean invalidates(String method) {
+        return (method.startsWith("VideoLibrary.") || method.startsWith("AudioLibrary.")) && !isCacheable(method);
+    }
+
+    /**
+     * Returns a cached response.
+     *
+     * @param key Host, method and parameters
+     * @return Response body, null if not cached or expired.
+     */
+    public synchronized byte[] get(String key) {
+        final Entry entry = mEntries.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.time <= TTL) {
+            mHits.incrementAndGet();
+            return entry.body;
+        }
+        if (entry != null) {
+            remove(key);
+        }
+        mMisses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches a response, evicting the least recently used ones if needed.
+     * Responses bigger than {@link #MAX_ENTRY_BYTES} aren't cached at all.
+     *
+     * @param key  Host, method and parameters
+     * @param body Response body
+     */
+    public synchronized void put(String key, byte[] body) {
+        if (body.length > MAX_ENTRY_BYTES) {
+            return;
+        }
+        remove(key);
+        mEntries.put(key, new Entry(body));
+        mBytes += body.length;
+        for (Iterator<Map.Entry<String, Entry>> i = mEntries.entrySet().iterator(); mBytes > MAX_BYTES && i.hasNext(); ) {
+            mBytes -= i.next().getValue().body.length;
+            i.remove();
+        }
+    }
+
+    /**
+     * Drops all cached responses.
+     */
+    public synchronized void invalidate() {
+        if (!mEntries.isEmpty()) {
+            Log.d(TAG, "Library changed, dropping " + mEntries.size() + " responses (" + (mBytes / 1024) + "kB).");
+        }
+        mEntries.clear();
+        mBytes = 0;
+    }
+
+    private void remove(String key) {
+        final Entry entry = mEntries.remove(key);
+        if (entry != null) {
+            mBytes -= entry.body.length;
+        }
+    }
+
+    public long getHits() {
+        return mHits.get();
+    }
+
+    public long getMisses() {
+        return mMisses.get();
+    }
+
+    public synchronized String toString() {
+        return "ResponseCache[entries=" + mEntries.size() + ", size=" + (mBytes / 1024) + "kB, hits=" + getHits() + ", misses=" + getMisses() + "]";
+    }
+
+    private static class Entry {
+        final byte[] body;
+        final long time = System.currentTimeMillis();
+
+        Entry(byte[] body) {
+            this.body = body;
+        }
+    }
+
+    /**
+     * Passes a response through while keeping a copy of everything read.
+     * Once the copy grows over {@link #MAX_ENTRY_BYTES}, it is dropped and
+     * the rest of the response only passes through, so large lists are
+     * still streamed without being held in memory.
+     */
+    static class Recorder extends FilterInputStream {
+        final String key;
+        private ByteArrayOutputStream mCopy = new ByteArrayOutputStream(8192);
+
+        Recorder(InputStream in, String key) {
+            super(in);
+            this.key = key;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                record(1);
+                if (mCopy != null) {
+                    mCopy.write(b);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            final int n = super.read(buffer, offset, count);
+            if (n > 0) {
+                record(n);
+                if (mCopy != null) {
+                    mCopy.write(buffer, offset, n);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // keep the copy complete
+            long skipped = 0;
+            while (skipped < n && read() >= 0) {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        /**
+         * Returns the recorded response, null if it was too large.
+         */
+        byte[] toByteArray() {
+            return mCopy == null ? null : mCopy.toByteArray();
+        }
+
+        private void record(int n) {
+            if (mCopy != null && mCopy.size() + n > MAX_ENTRY_BYTES) {
+                mCopy = null;
+            }
+        }
+    }
+}
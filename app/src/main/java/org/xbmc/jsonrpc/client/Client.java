@@ -26,18 +26,26 @@ import android.graphics.Bitmap.CompressFormat;
 import android.graphics.BitmapFactory;
 import android.util.Log;
 
+import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.node.ArrayNode;
 import org.codehaus.jackson.node.JsonNodeFactory;
 import org.codehaus.jackson.node.ObjectNode;
 import org.xbmc.android.util.ImportUtilities;
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.IChunkedManager;
 import org.xbmc.api.business.INotifiableManager;
+import org.xbmc.api.object.Actor;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.type.SortType;
 import org.xbmc.api.type.ThumbSize;
 import org.xbmc.api.type.ThumbSize.Dimension;
+import org.xbmc.jsonrpc.BatchRequest;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.HttpTransport;
+import org.xbmc.jsonrpc.JsonRow;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
@@ -46,7 +54,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.text.DecimalFormat;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract super class of all (media) clients.
@@ -60,8 +74,19 @@ public abstract class Client {
     public static final String PARAM_PROPERTIES = "properties";
     public static final String PARAM_SORT = "sort";
 
+    /**
+     * Maximal number of requests sent at the same time by
+     * {@link #execute(INotifiableManager, List)}, one per pooled connection
+     */
+    protected static final int MAX_IN_FLIGHT = HttpTransport.MAX_CONNECTIONS_PER_HOST;
+
     public final static ObjectMapper MAPPER = new ObjectMapper();
     public final static JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+    /**
+     * Factory of all parsers and generators. Sharing it keeps the field name
+     * tables warm between requests; its codec is {@link #MAPPER}.
+     */
+    public final static JsonFactory JSON_FACTORY = MAPPER.getJsonFactory();
 
     protected final Connection mConnection;
 
@@ -152,11 +177,34 @@ public abstract class Client {
         if (obj.get(key) == null)
             return -1;
 
+        return round(obj.get(key).getDoubleValue());
+    }
+
+    public final static String getString(JsonRow row, String key) {
+        return row.getString(key, "");
+    }
+
+    public final static String getString(JsonRow row, String key, String ifNullResult) {
+        return row.getString(key, ifNullResult);
+    }
+
+    public final static int getInt(JsonRow row, String key) {
+        return row.getInt(key);
+    }
+
+    public final static double getDouble(JsonRow row, String key) {
+        return row.has(key) ? round(row.getDouble(key)) : -1;
+    }
+
+    /**
+     * Rounds to one decimal, like ratings are displayed.
+     */
+    private static double round(double value) {
         DecimalFormat twoDForm = new DecimalFormat("#.0");
 
         double val = -1;
         try {
-            val = Double.valueOf(twoDForm.format(obj.get(key).getDoubleValue()).replace(',', '.'));
+            val = Double.valueOf(twoDForm.format(value).replace(',', '.'));
         } catch (NumberFormatException e) {
             val = -1;
         }
@@ -166,6 +214,74 @@ public abstract class Client {
 
     ;
 
+    /**
+     * Returns a new, empty batch. Add all independent calls to it and execute
+     * them in a single round trip.
+     *
+     * @return New batch request
+     */
+    public BatchRequest batch() {
+        return new BatchRequest(mConnection);
+    }
+
+    /**
+     * Executes several batches at the same time, but never more than
+     * {@link #MAX_IN_FLIGHT}. The calling thread takes part, the helpers run
+     * on the request pool, and the method returns once all batches are done.
+     * Helpers still waiting for a pool thread when the work is gone are
+     * dropped. If the calling request is cancelled or the calling thread is
+     * interrupted, the helpers are cancelled along with their exchanges.
+     *
+     * @param manager Upper layer reference for error posting
+     * @param batches Batches to execute
+     */
+    protected static void execute(final INotifiableManager manager, final List<BatchRequest> batches) {
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(batches.size());
+        final Runnable worker = new Runnable() {
+            public void run() {
+                int i;
+                while (!Thread.currentThread().isInterrupted() && (i = next.getAndIncrement()) < batches.size()) {
+                    try {
+                        batches.get(i).execute(manager);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+        final ArrayList<Future<?>> helpers = new ArrayList<Future<?>>();
+        final Runnable removeHook = PendingRequest.onCancel(new Runnable() {
+            public void run() {
+                cancel(helpers, true);
+            }
+        });
+        try {
+            synchronized (helpers) {
+                for (int i = 1; i < Math.min(MAX_IN_FLIGHT, batches.size()); i++) {
+                    helpers.add(PendingRequest.submit(worker));
+                }
+            }
+            worker.run();
+            // all batches are taken now, wait for the helpers still at it
+            done.await();
+            cancel(helpers, false);
+        } catch (InterruptedException e) {
+            cancel(helpers, true);
+            Thread.currentThread().interrupt();
+        } finally {
+            removeHook.run();
+        }
+    }
+
+    private static void cancel(List<Future<?>> helpers, boolean running) {
+        synchronized (helpers) {
+            for (Future<?> helper : helpers) {
+                helper.cancel(running);
+            }
+        }
+    }
+
     public int getActivePlayerId(INotifiableManager manager) {
         final JsonNode active = mConnection.getJson(manager, "Player.GetActivePlayers", null).get(0);
         if (active == null)
@@ -247,8 +363,9 @@ public abstract class Client {
 
     private BitmapFactory.Options prefetch(INotifiableManager manager, String url, int size, int mediaType) {
         BitmapFactory.Options opts = new BitmapFactory.Options();
+        InputStream is = null;
         try {
-            InputStream is = new BufferedInputStream(mConnection.getThumbInputStream(url, manager), 8192);
+            is = new BufferedInputStream(mConnection.getThumbInputStream(url, manager), 8192);
             opts.inJustDecodeBounds = true;
             BitmapFactory.decodeStream(is, null, opts);
         } catch (FileNotFoundException e) {
@@ -259,6 +376,16 @@ public abstract class Client {
             int errorCode = 500;
             ErrorResponse errorResponse = new ErrorResponse(errorCode, "Malformed URL: " + e.getMessage());
             manager.onError(errorResponse); // Notify the manager about the error
+        } catch (IOException e) {
+            return opts;
+        } finally {
+            // give the socket back to the pool
+            try {
+                if (is != null) {
+                    is.close();
+                }
+            } catch (IOException e) {
+            }
         }
         return opts;
     }
@@ -285,6 +412,287 @@ public abstract class Client {
         return null;
     }
 
+    /**
+     * Collects the rows of a streamed list into model objects. If the
+     * manager wants partial results, the new items are handed over every
+     * {@link IChunkedManager#getChunkSize()} rows while the list is still
+     * being read.
+     *
+     * @param <E> Model type
+     */
+    protected abstract static class ListHandler<E> implements JsonRow.Handler {
+        private final ArrayList<E> mList;
+        private final IChunkedManager mChunked;
+        private final Profile mProfile;
+        private int mDelivered = 0;
+
+        protected ListHandler(ArrayList<E> list, INotifiableManager manager) {
+            this(list, manager, null);
+        }
+
+        /**
+         * @param list    List to fill
+         * @param manager Upper layer reference
+         * @param profile Profile the list was requested with, counts the response size
+         */
+        protected ListHandler(ArrayList<E> list, INotifiableManager manager, Profile profile) {
+            mList = list;
+            mChunked = manager instanceof IChunkedManager ? (IChunkedManager) manager : null;
+            mProfile = profile;
+        }
+
+        public void onRow(JsonRow row) {
+            final E item = build(row);
+            if (item == null) {
+                return;
+            }
+            mList.add(item);
+            if (mChunked != null && mList.size() - mDelivered >= mChunked.getChunkSize()) {
+                mChunked.onChunk(new ArrayList<E>(mList.subList(mDelivered, mList.size())), mDelivered);
+                mDelivered = mList.size();
+            }
+        }
+
+        public void onLimits(int start, int end, int total) {
+            if (mList instanceof PagedList) {
+                final PagedList<E> page = (PagedList<E>) mList;
+                page.end = end;
+                page.total = total;
+            }
+        }
+
+        public void onComplete(int rows, long bytes) {
+            if (mProfile != null) {
+                mProfile.record(rows, bytes);
+            }
+        }
+
+        /**
+         * Creates the model object of a row.
+         *
+         * @param row Current row
+         * @return Model object or null to skip the row
+         */
+        protected abstract E build(JsonRow row);
+    }
+
+    /**
+     * Fills model objects with the result of their details method.
+     *
+     * @param <E> Model type
+     */
+    protected abstract static class DetailHandler<E> {
+        /**
+         * Returns the database ID of the item.
+         */
+        protected abstract int getId(E item);
+
+        /**
+         * Returns true if the item has already been filled.
+         */
+        protected abstract boolean hasDetails(E item);
+
+        /**
+         * Sets the properties of the details on the item.
+         *
+         * @param item    Item to fill
+         * @param details Result of the details method
+         */
+        protected abstract void fill(E item, JsonNode details);
+    }
+
+    /**
+     * Fetches the details of all items not yet filled in one round trip.
+     * Items whose details couldn't be fetched are left as they are, and only
+     * the first error is posted.
+     *
+     * @param items       Items to fill
+     * @param method      Details method, e.g. "VideoLibrary.GetMovieDetails"
+     * @param idField     Name of the ID parameter, e.g. "movieid"
+     * @param resultField Name of the details in the result, e.g. "moviedetails"
+     * @param profile     Properties to fetch
+     * @param handler     Fills the items
+     */
+    protected <E> void updateDetails(INotifiableManager manager, List<E> items, String method, String idField, String resultField, Profile profile, DetailHandler<E> handler) {
+        final BatchRequest batch = batch();
+        final ArrayList<E> pending = new ArrayList<E>();
+        for (E item : items) {
+            if (!handler.hasDetails(item)) {
+                pending.add(item);
+                batch.add(method, project(obj().p(idField, handler.getId(item)), profile));
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        batch.execute(manager);
+        final List<BatchRequest.Call> calls = batch.getCalls();
+        boolean reported = false;
+        int filled = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            final BatchRequest.Call call = calls.get(i);
+            final JsonNode details = call.isSuccess() ? call.getResult().get(resultField) : null;
+            if (details != null) {
+                handler.fill(pending.get(i), details);
+                filled++;
+            } else if (!reported && batch.getResponseSize() >= 0) {
+                // only post the first error; transport errors were posted by the connection
+                reported = true;
+                call.getJson(manager);
+            }
+        }
+        profile.record(filled, batch.getResponseSize());
+    }
+
+    /**
+     * Returns the actors of a <code>cast</code> property.
+     *
+     * @param jsonCast Cast, can be null
+     * @return Actors
+     */
+    protected static ArrayList<Actor> getCast(JsonNode jsonCast) {
+        final ArrayList<Actor> actors = new ArrayList<Actor>();
+        if (jsonCast != null) {
+            for (Iterator<JsonNode> i = jsonCast.getElements(); i.hasNext(); ) {
+                final JsonNode jsonActor = i.next();
+                actors.add(new Actor(
+                        getInt(jsonActor, "actorid"),
+                        getString(jsonActor, "name"),
+                        getString(jsonActor, "thumbnail"),
+                        getString(jsonActor, "role")
+                ));
+            }
+        }
+        return actors;
+    }
+
+    /**
+     * Adds a window to the parameters of a list query.
+     *
+     * @param params Parameters
+     * @param start  Position of the first item to return
+     * @param end    Position after the last item to return
+     * @return Parameters
+     */
+    protected static ObjNode limits(ObjNode params, int start, int end) {
+        return params.p(Connection.LIMITS_FIELD, obj().p("start", start).p("end", end));
+    }
+
+    /**
+     * Requests the properties of a profile.
+     *
+     * @param params  Parameters
+     * @param profile Profile
+     * @return Parameters
+     */
+    protected static ObjNode project(ObjNode params, Profile profile) {
+        return params.p(PARAM_PROPERTIES, profile.properties());
+    }
+
+    /**
+     * Named set of properties requested for a media type. Lists only fetch
+     * what their items display and act on ({@link #ROW}, or {@link #GRID}
+     * for cover grids), everything else is fetched with the {@link #DETAIL}
+     * set once an item becomes visible or is opened.
+     * <p>
+     * The number and size of the responses are counted per profile, so the
+     * sets can be compared on a real library.
+     */
+    public static class Profile {
+        public static final String ROW = "row";
+        public static final String GRID = "grid";
+        public static final String DETAIL = "detail";
+
+        private static final ArrayList<Profile> sProfiles = new ArrayList<Profile>();
+
+        /**
+         * Media type and set, e.g. "movie.row"
+         */
+        public final String name;
+        /**
+         * Shared by all requests of this profile, must not be changed
+         */
+        private final ArrayNode mProperties;
+        private final AtomicLong mResponses = new AtomicLong();
+        private final AtomicLong mItems = new AtomicLong();
+        private final AtomicLong mBytes = new AtomicLong();
+
+        /**
+         * Constructor
+         *
+         * @param media      Media type, e.g. "movie"
+         * @param set        One of {@link #ROW}, {@link #GRID} or {@link #DETAIL}
+         * @param properties Properties to request
+         */
+        public Profile(String media, String set, String... properties) {
+            name = media + "." + set;
+            mProperties = arr();
+            for (String property : properties) {
+                mProperties.add(property);
+            }
+            synchronized (sProfiles) {
+                sProfiles.add(this);
+            }
+        }
+
+        /**
+         * Returns the properties as parameter value. The node is built once
+         * and shared, so it must not be changed.
+         */
+        public ArrayNode properties() {
+            return mProperties;
+        }
+
+        /**
+         * Counts a response requested with this profile.
+         *
+         * @param items Number of items in the response
+         * @param bytes Size of the response in bytes
+         */
+        public void record(int items, long bytes) {
+            if (items < 0 || bytes < 0) {
+                return;
+            }
+            mResponses.incrementAndGet();
+            mItems.addAndGet(items);
+            mBytes.addAndGet(bytes);
+            Log.d(TAG, toString());
+        }
+
+        public long getResponseCount() {
+            return mResponses.get();
+        }
+
+        public long getItemCount() {
+            return mItems.get();
+        }
+
+        public long getByteCount() {
+            return mBytes.get();
+        }
+
+        /**
+         * Returns the average size of an item in bytes.
+         */
+        public long getBytesPerItem() {
+            final long items = mItems.get();
+            return items == 0 ? 0 : mBytes.get() / items;
+        }
+
+        /**
+         * Returns all profiles created so far.
+         */
+        public static ArrayList<Profile> getProfiles() {
+            synchronized (sProfiles) {
+                return new ArrayList<Profile>(sProfiles);
+            }
+        }
+
+        public String toString() {
+            return "Profile[" + name + ", responses=" + getResponseCount() + ", items=" + getItemCount() + ", bytes=" + getByteCount() + ", bytes/item=" + getBytesPerItem() + "]";
+        }
+    }
+
     public static class ErrorResponse extends Exception {
         private String errorMessage;
 
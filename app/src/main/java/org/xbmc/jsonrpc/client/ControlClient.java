@@ -21,13 +21,21 @@
 
 package org.xbmc.jsonrpc.client;
 
+import android.util.Log;
+
 import org.codehaus.jackson.JsonNode;
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient;
 import org.xbmc.api.info.PlayStatus;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.type.SeekType;
+import org.xbmc.jsonrpc.BatchRequest;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.RequestTemplate;
+
+import java.util.concurrent.Future;
 
 /**
  * The ControlClient class takes care of everything related to controlling
@@ -39,6 +47,24 @@ import org.xbmc.jsonrpc.Connection;
  */
 public class ControlClient extends Client implements IControlClient {
 
+    private static final String TAG = "ControlClient";
+    /**
+     * Number of poll latencies kept for statistics
+     */
+    private static final int LATENCY_SAMPLES = 32;
+
+    /**
+     * Last fetched now playing state, shared with {@link InfoClient}.
+     */
+    private static volatile NowPlayingSnapshot sLastSnapshot = null;
+
+    /**
+     * Active player of the last now playing snapshot, -1 if none.
+     */
+    private volatile int mActivePlayerId = -1;
+    private final long[] mLatencySamples = new long[LATENCY_SAMPLES];
+    private int mLatencyCount = 0;
+
     /**
      * Class constructor needs reference to HTTP client connection
      *
@@ -66,6 +92,9 @@ public class ControlClient extends Client implements IControlClient {
      */
     public void setHost(Host host) {
         mConnection.setHost(host);
+        // the player and snapshot are the old host's
+        mActivePlayerId = -1;
+        sLastSnapshot = null;
     }
 
     /**
@@ -516,34 +545,165 @@ public class ControlClient extends Client implements IControlClient {
                 return 0;
             }
         };
-        final JsonNode active = mConnection.getJson(manager, "Player.GetActivePlayers", null);
-        if (active.size() == 0)
+        final NowPlayingSnapshot snapshot = getNowPlayingSnapshot(manager);
+        if (snapshot.player == null || snapshot.item == null)
             return nothingPlaying;
 
-        int playerid = getActivePlayerId(manager);
+        final JsonNode player_details = snapshot.player;
+        final JsonNode file_details = snapshot.item;
 
-        final JsonNode player_details = mConnection.getJson(manager, "Player.GetProperties", obj().p("playerid", playerid).p(PARAM_PROPERTIES, arr().add("percentage").add("position").add("speed").add("time").add("totaltime").add("type")));
+        if (file_details.get("Filename") != null && file_details.get("Filename").getTextValue().contains("Nothing Playing")) {
+            return nothingPlaying;
+        }
 
-        if (player_details != null) {
+        if (getString(file_details, "type").equals("episode")) {
+            return TvShowClient.getCurrentlyPlaying(player_details, file_details);
+        } else if (getString(player_details, "type").equals("video")) {
+            return VideoClient.getCurrentlyPlaying(player_details, file_details);
+        }
+        if (getString(player_details, "type").equals("audio")) {
+            return MusicClient.getCurrentlyPlaying(player_details, file_details);
+        } else
+            return nothingPlaying;
+    }
 
-            final JsonNode file_details = mConnection.getJson(manager, "Player.GetItem", obj().p("playerid", playerid).p(PARAM_PROPERTIES, arr().add("artist").add("album").add("duration").add("episode").add("genre").add("file").add("season").add("showtitle").add("tagline").add("title"))).get("item");
+    /**
+     * Non-blocking variant of {@link #getCurrentlyPlaying(INotifiableManager)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<ICurrentlyPlaying> getCurrentlyPlayingAsync(INotifiableManager manager, DataResponse<ICurrentlyPlaying> response) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<ICurrentlyPlaying>() {
+            public ICurrentlyPlaying run(INotifiableManager manager) {
+                return getCurrentlyPlaying(manager);
+            }
+        }, response);
+    }
 
-            if (file_details.get("Filename") != null && file_details.get("Filename").getTextValue().contains("Nothing Playing")) {
-                return nothingPlaying;
+    /**
+     * Fetches active player, player properties and the currently playing
+     * item (including its thumbnail path) in one single batch. The id of the
+     * active player is remembered, so as long as it doesn't change, this is
+     * one round trip only. When the player changed, properties and item are
+     * fetched again with the new player id.
+     *
+     * @param manager Manager reference
+     * @return Snapshot, with empty player and item if nothing is playing.
+     */
+    NowPlayingSnapshot getNowPlayingSnapshot(INotifiableManager manager) {
+        final long start = System.currentTimeMillis();
+        final int cachedPlayerId = mActivePlayerId;
+
+        BatchRequest batch = batch();
+        final BatchRequest.Call active = batch.add(GET_ACTIVE_PLAYERS);
+        BatchRequest.Call properties = null;
+        BatchRequest.Call item = null;
+        if (cachedPlayerId != -1) {
+            properties = batch.add(GET_PLAYER_PROPERTIES, cachedPlayerId);
+            item = batch.add(GET_PLAYER_ITEM, cachedPlayerId);
+        }
+        batch.execute(manager);
+
+        final JsonNode players = active.getJson(manager);
+        final NowPlayingSnapshot snapshot;
+        final int playerid = players.size() == 0 ? -1 : getInt(players.get(0), "playerid");
+        if (playerid == -1) {
+            // nothing playing, or a player without id
+            mActivePlayerId = -1;
+            snapshot = new NowPlayingSnapshot(null, null);
+        } else {
+            mActivePlayerId = playerid;
+            if (properties == null || playerid != cachedPlayerId || !properties.isSuccess() || !item.isSuccess()) {
+                // player changed since last time, need a second round trip.
+                batch = batch();
+                properties = batch.add(GET_PLAYER_PROPERTIES, playerid);
+                item = batch.add(GET_PLAYER_ITEM, playerid);
+                batch.execute(manager);
             }
+            snapshot = new NowPlayingSnapshot(properties.getResult(), item.isSuccess() ? item.getResult().get("item") : null);
+        }
+        sLastSnapshot = snapshot;
+        sampleLatency(System.currentTimeMillis() - start);
+        return snapshot;
+    }
+
+    /**
+     * Requests of every poll, encoded once. The player id is the only value.
+     */
+    private static final RequestTemplate GET_ACTIVE_PLAYERS = new RequestTemplate("Player.GetActivePlayers", null);
+    private static final RequestTemplate GET_PLAYER_PROPERTIES = new RequestTemplate("Player.GetProperties",
+            obj().p("playerid", RequestTemplate.slot(0)).p(PARAM_PROPERTIES, arr().add("percentage").add("position").add("speed").add("time").add("totaltime").add("type")));
+    private static final RequestTemplate GET_PLAYER_ITEM = new RequestTemplate("Player.GetItem",
+            obj().p("playerid", RequestTemplate.slot(0)).p(PARAM_PROPERTIES, arr().add("artist").add("album").add("duration").add("episode").add("genre").add("file").add("season").add("showtitle").add("tagline").add("title").add("thumbnail")));
 
+    /**
+     * Returns the last now playing snapshot if it's not older than the given
+     * age. Used to avoid re-querying the currently playing item when polling.
+     *
+     * @param maxAge Maximal age in milliseconds
+     * @return Snapshot or null if none or too old
+     */
+    static NowPlayingSnapshot getLastSnapshot(long maxAge) {
+        final NowPlayingSnapshot snapshot = sLastSnapshot;
+        if (snapshot != null && System.currentTimeMillis() - snapshot.time <= maxAge) {
+            return snapshot;
+        }
+        return null;
+    }
 
-            if (getString(file_details, "type").equals("episode")) {
-                return TvShowClient.getCurrentlyPlaying(player_details, file_details);
-            } else if (getString(player_details, "type").equals("video")) {
-                return VideoClient.getCurrentlyPlaying(player_details, file_details);
-            }
-            if (getString(player_details, "type").equals("audio")) {
-                return MusicClient.getCurrentlyPlaying(player_details, file_details);
-            } else
-                return nothingPlaying;
-        } else
-            return nothingPlaying;
+    private synchronized void sampleLatency(long latency) {
+        mLatencySamples[mLatencyCount % LATENCY_SAMPLES] = latency;
+        mLatencyCount++;
+        if (mLatencyCount % LATENCY_SAMPLES == 0) {
+            Log.d(TAG, "Now playing poll latency: avg " + getAveragePollLatency() + "ms, max " + getMaxPollLatency() + "ms (" + mConnection.getTransport() + ", coalesced " + mConnection.getCoalesceHits() + "/" + (mConnection.getCoalesceHits() + mConnection.getCoalesceMisses()) + ")");
+        }
+    }
+
+    /**
+     * Returns the average latency of the last now playing polls.
+     *
+     * @return Latency in milliseconds, 0 if not polled yet.
+     */
+    public synchronized long getAveragePollLatency() {
+        final int n = Math.min(mLatencyCount, LATENCY_SAMPLES);
+        if (n == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += mLatencySamples[i];
+        }
+        return sum / n;
+    }
+
+    /**
+     * Returns the maximal latency of the last now playing polls.
+     *
+     * @return Latency in milliseconds, 0 if not polled yet.
+     */
+    public synchronized long getMaxPollLatency() {
+        final int n = Math.min(mLatencyCount, LATENCY_SAMPLES);
+        long max = 0;
+        for (int i = 0; i < n; i++) {
+            max = Math.max(max, mLatencySamples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Player properties and currently playing item at a given time.
+     */
+    static class NowPlayingSnapshot {
+        final JsonNode player;
+        final JsonNode item;
+        final long time;
+
+        NowPlayingSnapshot(JsonNode player, JsonNode item) {
+            this.player = player;
+            this.item = item;
+            this.time = System.currentTimeMillis();
+        }
     }
 }
 
@@ -5,10 +5,12 @@ import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IInfoClient;
 import org.xbmc.api.object.FileLocation;
 import org.xbmc.api.object.Host;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.type.DirectoryMask;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.JsonRow;
 
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
@@ -24,6 +26,20 @@ import java.util.Iterator;
  */
 public class InfoClient extends Client implements IInfoClient {
 
+    /**
+     * Now playing snapshots younger than that are re-used, in milliseconds.
+     */
+    private static final long SNAPSHOT_MAX_AGE = 1000;
+
+    /**
+     * Thumbnail path of the last resolved now playing thumb
+     */
+    private String mLastThumbnail = null;
+    /**
+     * Download URI of the last resolved now playing thumb
+     */
+    private String mLastThumbURI = null;
+
     /**
      * Class constructor needs reference to HTTP client connection
      *
@@ -49,15 +65,21 @@ public class InfoClient extends Client implements IInfoClient {
      * @param mask   Mask to filter
      * @param offset Offset (0 for none)
      * @param limit  Limit (0 for none)
-     * @return
+     * @return Directory contents, a {@link PagedList} knowing the total
      */
     public ArrayList<FileLocation> getDirectory(INotifiableManager manager, String path, DirectoryMask mask, int offset, int limit, final int mMediaType) {
-        final ArrayList<FileLocation> dirs = new ArrayList<FileLocation>();
-        final JsonNode jsonDirs = mConnection.getJson(manager, "Files.GetDirectory", sort(obj().p("media", "files").p("directory", path), SortType.ALBUM, "descending"), "files");
-        for (Iterator<JsonNode> i = jsonDirs.getElements(); i.hasNext(); ) {
-            JsonNode jsonDir = (JsonNode) i.next();
-            dirs.add(new FileLocation(getString(jsonDir, "label"), getString(jsonDir, "file")));
+        final PagedList<FileLocation> dirs = new PagedList<FileLocation>(offset);
+        final ObjNode params = sort(obj().p("media", "files").p("directory", path), SortType.ALBUM, "descending");
+        if (limit > 0) {
+            limits(params, offset, offset + limit);
+        } else if (offset > 0) {
+            params.p(Connection.LIMITS_FIELD, obj().p("start", offset));
         }
+        mConnection.getRows(manager, "Files.GetDirectory", params, "files", new ListHandler<FileLocation>(dirs, manager) {
+            protected FileLocation build(JsonRow jsonDir) {
+                return new FileLocation(getString(jsonDir, "label"), getString(jsonDir, "file"));
+            }
+        });
         return dirs;
     }
 
@@ -93,26 +115,43 @@ public class InfoClient extends Client implements IInfoClient {
     }
 
     /**
-     * @TODO Implement for JSON-RPC
+     * Returns the download URI of the currently playing item's thumb. Re-uses
+     * the item of a recent now playing poll and only prepares the download
+     * again when the thumbnail has changed.
      */
     public String getCurrentlyPlayingThumbURI(INotifiableManager manager) throws MalformedURLException, URISyntaxException {
-        int playerid = getActivePlayerId(manager);
-        if (playerid == -1)
+        final JsonNode item;
+        final ControlClient.NowPlayingSnapshot snapshot = ControlClient.getLastSnapshot(SNAPSHOT_MAX_AGE);
+        if (snapshot != null) {
+            // the poller just fetched the item, including its thumbnail.
+            item = snapshot.item;
+        } else {
+            int playerid = getActivePlayerId(manager);
+            if (playerid == -1)
+                return null;
+            item = mConnection.getJson(manager, "Player.GetItem", obj().p("playerid", playerid).p(PARAM_PROPERTIES, arr().add("thumbnail"))).get("item");
+        }
+        if (item == null)
             return null;
 
-        final JsonNode item = mConnection.getJson(manager, "Player.GetItem", obj().p("playerid", playerid).p(PARAM_PROPERTIES, arr().add("thumbnail"))).get("item");
+        final String thumbnail = getString(item, "thumbnail");
+        if (thumbnail == null || thumbnail.equals(""))
+            return null;
+        synchronized (this) {
+            if (thumbnail.equals(mLastThumbnail))
+                return mLastThumbURI;
+        }
 
-        JsonNode dl = null;
-        if (getString(item, "thumbnail") != null && !getString(item, "thumbnail").equals(""))
-            dl = mConnection.getJson(manager, "Files.PrepareDownload", obj().p("path", getString(item, "thumbnail")));
-        if (dl != null) {
-            JsonNode details = dl.get("details");
-            if (details != null)
-                return mConnection.getUrl(getString(details, "path"));
-            else
-                return null;
-        } else
+        final JsonNode dl = mConnection.getJson(manager, "Files.PrepareDownload", obj().p("path", thumbnail));
+        final JsonNode details = dl.get("details");
+        if (details == null)
             return null;
+        final String uri = mConnection.getUrl(getString(details, "path"));
+        synchronized (this) {
+            mLastThumbnail = thumbnail;
+            mLastThumbURI = uri;
+        }
+        return uri;
     }
 
     /**
@@ -24,6 +24,9 @@ package org.xbmc.jsonrpc.client;
 import android.graphics.Bitmap;
 
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.node.ArrayNode;
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
@@ -34,13 +37,20 @@ import org.xbmc.api.object.Artist;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Song;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
+import org.xbmc.jsonrpc.BatchRequest;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.JsonRow;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.Future;
 
 /**
  * Takes care of every music related stuff, notably the music database.
@@ -59,6 +69,20 @@ public class MusicClient extends Client implements IMusicClient {
 
     public static final int PLAYLIST_LIMIT = 100;
 
+    /**
+     * Properties of album lists, only what the rows display
+     */
+    public static final Profile ALBUM_ROW = new Profile("album", Profile.ROW, "artist", "thumbnail", "year");
+    /**
+     * Properties of the album info
+     */
+    public static final Profile ALBUM_DETAIL = new Profile("album", Profile.DETAIL, "albumlabel", "genre", "rating");
+    /**
+     * Properties of song lists. Songs are played and queued by ID, so the
+     * file isn't needed.
+     */
+    public static final Profile SONG_ROW = new Profile("song", Profile.ROW, "album", "artist", "duration", "thumbnail", "track");
+
     /**
      * Class constructor needs reference to HTTP client connection
      *
@@ -220,7 +244,7 @@ public class MusicClient extends Client implements IMusicClient {
         if (playerid == -1)
             return mConnection.getString(manager, "Player.Open", obj().p("item", obj().p("playlistid", PLAYLIST_ID).p("position", position))).equals("OK");
         else
-            return mConnection.getString(manager, "Player.GoTo", obj().p("playerid", getActivePlayerId(manager)).p("position", position)).equals("OK");
+            return mConnection.getString(manager, "Player.GoTo", obj().p("playerid", playerid).p("position", position)).equals("OK");
     }
 
     /**
@@ -421,30 +445,73 @@ public class MusicClient extends Client implements IMusicClient {
         return getAlbums(manager, obj(), SortBy, sortOrder);
     }
 
+    /**
+     * Gets a window of all albums from database
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first album to return
+     * @param end       Position after the last album to return
+     * @return Albums of the window
+     */
+    public PagedList<Album> getAlbums(INotifiableManager manager, int sortBy, String sortOrder, int start, int end) {
+        return getAlbums(manager, limits(obj(), start, end), sortBy, sortOrder, new PagedList<Album>(start));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAlbums(INotifiableManager, int, String, int, int)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Album>> getAlbumsAsync(INotifiableManager manager, DataResponse<PagedList<Album>> response, final int sortBy, final String sortOrder, final int start, final int end) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<Album>>() {
+            public PagedList<Album> run(INotifiableManager manager) {
+                return getAlbums(manager, sortBy, sortOrder, start, end);
+            }
+        }, response);
+    }
+
     private ArrayList<Album> getAlbums(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder) {
+        return getAlbums(manager, obj, sortBy, sortOrder, new ArrayList<Album>());
+    }
 
-        obj = sort(obj.p(PARAM_PROPERTIES, arr().add("artist").add("year").add("thumbnail")), sortBy, sortOrder);
+    private <T extends ArrayList<Album>> T getAlbums(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, T albums) {
+        mConnection.getRows(manager, "AudioLibrary.GetAlbums", albumParams(obj, sortBy, sortOrder), "albums", new ListHandler<Album>(albums, manager, ALBUM_ROW) {
+            protected Album build(JsonRow jsonAlbum) {
+                return album(jsonAlbum);
+            }
+        });
+        return albums;
+    }
 
-        final ArrayList<Album> albums = new ArrayList<Album>();
-        final JsonNode result = mConnection.getJson(manager, "AudioLibrary.GetAlbums", obj);
+    private static ObjNode albumParams(ObjNode obj, int sortBy, String sortOrder) {
+        return sort(project(obj, ALBUM_ROW), sortBy, sortOrder);
+    }
+
+    private static void parseAlbums(JsonNode result, ArrayList<Album> albums) {
         final JsonNode jsonAlbums = result.get("albums");
         if (jsonAlbums != null) {
+            final JsonRow row = new JsonRow();
             for (Iterator<JsonNode> i = jsonAlbums.getElements(); i.hasNext(); ) {
-                JsonNode jsonAlbum = (JsonNode) i.next();
-                albums.add(new Album(
-                        getInt(jsonAlbum, "albumid"),
-                        getString(jsonAlbum, "label"),
-                        getString(jsonAlbum, "artist"),
-                        getInt(jsonAlbum, "year"),
-                        getString(jsonAlbum, "thumbnail", "")
-                ));
+                albums.add(album(row.read(i.next())));
             }
         }
-        return albums;
+    }
+
+    private static Album album(JsonRow jsonAlbum) {
+        return new Album(
+                getInt(jsonAlbum, "albumid"),
+                getString(jsonAlbum, "label"),
+                getString(jsonAlbum, "artist"),
+                getInt(jsonAlbum, "year"),
+                getString(jsonAlbum, "thumbnail", "")
+        );
     }
 
     /**
-     * Gets all albums with given artist IDs
+     * Gets all albums with given artist IDs. All artists are queried in one
+     * single batch request.
      *
      * @param artistIDs Array of artist IDs
      * @return All compilation albums
@@ -452,8 +519,12 @@ public class MusicClient extends Client implements IMusicClient {
     public ArrayList<Album> getAlbums(INotifiableManager manager, ArrayList<Integer> artistIDs) {
 
         final ArrayList<Album> albums = new ArrayList<Album>();
+        final BatchRequest batch = batch();
         for (int id : artistIDs) {
-            albums.addAll(getAlbums(manager, obj().p("filter", obj().p("artistid", id)), SortType.TITLE, "descending"));
+            batch.add("AudioLibrary.GetAlbums", albumParams(obj().p("filter", obj().p("artistid", id)), SortType.TITLE, "descending"));
+        }
+        for (BatchRequest.Call call : batch.execute(manager).getCalls()) {
+            parseAlbums(call.getJson(manager), albums);
         }
 
         return albums;
@@ -552,12 +623,22 @@ public class MusicClient extends Client implements IMusicClient {
      * @return Updated album
      */
     public Album updateAlbumInfo(INotifiableManager manager, Album album) {
+        updateDetails(manager, Collections.singletonList(album), "AudioLibrary.GetAlbumDetails", "albumid", "albumdetails", ALBUM_DETAIL, new DetailHandler<Album>() {
+            protected int getId(Album album) {
+                return album.id;
+            }
+
+            protected boolean hasDetails(Album album) {
+                // always refreshed
+                return false;
+            }
 
-        final JsonNode result = mConnection.getJson(manager, "AudioLibrary.GetAlbumDetails", obj().p("albumid", album.id).p("properties", arr().add("genre").add("albumlabel").add("rating")));
-        final JsonNode jsonAlbum = result.get("albumdetails");
-        album.genres = getString(jsonAlbum, "genre");
-        album.label = getString(jsonAlbum, "albumlabel");
-        album.rating = getInt(jsonAlbum, "rating");
+            protected void fill(Album album, JsonNode jsonAlbum) {
+                album.genres = getString(jsonAlbum, "genre");
+                album.label = getString(jsonAlbum, "albumlabel");
+                album.rating = getInt(jsonAlbum, "rating");
+            }
+        });
         return album;
     }
 
@@ -586,29 +667,31 @@ public class MusicClient extends Client implements IMusicClient {
      * @param sqlCondition SQL condition which tracks to return
      * @return Found tracks
      **/
-    private ArrayList<Song> getSongs(INotifiableManager manager, ObjNode obj) {
-        final ArrayList<Song> songs = new ArrayList<Song>();
-        final JsonNode result = mConnection.getJson(manager, "AudioLibrary.GetSongs", obj);
-        final JsonNode jsonAlbums = result.get("songs");
-        for (Iterator<JsonNode> i = jsonAlbums.getElements(); i.hasNext(); ) {
-            JsonNode jsonSong = (JsonNode) i.next();
-            songs.add(new Song(
-                    getInt(jsonSong, "songid"),
-                    getString(jsonSong, "label"),
-                    getString(jsonSong, "artist"),
-                    getString(jsonSong, "album"),
-                    getInt(jsonSong, "track"),
-                    getInt(jsonSong, "duration"),
-                    getString(jsonSong, ""),
-                    getString(jsonSong, "file"),
-                    getString(jsonSong, "thumbnail", "")
-            ));
-        }
+    private <T extends ArrayList<Song>> T getSongs(INotifiableManager manager, ObjNode obj, T songs) {
+        mConnection.getRows(manager, "AudioLibrary.GetSongs", obj, "songs", new ListHandler<Song>(songs, manager, SONG_ROW) {
+            protected Song build(JsonRow jsonSong) {
+                return new Song(
+                        getInt(jsonSong, "songid"),
+                        getString(jsonSong, "label"),
+                        getString(jsonSong, "artist"),
+                        getString(jsonSong, "album"),
+                        getInt(jsonSong, "track"),
+                        getInt(jsonSong, "duration"),
+                        getString(jsonSong, ""),
+                        getString(jsonSong, "file"),
+                        getString(jsonSong, "thumbnail", "")
+                );
+            }
+        });
         return songs;
     }
 
     private ArrayList<Song> getSongs(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder) {
-        return getSongs(manager, sort(obj.p(PARAM_PROPERTIES, arr().add("artist").add("album").add("track").add("duration").add("file").add("thumbnail")), sortBy, sortOrder));
+        return getSongs(manager, obj, sortBy, sortOrder, new ArrayList<Song>());
+    }
+
+    private <T extends ArrayList<Song>> T getSongs(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, T songs) {
+        return getSongs(manager, sort(project(obj, SONG_ROW), sortBy, sortOrder), songs);
     }
 
     /**
@@ -647,6 +730,34 @@ public class MusicClient extends Client implements IMusicClient {
         return getSongs(manager, obj().p("genreid", genre.id), sortBy, sortOrder);
     }
 
+    /**
+     * Returns a window of all tracks of a genre.
+     *
+     * @param genre     Genre
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @param start     Position of the first track to return
+     * @param end       Position after the last track to return
+     * @return Tracks of the window
+     */
+    public PagedList<Song> getSongs(INotifiableManager manager, Genre genre, int sortBy, String sortOrder, int start, int end) {
+        return getSongs(manager, limits(obj().p("genreid", genre.id), start, end), sortBy, sortOrder, new PagedList<Song>(start));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getSongs(INotifiableManager, Genre, int, String, int, int)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Song>> getSongsAsync(INotifiableManager manager, DataResponse<PagedList<Song>> response, final Genre genre, final int sortBy, final String sortOrder, final int start, final int end) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<Song>>() {
+            public PagedList<Song> run(INotifiableManager manager) {
+                return getSongs(manager, genre, sortBy, sortOrder, start, end);
+            }
+        }, response);
+    }
+
     /**
      * Returns a list containing all tracks of a genre AND and artist. The list is sorted by
      * artist, album name, filename.
@@ -691,15 +802,136 @@ public class MusicClient extends Client implements IMusicClient {
      * @return List of compilation artist IDs
      */
     public ArrayList<Integer> getCompilationArtistIDs(INotifiableManager manager) {
+        return getCompilationArtistIDs(manager, true);
+    }
+
+    /**
+     * @param serverFilter False if the server is known not to support filter rules
+     */
+    private ArrayList<Integer> getCompilationArtistIDs(INotifiableManager manager, boolean serverFilter) {
 
+        final ArrayList<Integer> ids = new ArrayList<Integer>();
+        if (serverFilter) {
+            // let the server filter, older versions don't know filter rules
+            final BatchRequest batch = batch();
+            final BatchRequest.Call call = batch.add("AudioLibrary.GetArtists", obj().p("filter", variousArtistsFilter("artist")).p("albumartistsonly", true));
+            batch.execute(manager);
+            if (call.isSuccess()) {
+                final JsonNode jsonArtists = call.getResult().get("artists");
+                if (jsonArtists != null) {
+                    for (Iterator<JsonNode> i = jsonArtists.getElements(); i.hasNext(); ) {
+                        ids.add(getInt(i.next(), "artistid"));
+                    }
+                }
+                return ids;
+            }
+            if (batch.getResponseSize() < 0) {
+                // connection error, already posted
+                return ids;
+            }
+        }
         ArrayList<Artist> artists = getArtists(manager, sort(obj(), SortType.ARTIST, "ascending"), true);
-        ArrayList<Integer> ids = new ArrayList<Integer>();
         for (Artist artist : artists) {
-            if (artist.name.toLowerCase().equals("various artists") || artist.name.toLowerCase().equals("v.a.") || artist.name.toLowerCase().equals("va"))
+            if (isVariousArtists(artist.name))
                 ids.add(artist.id);
         }
-
         return ids;
+    }
+
+    /**
+     * Gets all compilations, which are albums flagged as compilation and
+     * albums of a "various artists" artist. Both lists are filtered by the
+     * server and fetched in one round trip, then merged and sorted here.
+     * Servers not supporting filter rules get the albums of
+     * {@link #getCompilationArtistIDs(INotifiableManager)} instead.
+     *
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     * @return All compilation albums
+     */
+    public ArrayList<Album> getCompilations(INotifiableManager manager, int sortBy, String sortOrder) {
 
+        final BatchRequest batch = batch();
+        final BatchRequest.Call flagged = batch.add("AudioLibrary.GetAlbums", albumParams(obj().p("filter", obj().p("field", "compilation").p("operator", "true").p("value", "")), sortBy, sortOrder));
+        final BatchRequest.Call various = batch.add("AudioLibrary.GetAlbums", albumParams(obj().p("filter", variousArtistsFilter("artist")), sortBy, sortOrder));
+        batch.execute(manager);
+
+        final ArrayList<Album> albums;
+        if (flagged.isSuccess() || various.isSuccess()) {
+            albums = new ArrayList<Album>();
+            if (flagged.isSuccess()) {
+                parseAlbums(flagged.getResult(), albums);
+            }
+            if (various.isSuccess()) {
+                // compilations by various artists are usually in both lists
+                final ArrayList<Album> variousAlbums = new ArrayList<Album>();
+                parseAlbums(various.getResult(), variousAlbums);
+                final HashSet<Integer> ids = new HashSet<Integer>();
+                for (Album album : albums) {
+                    ids.add(album.id);
+                }
+                for (Album album : variousAlbums) {
+                    if (ids.add(album.id)) {
+                        albums.add(album);
+                    }
+                }
+            }
+        } else if (batch.getResponseSize() >= 0) {
+            albums = getAlbums(manager, getCompilationArtistIDs(manager, false));
+        } else {
+            // connection error, already posted
+            return new ArrayList<Album>();
+        }
+        sortAlbums(albums, sortBy, sortOrder);
+        return albums;
+    }
+
+    /**
+     * Returns a filter rule matching the usual names of "various artists".
+     *
+     * @param field Field containing the artist
+     * @return Filter
+     */
+    private static ObjNode variousArtistsFilter(String field) {
+        final ArrayNode or = arr();
+        or.add(obj().p("field", field).p("operator", "startswith").p("value", "various artists"));
+        or.add(obj().p("field", field).p("operator", "startswith").p("value", "v.a."));
+        or.add(obj().p("field", field).p("operator", "is").p("value", "va"));
+        final ObjNode filter = obj();
+        filter.put("or", or);
+        return filter;
+    }
+
+    private static boolean isVariousArtists(String name) {
+        final String lower = name.toLowerCase();
+        return lower.startsWith("various artists") || lower.startsWith("v.a.") || lower.equals("va");
+    }
+
+    /**
+     * Sorts merged album lists like the server would.
+     *
+     * @param albums    Albums to sort
+     * @param sortBy    Sort field, see SortType.*
+     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
+     */
+    private static void sortAlbums(ArrayList<Album> albums, final int sortBy, String sortOrder) {
+        final int order = sortOrder.equals(SortType.ORDER_DESC) ? -1 : 1;
+        Collections.sort(albums, new Comparator<Album>() {
+            public int compare(Album a, Album b) {
+                int c = 0;
+                switch (sortBy) {
+                    case SortType.ARTIST:
+                        c = a.artist.compareToIgnoreCase(b.artist);
+                        break;
+                    case SortType.YEAR:
+                        c = a.year < b.year ? -1 : (a.year == b.year ? 0 : 1);
+                        break;
+                }
+                if (c == 0) {
+                    c = a.name.compareToIgnoreCase(b.name);
+                }
+                return order * c;
+            }
+        });
     }
 }
\ No newline at end of file
@@ -22,8 +22,11 @@
 package org.xbmc.jsonrpc.client;
 
 import android.graphics.Bitmap;
+import android.util.Log;
 
 import org.codehaus.jackson.JsonNode;
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
 import org.xbmc.api.data.ITvShowClient;
@@ -33,14 +36,19 @@ import org.xbmc.api.object.Episode;
 import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.object.ICoverArt;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.object.Season;
 import org.xbmc.api.object.TvShow;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
+import org.xbmc.jsonrpc.BatchRequest;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.JsonRow;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.Future;
 
 /**
  * TV show client for JSON RPC.
@@ -51,6 +59,23 @@ import java.util.Iterator;
  */
 public class TvShowClient extends Client implements ITvShowClient {
 
+    /**
+     * Properties of the TV show list, only what the rows display
+     */
+    public static final Profile TVSHOW_ROW = new Profile("tvshow", Profile.ROW, "art", "episode", "file", "genre", "playcount", "premiered", "rating");
+    /**
+     * Properties the list leaves out, fetched for visible and opened shows
+     */
+    public static final Profile TVSHOW_DETAIL = new Profile("tvshow", Profile.DETAIL, "cast", "mpaa", "plot", "studio");
+    /**
+     * Properties of episode lists, only what the rows display and act on
+     */
+    public static final Profile EPISODE_ROW = new Profile("episode", Profile.ROW, "episode", "file", "firstaired", "playcount", "rating", "season", "showtitle", "thumbnail", "title");
+    /**
+     * Properties the list leaves out, fetched for visible and opened episodes
+     */
+    public static final Profile EPISODE_DETAIL = new Profile("episode", Profile.DETAIL, "cast", "director", "plot", "writer");
+
     public TvShowClient(Connection connection) {
         super(connection);
     }
@@ -126,22 +151,48 @@ public class TvShowClient extends Client implements ITvShowClient {
         return getTvShows(manager, obj(), sortBy, sortOrder, hideWatched);
     }
 
+    /**
+     * Gets a window of all tv shows. Watched shows are filtered after paging,
+     * so the window might contain less shows than requested.
+     *
+     * @param start Position of the first show to return
+     * @param end   Position after the last show to return
+     * @return Shows of the window
+     */
+    public PagedList<TvShow> getTvShows(INotifiableManager manager, int sortBy, String sortOrder, int start, int end, boolean hideWatched) {
+        return getTvShows(manager, limits(obj(), start, end), sortBy, sortOrder, hideWatched, new PagedList<TvShow>(start));
+    }
+
+    /**
+     * Non-blocking variant of {@link #getTvShows(INotifiableManager, int, String, int, int, boolean)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<TvShow>> getTvShowsAsync(INotifiableManager manager, DataResponse<PagedList<TvShow>> response, final int sortBy, final String sortOrder, final int start, final int end, final boolean hideWatched) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<TvShow>>() {
+            public PagedList<TvShow> run(INotifiableManager manager) {
+                return getTvShows(manager, sortBy, sortOrder, start, end, hideWatched);
+            }
+        }, response);
+    }
+
     public ArrayList<TvShow> getTvShows(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, boolean hideWatched) {
+        return getTvShows(manager, obj, sortBy, sortOrder, hideWatched, new ArrayList<TvShow>());
+    }
+
+    private <T extends ArrayList<TvShow>> T getTvShows(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, final boolean hideWatched, T tvshows) {
 
-        sort(obj.p(PARAM_PROPERTIES, arr().add("plot").add("rating").add("premiered").add("genre").add("mpaa").add("studio").add("file").add("episode").add("playcount").add("art")), sortBy, sortOrder);
+        sort(project(obj, TVSHOW_ROW), sortBy, sortOrder);
 
-        final ArrayList<TvShow> tvshows = new ArrayList<TvShow>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetTvShows", obj);
-        final JsonNode jsonShows = result.get("tvshows");
-        if (jsonShows != null) {
-            for (Iterator<JsonNode> i = jsonShows.getElements(); i.hasNext(); ) {
-                JsonNode jsonShow = (JsonNode) i.next();
+        mConnection.getRows(manager, "VideoLibrary.GetTvShows", obj, "tvshows", new ListHandler<TvShow>(tvshows, manager, TVSHOW_ROW) {
+            protected TvShow build(JsonRow jsonShow) {
 
                 int playcount = getInt(jsonShow, "playcount");
                 if (playcount > 0 && hideWatched)
-                    continue;
+                    return null;
 
-                tvshows.add(new TvShow(
+                return new TvShow(
                         getInt(jsonShow, "tvshowid"),
                         getString(jsonShow, "label"),
                         getString(jsonShow, "plot"),
@@ -154,10 +205,10 @@ public class TvShowClient extends Client implements ITvShowClient {
                         getInt(jsonShow, "episode"),
                         playcount,
                         getInt(jsonShow, "playcount") > 0,
-                        jsonShow.get("art") != null ? getString(jsonShow.get("art"), "banner") : ""
-                ));
+                        getString(jsonShow, "art.banner")
+                );
             }
-        }
+        });
         return tvshows;
     }
 
@@ -220,44 +271,126 @@ public class TvShowClient extends Client implements ITvShowClient {
      * @return
      */
     public ArrayList<Season> getSeasons(INotifiableManager manager, TvShow show, boolean hideWatched) {
+        final ArrayList<Season> seasons = new ArrayList<Season>();
+        parseSeasons(mConnection.getJson(manager, "VideoLibrary.GetSeasons", seasonParams(show)), show, hideWatched, seasons);
+        return seasons;
+    }
 
-        ObjNode obj = sort(obj().p("tvshowid", show.id).p(PARAM_PROPERTIES, arr().add("season").add("playcount").add("thumbnail")), SortType.TITLE, "ascending");
+    private static ObjNode seasonParams(TvShow show) {
+        return sort(obj().p("tvshowid", show.id).p(PARAM_PROPERTIES, arr().add("season").add("playcount").add("thumbnail")), SortType.TITLE, "ascending");
+    }
 
-        final ArrayList<Season> seasons = new ArrayList<Season>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetSeasons", obj);
+    private static void parseSeasons(JsonNode result, TvShow show, boolean hideWatched, ArrayList<Season> seasons) {
         final JsonNode jsonSeasons = result.get("seasons");
         if (jsonSeasons != null) {
             for (Iterator<JsonNode> i = jsonSeasons.getElements(); i.hasNext(); ) {
-
-                JsonNode jsonShow = (JsonNode) i.next();
-
-                int playcount = getInt(jsonShow, "playcount");
-                if (playcount > 0 && hideWatched)
-                    continue;
-
-                seasons.add(new Season(
-                        getInt(jsonShow, "season"),
-                        playcount > 0,
-                        show,
-                        getString(jsonShow, "thumbnail")
-                ));
+                final Season season = parseSeason(i.next(), show, hideWatched);
+                if (season != null) {
+                    seasons.add(season);
+                }
             }
         }
-        return seasons;
     }
 
+    private static Season parseSeason(JsonNode jsonSeason, TvShow show, boolean hideWatched) {
+        int playcount = getInt(jsonSeason, "playcount");
+        if (playcount > 0 && hideWatched)
+            return null;
+
+        return new Season(
+                getInt(jsonSeason, "season"),
+                playcount > 0,
+                show,
+                getString(jsonSeason, "thumbnail")
+        );
+    }
+
+    /**
+     * Number of shows whose seasons are queried in one batch when the server
+     * can't list the seasons of all shows at once.
+     */
+    private static final int SHOWS_PER_BATCH = 20;
+
     /**
-     * Gets all seasons for all shows
+     * Gets all seasons for all shows. Newer servers return the seasons of
+     * the whole library with one single request, older ones need the show,
+     * in which case the shows are split into batches sent in parallel.
+     * Seasons are returned in show order either way.
      *
      * @param manager
      * @param show
      * @return
      */
     public ArrayList<Season> getSeasons(INotifiableManager manager, int sortBy, String sortOrder, boolean hideWatched) {
-        ArrayList<TvShow> shows = getTvShows(manager, sortBy, sortOrder, hideWatched);
-        ArrayList<Season> seasons = new ArrayList<Season>();
-        for (TvShow tvShow : shows) {
-            seasons.addAll(getSeasons(manager, tvShow, hideWatched));
+        final ArrayList<TvShow> shows = getTvShows(manager, sortBy, sortOrder, hideWatched);
+        final ArrayList<Season> seasons = new ArrayList<Season>();
+        if (shows.isEmpty()) {
+            return seasons;
+        }
+
+        final BatchRequest library = batch();
+        final BatchRequest.Call all = library.add("VideoLibrary.GetSeasons", sort(obj().p(PARAM_PROPERTIES, arr().add("season").add("playcount").add("thumbnail").add("tvshowid")), SortType.TITLE, "ascending"));
+        library.execute(manager);
+        if (all.isSuccess()) {
+            final HashMap<Integer, TvShow> showsById = new HashMap<Integer, TvShow>();
+            for (TvShow show : shows) {
+                showsById.put(show.id, show);
+            }
+            final HashMap<Integer, ArrayList<Season>> seasonsByShow = new HashMap<Integer, ArrayList<Season>>();
+            final JsonNode jsonSeasons = all.getResult().get("seasons");
+            if (jsonSeasons != null) {
+                for (Iterator<JsonNode> i = jsonSeasons.getElements(); i.hasNext(); ) {
+                    final JsonNode jsonSeason = i.next();
+                    final TvShow show = showsById.get(getInt(jsonSeason, "tvshowid"));
+                    if (show == null) { // show is hidden
+                        continue;
+                    }
+                    final Season season = parseSeason(jsonSeason, show, hideWatched);
+                    if (season != null) {
+                        ArrayList<Season> showSeasons = seasonsByShow.get(show.id);
+                        if (showSeasons == null) {
+                            showSeasons = new ArrayList<Season>();
+                            seasonsByShow.put(show.id, showSeasons);
+                        }
+                        showSeasons.add(season);
+                    }
+                }
+            }
+            for (TvShow show : shows) {
+                final ArrayList<Season> showSeasons = seasonsByShow.get(show.id);
+                if (showSeasons != null) {
+                    seasons.addAll(showSeasons);
+                }
+            }
+            return seasons;
+        }
+        if (library.getResponseSize() < 0) { // connection error, already posted
+            return seasons;
+        }
+        Log.d(TAG, "Seasons of all shows not supported (" + all.getError() + "), querying by show.");
+
+        final ArrayList<BatchRequest> batches = new ArrayList<BatchRequest>();
+        for (int i = 0; i < shows.size(); i += SHOWS_PER_BATCH) {
+            final BatchRequest batch = batch();
+            for (TvShow show : shows.subList(i, Math.min(i + SHOWS_PER_BATCH, shows.size()))) {
+                batch.add("VideoLibrary.GetSeasons", seasonParams(show));
+            }
+            batches.add(batch);
+        }
+        execute(manager, batches);
+
+        int n = 0;
+        boolean posted = false;
+        for (BatchRequest batch : batches) {
+            for (BatchRequest.Call call : batch.getCalls()) {
+                final TvShow show = shows.get(n++);
+                if (call.isSuccess()) {
+                    parseSeasons(call.getResult(), show, hideWatched, seasons);
+                } else if (!posted && batch.getResponseSize() >= 0) {
+                    call.getJson(manager);
+                    posted = true;
+                }
+            }
         }
         return seasons;
     }
@@ -286,37 +419,10 @@ public class TvShowClient extends Client implements ITvShowClient {
 
     public ArrayList<Episode> getRecentlyAddedEpisodes(INotifiableManager manager, boolean hideWatched) {
 
-        ObjNode obj = obj().p(PARAM_PROPERTIES, arr().add("title").add("plot").add("rating").add("writer").add("firstaired").add("playcount").add("director").add("season").add("episode").add("file").add("showtitle").add("thumbnail"));
+        ObjNode obj = project(obj(), EPISODE_ROW);
 
         final ArrayList<Episode> episodes = new ArrayList<Episode>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetRecentlyAddedEpisodes", obj);
-        final JsonNode jsonEpisodes = result.get("episodes");
-        if (episodes != null) {
-            for (Iterator<JsonNode> i = jsonEpisodes.getElements(); i.hasNext(); ) {
-                JsonNode jsonEpisode = (JsonNode) i.next();
-
-                int playcount = getInt(jsonEpisode, "playcount");
-                if (playcount > 0 && hideWatched)
-                    continue;
-
-                episodes.add(new Episode(
-                        getInt(jsonEpisode, "episodeid"),
-                        getString(jsonEpisode, "title"),
-                        getString(jsonEpisode, "plot"),
-                        getDouble(jsonEpisode, "rating"),
-                        getString(jsonEpisode, "writer"),
-                        getString(jsonEpisode, "firstaired"),
-                        playcount,
-                        getString(jsonEpisode, "director"),
-                        getInt(jsonEpisode, "season"),
-                        getInt(jsonEpisode, "episode"),
-                        "",
-                        getString(jsonEpisode, "file"),
-                        getString(jsonEpisode, "showtitle"),
-                        getString(jsonEpisode, "thumbnail")
-                ));
-            }
-        }
+        mConnection.getRows(manager, "VideoLibrary.GetRecentlyAddedEpisodes", obj, "episodes", new EpisodeHandler(episodes, manager, hideWatched));
         return episodes;
     }
 
@@ -332,38 +438,47 @@ public class TvShowClient extends Client implements ITvShowClient {
 
     public ArrayList<Episode> getEpisodes(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, boolean hideWatched) {
 
-        obj = sort(obj.p(PARAM_PROPERTIES, arr().add("title").add("plot").add("rating").add("writer").add("firstaired").add("playcount").add("director").add("season").add("episode").add("file").add("showtitle").add("thumbnail")), sortBy, sortOrder);
+        obj = sort(project(obj, EPISODE_ROW), sortBy, sortOrder);
 
         final ArrayList<Episode> episodes = new ArrayList<Episode>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetEpisodes", obj);
-        final JsonNode jsonEpisodes = result.get("episodes");
-        if (jsonEpisodes != null) {
-            for (Iterator<JsonNode> i = jsonEpisodes.getElements(); i.hasNext(); ) {
-                JsonNode jsonEpisode = (JsonNode) i.next();
+        mConnection.getRows(manager, "VideoLibrary.GetEpisodes", obj, "episodes", new EpisodeHandler(episodes, manager, hideWatched));
+        return episodes;
+    }
 
-                int playcount = getInt(jsonEpisode, "playcount");
-                if (playcount > 0 && hideWatched)
-                    continue;
-
-                episodes.add(new Episode(
-                        getInt(jsonEpisode, "episodeid"),
-                        getString(jsonEpisode, "title"),
-                        getString(jsonEpisode, "plot"),
-                        getDouble(jsonEpisode, "rating"),
-                        getString(jsonEpisode, "writer"),
-                        getString(jsonEpisode, "firstaired"),
-                        playcount,
-                        getString(jsonEpisode, "director"),
-                        getInt(jsonEpisode, "season"),
-                        getInt(jsonEpisode, "episode"),
-                        "",
-                        getString(jsonEpisode, "file"),
-                        getString(jsonEpisode, "showtitle"),
-                        getString(jsonEpisode, "thumbnail")
-                ));
-            }
+    /**
+     * Collects the episodes of a streamed episode list.
+     */
+    private static class EpisodeHandler extends ListHandler<Episode> {
+        private final boolean mHideWatched;
+
+        EpisodeHandler(ArrayList<Episode> episodes, INotifiableManager manager, boolean hideWatched) {
+            super(episodes, manager, EPISODE_ROW);
+            mHideWatched = hideWatched;
+        }
+
+        protected Episode build(JsonRow jsonEpisode) {
+
+            int playcount = getInt(jsonEpisode, "playcount");
+            if (playcount > 0 && mHideWatched)
+                return null;
+
+            return new Episode(
+                    getInt(jsonEpisode, "episodeid"),
+                    getString(jsonEpisode, "title"),
+                    getString(jsonEpisode, "plot"),
+                    getDouble(jsonEpisode, "rating"),
+                    getString(jsonEpisode, "writer"),
+                    getString(jsonEpisode, "firstaired"),
+                    playcount,
+                    getString(jsonEpisode, "director"),
+                    getInt(jsonEpisode, "season"),
+                    getInt(jsonEpisode, "episode"),
+                    "",
+                    getString(jsonEpisode, "file"),
+                    getString(jsonEpisode, "showtitle"),
+                    getString(jsonEpisode, "thumbnail")
+            );
         }
-        return episodes;
     }
 
     /**
@@ -379,46 +494,71 @@ public class TvShowClient extends Client implements ITvShowClient {
     }
 
     public TvShow updateTvShowDetails(INotifiableManager manager, TvShow show) {
+        final ArrayList<TvShow> shows = new ArrayList<TvShow>(1);
+        shows.add(show);
+        updateTvShowDetails(manager, shows);
+        return show.actors != null ? show : null;
+    }
 
-        ObjNode obj = obj().p("tvshowid", show.id).p(PARAM_PROPERTIES, arr().add("cast"));
-
-        final ArrayList<Actor> actors = new ArrayList<Actor>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetTvShowDetails", obj);
-        if (result.size() > 0) {
-            final JsonNode jsonCast = result.get("tvshowdetails").get("cast");
-            for (Iterator<JsonNode> i = jsonCast.getElements(); i.hasNext(); ) {
-                JsonNode jsonActor = (JsonNode) i.next();
-                actors.add(new Actor(
-                        getInt(jsonActor, "actorid"),
-                        getString(jsonActor, "name"),
-                        getString(jsonActor, "thumbnail"),
-                        getString(jsonActor, "role")
-                ));
+    /**
+     * Updates several TV show objects with the properties the list leaves
+     * out, in one round trip. Shows already updated are skipped.
+     *
+     * @param shows TV shows
+     * @return Updated TV shows
+     */
+    public ArrayList<TvShow> updateTvShowDetails(INotifiableManager manager, ArrayList<TvShow> shows) {
+        updateDetails(manager, shows, "VideoLibrary.GetTvShowDetails", "tvshowid", "tvshowdetails", TVSHOW_DETAIL, new DetailHandler<TvShow>() {
+            protected int getId(TvShow show) {
+                return show.id;
             }
-            show.actors = actors;
-        }
-        return show;
+
+            protected boolean hasDetails(TvShow show) {
+                return show.actors != null;
+            }
+
+            protected void fill(TvShow show, JsonNode jsonShow) {
+                show.summary = getString(jsonShow, "plot");
+                show.contentRating = getString(jsonShow, "mpaa");
+                show.network = getString(jsonShow, "studio");
+                show.actors = getCast(jsonShow.get("cast"));
+            }
+        });
+        return shows;
     }
 
     public Episode updateEpisodeDetails(INotifiableManager manager, Episode episode) {
-        ObjNode obj = obj().p("episodeid", episode.id).p(PARAM_PROPERTIES, arr().add("cast"));
-
-        final ArrayList<Actor> actors = new ArrayList<Actor>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetEpisodeDetails", obj);
-        if (result.size() > 0) {
-            final JsonNode jsonCast = result.get("episodedetails").get("cast");
-            for (Iterator<JsonNode> i = jsonCast.getElements(); i.hasNext(); ) {
-                JsonNode jsonActor = (JsonNode) i.next();
-                actors.add(new Actor(
-                        getInt(jsonActor, "actorid"),
-                        getString(jsonActor, "name"),
-                        getString(jsonActor, "thumbnail"),
-                        getString(jsonActor, "role")
-                ));
+        final ArrayList<Episode> episodes = new ArrayList<Episode>(1);
+        episodes.add(episode);
+        updateEpisodeDetails(manager, episodes);
+        return episode.actors != null ? episode : null;
+    }
+
+    /**
+     * Updates several episode objects with the properties the list leaves
+     * out, in one round trip. Episodes already updated are skipped.
+     *
+     * @param episodes Episodes
+     * @return Updated episodes
+     */
+    public ArrayList<Episode> updateEpisodeDetails(INotifiableManager manager, ArrayList<Episode> episodes) {
+        updateDetails(manager, episodes, "VideoLibrary.GetEpisodeDetails", "episodeid", "episodedetails", EPISODE_DETAIL, new DetailHandler<Episode>() {
+            protected int getId(Episode episode) {
+                return episode.id;
             }
-            episode.actors = actors;
-        }
-        return episode;
+
+            protected boolean hasDetails(Episode episode) {
+                return episode.actors != null;
+            }
+
+            protected void fill(Episode episode, JsonNode jsonEpisode) {
+                episode.plot = getString(jsonEpisode, "plot");
+                episode.writer = getString(jsonEpisode, "writer");
+                episode.director = getString(jsonEpisode, "director");
+                episode.actors = getCast(jsonEpisode.get("cast"));
+            }
+        });
+        return episodes;
     }
 
     /**
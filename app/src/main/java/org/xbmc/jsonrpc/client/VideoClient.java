@@ -24,6 +24,8 @@ package org.xbmc.jsonrpc.client;
 import android.graphics.Bitmap;
 
 import org.codehaus.jackson.JsonNode;
+import org.xbmc.android.util.PendingRequest;
+import org.xbmc.api.business.DataResponse;
 import org.xbmc.api.business.INotifiableManager;
 import org.xbmc.api.data.IControlClient.ICurrentlyPlaying;
 import org.xbmc.api.data.IVideoClient;
@@ -33,12 +35,15 @@ import org.xbmc.api.object.Genre;
 import org.xbmc.api.object.Host;
 import org.xbmc.api.object.ICoverArt;
 import org.xbmc.api.object.Movie;
+import org.xbmc.api.object.PagedList;
 import org.xbmc.api.type.MediaType;
 import org.xbmc.api.type.SortType;
 import org.xbmc.jsonrpc.Connection;
+import org.xbmc.jsonrpc.JsonRow;
 
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.concurrent.Future;
 
 /**
  * Takes care of everything related to the video database.
@@ -53,6 +58,15 @@ public class VideoClient extends Client implements IVideoClient {
 
     public static final int PLAYLIST_LIMIT = 100;
 
+    /**
+     * Properties of the movie list, only what the rows display and act on
+     */
+    public static final Profile MOVIE_ROW = new Profile("movie", Profile.ROW, "file", "genre", "imdbnumber", "playcount", "rating", "runtime", "thumbnail", "year");
+    /**
+     * Properties the list leaves out, fetched for visible and opened movies
+     */
+    public static final Profile MOVIE_DETAIL = new Profile("movie", Profile.DETAIL, "cast", "director", "mpaa", "plot", "studio", "tagline", "trailer", "votes");
+
     /**
      * Class constructor needs reference to HTTP client connection
      *
@@ -155,19 +169,19 @@ public class VideoClient extends Client implements IVideoClient {
     }
 
     public ArrayList<Movie> getMovies(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, boolean hideWatched) {
+        return getMovies(manager, obj, sortBy, sortOrder, hideWatched, new ArrayList<Movie>());
+    }
+
+    private <T extends ArrayList<Movie>> T getMovies(INotifiableManager manager, ObjNode obj, int sortBy, String sortOrder, final boolean hideWatched, T movies) {
 
-        obj = sort(obj.p(PARAM_PROPERTIES, arr().add("director").add("file").add("genre").add("imdbnumber").add("playcount").add("rating").add("runtime").add("thumbnail").add("year")), sortBy, sortOrder);
+        obj = sort(project(obj, MOVIE_ROW), sortBy, sortOrder);
 
-        final ArrayList<Movie> movies = new ArrayList<Movie>();
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetMovies", obj);
-        final JsonNode jsonMovies = result.get("movies");
-        if (jsonMovies != null) {
-            for (Iterator<JsonNode> i = jsonMovies.getElements(); i.hasNext(); ) {
-                JsonNode jsonMovie = (JsonNode) i.next();
+        mConnection.getRows(manager, "VideoLibrary.GetMovies", obj, "movies", new ListHandler<Movie>(movies, manager, MOVIE_ROW) {
+            protected Movie build(JsonRow jsonMovie) {
 
                 int playcount = getInt(jsonMovie, "playcount");
                 if (playcount > 0 && hideWatched)
-                    continue;
+                    return null;
 
                 int runtime = getInt(jsonMovie, "runtime");
                 String formatted_runtime = "";
@@ -178,7 +192,7 @@ public class VideoClient extends Client implements IVideoClient {
                 }
 
 
-                movies.add(new Movie(
+                return new Movie(
                         getInt(jsonMovie, "movieid"),
                         getString(jsonMovie, "label"),
                         getInt(jsonMovie, "year"),
@@ -191,22 +205,38 @@ public class VideoClient extends Client implements IVideoClient {
                         playcount,
                         getString(jsonMovie, "imdbnumber"),
                         getString(jsonMovie, "thumbnail")
-                ));
+                );
             }
-        }
+        });
         return movies;
     }
 
     /**
-     * Gets movies from database with offset
+     * Gets a window of all movies from database. Watched movies are filtered
+     * after paging, so the window might contain less movies than requested.
      *
      * @param sortBy    Sort field, see SortType.*
      * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
-     * @return Movies with offset
+     * @param start     Position of the first movie to return
+     * @param end       Position after the last movie to return
+     * @return Movies of the window
      */
-    public ArrayList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, int offset, boolean hideWatched) {
+    public PagedList<Movie> getMovies(INotifiableManager manager, int sortBy, String sortOrder, int start, int end, boolean hideWatched) {
+        return getMovies(manager, limits(obj(), start, end), sortBy, sortOrder, hideWatched, new PagedList<Movie>(start));
+    }
 
-        return getMovies(manager, obj().p("limits", obj().p("start", 0)), sortBy, sortOrder, hideWatched);
+    /**
+     * Non-blocking variant of {@link #getMovies(INotifiableManager, int, String, int, int, boolean)}.
+     *
+     * @param response Response object receiving the result
+     * @return Handle for cancelling the request
+     */
+    public Future<PagedList<Movie>> getMoviesAsync(INotifiableManager manager, DataResponse<PagedList<Movie>> response, final int sortBy, final String sortOrder, final int start, final int end, final boolean hideWatched) {
+        return PendingRequest.submit(manager, new PendingRequest.Request<PagedList<Movie>>() {
+            public PagedList<Movie> run(INotifiableManager manager) {
+                return getMovies(manager, sortBy, sortOrder, start, end, hideWatched);
+            }
+        }, response);
     }
 
     /**
@@ -235,41 +265,47 @@ public class VideoClient extends Client implements IVideoClient {
     }
 
     /**
-     * Gets all movies from database
+     * Updates the movie object with additional data (plot, cast, etc)
      *
-     * @param sortBy    Sort field, see SortType.*
-     * @param sortOrder Sort order, must be either SortType.ASC or SortType.DESC.
-     * @return Updated movie
+     * @param movie Movie
+     * @return Updated movie, null on error
      */
     public Movie updateMovieDetails(INotifiableManager manager, Movie movie) {
+        final ArrayList<Movie> movies = new ArrayList<Movie>(1);
+        movies.add(movie);
+        updateMovieDetails(manager, movies);
+        return movie.actors != null ? movie : null;
+    }
 
-        ObjNode obj = obj().p("movieid", movie.getId()).p(PARAM_PROPERTIES, arr().add("cast").add("mpaa").add("plot").add("studio").add("tagline").add("trailer").add("votes"));
-
-        final JsonNode result = mConnection.getJson(manager, "VideoLibrary.GetMovieDetails", obj);
-        final JsonNode jsonMovie = result.get("moviedetails");
-        movie.tagline = getString(jsonMovie, "tagline");
-        movie.plot = getString(jsonMovie, "plot");
-        movie.numVotes = getInt(jsonMovie, "votes");
-        movie.studio = getString(jsonMovie, "studio");
-        movie.rated = getString(jsonMovie, "mpaa");
-        movie.trailerUrl = getString(jsonMovie, "trailer");
-
-
-        ArrayList<Actor> actors = new ArrayList<Actor>();
-        final JsonNode jsonCast = jsonMovie.get("cast");
-        for (Iterator<JsonNode> i = jsonCast.getElements(); i.hasNext(); ) {
-            JsonNode jsonActor = (JsonNode) i.next();
-            actors.add(new Actor(
-                    getInt(jsonActor, "actorid"),
-                    getString(jsonActor, "name"),
-                    getString(jsonActor, "thumbnail"),
-                    getString(jsonActor, "role")
-            ));
-        }
+    /**
+     * Updates several movie objects with the properties the list leaves out,
+     * in one round trip. Movies already updated are skipped.
+     *
+     * @param movies Movies
+     * @return Updated movies
+     */
+    public ArrayList<Movie> updateMovieDetails(INotifiableManager manager, ArrayList<Movie> movies) {
+        updateDetails(manager, movies, "VideoLibrary.GetMovieDetails", "movieid", "moviedetails", MOVIE_DETAIL, new DetailHandler<Movie>() {
+            protected int getId(Movie movie) {
+                return movie.getId();
+            }
 
-        movie.actors = actors;
+            protected boolean hasDetails(Movie movie) {
+                return movie.actors != null;
+            }
 
-        return movie;
+            protected void fill(Movie movie, JsonNode jsonMovie) {
+                movie.director = getString(jsonMovie, "director");
+                movie.tagline = getString(jsonMovie, "tagline");
+                movie.plot = getString(jsonMovie, "plot");
+                movie.numVotes = getInt(jsonMovie, "votes");
+                movie.studio = getString(jsonMovie, "studio");
+                movie.rated = getString(jsonMovie, "mpaa");
+                movie.trailerUrl = getString(jsonMovie, "trailer");
+                movie.actors = getCast(jsonMovie.get("cast"));
+            }
+        });
+        return movies;
     }
 
     /**
@@ -383,7 +419,7 @@ public class VideoClient extends Client implements IVideoClient {
         if (playerid == -1)
             return mConnection.getString(manager, "Player.Open", obj().p("item", obj().p("playlistid", PLAYLIST_ID).p("position", position))).equals("OK");
         else
-            return mConnection.getString(manager, "Player.GoTo", obj().p("playerid", getActivePlayerId(manager)).p("position", position)).equals("OK");
+            return mConnection.getString(manager, "Player.GoTo", obj().p("playerid", playerid).p("position", position)).equals("OK");
     }
 
     /**
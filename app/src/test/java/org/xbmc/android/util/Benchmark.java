@@ -0,0 +1,72 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+
+package org.xbmc.android.util;
+
+import java.lang.reflect.Method;
+
+/**
+ * Helpers for tests measuring time and allocations. The tests assert on
+ * what can be compared reliably, e.g. that one way allocates less than
+ * another. Numbers are only printed if the tests run with
+ * <code>-Dbenchmark=true</code>, so they don't clutter the regular run.
+ *
+ * @author Team XBMC
+ */
+public class Benchmark {
+
+    private Benchmark() {
+    }
+
+    /**
+     * Returns true if the timings should be measured and printed.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("benchmark");
+    }
+
+    /**
+     * Prints a line of results if enabled.
+     *
+     * @param line Results
+     */
+    public static void report(String line) {
+        if (isEnabled()) {
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, -1 if the
+     * JVM doesn't tell. Looked up by reflection as the management classes
+     * aren't part of the Android API the tests are compiled against.
+     */
+    public static long getAllocatedBytes() {
+        try {
+            final Object threads = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+            final Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getCurrentThreadAllocatedBytes");
+            return (Long) method.invoke(threads);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.xbmc.eventclient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xbmc.android.util.Benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives an {@link EventClient} against a {@link LoopbackEventServer} with
+ * a scripted load and checks what came through:
+ * <ul>
+ * <li>Button bursts: {@value #BURSTS} bursts of {@value #BURST_SIZE} button
+ * presses, {@value #BURST_PAUSE}ms apart. Every press must arrive, in
+ * order.</li>
+ * <li>Mouse stream: {@value #MOUSE_SAMPLES} positions, one per millisecond
+ * like a fast touch screen. Coalescing drops most of them on purpose, but
+ * the last one must arrive and none may overtake another.</li>
+ * <li>A notification with an icon, which is split into several packets.</li>
+ * </ul>
+ * The tests wait for what they expect to arrive rather than for the traffic
+ * to calm down, so a slow machine only makes them take longer. Throughput
+ * and the latency between handing the event to the client and receiving it
+ * are printed with <code>-Dbenchmark=true</code>.
+ *
+ * @author Team XBMC
+ */
+public class EventClientLoopbackTest {
+
+    private static final String TAG = "EventClientLoopbackTest";
+    private static final String MAP = "KB";
+    private static final String PREFIX = "bench";
+    private static final int BURSTS = 20;
+    private static final int BURST_SIZE = 50;
+    private static final int BURST_PAUSE = 20;
+    private static final int MOUSE_SAMPLES = 1000;
+    private static final int TIMEOUT = 10000;
+    private static final int ICON_SIZE = 3000;
+    private static final String NOTIFICATION_TITLE = "Benchmark";
+
+    private final Run mButtons = new Run("Button bursts", BURSTS * BURST_SIZE);
+    private final Run mMouse = new Run("Mouse stream", MOUSE_SAMPLES);
+    private final Run mNotification = new Run("Notification", 1);
+    private int mHelos = 0;
+    private int mPings = 0;
+    private volatile int mNotificationPackets = 0;
+    private volatile int mNotificationIconSize = -1;
+    private LoopbackEventServer mServer;
+    private EventClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new LoopbackEventServer(new LoopbackEventServer.Listener() {
+            public void onMessage(LoopbackEventServer.Message message, long received) {
+                if (message.isButton() && message.getButtonName().startsWith(PREFIX)) {
+                    mButtons.received(Integer.parseInt(message.getButtonName().substring(PREFIX.length())), received);
+                } else if (message.isMouse()) {
+                    mMouse.received(message.getMouseX(), received);
+                } else if (message.isHelo() || message.isPing()) {
+                    session(message.isHelo());
+                } else if (message.isNotification() && NOTIFICATION_TITLE.equals(message.getNotificationTitle())) {
+                    mNotificationPackets = message.packets;
+                    mNotificationIconSize = message.getNotificationIconSize();
+                    mNotification.received(0, received);
+                }
+            }
+        });
+        mServer.start();
+        mClient = new EventClient(LoopbackEventServer.getAddress(), mServer.getPort(), TAG);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mClient.stopClient();
+        mServer.stop();
+    }
+
+    @Test
+    public void buttonsArriveInOrder() throws IOException {
+        mButtons.begin();
+        int n = 0;
+        for (int burst = 0; burst < BURSTS; burst++) {
+            for (int i = 0; i < BURST_SIZE; i++, n++) {
+                mButtons.sent(n);
+                mClient.sendButton(MAP, PREFIX + n, false, true, true, (short) 0, (byte) 0);
+            }
+            sleep(BURST_PAUSE);
+        }
+        mButtons.await(BURSTS * BURST_SIZE - 1);
+        Benchmark.report(mButtons.report());
+
+        assertEquals("lost", BURSTS * BURST_SIZE, mButtons.getCount());
+        assertEquals("reordered", 0, mButtons.getReordered());
+        assertEquals("duplicates", 0, mButtons.getDuplicates());
+        assertSession();
+    }
+
+    @Test
+    public void mouseKeepsLastPosition() throws IOException {
+        mMouse.begin();
+        for (int i = 0; i < MOUSE_SAMPLES; i++) {
+            mMouse.sent(i);
+            mClient.sendMouse(i, 0);
+            sleep(1);
+        }
+        mMouse.await(MOUSE_SAMPLES - 1);
+        Benchmark.report(mMouse.report());
+
+        assertTrue("last position", mMouse.isReceived(MOUSE_SAMPLES - 1));
+        assertEquals("reordered", 0, mMouse.getReordered());
+        assertEquals("duplicates", 0, mMouse.getDuplicates());
+        assertSession();
+    }
+
+    @Test
+    public void notificationIconComplete() throws IOException {
+        mClient.sendNotification(NOTIFICATION_TITLE, TAG, Packet.ICON_PNG, new byte[ICON_SIZE]);
+        mNotification.await(0);
+
+        assertTrue("packets", mNotificationPackets > 1);
+        assertEquals("icon size", ICON_SIZE, mNotificationIconSize);
+        assertSession();
+    }
+
+    private synchronized void session(boolean helo) {
+        if (helo) {
+            mHelos++;
+        } else {
+            mPings++;
+        }
+        notifyAll();
+    }
+
+    /**
+     * The client said hello and pinged, and nothing it sent was broken. The
+     * ping thread runs on its own, so its first ping is waited for.
+     */
+    private synchronized void assertSession() {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        long left;
+        while ((mHelos == 0 || mPings == 0) && (left = deadline - System.currentTimeMillis()) > 0) {
+            try {
+                wait(left);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertTrue("HELO", mHelos > 0);
+        assertTrue("PING", mPings > 0);
+        assertEquals("malformed", 0, mServer.getMalformedCount());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Send and receive times of one scripted load.
+     */
+    private static class Run {
+        private final String mName;
+        private final long[] mSent;
+        private final long[] mReceived;
+        private long mStarted;
+        private long mLastReceived;
+        private int mCount = 0;
+        private int mDuplicates = 0;
+        private int mReordered = 0;
+        private int mHighest = -1;
+
+        Run(String name, int events) {
+            mName = name;
+            mSent = new long[events];
+            mReceived = new long[events];
+        }
+
+        void begin() {
+            mStarted = System.nanoTime();
+        }
+
+        void sent(int index) {
+            mSent[index] = System.nanoTime();
+        }
+
+        synchronized void received(int index, long time) {
+            if (index < 0 || index >= mReceived.length) {
+                return;
+            }
+            if (mReceived[index] != 0) {
+                mDuplicates++;
+                return;
+            }
+            mReceived[index] = time;
+            mLastReceived = time;
+            notifyAll();
+            mCount++;
+            if (index < mHighest) {
+                mReordered++;
+            }
+            mHighest = Math.max(mHighest, index);
+        }
+
+        synchronized boolean isReceived(int index) {
+            return mReceived[index] != 0;
+        }
+
+        synchronized int getCount() {
+            return mCount;
+        }
+
+        synchronized int getReordered() {
+            return mReordered;
+        }
+
+        synchronized int getDuplicates() {
+            return mDuplicates;
+        }
+
+        /**
+         * Waits until the event with the given index came in, but no longer
+         * than TIMEOUT. Events are sent in index order, so anything still
+         * missing then is lost, not late.
+         */
+        synchronized void await(int index) {
+            final long deadline = System.currentTimeMillis() + TIMEOUT;
+            long left;
+            while (mReceived[index] == 0 && (left = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        synchronized String report() {
+            final long[] latencies = new long[mCount];
+            int n = 0;
+            for (int i = 0; i < mReceived.length; i++) {
+                if (mReceived[i] != 0) {
+                    latencies[n++] = mReceived[i] - mSent[i];
+                }
+            }
+            Arrays.sort(latencies);
+            final double seconds = (mLastReceived - mStarted) / 1e9;
+            return String.format(Locale.US, "%s: %d sent, %d received, %d reordered, %d duplicates%n"
+                            + "  %.0f events/s, latency p50 %s, p99 %s, max %s",
+                    mName, mSent.length, mCount, mReordered, mDuplicates,
+                    seconds > 0 ? mCount / seconds : 0.0, micros(latencies, 0.5), micros(latencies, 0.99), micros(latencies, 1.0));
+        }
+
+        private static String micros(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return "-";
+            }
+            final int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+            return (sorted[Math.max(0, index)] / 1000) + "us";
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package org.xbmc.eventclient;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * XBMC Event Client Class
+ * <p>
+ * Minimal stand-in for XBMC's EventServer listening on the loopback
+ * interface. It decodes the wire format written by {@link Packet},
+ * reassembles messages split into several packets and hands every complete
+ * message to a {@link Listener} together with the time it was received.
+ * </p>
+ * <p>
+ * It doesn't answer anything and only exists in order to measure and check
+ * the {@link EventClient} without a real XBMC.
+ * </p>
+ *
+ * @author Team XBMC
+ */
+public class LoopbackEventServer implements Runnable {
+
+    private static final String TAG = "LoopbackEventServer";
+    private static final String THREAD_NAME = "XBMC EventServer Loopback";
+    private static final int SIGNATURE = ('X' << 24) | ('B' << 16) | ('M' << 8) | 'C';
+    private static final int HEADER_SIZE = 32;
+
+    private final DatagramSocket mSocket;
+    private final Listener mListener;
+    private final HashMap<Integer, Partial> mPartials = new HashMap<Integer, Partial>();
+    private Thread mThread;
+    private volatile int mMalformed = 0;
+
+    /**
+     * Opens the server on a free port of the loopback interface.
+     *
+     * @param listener Receives the decoded messages on the server thread
+     * @throws SocketException
+     */
+    public LoopbackEventServer(Listener listener) throws SocketException {
+        mSocket = new DatagramSocket(0, getAddress());
+        mListener = listener;
+    }
+
+    /**
+     * Returns the address the server listens on.
+     */
+    public static InetAddress getAddress() {
+        try {
+            return InetAddress.getByName("127.0.0.1");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getPort() {
+        return mSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the number of packets which couldn't be decoded.
+     */
+    public int getMalformedCount() {
+        return mMalformed;
+    }
+
+    public synchronized void start() {
+        if (mThread == null) {
+            mThread = new Thread(this, THREAD_NAME);
+            mThread.setDaemon(true);
+            mThread.start();
+        }
+    }
+
+    public void stop() {
+        mSocket.close();
+    }
+
+    public void run() {
+        final byte[] buffer = new byte[Packet.MAX_PACKET_SIZE];
+        final DatagramPacket datagram = new DatagramPacket(buffer, buffer.length);
+        try {
+            while (!mSocket.isClosed()) {
+                datagram.setLength(buffer.length);
+                mSocket.receive(datagram);
+                final long received = System.nanoTime();
+                final Message message = decode(buffer, datagram.getLength());
+                if (message != null) {
+                    mListener.onMessage(message, received);
+                }
+            }
+        } catch (IOException e) {
+            if (!mSocket.isClosed()) {
+                Log.e(TAG, "Error receiving: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Decodes one packet.
+     *
+     * @return Message if complete, null if more parts are needed or the
+     * packet is broken
+     */
+    private Message decode(byte[] data, int length) {
+        if (length < HEADER_SIZE) {
+            mMalformed++;
+            return null;
+        }
+        final ByteBuffer header = ByteBuffer.wrap(data, 0, HEADER_SIZE);
+        final int signature = header.getInt();
+        final int major = header.get();
+        header.get();
+        final short type = header.getShort();
+        final int seq = header.getInt();
+        final int maxseq = header.getInt();
+        final int size = header.getShort() & 0xffff;
+        final int uid = header.getInt();
+        if (signature != SIGNATURE || major != 2 || HEADER_SIZE + size != length || seq < 1 || seq > Math.max(1, maxseq)) {
+            mMalformed++;
+            return null;
+        }
+        final byte[] payload = new byte[size];
+        System.arraycopy(data, HEADER_SIZE, payload, 0, size);
+        if (maxseq <= 1) {
+            return new Message(type, uid, 1, payload);
+        }
+        Partial partial = mPartials.get(uid);
+        if (partial == null || partial.type != type || partial.parts.length != maxseq) {
+            partial = new Partial(type, maxseq);
+            mPartials.put(uid, partial);
+        }
+        if (partial.parts[seq - 1] == null) {
+            partial.parts[seq - 1] = payload;
+            partial.received++;
+        }
+        if (partial.received < maxseq) {
+            return null;
+        }
+        mPartials.remove(uid);
+        int total = 0;
+        for (byte[] part : partial.parts) {
+            total += part.length;
+        }
+        final byte[] whole = new byte[total];
+        int offset = 0;
+        for (byte[] part : partial.parts) {
+            System.arraycopy(part, 0, whole, offset, part.length);
+            offset += part.length;
+        }
+        return new Message(type, uid, maxseq, whole);
+    }
+
+    /**
+     * Receives complete messages.
+     */
+    public interface Listener {
+        /**
+         * @param message  Decoded message
+         * @param received {@link System#nanoTime()} its last packet came in
+         */
+        void onMessage(Message message, long received);
+    }
+
+    /**
+     * A decoded message. The getters read the payload according to the
+     * layout of the respective packet type.
+     */
+    public static class Message {
+        public final short type;
+        public final int uid;
+        public final int packets;
+        private final byte[] mPayload;
+        private int mPos = 0;
+
+        Message(short type, int uid, int packets, byte[] payload) {
+            this.type = type;
+            this.uid = uid;
+            this.packets = packets;
+            mPayload = payload;
+        }
+
+        public boolean isHelo() {
+            return type == Packet.PT_HELO;
+        }
+
+        public boolean isButton() {
+            return type == Packet.PT_BUTTON;
+        }
+
+        public boolean isMouse() {
+            return type == Packet.PT_MOUSE;
+        }
+
+        public boolean isPing() {
+            return type == Packet.PT_PING;
+        }
+
+        public boolean isNotification() {
+            return type == Packet.PT_NOTIFICATION;
+        }
+
+        public int getPayloadSize() {
+            return mPayload.length;
+        }
+
+        /**
+         * HELO: name of the device.
+         */
+        public String getDeviceName() {
+            mPos = 0;
+            return readString();
+        }
+
+        /**
+         * BUTTON: raw code, 0 if sent by name.
+         */
+        public int getButtonCode() {
+            mPos = 0;
+            return readShort();
+        }
+
+        /**
+         * BUTTON: flags (BT_DOWN, BT_UP, ...).
+         */
+        public int getButtonFlags() {
+            mPos = 2;
+            return readShort();
+        }
+
+        /**
+         * BUTTON: analog amount.
+         */
+        public int getButtonAmount() {
+            mPos = 4;
+            return readShort();
+        }
+
+        /**
+         * BUTTON: map name, e.g. "R1".
+         */
+        public String getButtonMap() {
+            mPos = 6;
+            return readString();
+        }
+
+        /**
+         * BUTTON: button name within the map.
+         */
+        public String getButtonName() {
+            mPos = 6;
+            readString();
+            return readString();
+        }
+
+        /**
+         * MOUSE: horizontal position.
+         */
+        public int getMouseX() {
+            mPos = 1;
+            return readShort();
+        }
+
+        /**
+         * MOUSE: vertical position.
+         */
+        public int getMouseY() {
+            mPos = 3;
+            return readShort();
+        }
+
+        /**
+         * NOTIFICATION: title.
+         */
+        public String getNotificationTitle() {
+            mPos = 0;
+            return readString();
+        }
+
+        /**
+         * NOTIFICATION: message.
+         */
+        public String getNotificationMessage() {
+            mPos = 0;
+            readString();
+            return readString();
+        }
+
+        /**
+         * NOTIFICATION: size of the attached icon.
+         */
+        public int getNotificationIconSize() {
+            mPos = 0;
+            readString();
+            readString();
+            return Math.max(0, mPayload.length - mPos - 5);
+        }
+
+        private int readShort() {
+            if (mPos + 2 > mPayload.length) {
+                return -1;
+            }
+            final int value = ((mPayload[mPos] & 0xff) << 8) | (mPayload[mPos + 1] & 0xff);
+            mPos += 2;
+            return value;
+        }
+
+        private String readString() {
+            final int start = mPos;
+            while (mPos < mPayload.length && mPayload[mPos] != 0) {
+                mPos++;
+            }
+            final int end = mPos;
+            if (mPos < mPayload.length) {
+                mPos++;
+            }
+            try {
+                return new String(mPayload, start, end - start, "UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                return new String(mPayload, start, end - start);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "type " + type + ", " + packets + " packet(s), " + mPayload.length + " bytes";
+        }
+    }
+
+    private static class Partial {
+        final short type;
+        final byte[][] parts;
+        int received = 0;
+
+        Partial(short type, int maxseq) {
+            this.type = type;
+            this.parts = new byte[maxseq][];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.xbmc.eventclient;
+
+import org.junit.Test;
+import org.xbmc.android.util.Benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that encoding a packet into the sender's buffer doesn't allocate,
+ * the way {@link PacketSender} does it for every button, mouse move and
+ * HELO. The cost of building and encoding each packet type is measured
+ * and printed with <code>-Dbenchmark=true</code>.
+ *
+ * @author Team XBMC
+ */
+public class PacketEncodeTest {
+
+    private static final int ENCODES = 100000;
+    private static final int PACKETS = 1000000;
+    private static final int HELO_PACKETS = 10000;
+    private static final int RUNS = 5;
+
+    private static final byte[] ICON = new byte[20 * 1024];
+
+    private interface Factory {
+        Packet create(int i);
+    }
+
+    private static final Factory BUTTON = new Factory() {
+        public Packet create(int i) {
+            return new PacketBUTTON((short) i, false, true, true, (short) 0, (byte) 0);
+        }
+    };
+
+    private static final Factory MOUSE = new Factory() {
+        public Packet create(int i) {
+            return new PacketMOUSE(i & 0xffff, i >>> 16);
+        }
+    };
+
+    private static final Factory HELO = new Factory() {
+        public Packet create(int i) {
+            return new PacketHELO("XBMC Remote", Packet.ICON_PNG, ICON);
+        }
+    };
+
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(Packet.MAX_PACKET_SIZE);
+
+    @Test
+    public void encodeDoesNotAllocate() {
+        assumeTrue(Benchmark.getAllocatedBytes() >= 0);
+        assertEquals("BUTTON", 0, allocatedPerEncode(BUTTON.create(1)));
+        assertEquals("MOUSE", 0, allocatedPerEncode(MOUSE.create(1)));
+        assertEquals("HELO", 0, allocatedPerEncode(HELO.create(1)));
+    }
+
+    @Test
+    public void benchmark() {
+        assumeTrue(Benchmark.isEnabled());
+        run("BUTTON", PACKETS, BUTTON);
+        run("MOUSE", PACKETS, MOUSE);
+        run("HELO 20KB icon", HELO_PACKETS, HELO);
+    }
+
+    /**
+     * Returns the bytes allocated per encoded part of a packet, after
+     * warming up.
+     */
+    private long allocatedPerEncode(Packet packet) {
+        final int maxseq = packet.getNumPackets();
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            final long bytes = Benchmark.getAllocatedBytes();
+            for (int i = 0; i < ENCODES; i++) {
+                packet.encode(i % maxseq + 1, mBuffer);
+            }
+            allocated = Math.min(allocated, Benchmark.getAllocatedBytes() - bytes);
+        }
+        return allocated / ENCODES;
+    }
+
+    /**
+     * Measures building and encoding, best of {@value #RUNS} runs.
+     */
+    private void run(String name, int packets, Factory factory) {
+        final boolean allocations = Benchmark.getAllocatedBytes() >= 0;
+        long best = Long.MAX_VALUE;
+        long allocated = Long.MAX_VALUE;
+        int sink = 0;
+        for (int run = 0; run < RUNS; run++) {
+            final long bytes = Benchmark.getAllocatedBytes();
+            final long start = System.nanoTime();
+            for (int i = 0; i < packets; i++) {
+                final Packet packet = factory.create(i);
+                final int maxseq = packet.getNumPackets();
+                for (int seq = 1; seq <= maxseq; seq++) {
+                    packet.encode(seq, mBuffer);
+                    sink += mBuffer.remaining();
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = Math.min(allocated, Benchmark.getAllocatedBytes() - bytes);
+        }
+        Benchmark.report(String.format(Locale.US, "%-16s %8d ns/packet %8d B/packet  (%d)",
+                name, best / packets, allocations ? allocated / packets : -1, sink));
+    }
+}
@@ -0,0 +1,170 @@
+package org.xbmc.eventclient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the bytes {@link Packet#encode(int, ByteBuffer)} writes against
+ * the event server protocol, header and payload.
+ *
+ * @author Team XBMC
+ */
+public class PacketTest {
+
+    private static final int UID = 0x12345678;
+
+    private final ByteBuffer mBuffer = ByteBuffer.allocate(Packet.MAX_PACKET_SIZE);
+    private int mUid;
+
+    @Before
+    public void setUp() throws Exception {
+        // the token is random per process, pin it so the header is known
+        mUid = uid().getInt(null);
+        uid().setInt(null, UID);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        uid().setInt(null, mUid);
+    }
+
+    @Test
+    public void buttonByCode() {
+        final Packet packet = new PacketBUTTON((short) 0x0101, false, true, false, (short) 0, (byte) 0);
+        assertEquals(1, packet.getNumPackets());
+        assertArrayEquals(bytes(header(0x03, 1, 1, 8),
+                0x01, 0x01, // code
+                0x00, 0x22, // flags: down, no repeat
+                0x00, 0x00, // amount
+                0x00, // map name
+                0x00 // button name
+        ), encode(packet, 1));
+    }
+
+    @Test
+    public void buttonByName() {
+        final Packet packet = new PacketBUTTON("KB", "enter", true, false, true, (short) 0x7fff, (byte) 0);
+        assertArrayEquals(bytes(header(0x03, 1, 1, 15),
+                0x00, 0x00, // code
+                0x00, 0x1d, // flags: name, amount, up, queue
+                0x7f, 0xff, // amount
+                'K', 'B', 0x00,
+                'e', 'n', 't', 'e', 'r', 0x00
+        ), encode(packet, 1));
+    }
+
+    @Test
+    public void mouse() {
+        final Packet packet = new PacketMOUSE(300, 65535);
+        assertArrayEquals(bytes(header(0x04, 1, 1, 5),
+                0x01, // absolute
+                0x01, 0x2c, // x
+                0xff, 0xff // y
+        ), encode(packet, 1));
+    }
+
+    @Test
+    public void pingAndBye() {
+        final Packet ping = new PacketPING();
+        assertEquals(1, ping.getNumPackets());
+        assertArrayEquals(header(0x05, 1, 1, 0), encode(ping, 1));
+        final Packet bye = new PacketBYE();
+        assertEquals(1, bye.getNumPackets());
+        assertArrayEquals(header(0x02, 1, 1, 0), encode(bye, 1));
+    }
+
+    @Test
+    public void notificationInParts() {
+        final byte[] icon = new byte[2000];
+        for (int i = 0; i < icon.length; i++) {
+            icon[i] = (byte) i;
+        }
+        final Packet packet = new PacketNOTIFICATION("T", "Msg", Packet.ICON_PNG, icon);
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        payload.write('T');
+        payload.write(0);
+        payload.write('M');
+        payload.write('s');
+        payload.write('g');
+        payload.write(0);
+        payload.write(Packet.ICON_PNG);
+        payload.write(0); // reserved
+        payload.write(0);
+        payload.write(0);
+        payload.write(0);
+        payload.write(icon, 0, icon.length);
+        final byte[] expected = payload.toByteArray();
+        assertEquals(2011, expected.length);
+
+        assertEquals(3, packet.getNumPackets());
+        final int[] sizes = {992, 992, 27};
+        int offset = 0;
+        for (int seq = 1; seq <= 3; seq++) {
+            final byte[] part = new byte[sizes[seq - 1]];
+            System.arraycopy(expected, offset, part, 0, part.length);
+            offset += part.length;
+            assertArrayEquals("part " + seq, concat(header(0x07, seq, 3, part.length), part), encode(packet, seq));
+        }
+    }
+
+    @Test
+    public void reusesBuffer() {
+        // a long packet followed by a short one must not leave bytes behind
+        encode(new PacketNOTIFICATION("Title", "Message", Packet.ICON_PNG, new byte[500]), 1);
+        assertArrayEquals(header(0x05, 1, 1, 0), encode(new PacketPING(), 1));
+    }
+
+    private byte[] encode(Packet packet, int seq) {
+        packet.encode(seq, mBuffer);
+        final byte[] bytes = new byte[mBuffer.remaining()];
+        mBuffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the 32 header bytes, spelled out the way the event server
+     * reads them.
+     */
+    private static byte[] header(int type, int seq, int maxseq, int size) {
+        return bytes(new byte[0],
+                'X', 'B', 'M', 'C', // signature
+                2, 0, // version
+                0x00, type,
+                seq >>> 24, seq >>> 16, seq >>> 8, seq,
+                maxseq >>> 24, maxseq >>> 16, maxseq >>> 8, maxseq,
+                size >>> 8, size,
+                0x12, 0x34, 0x56, 0x78, // uid
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0 // reserved
+        );
+    }
+
+    private static byte[] bytes(byte[] head, int... tail) {
+        final byte[] bytes = new byte[head.length + tail.length];
+        System.arraycopy(head, 0, bytes, 0, head.length);
+        for (int i = 0; i < tail.length; i++) {
+            bytes[head.length + i] = (byte) tail[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        final byte[] bytes = new byte[a.length + b.length];
+        System.arraycopy(a, 0, bytes, 0, a.length);
+        System.arraycopy(b, 0, bytes, a.length, b.length);
+        return bytes;
+    }
+
+    private static Field uid() throws NoSuchFieldException {
+        final Field field = Packet.class.getDeclaredField("uid");
+        field.setAccessible(true);
+        return field;
+    }
+}
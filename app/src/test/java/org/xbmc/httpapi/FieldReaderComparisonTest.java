@@ -0,0 +1,176 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.httpapi;
+
+import org.junit.Test;
+import org.xbmc.android.util.Benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares {@link FieldReader} with the way database responses were parsed
+ * before: reading the body line by line, cutting it at every
+ * <code>&lt;field&gt;</code> and trimming the tags off each value with
+ * {@link Connection#trim(String)}.
+ * <p>
+ * The tests check both produce the same rows and that FieldReader
+ * allocates less. The timing and allocations of both on a songs-like
+ * response are printed with <code>-Dbenchmark=true</code>.
+ *
+ * @author Team XBMC
+ */
+public class FieldReaderComparisonTest {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 20000;
+    private static final int RUNS = 15;
+
+    @Test
+    public void parsesLikeSplit() throws IOException {
+        final String response = songs(2000);
+        final ArrayList<String[]> expected = parseSplit(response);
+        final ArrayList<String[]> actual = parseFieldReader(response);
+        assertEquals(2000, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals("row " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void allocatesLessThanSplit() throws IOException {
+        assumeTrue(Benchmark.getAllocatedBytes() >= 0);
+        final String response = songs(2000);
+        final long split = measure(response, false, 2000, 1)[1];
+        final long fieldReader = measure(response, true, 2000, 1)[1];
+        assertTrue("FieldReader allocated " + fieldReader + " bytes, split " + split, fieldReader < split);
+    }
+
+    /**
+     * Prints time and allocations of both parsers, best of {@value #RUNS}
+     * runs each.
+     */
+    @Test
+    public void benchmark() throws IOException {
+        assumeTrue(Benchmark.isEnabled());
+        final String response = songs(ROWS);
+        Benchmark.report(String.format(Locale.US, "Response: %.1fMB, %d rows x %d fields", response.length() / 1048576.0, ROWS, COLUMNS));
+        final boolean allocations = Benchmark.getAllocatedBytes() >= 0;
+        for (int parser = 0; parser < 2; parser++) {
+            final long[] result = measure(response, parser == 1, ROWS, RUNS);
+            Benchmark.report(String.format(Locale.US, "%-35s %4dms %s", parser == 0 ? "readLine + replace + split + trim:" : "FieldReader:",
+                    result[0] / 1000000, allocations ? String.format(Locale.US, "%4dMB allocated", result[1] / 1048576) : ""));
+        }
+    }
+
+    /**
+     * Returns the best time and the fewest bytes allocated parsing the
+     * response with one of the parsers.
+     */
+    private static long[] measure(String response, boolean fieldReader, int expected, int runs) throws IOException {
+        long best = Long.MAX_VALUE;
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            final long bytes = Benchmark.getAllocatedBytes();
+            final long start = System.nanoTime();
+            final int rows = fieldReader ? parseFieldReader(response).size() : parseSplit(response).size();
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = Math.min(allocated, Benchmark.getAllocatedBytes() - bytes);
+            assertEquals(expected, rows);
+        }
+        return new long[]{best, allocated};
+    }
+
+    /**
+     * The parsing done before {@link FieldReader}.
+     */
+    private static ArrayList<String[]> parseSplit(String body) throws IOException {
+        final BufferedReader in = new BufferedReader(new StringReader(body), 8192);
+        final StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null) {
+            sb.append(line);
+        }
+        final String response = sb.toString().replace("<html>", "").replace("</html>", "");
+        final String[] fields = response.split("<field>");
+        final ArrayList<String[]> rows = new ArrayList<String[]>();
+        for (int i = 1; i + COLUMNS <= fields.length; i += COLUMNS) {
+            final String[] row = new String[COLUMNS];
+            for (int j = 0; j < COLUMNS; j++) {
+                row[j] = Connection.trim(fields[i + j]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static ArrayList<String[]> parseFieldReader(String body) {
+        final FieldReader reader = new FieldReader(new StringReader(body));
+        final ArrayList<String[]> rows = new ArrayList<String[]>();
+        while (reader.nextRow(COLUMNS)) {
+            final String[] row = new String[COLUMNS];
+            for (int j = 0; j < COLUMNS; j++) {
+                row[j] = reader.getString(j);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Builds a response like the one of the songs query: id, title, artist,
+     * album, track, duration, path, filename and thumb.
+     */
+    private static String songs(int count) {
+        final StringBuilder sb = new StringBuilder(count * 300);
+        sb.append("<html>\n");
+        for (int i = 0; i < count; i++) {
+            final int album = i / 12;
+            sb.append("<record>");
+            field(sb, String.valueOf(i + 1));
+            field(sb, "Song number " + i + " (Remastered)");
+            field(sb, "Artist " + (album % 150) + ", Guest " + (i % 7));
+            field(sb, "Album " + album);
+            field(sb, String.valueOf(i % 12 + 1));
+            field(sb, String.valueOf(120 + i % 300));
+            field(sb, "smb://nas/music/Artist " + (album % 150) + "/Album " + album + "/");
+            field(sb, String.format(Locale.US, "%02d - Song number %d.flac", i % 12 + 1, i));
+            field(sb, "image://smb%3a%2f%2fnas%2fmusic%2fArtist%20" + (album % 150) + "%2fAlbum%20" + album + "%2ffolder.jpg/");
+            sb.append("</record>\n");
+        }
+        sb.append("</html>\n");
+        return sb.toString();
+    }
+
+    private static void field(StringBuilder sb, String value) {
+        sb.append("<field>").append(value).append("</field>");
+    }
+}
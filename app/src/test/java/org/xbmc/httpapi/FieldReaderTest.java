@@ -0,0 +1,235 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+package org.xbmc.httpapi;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the tokenizer of HTTP API database responses.
+ *
+ * @author Team XBMC
+ */
+public class FieldReaderTest {
+
+    /**
+     * Size of the reader's buffer
+     */
+    private static final int BUFFER = 8192;
+
+    @Test
+    public void readsRows() {
+        final FieldReader reader = new FieldReader(new StringReader("<html>\n"
+                + "<record><field>1</field><field>First</field></record>\n"
+                + "<record><field>2</field><field>Second</field></record>\n"
+                + "</html>"));
+        assertTrue(reader.nextRow(2));
+        assertEquals(1, reader.getInt(0));
+        assertEquals("First", reader.getString(1));
+        assertTrue(reader.nextRow(2));
+        assertEquals(2, reader.getInt(0));
+        assertEquals("Second", reader.getString(1));
+        assertFalse(reader.nextRow(2));
+        assertNull(reader.getError());
+    }
+
+    @Test
+    public void readsTypedColumns() {
+        final FieldReader reader = new FieldReader(new StringReader(
+                "<field>1,234</field><field></field><field>x</field><field>7.5</field><field>true</field><field>0</field>"));
+        assertTrue(reader.nextRow(6));
+        assertEquals(1234, reader.getInt(0));
+        assertEquals(-1, reader.getInt(1));
+        assertEquals(-1, reader.getInt(2));
+        assertEquals(7.5, reader.getDouble(3), 0.0);
+        assertEquals(-1.0, reader.getDouble(1), 0.0);
+        assertTrue(reader.getBoolean(4));
+        assertFalse(reader.getBoolean(5));
+    }
+
+    @Test
+    public void readsTagsSplitAcrossBufferBoundary() throws IOException {
+        // move the tags over the end of the first buffer one character at a time
+        for (int offset = BUFFER - 20; offset <= BUFFER + 4; offset++) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < offset; i++) {
+                sb.append(' ');
+            }
+            sb.append("<record><field>42</field><field>Boundary</field></record>");
+            final FieldReader reader = new FieldReader(new StringReader(sb.toString()));
+            assertTrue("offset " + offset, reader.nextRow(2));
+            assertEquals("offset " + offset, 42, reader.getInt(0));
+            assertEquals("offset " + offset, "Boundary", reader.getString(1));
+            assertFalse(reader.nextRow(2));
+        }
+    }
+
+    @Test
+    public void readsTagsSplitAcrossReads() {
+        final String response = "<record><field>1</field><field>a < b</field></record><record><field>2</field><field>c</field></record>";
+        // short reads split every tag at every position
+        for (int chunk = 1; chunk <= 9; chunk++) {
+            final FieldReader reader = new FieldReader(new ChunkedReader(response, chunk));
+            assertTrue(reader.nextRow(2));
+            assertEquals("a < b", reader.getString(1));
+            assertTrue(reader.nextRow(2));
+            assertEquals("c", reader.getString(1));
+            assertFalse(reader.nextRow(2));
+        }
+    }
+
+    @Test
+    public void keepsLessThanInValues() {
+        final FieldReader reader = new FieldReader(new StringReader(
+                "<field>a < b</field><field><</field><field>x<field</field><field>1 </ 2</field><field><b>bold</b></field>"));
+        assertTrue(reader.nextRow(5));
+        assertEquals("a < b", reader.getString(0));
+        assertEquals("<", reader.getString(1));
+        assertEquals("x<field", reader.getString(2));
+        assertEquals("1 </ 2", reader.getString(3));
+        assertEquals("<b>bold</b>", reader.getString(4));
+    }
+
+    @Test
+    public void stopsAtTruncatedResponse() {
+        final String complete = "<record><field>1</field><field>One</field></record>";
+        final String[] truncated = {
+                complete + "<record><field>2</field><field>Tw",
+                complete + "<record><field>2</field><field>Two</fi",
+                complete + "<record><field>2</field><fie",
+                complete + "<record><field>2</field><",
+        };
+        for (String response : truncated) {
+            final FieldReader reader = new FieldReader(new StringReader(response));
+            assertTrue(response, reader.nextRow(2));
+            assertEquals("One", reader.getString(1));
+            assertFalse(response, reader.nextRow(2));
+            assertNull(reader.getError());
+        }
+    }
+
+    @Test
+    public void readsNonAsciiValues() {
+        // accented latin, a dash, japanese and an emoji outside the BMP
+        final String[] values = {"Bj\u00f6rk", "Sigur R\u00f3s \u2013 \u00c1g\u00e6tis byrjun", "\u65e5\u672c\u8a9e\u306e\u30bf\u30a4\u30c8\u30eb", "\ud83c\udfb5 Emoji"};
+        final StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            sb.append("<record><field>").append(value).append("</field></record>");
+        }
+        // also split surrogate pairs and multi-byte characters between reads
+        for (int chunk = 1; chunk <= 3; chunk++) {
+            final FieldReader reader = new FieldReader(new ChunkedReader(sb.toString(), chunk));
+            for (String value : values) {
+                assertTrue(reader.nextRow(1));
+                assertEquals(value, reader.getString(0));
+            }
+            assertFalse(reader.nextRow(1));
+        }
+    }
+
+    @Test
+    public void endsAtReadError() {
+        final String response = "<record><field>1</field><field>One</field></record><record><field>2</field><field>Two</field></record>";
+        final int failAt = response.indexOf("<record>", 1) + 12;
+        final FieldReader reader = new FieldReader(new FailingReader(response, failAt));
+        assertTrue(reader.nextRow(2));
+        assertEquals("One", reader.getString(1));
+        assertFalse(reader.nextRow(2));
+        assertNotNull(reader.getError());
+        // stays at the end
+        assertFalse(reader.nextRow(2));
+    }
+
+    @Test
+    public void readsEmptyResponse() {
+        final FieldReader reader = new FieldReader(new StringReader(""));
+        assertFalse(reader.nextRow(3));
+        assertNull(reader.getError());
+    }
+
+    /**
+     * Hands out a string a few characters per read.
+     */
+    static class ChunkedReader extends Reader {
+        private final String mText;
+        private final int mChunk;
+        private int mPos = 0;
+
+        ChunkedReader(String text, int chunk) {
+            mText = text;
+            mChunk = chunk;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            if (mPos >= mText.length()) {
+                return -1;
+            }
+            final int n = Math.min(Math.min(count, mChunk), mText.length() - mPos);
+            mText.getChars(mPos, mPos + n, buffer, offset);
+            mPos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Throws once a given position is reached, like a connection reset.
+     */
+    static class FailingReader extends Reader {
+        private final String mText;
+        private final int mFailAt;
+        private int mPos = 0;
+
+        FailingReader(String text, int failAt) {
+            mText = text;
+            mFailAt = failAt;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int count) throws IOException {
+            if (mPos >= mFailAt) {
+                throw new IOException("Connection reset");
+            }
+            final int n = Math.min(count, mFailAt - mPos);
+            mText.getChars(mPos, mPos + n, buffer, offset);
+            mPos += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
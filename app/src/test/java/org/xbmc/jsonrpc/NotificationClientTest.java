@@ -0,0 +1,155 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+
+package org.xbmc.jsonrpc;
+
+import org.codehaus.jackson.JsonNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a {@link NotificationClient} against a fake XBMC listening on the
+ * loopback interface.
+ *
+ * @author Team XBMC
+ */
+public class NotificationClientTest {
+
+    private static final int MIN_DELAY = 50;
+    private static final int MAX_DELAY = 400;
+    private static final int TIMEOUT = 5000;
+
+    private final BlockingQueue<String> mEvents = new LinkedBlockingQueue<String>();
+    private final List<JsonNode> mData = Collections.synchronizedList(new ArrayList<JsonNode>());
+    private ServerSocket mServer;
+    private NotificationClient mClient;
+
+    @Before
+    public void setUp() throws IOException {
+        mServer = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        mServer.setSoTimeout(TIMEOUT);
+        mClient = new NotificationClient("127.0.0.1", mServer.getLocalPort(), new NotificationClient.Listener() {
+            public void onNotification(String method, JsonNode data) {
+                mData.add(data);
+                mEvents.add(method);
+            }
+
+            public void onConnected() {
+                mEvents.add("connected");
+            }
+
+            public void onDisconnected() {
+                mEvents.add("disconnected");
+            }
+        }, NotificationClient.PLAYER_ON_PLAY, NotificationClient.PLAYER_ON_PAUSE, NotificationClient.PLAYER_ON_STOP);
+        mClient.setRetryDelays(MIN_DELAY, MAX_DELAY);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        mClient.stop();
+        mServer.close();
+    }
+
+    @Test
+    public void readsUnframedObjects() throws Exception {
+        mClient.start();
+        final Socket socket = mServer.accept();
+        try {
+            assertEquals("connected", next());
+            final OutputStream out = socket.getOutputStream();
+            // several objects per write, and objects cut in the middle
+            write(out, "{\"jsonrpc\":\"2.0\",\"method\":\"Player.OnPlay\",\"params\":{\"data\":{\"item\":{\"id\":1}}}}"
+                    + "{\"jsonrpc\":\"2.0\",\"method\":\"System.OnQuit\",\"params\":{\"data\":null}}\n"
+                    + "{\"jsonrpc\":\"2.0\",\"method\":\"Player.OnSt");
+            write(out, "op\",\"params\":{\"sender\":\"xbmc\"}}  [1, 2]");
+            write(out, "{\"jsonrpc\":\"2.0\",\"result\":\"OK\",\"id\":1}"
+                    + "{\"jsonrpc\":\"2.0\",\"method\":\"Player.OnPause\",\"params\":{\"data\":{\"player\":{\"speed\":0}}}}");
+
+            // System.OnQuit isn't subscribed, the array and the response aren't notifications
+            assertEquals(NotificationClient.PLAYER_ON_PLAY, next());
+            assertEquals(NotificationClient.PLAYER_ON_STOP, next());
+            assertEquals(NotificationClient.PLAYER_ON_PAUSE, next());
+            assertEquals(3, mData.size());
+            assertEquals(1, mData.get(0).get("item").get("id").getIntValue());
+            assertNull(mData.get(1));
+            assertEquals(0, mData.get(2).get("player").get("speed").getIntValue());
+            assertTrue(mClient.isConnected());
+        } finally {
+            socket.close();
+        }
+        assertEquals("disconnected", next());
+    }
+
+    @Test
+    public void backsOffWhileDropped() throws Exception {
+        mClient.start();
+        // accepts and drops right away, so the delay keeps doubling up to the maximum
+        final ArrayList<Long> accepted = new ArrayList<Long>();
+        for (int i = 0; i < 7; i++) {
+            final Socket socket = mServer.accept();
+            accepted.add(System.nanoTime());
+            socket.close();
+        }
+        int delay = MIN_DELAY;
+        for (int i = 1; i < accepted.size(); i++) {
+            final long gap = (accepted.get(i) - accepted.get(i - 1)) / 1000000;
+            // a little less than the delay, the first accept may have been noticed late
+            assertTrue("attempt " + i + " after " + gap + "ms, expected " + delay + "ms", gap >= delay * 4 / 5);
+            delay = Math.min(delay * 2, MAX_DELAY);
+        }
+        final long last = (accepted.get(accepted.size() - 1) - accepted.get(accepted.size() - 2)) / 1000000;
+        assertTrue("last attempt after " + last + "ms, not capped at " + MAX_DELAY + "ms", last < 3 * MAX_DELAY);
+        assertEquals("connected", next());
+        assertEquals("disconnected", next());
+    }
+
+    private String next() throws InterruptedException {
+        final String event = mEvents.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+        assertNotNull("timed out", event);
+        return event;
+    }
+
+    private static void write(OutputStream out, String json) throws IOException, InterruptedException {
+        out.write(json.getBytes("UTF-8"));
+        out.flush();
+        Thread.sleep(20);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ *      Copyright (C) 2005-2010 Team XBMC
+ *      http://xbmc.org
+ *
+ *  This Program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation; either version 2, or (at your option)
+ *  any later version.
+ *
+ *  This Program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with XBMC Remote; see the file license.  If not, write to
+ *  the Free Software Foundation, 675 Mass Ave, Cambridge, MA 02139, USA.
+ *  http://www.gnu.org/copyleft/gpl.html
+ *
+ */
+
+
+package org.xbmc.jsonrpc;
+
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonNode;
+import org.junit.Test;
+import org.xbmc.android.util.Benchmark;
+import org.xbmc.jsonrpc.client.Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.xbmc.jsonrpc.client.Client.arr;
+import static org.xbmc.jsonrpc.client.Client.obj;
+
+/**
+ * Compares {@link RequestTemplate} with building the parameters as tree
+ * and writing it for every call, the way polling requests were sent
+ * before. Both must produce the same bytes, and the template must
+ * allocate less per call.
+ *
+ * @author Team XBMC
+ */
+public class RequestTemplateTest {
+
+    private static final String METHOD = "Player.GetProperties";
+    private static final RequestTemplate TEMPLATE = new RequestTemplate(METHOD,
+            obj().p("playerid", RequestTemplate.slot(0)).p("label", RequestTemplate.slot(1)).p("properties", properties()));
+    private static final int CALLS = 20000;
+    private static final int RUNS = 5;
+
+    private final ByteArrayOutputStream mOut = new ByteArrayOutputStream(512);
+
+    @Test
+    public void encodesLikeTree() throws IOException {
+        assertArrayEquals(encodeTree(7, "a \"quoted\" é label"), encodeTemplate(7, "a \"quoted\" é label"));
+        final String escaped = "tab\tnew\nline\r\b\f back\\slash /\u0001\u001f \u20ac \ud83c\udfb5";
+        assertArrayEquals(encodeTree(-1, escaped), encodeTemplate(-1, escaped));
+        assertArrayEquals(encodeTree(0, null), encodeTemplate(0, null));
+    }
+
+    @Test
+    public void allocatesLessThanTree() throws IOException {
+        assumeTrue(Benchmark.getAllocatedBytes() >= 0);
+        final long[] tree = measure(false);
+        final long[] template = measure(true);
+        Benchmark.report(String.format(Locale.US, "%s, %d calls: tree %d ns %d B/call, template %d ns %d B/call",
+                METHOD, CALLS, tree[0] / CALLS, tree[1] / CALLS, template[0] / CALLS, template[1] / CALLS));
+        assertTrue("template allocates " + template[1] / CALLS + " B/call, tree " + tree[1] / CALLS,
+                template[1] < tree[1]);
+    }
+
+    /**
+     * Returns best time and fewest allocated bytes of {@value #RUNS} runs.
+     */
+    private long[] measure(boolean template) throws IOException {
+        long best = Long.MAX_VALUE;
+        long allocated = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            final long bytes = Benchmark.getAllocatedBytes();
+            final long start = System.nanoTime();
+            for (int i = 0; i < CALLS; i++) {
+                if (template) {
+                    encodeTemplate(i, "label");
+                } else {
+                    encodeTree(i, "label");
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            allocated = Math.min(allocated, Benchmark.getAllocatedBytes() - bytes);
+        }
+        return new long[]{best, allocated};
+    }
+
+    private byte[] encodeTemplate(int playerId, String label) throws IOException {
+        mOut.reset();
+        TEMPLATE.writeTo(mOut, "1", new Object[]{playerId, label});
+        return mOut.toByteArray();
+    }
+
+    /**
+     * Builds the parameters and writes the envelope like
+     * {@link Connection} did before templates.
+     */
+    private byte[] encodeTree(int playerId, String label) throws IOException {
+        mOut.reset();
+        final JsonNode parameters = obj().p("playerid", playerId).p("label", label).p("properties", properties());
+        final JsonGenerator jg = Client.JSON_FACTORY.createJsonGenerator(mOut, JsonEncoding.UTF8);
+        jg.writeStartObject();
+        jg.writeStringField("jsonrpc", "2.0");
+        jg.writeStringField("method", METHOD);
+        jg.writeStringField("id", "1");
+        jg.writeFieldName("params");
+        jg.writeTree(parameters);
+        jg.writeEndObject();
+        jg.close();
+        return mOut.toByteArray();
+    }
+
+    private static JsonNode properties() {
+        return arr().add("time").add("totaltime").add("percentage").add("speed").add("position");
+    }
+}